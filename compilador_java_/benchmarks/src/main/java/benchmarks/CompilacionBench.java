@@ -0,0 +1,45 @@
+package benchmarks;
+
+import compilador.Compilador;
+import compilador.Unidad;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import lexer.Fuente;
+import org.openjdk.jmh.annotations.*;
+
+// Compilación completa (Lexer + Parser + tabla de símbolos + errores),
+// con programas válidos y con programas rotos a propósito, y con el lexer en
+// el mismo hilo que el parser o en uno propio
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss512m")
+@State(Scope.Benchmark)
+public class CompilacionBench {
+    @Param({"4K", "64K", "4M"})
+    public String bytes;
+
+    @Param({"0", "0.05"})
+    public double errores;
+
+    @Param({"false", "true"})
+    public boolean lexerEnParalelo;
+
+    private Fuente fuente;
+    private Compilador compilador;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        fuente = Programas.fuente(bytes, 0.1, errores);
+        compilador = new Compilador(StandardCharsets.UTF_8, false).lexerEnParalelo(lexerEnParalelo);
+    }
+
+    @Benchmark
+    public Unidad compilar(Contadores c) {
+        Unidad u = compilador.compilar(fuente, "bench", Programas.NULA, Programas.NULA);
+        c.tokens += u.getTokens().tamaño();
+        c.bytes += fuente.longitud();
+        return u;
+    }
+}
@@ -0,0 +1,17 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+// JMH informa estos campos como tasas por segundo (tokens/s y bytes/s)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+@State(Scope.Thread)
+public class Contadores {
+    public long tokens;
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reiniciar() {
+        tokens = 0;
+        bytes = 0;
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import lexer.*;
+import org.openjdk.jmh.annotations.*;
+
+// Salto de comentarios, cadenas y espacios de a 8 bytes contra byte a byte
+// (Lexer.porPalabras); con más comentarios o más sangría, más bytes pasan por
+// ese camino
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EscaneoBench {
+    @Param({"4M"})
+    public String bytes;
+
+    @Param({"0.1", "0.9"})
+    public double comentarios;
+
+    @Param({"4", "32"})
+    public int sangria;
+
+    @Param({"true", "false"})
+    public boolean porPalabras;
+
+    private Fuente fuente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        fuente = Programas.fuente(bytes, comentarios, 0, sangria);
+    }
+
+    @Benchmark
+    public int siguiente(Contadores c) {
+        Lexer lexer = new Lexer(fuente).porPalabras(porPalabras);
+        int n = 0;
+        while (lexer.siguiente() != TokenType.EOF) n++;
+        c.tokens += n;
+        c.bytes += fuente.longitud();
+        return n;
+    }
+}
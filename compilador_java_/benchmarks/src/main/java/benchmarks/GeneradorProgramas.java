@@ -0,0 +1,367 @@
+package benchmarks;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Genera programas sintéticos deterministas (misma semilla y opciones, mismo texto).
+// Con errores = 0 el programa compila sin errores; con errores > 0 cada sentencia
+// tiene esa probabilidad de traer un error léxico, sintáctico o semántico.
+// Se escribe en streaming, así sirve para archivos de KB hasta GB.
+public final class GeneradorProgramas {
+    private static final int TAMAÑO_ARREGLO = 16;
+
+    public static final class Opciones {
+        long bytes = 64 << 10;      // tamaño aproximado del programa
+        int profundidad = 4;        // anidamiento máximo de while
+        double comentarios = 0.1;   // probabilidad de un comentario antes de cada sentencia
+        int identificadores = 100;  // variables globales distintas
+        double errores = 0;         // probabilidad de error por sentencia
+        int sangria = 4;            // espacios por nivel de anidamiento
+        long semilla = 42;
+
+        public Opciones bytes(long v) { bytes = v; return this; }
+        public Opciones profundidad(int v) { profundidad = v; return this; }
+        public Opciones comentarios(double v) { comentarios = v; return this; }
+        public Opciones identificadores(int v) { identificadores = v; return this; }
+        public Opciones errores(double v) { errores = v; return this; }
+        public Opciones sangria(int v) { sangria = v; return this; }
+        public Opciones semilla(long v) { semilla = v; return this; }
+    }
+
+    private final Opciones op;
+    private final SplittableRandom azar;
+    private final Writer out;
+    private final StringBuilder sb = new StringBuilder(256);
+    private long escritos;
+
+    private final List<String> enteros = new ArrayList<>();
+    private final List<String> reales = new ArrayList<>();
+    private final List<String> arreglos = new ArrayList<>();
+    private final List<String> locales = new ArrayList<>(); // long locales de los while abiertos
+
+    private GeneradorProgramas(Opciones op, Writer out) {
+        this.op = op;
+        this.azar = new SplittableRandom(op.semilla);
+        this.out = out;
+    }
+
+    public static void escribir(Opciones op, Writer out) throws IOException {
+        new GeneradorProgramas(op, out).programa();
+        out.flush();
+    }
+
+    // En memoria (hasta 2 GB), en UTF-8
+    public static byte[] generar(Opciones op) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int) Math.min(op.bytes + 4096, Integer.MAX_VALUE - 8));
+        try {
+            escribir(op, new OutputStreamWriter(bytes, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // -----------------------
+    // Estructura del programa
+    // -----------------------
+    private void programa() throws IOException {
+        linea("/* programa generado: semilla " + op.semilla + " */");
+        linea("const double K = 2.5;");
+        for (int i = 0; i < op.identificadores; i++) {
+            switch (i % 8) {
+                case 0:
+                    arreglos.add("a" + i);
+                    linea("long a" + i + "[" + TAMAÑO_ARREGLO + "];");
+                    break;
+                case 1:
+                case 2:
+                    reales.add("r" + i);
+                    linea("double r" + i + ";");
+                    break;
+                default:
+                    enteros.add("v" + i);
+                    linea("long v" + i + ";");
+            }
+        }
+        if (enteros.isEmpty()) {
+            enteros.add("v");
+            linea("long v;");
+        }
+        if (reales.isEmpty()) {
+            reales.add("r");
+            linea("double r;");
+        }
+        linea("main() {");
+        while (escritos < op.bytes) sentencia(1, true);
+        linea("}");
+    }
+
+    private void sentencia(int nivel, boolean puedeAnidar) throws IOException {
+        if (op.comentarios > 0 && azar.nextDouble() < op.comentarios) comentario(nivel);
+        if (op.errores > 0 && azar.nextDouble() < op.errores) {
+            error(nivel);
+            return;
+        }
+        int p = azar.nextInt(100);
+        if (p < 40) asignacion(nivel);
+        else if (p < 52) escribirSentencia(nivel);
+        else if (p < 57) leer(nivel);
+        else if (p < 75 || !puedeAnidar || nivel > op.profundidad) si(nivel);
+        else mientras(nivel);
+    }
+
+    private void asignacion(int nivel) throws IOException {
+        sangria(nivel);
+        int p = azar.nextInt(10);
+        if (p < 5) {
+            sb.append(entero()).append(azar.nextBoolean() ? " = " : " += ");
+            expresionEntera();
+        } else if (p < 8) {
+            sb.append(elegir(reales)).append(azar.nextBoolean() ? " = " : " *= ");
+            expresionReal();
+        } else if (!arreglos.isEmpty()) {
+            sb.append(elegir(arreglos)).append('[').append(azar.nextInt(TAMAÑO_ARREGLO)).append("] = ");
+            expresionEntera();
+        } else {
+            sb.append(entero()).append(" -= 1");
+        }
+        sb.append(';');
+        terminar();
+    }
+
+    private void escribirSentencia(int nivel) throws IOException {
+        sangria(nivel);
+        sb.append("write(");
+        switch (azar.nextInt(3)) {
+            case 0: sb.append("\"valor ").append(azar.nextInt(1000)).append('"'); break;
+            case 1: expresionEntera(); break;
+            default: expresionReal();
+        }
+        sb.append(");");
+        terminar();
+    }
+
+    private void leer(int nivel) throws IOException {
+        sangria(nivel);
+        sb.append("read(").append(azar.nextBoolean() ? entero() : elegir(reales)).append(");");
+        terminar();
+    }
+
+    // if sin bloque: cada rama es una sentencia simple
+    private void si(int nivel) throws IOException {
+        sangria(nivel);
+        sb.append("if ");
+        condicion();
+        sb.append(" then");
+        terminar();
+        asignacion(nivel + 1);
+        if (azar.nextBoolean()) {
+            sangria(nivel);
+            sb.append("else");
+            terminar();
+            escribirSentencia(nivel + 1);
+        }
+    }
+
+    // El cuerpo tiene unas pocas sentencias y a lo sumo un while anidado,
+    // así el tamaño crece linealmente con la profundidad
+    private void mientras(int nivel) throws IOException {
+        sangria(nivel);
+        sb.append("while ");
+        condicion();
+        sb.append(" {");
+        terminar();
+
+        String local = "w" + nivel;
+        sangria(nivel + 1);
+        sb.append("long ").append(local).append(" = ");
+        expresionEntera();
+        sb.append(';');
+        terminar();
+        locales.add(local);
+
+        int n = 1 + azar.nextInt(4);
+        int anidado = nivel < op.profundidad ? azar.nextInt(n + 1) : -1;
+        for (int i = 0; i <= n; i++) {
+            if (i == anidado) mientras(nivel + 1);
+            else sentencia(nivel + 1, false);
+        }
+        locales.remove(locales.size() - 1);
+        sangria(nivel);
+        sb.append('}');
+        terminar();
+    }
+
+    // -----------------------
+    // Expresiones (la gramática no tiene precedencia: se evalúa de izquierda a derecha,
+    // por eso las comparaciones compuestas van entre paréntesis)
+    // -----------------------
+    private void expresionEntera() {
+        terminoEntero();
+        for (int k = azar.nextInt(3); k > 0; k--) {
+            sb.append(' ').append("+-*".charAt(azar.nextInt(3))).append(' ');
+            terminoEntero();
+        }
+    }
+
+    private void terminoEntero() {
+        int p = azar.nextInt(10);
+        if (p < 4) sb.append(entero());
+        else if (p < 7) sb.append(azar.nextInt(1000));
+        else if (p < 8 && !arreglos.isEmpty()) {
+            sb.append(elegir(arreglos)).append('[').append(azar.nextInt(TAMAÑO_ARREGLO)).append(']');
+        } else {
+            sb.append('(');
+            sb.append(entero()).append(" / ").append(1 + azar.nextInt(9));
+            sb.append(')');
+        }
+    }
+
+    private void expresionReal() {
+        terminoReal();
+        for (int k = azar.nextInt(3); k > 0; k--) {
+            sb.append(' ').append("+-*/".charAt(azar.nextInt(4))).append(' ');
+            terminoReal();
+        }
+    }
+
+    private void terminoReal() {
+        int p = azar.nextInt(10);
+        if (p < 4) sb.append(elegir(reales));
+        else if (p < 6) sb.append(entero());
+        else if (p < 7) sb.append('K');
+        else sb.append(azar.nextInt(100)).append('.').append(azar.nextInt(100));
+    }
+
+    private void condicion() {
+        sb.append('(');
+        int p = azar.nextInt(10);
+        if (p < 6) {
+            comparacion();
+        } else if (p < 9) {
+            sb.append('(');
+            comparacion();
+            sb.append(azar.nextBoolean() ? ") && (" : ") || (");
+            comparacion();
+            sb.append(')');
+        } else {
+            sb.append("!(");
+            comparacion();
+            sb.append(')');
+        }
+        sb.append(')');
+    }
+
+    // izquierda: expresión; derecha: un solo término
+    private void comparacion() {
+        expresionEntera();
+        sb.append(' ').append(new String[]{"<", ">", "<=", ">=", "==", "<>"}[azar.nextInt(6)]).append(' ');
+        terminoEntero();
+    }
+
+    // -----------------------
+    // Comentarios y errores
+    // -----------------------
+    private void comentario(int nivel) throws IOException {
+        sangria(nivel);
+        switch (azar.nextInt(3)) {
+            case 0:
+                sb.append("// paso ").append(azar.nextInt(100000)).append(": ajustar el acumulador");
+                break;
+            case 1:
+                sb.append("/* bloque ").append(azar.nextInt(1000)).append(" del año, revisión */");
+                break;
+            default:
+                sb.append("/* externo /* anidado ").append(azar.nextInt(1000)).append(" */ fin */");
+        }
+        terminar();
+    }
+
+    private void error(int nivel) throws IOException {
+        sangria(nivel);
+        switch (azar.nextInt(5)) {
+            case 0: // falta ';'
+                sb.append(entero()).append(" = ");
+                expresionEntera();
+                break;
+            case 1: // variable no declarada
+                sb.append("sinDeclarar").append(azar.nextInt(1000)).append(" = 1;");
+                break;
+            case 2: // tipo incompatible
+                sb.append(entero()).append(" = ").append(azar.nextInt(100)).append(".5;");
+                break;
+            case 3: // carácter inválido
+                sb.append(entero()).append(" = 1 @ 2;");
+                break;
+            default: // falta ')'
+                sb.append("write(");
+                expresionEntera();
+                sb.append(';');
+        }
+        terminar();
+    }
+
+    // -----------------------
+    // Auxiliares
+    // -----------------------
+    private String entero() {
+        if (!locales.isEmpty() && azar.nextInt(3) == 0) return elegir(locales);
+        return elegir(enteros);
+    }
+
+    private String elegir(List<String> lista) {
+        return lista.get(azar.nextInt(lista.size()));
+    }
+
+    private void sangria(int nivel) {
+        for (int i = 0; i < nivel * op.sangria; i++) sb.append(' ');
+    }
+
+    private void linea(String s) throws IOException {
+        sb.append(s);
+        terminar();
+    }
+
+    private void terminar() throws IOException {
+        sb.append('\n');
+        out.append(sb);
+        for (int i = 0; i < sb.length(); i++) {
+            char c = sb.charAt(i);
+            escritos += c < 0x80 ? 1 : 2; // solo hay caracteres de hasta 2 bytes
+        }
+        sb.setLength(0);
+    }
+
+    // "64K", "16M", "1G" o bytes
+    public static long tamaño(String s) {
+        char u = Character.toUpperCase(s.charAt(s.length() - 1));
+        int corrimiento = u == 'K' ? 10 : u == 'M' ? 20 : u == 'G' ? 30 : 0;
+        String numero = corrimiento == 0 ? s : s.substring(0, s.length() - 1);
+        return Long.parseLong(numero) << corrimiento;
+    }
+
+    // uso: GeneradorProgramas [-bytes 1M] [-profundidad 4] [-comentarios 0.1]
+    //                         [-identificadores 100] [-errores 0] [-sangria 4] [-semilla 42] [salida]
+    public static void main(String[] args) throws IOException {
+        Opciones op = new Opciones();
+        String salida = null;
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            if (a.equals("-bytes")) op.bytes(tamaño(args[++i]));
+            else if (a.equals("-profundidad")) op.profundidad(Integer.parseInt(args[++i]));
+            else if (a.equals("-comentarios")) op.comentarios(Double.parseDouble(args[++i]));
+            else if (a.equals("-identificadores")) op.identificadores(Integer.parseInt(args[++i]));
+            else if (a.equals("-errores")) op.errores(Double.parseDouble(args[++i]));
+            else if (a.equals("-sangria")) op.sangria(Integer.parseInt(args[++i]));
+            else if (a.equals("-semilla")) op.semilla(Long.parseLong(args[++i]));
+            else salida = a;
+        }
+        OutputStream destino = salida == null ? System.out : new FileOutputStream(salida);
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), 1 << 16)) {
+            escribir(op, w);
+        }
+    }
+}
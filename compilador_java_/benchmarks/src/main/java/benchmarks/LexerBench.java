@@ -0,0 +1,60 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import lexer.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Rendimiento del Lexer: siguiente() no reserva memoria, siguienteToken() crea un
+// Token por lexema y tokenizar() llena el TokenBuffer que usa el Parser
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LexerBench {
+    @Param({"64K", "4M"})
+    public String bytes;
+
+    @Param({"0.1", "0.5"})
+    public double comentarios;
+
+    private Fuente fuente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        fuente = Programas.fuente(bytes, comentarios, 0);
+    }
+
+    @Benchmark
+    public int siguiente(Contadores c) {
+        Lexer lexer = new Lexer(fuente);
+        int n = 0;
+        while (lexer.siguiente() != TokenType.EOF) n++;
+        c.tokens += n;
+        c.bytes += fuente.longitud();
+        return n;
+    }
+
+    @Benchmark
+    public void siguienteToken(Contadores c, Blackhole bh) {
+        Lexer lexer = new Lexer(fuente);
+        int n = 0;
+        Token t;
+        while ((t = lexer.siguienteToken()).getType() != TokenType.EOF) {
+            bh.consume(t);
+            n++;
+        }
+        c.tokens += n;
+        c.bytes += fuente.longitud();
+    }
+
+    @Benchmark
+    public TokenBuffer tokenizar(Contadores c) {
+        TokenBuffer tokens = new Lexer(fuente).tokenizar();
+        c.tokens += tokens.tamaño();
+        c.bytes += fuente.longitud();
+        return tokens;
+    }
+}
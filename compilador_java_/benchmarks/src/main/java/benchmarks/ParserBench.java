@@ -0,0 +1,39 @@
+package benchmarks;
+
+import errores.ErrorHandler;
+import java.util.concurrent.TimeUnit;
+import lexer.Lexer;
+import lexer.TokenBuffer;
+import org.openjdk.jmh.annotations.*;
+import parser.Parser;
+
+// Parser.programa() sobre tokens ya producidos, con y sin construir el AST
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss512m")
+@State(Scope.Benchmark)
+public class ParserBench {
+    @Param({"64K", "4M"})
+    public String bytes;
+
+    @Param({"false", "true"})
+    public boolean ast;
+
+    private TokenBuffer tokens;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        tokens = new Lexer(Programas.fuente(bytes, 0.1, 0)).tokenizar();
+    }
+
+    @Benchmark
+    public Parser programa(Contadores c) {
+        Parser parser = new Parser(tokens, ast, new ErrorHandler(Programas.NULA), Programas.NULA);
+        parser.programa();
+        c.tokens += tokens.tamaño();
+        c.bytes += tokens.getFuente().longitud();
+        return parser;
+    }
+}
@@ -0,0 +1,29 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import lexer.Fuente;
+
+// Auxiliares compartidos por los benchmarks
+final class Programas {
+    // Descarta la tabla de símbolos y los errores que imprime el compilador
+    static final PrintStream NULA = new PrintStream(new OutputStream() {
+        @Override public void write(int b) {}
+        @Override public void write(byte[] b, int desde, int largo) {}
+    });
+
+    private Programas() {}
+
+    static Fuente fuente(String bytes, double comentarios, double errores) {
+        return fuente(bytes, comentarios, errores, 4);
+    }
+
+    static Fuente fuente(String bytes, double comentarios, double errores, int sangria) {
+        byte[] b = GeneradorProgramas.generar(new GeneradorProgramas.Opciones()
+                .bytes(GeneradorProgramas.tamaño(bytes))
+                .comentarios(comentarios)
+                .errores(errores)
+                .sangria(sangria));
+        return Fuente.desdeBytes(b, b.length);
+    }
+}
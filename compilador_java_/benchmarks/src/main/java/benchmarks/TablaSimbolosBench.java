@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import lexer.Nombres;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import simbolos.TablaSimbolos;
+import simbolos.Tipo;
+
+// agregar/buscar de la tabla de símbolos por id de nombre y por texto
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TablaSimbolosBench {
+    @Param({"100", "10000"})
+    public int simbolos;
+
+    private Nombres nombres;
+    private int[] ids;
+    private String[] textos;
+    private TablaSimbolos llena;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        nombres = new Nombres();
+        ids = new int[simbolos];
+        textos = new String[simbolos];
+        for (int i = 0; i < simbolos; i++) {
+            textos[i] = "v" + i;
+            ids[i] = nombres.internar(textos[i]);
+        }
+        llena = agregar();
+    }
+
+    @Benchmark
+    public TablaSimbolos agregar() {
+        TablaSimbolos t = new TablaSimbolos(nombres);
+        for (int id : ids) t.agregar(id, Tipo.LONG, "-", 1, 1);
+        return t;
+    }
+
+    // La mitad en el ámbito global y la otra mitad ocultándolos en un bloque
+    @Benchmark
+    public TablaSimbolos agregarConAmbitos() {
+        TablaSimbolos t = new TablaSimbolos(nombres);
+        int mitad = ids.length / 2;
+        for (int i = 0; i < mitad; i++) t.agregar(ids[i], Tipo.LONG, "-", 1, 1);
+        t.entrarAmbito("bloque");
+        for (int i = 0; i < mitad; i++) t.agregar(ids[i], Tipo.DOUBLE, "-", 2, 1);
+        for (int i = mitad; i < ids.length; i++) t.agregar(ids[i], Tipo.LONG, "-", 2, 1);
+        t.salirAmbito();
+        return t;
+    }
+
+    @Benchmark
+    public void buscar(Blackhole bh) {
+        for (int id : ids) bh.consume(llena.buscar(id));
+    }
+
+    @Benchmark
+    public void buscarPorNombre(Blackhole bh) {
+        for (String s : textos) bh.consume(llena.buscar(s));
+    }
+}
@@ -1,17 +1,290 @@
 package MainClass;
 
-import lexer.Lexer;
+import binario.EscritorBinario;
+import binario.UnidadBinaria;
+import compilador.Cache;
+import compilador.Compilador;
+import compilador.Lote;
+import compilador.Unidad;
+import errores.Diagnostico;
+import errores.ErrorHandler;
+import errores.Formato;
+import errores.Sumidero;
+import estadisticas.Estadisticas;
+import generador.Cargador;
+import generador.ErrorGeneracion;
+import generador.Generador;
+import generador.GeneradorIr;
+import interprete.ErrorEjecucion;
+import interprete.Interprete;
+import ir.Constructor;
+import ir.Funcion;
+import ir.Tuberia;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import lsp.ServidorLsp;
 import parser.Parser;
+import servidor.Cliente;
+import servidor.Protocolo;
+import servidor.Servidor;
 
 public class Main {
-    public static void main(String[] args) {
+    // El parser es recursivo: con bloques anidados a gran profundidad necesita una pila grande
+    private static final long PILA = 512L << 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] estado = new int[1];
+        Thread hilo = new Thread(null, () -> estado[0] = compilar(args), "compilador", PILA);
+        hilo.start();
+        hilo.join();
+        if (estado[0] != 0) System.exit(estado[0]);
+    }
+
+    // Devuelve el código de salida del proceso
+    private static int compilar(String[] args) {
         String archivo = "src/MainClass/programa.txt";
-        if (args.length > 0) archivo = args[0];
+        Charset charset = Charset.defaultCharset();
+        boolean mostrarAst = false;
+        boolean ejecutar = false;
+        boolean jvm = false;
+        String clases = null; // carpeta donde volcar los .class generados
+        boolean lote = false;
+        String modoServidor = null; // "servidor", "cliente" o "detener"
+        int puerto = Protocolo.PUERTO;
+        String stats = null; // "texto" o "json"
+        String diagnosticos = "humano"; // "humano", "json" o "sarif"
+        int maxErrores = ErrorHandler.SIN_LIMITE;
+        boolean suprimirCascada = false;
+        boolean lsp = false;
+        boolean lexerEnParalelo = false;
+        boolean parserEnParalelo = false;
+        boolean optimizar = false;
+        String pases = null; // con --ssa: lista de pases sobre el IR
+        boolean mostrarIr = false;
+        String cache = null; // con --lote: carpeta de la caché de compilaciones
+        long cacheMaximo = 256L << 20;
+        String binario = null; // unidad compilada a escribir (.ucj)
+        String leerBinario = null; // unidad compilada a cargar en lugar de compilar
+        int hilos = Runtime.getRuntime().availableProcessors();
+        List<String> rutas = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--charset") && i + 1 < args.length) charset = Charset.forName(args[++i]);
+            else if (args[i].equals("--ast")) mostrarAst = true;
+            else if (args[i].equals("--ejecutar")) ejecutar = true;
+            else if (args[i].equals("--jvm")) jvm = true;
+            else if (args[i].equals("--clases") && i + 1 < args.length) clases = args[++i];
+            else if (args[i].equals("--lote")) lote = true;
+            else if (args[i].equals("--hilos") && i + 1 < args.length) hilos = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--servidor") || args[i].equals("--cliente") || args[i].equals("--detener"))
+                modoServidor = args[i].substring(2);
+            else if (args[i].equals("--puerto") && i + 1 < args.length) puerto = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--stats")) stats = "texto";
+            else if (args[i].equals("--stats=json")) stats = "json";
+            else if (args[i].equals("--diagnosticos") && i + 1 < args.length) diagnosticos = args[++i];
+            else if (args[i].equals("--max-errores") && i + 1 < args.length) maxErrores = Integer.parseInt(args[++i]);
+            else if (args[i].equals("--suprimir-cascada")) suprimirCascada = true;
+            else if (args[i].equals("--lsp")) lsp = true;
+            else if (args[i].equals("--lexer-paralelo")) lexerEnParalelo = true;
+            else if (args[i].equals("--parser-paralelo")) parserEnParalelo = true;
+            else if (args[i].equals("--optimizar")) optimizar = true;
+            else if (args[i].equals("--ssa")) pases = pases == null ? Tuberia.PREDETERMINADA : pases;
+            else if (args[i].equals("--pases") && i + 1 < args.length) pases = args[++i];
+            else if (args[i].equals("--ir")) mostrarIr = true;
+            else if (args[i].equals("--cache") && i + 1 < args.length) cache = args[++i];
+            else if (args[i].equals("--binario") && i + 1 < args.length) binario = args[++i];
+            else if (args[i].equals("--leer-binario") && i + 1 < args.length) leerBinario = args[++i];
+            else if (args[i].equals("--cache-max") && i + 1 < args.length) cacheMaximo = Long.parseLong(args[++i]) << 20;
+            else rutas.add(args[i]);
+        }
+
+        // Servidor de lenguaje para editores: stdin/stdout son del protocolo
+        if (lsp) {
+            try {
+                return new ServidorLsp(System.in, System.out).atender();
+            } catch (IOException e) {
+                System.err.println("Error de E/S en el servidor LSP: " + e.getMessage());
+                return 3;
+            }
+        }
+
+        // Compilador residente y su cliente
+        if (modoServidor != null) {
+            try {
+                switch (modoServidor) {
+                    case "servidor":
+                        new Servidor(new Compilador(charset, false), puerto, hilos).atender();
+                        return 0;
+                    case "detener":
+                        new Cliente(puerto).detener();
+                        return 0;
+                    default:
+                        if (rutas.isEmpty()) rutas.add(archivo);
+                        return new Cliente(puerto).compilar(rutas, System.out) > 0 ? 1 : 0;
+                }
+            } catch (IOException e) {
+                System.err.println("Error de conexión con el servidor (puerto " + puerto + "): " + e.getMessage());
+                return 3;
+            }
+        }
+
+        // Texto: cada unidad escribe en su salida de errores (en lote, el buffer del archivo).
+        // JSON y SARIF: un único sumidero en stderr compartido por todas las unidades.
+        Sumidero sumidero;
+        try {
+            sumidero = diagnosticos.equals("humano") ? null : new Sumidero(System.err, Formato.porNombre(diagnosticos));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+        try {
+            // Modo lote: varios archivos o carpetas compilados en paralelo
+            if (lote) {
+                try {
+                    List<String> archivos = Lote.expandir(rutas);
+                    // El plegado trabaja sobre el AST: --optimizar también lo construye
+                    Lote l = new Lote(new Compilador(charset, optimizar || stats != null, stats != null)
+                            .diagnosticos(sumidero, maxErrores, suprimirCascada)
+                            .lexerEnParalelo(lexerEnParalelo)
+                            .optimizar(optimizar), hilos);
+                    // Los hilos ya se reparten entre los archivos
+                    if (parserEnParalelo) System.err.println("--parser-paralelo no se aplica con --lote: se ignora");
+                    if (cache != null) {
+                        if (sumidero != null) {
+                            System.err.println("--cache solo guarda diagnósticos en texto: se compila sin caché");
+                        } else {
+                            try {
+                                l.cache(new Cache(Paths.get(cache), cacheMaximo));
+                            } catch (IOException e) {
+                                System.err.println("No se pudo abrir la caché, se compila sin ella: " + e.getMessage());
+                            }
+                        }
+                    }
+                    int conErrores = l.compilar(archivos, System.out);
+                    if (l.getCache() != null) l.getCache().informe(System.out);
+                    mostrarEstadisticas(l.getEstadisticas(), stats);
+                    return conErrores > 0 ? 1 : 0;
+                } catch (IOException e) {
+                    System.err.println("Error al recorrer los archivos: " + e.getMessage());
+                    return 2;
+                }
+            }
+            // Unidad ya compilada: la tabla (y con --ast el programa) sin pasar por el front end
+            if (leerBinario != null) {
+                try {
+                    UnidadBinaria u = UnidadBinaria.abrir(Paths.get(leerBinario));
+                    u.mostrarTabla(System.out);
+                    if (mostrarAst) System.out.print(u.volcar());
+                    System.out.println("\nUnidad cargada: " + u.getNombre() + " (" + u.cantidadSimbolos()
+                            + " símbolo(s), " + u.cantidadNodos() + " nodo(s))");
+                    return 0;
+                } catch (IOException e) {
+                    System.err.println("No se pudo leer la unidad " + leerBinario + ": " + e.getMessage());
+                    return 2;
+                }
+            }
+            if (!rutas.isEmpty()) archivo = rutas.get(rutas.size() - 1);
+
+            boolean generar = jvm || clases != null;
+            boolean conIr = pases != null || mostrarIr;
+            // Con --stats se construye el AST para contar los nodos, y con --optimizar para plegarlo
+            Unidad unidad = new Compilador(charset,
+                    mostrarAst || ejecutar || generar || conIr || optimizar || binario != null || stats != null,
+                    stats != null)
+                    .diagnosticos(sumidero, maxErrores, suprimirCascada)
+                    .lexerEnParalelo(lexerEnParalelo)
+                    .parserEnParalelo(parserEnParalelo ? hilos : 1)
+                    .optimizar(optimizar)
+                    .compilar(archivo, System.out, System.err);
+            Parser parser = unidad.getParser();
+            if (mostrarAst) System.out.print(parser.getAst().volcar());
 
-        Lexer lexer = new Lexer(archivo);
-        Parser parser = new Parser(lexer);
-        parser.programa();
+            System.out.println("\nCompilación finalizada ✅");
+            mostrarEstadisticas(unidad.getEstadisticas(), stats);
+
+            // Solo se guarda lo que pasó la verificación sin errores
+            if (binario != null) {
+                if (parser.getErrores().hayErrores()) {
+                    System.err.println("No se escribe la unidad: " + parser.getErrores().cantidad() + " error(es)");
+                } else {
+                    try {
+                        new EscritorBinario(archivo, parser.getTabla(), parser.getAst()).escribir(Paths.get(binario));
+                        System.out.println("Unidad escrita: " + binario);
+                    } catch (IOException e) {
+                        System.err.println("No se pudo escribir la unidad: " + e.getMessage());
+                    }
+                }
+            }
+
+            if (!ejecutar && !generar && !conIr) return 0;
+            if (parser.getErrores().hayErrores()) {
+                System.err.println("No se ejecuta el programa: " + parser.getErrores().cantidad() + " error(es)");
+                return 0;
+            }
+
+            // IR en SSA: los pases y, si se genera bytecode, el backend que sale de él
+            Funcion ir = null;
+            if (conIr) {
+                try {
+                    ir = Constructor.construir(parser.getAst());
+                    Tuberia tuberia = Tuberia.de(pases == null ? "" : pases);
+                    tuberia.aplicar(ir);
+                    if (pases != null) tuberia.informe(System.out);
+                    if (mostrarIr) System.out.print(ir.volcar());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("No se pudo construir el IR: " + e.getMessage());
+                    ir = null;
+                }
+            }
+
+            byte[] clase = null;
+            String nombreClase = Generador.nombreClase(archivo);
+            if (generar) {
+                try {
+                    clase = ir != null ? new GeneradorIr(ir, nombreClase).generar()
+                            : new Generador(parser.getAst(), nombreClase).generar();
+                } catch (ErrorGeneracion e) {
+                    System.err.println("No se pudo generar bytecode: " + e.getMessage());
+                    if (jvm) System.err.println("Se ejecuta con el intérprete");
+                }
+            }
+            if (clase != null && clases != null) {
+                try {
+                    Path destino = Paths.get(clases, nombreClase + ".class");
+                    Files.createDirectories(destino.getParent());
+                    Files.write(destino, clase);
+                    System.out.println("Clase generada: " + destino);
+                } catch (IOException e) {
+                    System.err.println("No se pudo escribir la clase: " + e.getMessage());
+                }
+            }
+            if (!ejecutar && !jvm) return 0;
+
+            System.out.println();
+            // La salida del programa va con buffer: Entrada la vacía antes de cada read()
+            PrintStream salida = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+            try {
+                if (jvm && clase != null) Cargador.ejecutar(nombreClase, clase, System.in, salida);
+                else new Interprete(parser.getAst()).ejecutar(System.in, salida);
+            } catch (ErrorEjecucion e) {
+                parser.getErrores().error(Diagnostico.EJECUCION, e.getMessage(), e.getLinea(), e.getColumna(), 0);
+                parser.getErrores().vaciar();
+            }
+            return 0;
+        } finally {
+            if (sumidero != null) sumidero.cerrar();
+        }
+    }
 
-        System.out.println("\nCompilación finalizada ✅");
+    private static void mostrarEstadisticas(Estadisticas est, String formato) {
+        if (est == null) return;
+        if (formato.equals("json")) System.out.println(est.json());
+        else est.imprimir(System.out);
     }
 }
@@ -0,0 +1,238 @@
+package ast;
+
+import java.util.Arrays;
+import lexer.TokenBuffer;
+import simbolos.Simbolo;
+import simbolos.TablaSimbolos;
+import simbolos.Tipo;
+
+// Árbol sintáctico en arreglos paralelos: cada nodo es un índice entero.
+// Los hijos se enlazan con primerHijo/siguiente y cada nodo guarda su rango
+// de tokens [tokenInicio, tokenFin] en el TokenBuffer de origen.
+public class Ast {
+    private final TokenBuffer tokens;
+    private final TablaSimbolos tabla;
+
+    private byte[] clases;
+    private int[] primerHijo;
+    private int[] ultimoHijo;
+    private int[] siguiente;
+    private int[] datos;
+    private int[] tipos;      // código de Tipo de las expresiones
+    private long[] valores;   // literales (double como bits)
+    private int[] tokenInicio;
+    private int[] tokenFin;
+    private int tamaño;
+
+    public Ast(TokenBuffer tokens, TablaSimbolos tabla) {
+        this.tokens = tokens;
+        this.tabla = tabla;
+        int capacidad = Math.max(16, tokens.tamaño() / 2);
+        clases = new byte[capacidad];
+        primerHijo = new int[capacidad];
+        ultimoHijo = new int[capacidad];
+        siguiente = new int[capacidad];
+        datos = new int[capacidad];
+        tipos = new int[capacidad];
+        valores = new long[capacidad];
+        tokenInicio = new int[capacidad];
+        tokenFin = new int[capacidad];
+    }
+
+    // -----------------------
+    // Construcción
+    // -----------------------
+    public int nuevo(int clase, int dato, int token) {
+        if (tamaño == clases.length) crecer();
+        int n = tamaño++;
+        clases[n] = (byte) clase;
+        primerHijo[n] = -1;
+        ultimoHijo[n] = -1;
+        siguiente[n] = -1;
+        datos[n] = dato;
+        tokenInicio[n] = token;
+        tokenFin[n] = token;
+        return n;
+    }
+
+    public void agregarHijo(int padre, int hijo) {
+        if (hijo < 0) return;
+        siguiente[hijo] = -1; // puede venir de otro padre (reescrituras)
+        if (ultimoHijo[padre] < 0) primerHijo[padre] = hijo;
+        else siguiente[ultimoHijo[padre]] = hijo;
+        ultimoHijo[padre] = hijo;
+    }
+
+    public void setTokenFin(int n, int token) { tokenFin[n] = token; }
+    public void setTipo(int n, int tipo) { tipos[n] = tipo; }
+    public void setDato(int n, int dato) { datos[n] = dato; }
+    public void setValorLong(int n, long v) { valores[n] = v; }
+    public void setValorDouble(int n, double v) { valores[n] = Double.doubleToRawLongBits(v); }
+    public void marcarEnRango(int n) { valores[n] = 1; }
+
+    // -----------------------
+    // Reescritura (optimizaciones): el nodo sigue en el mismo lugar de su padre
+    // -----------------------
+    // Cambia la clase del nodo y le quita los hijos (queda como hoja: un literal, VACIA)
+    public void convertir(int n, int clase) {
+        clases[n] = (byte) clase;
+        primerHijo[n] = -1;
+        ultimoHijo[n] = -1;
+    }
+
+    // El nodo n pasa a ser una copia de 'origen' (con sus hijos y su rango de
+    // tokens); 'origen' queda fuera del árbol
+    public void copiar(int n, int origen) {
+        clases[n] = clases[origen];
+        primerHijo[n] = primerHijo[origen];
+        ultimoHijo[n] = ultimoHijo[origen];
+        datos[n] = datos[origen];
+        tipos[n] = tipos[origen];
+        valores[n] = valores[origen];
+        tokenInicio[n] = tokenInicio[origen];
+        tokenFin[n] = tokenFin[origen];
+    }
+
+    private void crecer() {
+        int n = clases.length * 2;
+        clases = Arrays.copyOf(clases, n);
+        primerHijo = Arrays.copyOf(primerHijo, n);
+        ultimoHijo = Arrays.copyOf(ultimoHijo, n);
+        siguiente = Arrays.copyOf(siguiente, n);
+        datos = Arrays.copyOf(datos, n);
+        tipos = Arrays.copyOf(tipos, n);
+        valores = Arrays.copyOf(valores, n);
+        tokenInicio = Arrays.copyOf(tokenInicio, n);
+        tokenFin = Arrays.copyOf(tokenFin, n);
+    }
+
+    // -----------------------
+    // Consulta
+    // -----------------------
+    public int tamaño() { return tamaño; }
+    public int raiz() { return tamaño > 0 ? 0 : -1; }
+    public TokenBuffer getTokens() { return tokens; }
+    public TablaSimbolos getTabla() { return tabla; }
+
+    public int clase(int n) { return clases[n]; }
+    public int primerHijo(int n) { return primerHijo[n]; }
+    public int siguiente(int n) { return siguiente[n]; }
+    public int dato(int n) { return datos[n]; }
+    public int tipo(int n) { return tipos[n]; }
+    public long valorLong(int n) { return valores[n]; }
+    public double valorDouble(int n) { return Double.longBitsToDouble(valores[n]); }
+    public boolean valorLogico(int n) { return valores[n] != 0; }
+    // INDICE que no necesita comprobar el rango al ejecutarse
+    public boolean enRango(int n) { return clases[n] == Nodo.INDICE && valores[n] != 0; }
+    public int tokenInicio(int n) { return tokenInicio[n]; }
+    public int tokenFin(int n) { return tokenFin[n]; }
+    public int linea(int n) { return tokens.linea(tokenInicio[n]); }
+    public int columna(int n) { return tokens.columna(tokenInicio[n]); }
+
+    // Rango del nodo en el fuente, en bytes
+    public int inicio(int n) { return tokens.inicio(tokenInicio[n]); }
+    public int fin(int n) { return tokens.inicio(tokenFin[n]) + tokens.longitud(tokenFin[n]); }
+
+    public int hijo(int n, int k) {
+        int h = primerHijo[n];
+        while (h >= 0 && k-- > 0) h = siguiente[h];
+        return h;
+    }
+
+    public int cantidadHijos(int n) {
+        int c = 0;
+        for (int h = primerHijo[n]; h >= 0; h = siguiente[h]) c++;
+        return c;
+    }
+
+    // Símbolo de DECLARACION, VARIABLE e INDICE (null si no se resolvió)
+    public Simbolo simbolo(int n) {
+        int slot = datos[n];
+        return slot >= 0 ? tabla.simbolo(slot) : null;
+    }
+
+    public String cadena(int n) {
+        return tokens.lexema(datos[n]);
+    }
+
+    // -----------------------
+    // Recorrido en profundidad sin recursión (soporta anidamientos muy profundos)
+    // -----------------------
+    public void recorrer(VisitanteAst v) {
+        if (tamaño == 0) return;
+        int[] padres = new int[64];
+        int alto = 0;
+        int n = raiz();
+        boolean bajando = true;
+        while (true) {
+            if (bajando && v.entrar(this, n) && primerHijo[n] >= 0) {
+                if (alto == padres.length) padres = Arrays.copyOf(padres, alto * 2);
+                padres[alto++] = n;
+                n = primerHijo[n];
+                continue;
+            }
+            v.salir(this, n);
+            if (siguiente[n] >= 0) {
+                n = siguiente[n];
+                bajando = true;
+            } else if (alto > 0) {
+                n = padres[--alto];
+                bajando = false;
+            } else {
+                return;
+            }
+        }
+    }
+
+    // Representación indentada, útil para depurar
+    public String volcar() {
+        final StringBuilder sb = new StringBuilder();
+        recorrer(new VisitanteAst() {
+            int nivel;
+
+            public boolean entrar(Ast ast, int n) {
+                for (int i = 0; i < nivel; i++) sb.append("  ");
+                sb.append(Nodo.nombre(clases[n]));
+                describir(sb, n);
+                sb.append('\n');
+                nivel++;
+                return true;
+            }
+
+            public void salir(Ast ast, int n) {
+                nivel--;
+            }
+        });
+        return sb.toString();
+    }
+
+    private void describir(StringBuilder sb, int n) {
+        switch (clases[n]) {
+            case Nodo.DECLARACION:
+            case Nodo.VARIABLE:
+            case Nodo.INDICE:
+                Simbolo s = simbolo(n);
+                sb.append(' ').append(s != null ? s.getNombre() : "?");
+                if (enRango(n)) sb.append(" (en rango)");
+                break;
+            case Nodo.ASIGNACION:
+            case Nodo.BINARIA:
+                sb.append(' ').append(lexer.TokenType.values()[datos[n]]);
+                break;
+            case Nodo.ENTERO:
+                sb.append(' ').append(valorLong(n));
+                break;
+            case Nodo.REAL:
+                sb.append(' ').append(valorDouble(n));
+                break;
+            case Nodo.LOGICO:
+                sb.append(' ').append(valorLogico(n));
+                break;
+            case Nodo.CADENA:
+                sb.append(" \"").append(cadena(n)).append('"');
+                break;
+        }
+        if (Nodo.esExpresion(clases[n])) sb.append(" : ").append(Tipo.nombre(tipos[n]));
+        sb.append(" [l.").append(linea(n)).append(']');
+    }
+}
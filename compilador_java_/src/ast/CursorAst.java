@@ -0,0 +1,43 @@
+package ast;
+
+import java.util.Arrays;
+
+// Cursor para navegar el AST a mano: baja al primer hijo, avanza al hermano
+// y vuelve al padre (los padres se guardan en una pila propia del cursor).
+public class CursorAst {
+    private final Ast ast;
+    private int nodo;
+    private int[] padres = new int[32];
+    private int alto;
+
+    public CursorAst(Ast ast) {
+        this.ast = ast;
+        this.nodo = ast.raiz();
+    }
+
+    public int nodo() { return nodo; }
+    public int clase() { return ast.clase(nodo); }
+    public int profundidad() { return alto; }
+
+    public boolean irPrimerHijo() {
+        int h = ast.primerHijo(nodo);
+        if (h < 0) return false;
+        if (alto == padres.length) padres = Arrays.copyOf(padres, alto * 2);
+        padres[alto++] = nodo;
+        nodo = h;
+        return true;
+    }
+
+    public boolean irSiguiente() {
+        int s = ast.siguiente(nodo);
+        if (s < 0) return false;
+        nodo = s;
+        return true;
+    }
+
+    public boolean irPadre() {
+        if (alto == 0) return false;
+        nodo = padres[--alto];
+        return true;
+    }
+}
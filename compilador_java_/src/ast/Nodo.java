@@ -0,0 +1,43 @@
+package ast;
+
+// Clases de nodo del AST. El significado de 'dato' y de los hijos de cada clase:
+//
+//   PROGRAMA     hijos: declaraciones, sentencias y bloques main en orden
+//   DECLARACION  dato: slot del símbolo (-1 si no se pudo declarar)
+//                hijos: [tamaño ENTERO si es arreglo] [expresión inicial]
+//   MAIN         hijo: BLOQUE
+//   BLOQUE       hijos: sentencias
+//   ASIGNACION   dato: ordinal del operador (ASSIGN, PLUS_ASSIGN, ...); hijos: destino, expresión
+//   LEER         hijo: VARIABLE
+//   ESCRIBIR     hijo: expresión
+//   SI           hijos: condición, sentencia then, [sentencia else]
+//   MIENTRAS     hijos: condición, BLOQUE
+//   VACIA        sentencia vacía
+//   VARIABLE     dato: slot del símbolo (-1 si no está declarado)
+//   INDICE       dato: slot del arreglo; hijo: expresión índice
+//                valorLong 1 si ya se probó que el índice cae en el arreglo (ver Rangos)
+//   ENTERO, REAL, LOGICO   valor en valorLong / valorDouble
+//   CADENA       dato: índice del token (el texto sale del TokenBuffer)
+//   BINARIA      dato: ordinal del operador; hijos: izquierda, derecha
+//   NEGACION     hijo: operando de '!'
+//   ERROR        expresión inválida
+//   NEGATIVO     hijo: operando numérico de '-' unario (sobre un literal queda el literal negativo)
+public final class Nodo {
+    public static final int PROGRAMA = 0, DECLARACION = 1, MAIN = 2, BLOQUE = 3, ASIGNACION = 4,
+            LEER = 5, ESCRIBIR = 6, SI = 7, MIENTRAS = 8, VACIA = 9,
+            VARIABLE = 10, INDICE = 11, ENTERO = 12, REAL = 13, LOGICO = 14, CADENA = 15,
+            BINARIA = 16, NEGACION = 17, ERROR = 18, NEGATIVO = 19;
+
+    private static final String[] NOMBRES = {
+            "PROGRAMA", "DECLARACION", "MAIN", "BLOQUE", "ASIGNACION",
+            "LEER", "ESCRIBIR", "SI", "MIENTRAS", "VACIA",
+            "VARIABLE", "INDICE", "ENTERO", "REAL", "LOGICO", "CADENA",
+            "BINARIA", "NEGACION", "ERROR", "NEGATIVO"
+    };
+
+    private Nodo() {}
+
+    public static String nombre(int clase) { return NOMBRES[clase]; }
+
+    public static boolean esExpresion(int clase) { return clase >= VARIABLE; }
+}
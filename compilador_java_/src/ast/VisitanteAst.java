@@ -0,0 +1,9 @@
+package ast;
+
+// Recorrido de Ast.recorrer(): entrar() decide si se visitan los hijos;
+// salir() se llama siempre después de entrar() (y de los hijos, si los hubo).
+public interface VisitanteAst {
+    boolean entrar(Ast ast, int nodo);
+
+    void salir(Ast ast, int nodo);
+}
@@ -0,0 +1,166 @@
+package binario;
+
+import ast.Ast;
+import ast.Nodo;
+import ast.VisitanteAst;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import simbolos.Ambito;
+import simbolos.Simbolo;
+import simbolos.TablaSimbolos;
+
+// Escribe la tabla de símbolos y el AST de una unidad ya verificada en el
+// formato binario (ver Formato). Los nodos se renumeran en preorden: los que
+// quedaron fuera del árbol por las reescrituras no se guardan.
+public class EscritorBinario {
+    private final String nombre;
+    private final TablaSimbolos tabla;
+    private final Ast ast; // null: solo la tabla
+
+    // Pool de cadenas sin repetidos
+    private final HashMap<String, Integer> indices = new HashMap<>();
+    private final ArrayList<byte[]> cadenas = new ArrayList<>();
+    private int bytesCadenas;
+
+    private final IdentityHashMap<Ambito, Integer> numeros = new IdentityHashMap<>();
+    private final ArrayList<Ambito> ambitos = new ArrayList<>();
+
+    public EscritorBinario(String nombre, TablaSimbolos tabla, Ast ast) {
+        this.nombre = nombre;
+        this.tabla = tabla;
+        this.ast = ast;
+    }
+
+    // Escribe aparte y renombra: un lector nunca ve el archivo a medias
+    public void escribir(Path destino) throws IOException {
+        byte[] bytes = generar();
+        Path carpeta = destino.toAbsolutePath().getParent();
+        Files.createDirectories(carpeta);
+        Path tmp = carpeta.resolve(destino.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+        try {
+            Files.write(tmp, bytes, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            try {
+                Files.move(tmp, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, destino, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    public byte[] generar() {
+        int origen = cadena(nombre);
+
+        List<Simbolo> simbolos = tabla.getDeclarados();
+        for (Simbolo s : simbolos) {
+            numerar(s.getAmbito());
+            cadena(s.getNombre());
+            if (s.getValor() != null) cadena(s.getValor());
+        }
+        int[] orden = ast != null ? preorden() : new int[0];
+        int[] nuevo = new int[ast != null ? ast.tamaño() : 0];
+        Arrays.fill(nuevo, -1);
+        for (int i = 0; i < orden.length; i++) nuevo[orden[i]] = i;
+        for (int n : orden) {
+            if (ast.clase(n) == Nodo.CADENA) cadena(ast.cadena(n));
+        }
+
+        int[] largos = {
+                4 + 4 * (cadenas.size() + 1) + bytesCadenas,
+                4 + Formato.AMBITO * ambitos.size(),
+                4 + Formato.SIMBOLO * simbolos.size(),
+                4 + Formato.NODO * orden.length
+        };
+        int[] ids = {Formato.CADENAS, Formato.AMBITOS, Formato.SIMBOLOS, Formato.NODOS};
+        int[] desplazamientos = new int[Formato.SECCIONES];
+        int total = Formato.alinear(Formato.ENCABEZADO + Formato.ENTRADA_TABLA * Formato.SECCIONES);
+        for (int k = 0; k < Formato.SECCIONES; k++) {
+            desplazamientos[k] = total;
+            total = Formato.alinear(total + largos[k]);
+        }
+
+        ByteBuffer b = ByteBuffer.allocate(total);
+        b.putInt(Formato.MAGICO).putInt(Formato.VERSION).putInt(Formato.SECCIONES).putInt(origen);
+        for (int k = 0; k < Formato.SECCIONES; k++) {
+            b.putInt(ids[k]).putInt(desplazamientos[k]).putInt(largos[k]);
+        }
+
+        b.position(desplazamientos[0]);
+        b.putInt(cadenas.size());
+        int d = 0;
+        for (byte[] c : cadenas) {
+            b.putInt(d);
+            d += c.length;
+        }
+        b.putInt(d);
+        for (byte[] c : cadenas) b.put(c);
+
+        b.position(desplazamientos[1]);
+        b.putInt(ambitos.size());
+        for (Ambito a : ambitos) {
+            b.putInt(cadena(a.getNombre())).putInt(a.getPadre() != null ? numeros.get(a.getPadre()) : -1);
+        }
+
+        b.position(desplazamientos[2]);
+        b.putInt(simbolos.size());
+        for (Simbolo s : simbolos) {
+            b.putLong(s.getLongitud()).putInt(cadena(s.getNombre())).putInt(s.getTipo())
+                    .putInt(s.getValor() != null ? cadena(s.getValor()) : -1)
+                    .putInt(numeros.get(s.getAmbito())).putInt(s.getLinea()).putInt(s.getColumna())
+                    .putInt(s.getProfundidad()).putInt(s.getIndice());
+        }
+
+        b.position(desplazamientos[3]);
+        b.putInt(orden.length);
+        for (int n : orden) {
+            int clase = ast.clase(n);
+            int dato = clase == Nodo.CADENA ? cadena(ast.cadena(n)) : ast.dato(n);
+            int h = ast.primerHijo(n), s = ast.siguiente(n);
+            b.putLong(ast.valorLong(n)).putInt(clase)
+                    .putInt(h >= 0 ? nuevo[h] : -1).putInt(s >= 0 ? nuevo[s] : -1)
+                    .putInt(dato).putInt(ast.tipo(n)).putInt(ast.linea(n)).putInt(ast.columna(n));
+        }
+        return b.array();
+    }
+
+    private int cadena(String s) {
+        Integer i = indices.get(s);
+        if (i != null) return i;
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        indices.put(s, cadenas.size());
+        cadenas.add(bytes);
+        bytesCadenas += bytes.length;
+        return cadenas.size() - 1;
+    }
+
+    // Numera el ámbito después de sus ancestros (sin recursión: los anidamientos pueden ser profundos)
+    private void numerar(Ambito a) {
+        ArrayDeque<Ambito> pendientes = new ArrayDeque<>();
+        for (Ambito x = a; x != null && !numeros.containsKey(x); x = x.getPadre()) pendientes.push(x);
+        while (!pendientes.isEmpty()) {
+            Ambito x = pendientes.pop();
+            numeros.put(x, ambitos.size());
+            ambitos.add(x);
+            cadena(x.getNombre());
+        }
+    }
+
+    private int[] preorden() {
+        final int[] orden = new int[ast.tamaño()];
+        final int[] cantidad = new int[1];
+        ast.recorrer(new VisitanteAst() {
+            public boolean entrar(Ast a, int n) {
+                orden[cantidad[0]++] = n;
+                return true;
+            }
+
+            public void salir(Ast a, int n) {
+            }
+        });
+        return Arrays.copyOf(orden, cantidad[0]);
+    }
+}
@@ -0,0 +1,38 @@
+package binario;
+
+// Disposición del archivo de unidad compilada (.ucj). Todo en big-endian:
+//
+//   encabezado   MAGICO, VERSION, cantidad de secciones, nombre del fuente (cadena)
+//   tabla        por sección: id, desplazamiento, longitud (en bytes)
+//   secciones    alineadas a 8 bytes:
+//     CADENAS    n, n+1 desplazamientos (relativos al inicio de los bytes), bytes UTF-8
+//     AMBITOS    n, registros {nombre (cadena), padre (-1 en global)}; los padres van antes
+//     SIMBOLOS   n, registros {longitud (long, -1 si no es arreglo), nombre, tipo,
+//                valor (-1 si no tiene), ámbito, línea, columna, profundidad,
+//                índice}; el slot es la posición
+//     NODOS      n, registros {valor (long), clase, primerHijo, siguiente, dato, tipo,
+//                línea, columna}; en preorden, la raíz es el 0. El dato de CADENA
+//                es una cadena; el de DECLARACION, VARIABLE e INDICE, un slot. El
+//                valor de INDICE es 1 si el rango ya se probó
+//
+// Los registros son de tamaño fijo, así el lector llega a cualquiera sin
+// recorrer los anteriores. Cambiar algo de esto es subir VERSION.
+final class Formato {
+    static final int MAGICO = 0x55434A00; // "UCJ\0"
+    static final int VERSION = 2;
+
+    static final int CADENAS = 1, AMBITOS = 2, SIMBOLOS = 3, NODOS = 4;
+    static final int SECCIONES = 4;
+
+    static final int ENCABEZADO = 16;
+    static final int ENTRADA_TABLA = 12;
+    static final int AMBITO = 8;
+    static final int SIMBOLO = 40;
+    static final int NODO = 36;
+
+    private Formato() {}
+
+    static int alinear(int n) {
+        return (n + 7) & ~7;
+    }
+}
@@ -0,0 +1,252 @@
+package binario;
+
+import ast.Nodo;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import simbolos.Ambito;
+import simbolos.Simbolo;
+import simbolos.Tipo;
+
+// Lector de una unidad compilada (ver Formato). El archivo se mapea y al
+// abrirlo solo se validan el encabezado y la tabla de secciones: cada campo
+// se lee del mapa cuando se pide, y las cadenas, ámbitos y símbolos se
+// decodifican la primera vez y quedan guardados.
+public class UnidadBinaria {
+    private final ByteBuffer datos;
+    private final int nombre;
+    private final int cadenas, ambitos, simbolos, nodos; // desplazamiento del primer registro
+    private final int cantidadCadenas, cantidadAmbitos, cantidadSimbolos, cantidadNodos;
+
+    private final String[] textos;
+    private final Ambito[] ambitosLeidos;
+    private final Simbolo[] simbolosLeidos;
+
+    private UnidadBinaria(ByteBuffer datos) throws IOException {
+        this.datos = datos;
+        if (datos.limit() < Formato.ENCABEZADO || datos.getInt(0) != Formato.MAGICO) {
+            throw new IOException("no es una unidad compilada");
+        }
+        int version = datos.getInt(4);
+        if (version != Formato.VERSION) {
+            throw new IOException("versión " + version + " no soportada (se espera " + Formato.VERSION + ")");
+        }
+        int secciones = datos.getInt(8);
+        nombre = datos.getInt(12);
+        int[] inicio = new int[Formato.SECCIONES + 1];
+        int[] largo = new int[Formato.SECCIONES + 1];
+        if (secciones < 0 || Formato.ENCABEZADO + (long) secciones * Formato.ENTRADA_TABLA > datos.limit()) {
+            throw new IOException("tabla de secciones dañada");
+        }
+        for (int k = 0; k < secciones; k++) {
+            int p = Formato.ENCABEZADO + k * Formato.ENTRADA_TABLA;
+            int id = datos.getInt(p), d = datos.getInt(p + 4), n = datos.getInt(p + 8);
+            if (d < 0 || n < 4 || (long) d + n > datos.limit()) throw new IOException("sección " + id + " dañada");
+            if (id >= 1 && id <= Formato.SECCIONES) {
+                inicio[id] = d;
+                largo[id] = n;
+            } // secciones desconocidas: se ignoran
+        }
+        for (int id = 1; id <= Formato.SECCIONES; id++) {
+            if (largo[id] == 0) throw new IOException("falta la sección " + id);
+        }
+        cantidadCadenas = contar(inicio, largo, Formato.CADENAS, 4);
+        cadenas = inicio[Formato.CADENAS] + 4;
+        cantidadAmbitos = contar(inicio, largo, Formato.AMBITOS, Formato.AMBITO);
+        ambitos = inicio[Formato.AMBITOS] + 4;
+        cantidadSimbolos = contar(inicio, largo, Formato.SIMBOLOS, Formato.SIMBOLO);
+        simbolos = inicio[Formato.SIMBOLOS] + 4;
+        cantidadNodos = contar(inicio, largo, Formato.NODOS, Formato.NODO);
+        nodos = inicio[Formato.NODOS] + 4;
+        if (nombre < 0 || nombre >= cantidadCadenas) throw new IOException("encabezado dañado");
+
+        textos = new String[cantidadCadenas];
+        ambitosLeidos = new Ambito[cantidadAmbitos];
+        simbolosLeidos = new Simbolo[cantidadSimbolos];
+    }
+
+    // Cantidad de registros de la sección, comprobando que entren en su largo
+    private int contar(int[] inicio, int[] largo, int id, int registro) throws IOException {
+        int n = datos.getInt(inicio[id]);
+        if (n < 0 || 4 + (long) n * registro > largo[id]) throw new IOException("sección " + id + " dañada");
+        return n;
+    }
+
+    public static UnidadBinaria abrir(Path ruta) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            // el mapa sigue válido después de cerrar el canal
+            return new UnidadBinaria(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    public String getNombre() { return cadena(nombre); }
+
+    // -----------------------
+    // Cadenas
+    // -----------------------
+    public int cantidadCadenas() { return cantidadCadenas; }
+
+    public String cadena(int i) {
+        String s = textos[i];
+        if (s != null) return s;
+        int base = cadenas + 4 * (cantidadCadenas + 1);
+        int desde = datos.getInt(cadenas + 4 * i), hasta = datos.getInt(cadenas + 4 * (i + 1));
+        byte[] bytes = new byte[hasta - desde];
+        ByteBuffer vista = datos.duplicate();
+        vista.position(base + desde);
+        vista.get(bytes);
+        return textos[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // -----------------------
+    // Tabla de símbolos
+    // -----------------------
+    public int cantidadSimbolos() { return cantidadSimbolos; }
+
+    private int campo(int slot, int k) { return datos.getInt(simbolos + slot * Formato.SIMBOLO + 8 + 4 * k); }
+
+    public String nombre(int slot) { return cadena(campo(slot, 0)); }
+    public int tipo(int slot) { return campo(slot, 1); }
+    public String valor(int slot) {
+        int v = campo(slot, 2);
+        return v >= 0 ? cadena(v) : null;
+    }
+    public int linea(int slot) { return campo(slot, 4); }
+    public int columna(int slot) { return campo(slot, 5); }
+    public int profundidad(int slot) { return campo(slot, 6); }
+    public int indice(int slot) { return campo(slot, 7); }
+    public long longitud(int slot) { return datos.getLong(simbolos + slot * Formato.SIMBOLO); }
+
+    public Ambito ambito(int slot) {
+        return ambitoNumero(campo(slot, 3));
+    }
+
+    // Los padres van antes en la sección: se arma la cadena que falta de arriba hacia abajo
+    private Ambito ambitoNumero(int i) {
+        if (ambitosLeidos[i] != null) return ambitosLeidos[i];
+        int faltan = 0;
+        int[] camino = new int[8];
+        for (int x = i; x >= 0 && ambitosLeidos[x] == null; x = datos.getInt(ambitos + x * Formato.AMBITO + 4)) {
+            if (faltan == camino.length) camino = Arrays.copyOf(camino, faltan * 2);
+            camino[faltan++] = x;
+        }
+        while (faltan > 0) {
+            int x = camino[--faltan];
+            int padre = datos.getInt(ambitos + x * Formato.AMBITO + 4);
+            String n = cadena(datos.getInt(ambitos + x * Formato.AMBITO));
+            // el global es el de siempre, así se compara por identidad como en la tabla
+            ambitosLeidos[x] = padre < 0 && n.equals(Ambito.GLOBAL.getNombre()) ? Ambito.GLOBAL
+                    : new Ambito(n, padre >= 0 ? ambitosLeidos[padre] : null);
+        }
+        return ambitosLeidos[i];
+    }
+
+    // El id del símbolo es el índice de su nombre en las cadenas (no hay tabla de Nombres)
+    public Simbolo simbolo(int slot) {
+        Simbolo s = simbolosLeidos[slot];
+        if (s != null) return s;
+        s = new Simbolo(campo(slot, 0), nombre(slot), tipo(slot), valor(slot),
+                ambito(slot), linea(slot), columna(slot), profundidad(slot), indice(slot), slot);
+        s.setLongitud(longitud(slot));
+        return simbolosLeidos[slot] = s;
+    }
+
+    // Igual que TablaSimbolos.mostrar
+    public void mostrarTabla(PrintStream salida) {
+        salida.println("\n--- TABLA DE SÍMBOLOS ---");
+        salida.println("Nombre\tTipo\tValor\tÁmbito\tLínea");
+        for (int i = 0; i < cantidadSimbolos; i++) {
+            salida.println(simbolo(i));
+        }
+    }
+
+    // -----------------------
+    // Programa (AST en preorden, raíz 0)
+    // -----------------------
+    public int cantidadNodos() { return cantidadNodos; }
+    public int raiz() { return cantidadNodos > 0 ? 0 : -1; }
+
+    private int entero(int n, int k) { return datos.getInt(nodos + n * Formato.NODO + 8 + 4 * k); }
+
+    public long valorLong(int n) { return datos.getLong(nodos + n * Formato.NODO); }
+    public double valorDouble(int n) { return Double.longBitsToDouble(valorLong(n)); }
+    public boolean valorLogico(int n) { return valorLong(n) != 0; }
+    public int clase(int n) { return entero(n, 0); }
+    public int primerHijo(int n) { return entero(n, 1); }
+    public int siguiente(int n) { return entero(n, 2); }
+    public int dato(int n) { return entero(n, 3); }
+    public int tipoNodo(int n) { return entero(n, 4); }
+    public int lineaNodo(int n) { return entero(n, 5); }
+    public int columnaNodo(int n) { return entero(n, 6); }
+
+    // Texto de un literal CADENA
+    public String cadenaNodo(int n) { return cadena(dato(n)); }
+
+    // Símbolo de DECLARACION, VARIABLE e INDICE (null si no se resolvió)
+    public Simbolo simboloNodo(int n) {
+        int slot = dato(n);
+        return slot >= 0 ? simbolo(slot) : null;
+    }
+
+    // Misma representación que Ast.volcar()
+    public String volcar() {
+        StringBuilder sb = new StringBuilder();
+        if (cantidadNodos == 0) return "";
+        int[] padres = new int[64];
+        int alto = 0;
+        int n = 0;
+        while (true) {
+            for (int i = 0; i < alto; i++) sb.append("  ");
+            sb.append(Nodo.nombre(clase(n)));
+            describir(sb, n);
+            sb.append('\n');
+            if (primerHijo(n) >= 0) {
+                if (alto == padres.length) padres = Arrays.copyOf(padres, alto * 2);
+                padres[alto++] = n;
+                n = primerHijo(n);
+                continue;
+            }
+            while (siguiente(n) < 0) {
+                if (alto == 0) return sb.toString();
+                n = padres[--alto];
+            }
+            n = siguiente(n);
+        }
+    }
+
+    private void describir(StringBuilder sb, int n) {
+        int clase = clase(n);
+        switch (clase) {
+            case Nodo.DECLARACION:
+            case Nodo.VARIABLE:
+            case Nodo.INDICE:
+                Simbolo s = simboloNodo(n);
+                sb.append(' ').append(s != null ? s.getNombre() : "?");
+                if (clase == Nodo.INDICE && valorLong(n) != 0) sb.append(" (en rango)");
+                break;
+            case Nodo.ASIGNACION:
+            case Nodo.BINARIA:
+                sb.append(' ').append(lexer.TokenType.values()[dato(n)]);
+                break;
+            case Nodo.ENTERO:
+                sb.append(' ').append(valorLong(n));
+                break;
+            case Nodo.REAL:
+                sb.append(' ').append(valorDouble(n));
+                break;
+            case Nodo.LOGICO:
+                sb.append(' ').append(valorLogico(n));
+                break;
+            case Nodo.CADENA:
+                sb.append(" \"").append(cadenaNodo(n)).append('"');
+                break;
+        }
+        if (Nodo.esExpresion(clase)) sb.append(" : ").append(Tipo.nombre(tipoNodo(n)));
+        sb.append(" [l.").append(lineaNodo(n)).append(']');
+    }
+}
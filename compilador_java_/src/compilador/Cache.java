@@ -0,0 +1,257 @@
+package compilador;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Caché de compilaciones en disco, direccionada por contenido: la clave es un
+// SHA-256 de la versión del compilador, sus opciones y los bytes del fuente.
+// Cada entrada es un archivo <dir>/<2 hex>/<clave> que se escribe aparte y se
+// renombra de forma atómica, así dos procesos pueden compartir la carpeta: un
+// lector ve la entrada completa o no la ve. Una entrada rota o a medio borrar
+// cuenta como fallo. Se desaloja por fecha de modificación (se actualiza en
+// cada acierto) cuando el total pasa del máximo.
+public class Cache {
+    private static final int MAGICO = 0x43414348; // "CACH"
+    private static final int FORMATO = 1;
+    private static final String TEMPORAL = ".tmp";
+    private static final long TEMPORAL_VIEJO = 3_600_000L; // ms: restos de un proceso que murió escribiendo
+
+    private final Path dir;
+    private final long maximo;
+    private final AtomicLong ocupado = new AtomicLong(); // aproximado: otros procesos escriben también
+    private final Object desalojando = new Object();
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong escrituras = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong bytesLeidos = new AtomicLong();
+    private final AtomicLong bytesEscritos = new AtomicLong();
+
+    // Lo guardado de una unidad: el texto que escribió (tabla de símbolos y errores) y los conteos
+    static final class Entrada {
+        final byte[] texto;
+        final int errores;
+        final int tokens;
+
+        Entrada(byte[] texto, int errores, int tokens) {
+            this.texto = texto;
+            this.errores = errores;
+            this.tokens = tokens;
+        }
+    }
+
+    private static final class Archivo {
+        final Path ruta;
+        final long fecha;
+        final long tamaño;
+
+        Archivo(Path ruta, long fecha, long tamaño) {
+            this.ruta = ruta;
+            this.fecha = fecha;
+            this.tamaño = tamaño;
+        }
+    }
+
+    public Cache(Path dir, long maximoBytes) throws IOException {
+        this.dir = dir;
+        this.maximo = Math.max(0, maximoBytes);
+        Files.createDirectories(dir);
+        ocupado.set(medir(null));
+        if (ocupado.get() > maximo) desalojar(); // quedó grande de antes o bajó el máximo
+    }
+
+    // Clave hexadecimal de un fuente compilado con cierta configuración
+    static String clave(String huella, byte[] fuente) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // todo JRE trae SHA-256
+        }
+        byte[] h = huella.getBytes(StandardCharsets.UTF_8);
+        sha.update(ByteBuffer.allocate(4).putInt(h.length).array());
+        sha.update(h);
+        sha.update(fuente);
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : sha.digest()) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    private Path ruta(String clave) {
+        return dir.resolve(clave.substring(0, 2)).resolve(clave);
+    }
+
+    // null si no está o no se puede leer entera
+    Entrada buscar(String clave) {
+        Path p = ruta(clave);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(p);
+        } catch (IOException e) {
+            fallos.incrementAndGet();
+            return null;
+        }
+        Entrada e = decodificar(clave, bytes);
+        if (e == null) {
+            fallos.incrementAndGet();
+            return null;
+        }
+        aciertos.incrementAndGet();
+        bytesLeidos.addAndGet(bytes.length);
+        try {
+            Files.setLastModifiedTime(p, FileTime.fromMillis(System.currentTimeMillis())); // LRU
+        } catch (IOException ignorada) {
+            // otro proceso la desalojó recién: ya la leímos
+        }
+        return e;
+    }
+
+    void guardar(String clave, Entrada e) {
+        byte[] bytes = codificar(clave, e);
+        Path p = ruta(clave);
+        Path tmp = null;
+        try {
+            Files.createDirectories(p.getParent());
+            tmp = Files.createTempFile(p.getParent(), clave.substring(0, 8) + ".", TEMPORAL);
+            Files.write(tmp, bytes);
+            try {
+                Files.move(tmp, p, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmp = null;
+        } catch (IOException ex) {
+            return; // sin caché se sigue compilando igual
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignorada) {
+                }
+            }
+        }
+        escrituras.incrementAndGet();
+        bytesEscritos.addAndGet(bytes.length);
+        if (ocupado.addAndGet(bytes.length) > maximo) desalojar();
+    }
+
+    // Borra las entradas menos usadas hasta quedar en 3/4 del máximo
+    private void desalojar() {
+        synchronized (desalojando) {
+            List<Archivo> entradas = new ArrayList<>();
+            long total = medir(entradas);
+            if (total <= maximo) {
+                ocupado.set(total);
+                return;
+            }
+            entradas.sort((a, b) -> Long.compare(a.fecha, b.fecha));
+            long objetivo = maximo - maximo / 4;
+            for (Archivo e : entradas) {
+                if (total <= objetivo) break;
+                try {
+                    if (Files.deleteIfExists(e.ruta)) desalojos.incrementAndGet();
+                } catch (IOException ignorada) {
+                    continue;
+                }
+                total -= e.tamaño;
+            }
+            ocupado.set(total);
+        }
+    }
+
+    // Tamaño total de las entradas; si 'entradas' no es null también las junta.
+    // De paso borra temporales viejos
+    private long medir(List<Archivo> entradas) {
+        long total = 0;
+        long limite = System.currentTimeMillis() - TEMPORAL_VIEJO;
+        try (Stream<Path> s = Files.walk(dir, 2)) {
+            for (Path p : (Iterable<Path>) s::iterator) {
+                BasicFileAttributes a;
+                try {
+                    a = Files.readAttributes(p, BasicFileAttributes.class);
+                } catch (IOException e) {
+                    continue; // desalojada por otro proceso mientras recorríamos
+                }
+                if (!a.isRegularFile()) continue;
+                long fecha = a.lastModifiedTime().toMillis();
+                if (p.getFileName().toString().endsWith(TEMPORAL)) {
+                    if (fecha < limite) {
+                        try {
+                            Files.deleteIfExists(p);
+                        } catch (IOException ignorada) {
+                        }
+                    }
+                    continue;
+                }
+                total += a.size();
+                if (entradas != null) entradas.add(new Archivo(p, fecha, a.size()));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            // se mide lo que se pudo
+        }
+        return total;
+    }
+
+    // magico, formato, clave, errores, tokens, largo y texto, CRC32 de todo lo anterior
+    private static byte[] codificar(String clave, Entrada e) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(e.texto.length + 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGICO);
+            out.writeInt(FORMATO);
+            out.writeUTF(clave);
+            out.writeInt(e.errores);
+            out.writeInt(e.tokens);
+            out.writeInt(e.texto.length);
+            out.write(e.texto);
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // en memoria no pasa
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Entrada decodificar(String clave, byte[] bytes) {
+        if (bytes.length < 8) return null;
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 8);
+        if (crc.getValue() != ByteBuffer.wrap(bytes, bytes.length - 8, 8).getLong()) return null;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 8))) {
+            if (in.readInt() != MAGICO || in.readInt() != FORMATO || !in.readUTF().equals(clave)) return null;
+            int errores = in.readInt();
+            int tokens = in.readInt();
+            byte[] texto = new byte[in.readInt()];
+            in.readFully(texto);
+            return new Entrada(texto, errores, tokens);
+        } catch (IOException | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    public void informe(PrintStream salida) {
+        long a = aciertos.get(), f = fallos.get();
+        salida.printf("Caché: %d acierto(s), %d fallo(s) (%.1f%% aciertos), %d escritura(s), %d desalojo(s), "
+                        + "%d KB leídos, %d KB escritos, %d KB en %s%n",
+                a, f, 100.0 * a / Math.max(1, a + f), escrituras.get(), desalojos.get(),
+                bytesLeidos.get() >> 10, bytesEscritos.get() >> 10, ocupado.get() >> 10, dir);
+    }
+
+    public long getAciertos() { return aciertos.get(); }
+
+    public long getFallos() { return fallos.get(); }
+}
@@ -0,0 +1,169 @@
+package compilador;
+
+import ast.Ast;
+import errores.Diagnostico;
+import errores.ErrorHandler;
+import errores.Formato;
+import errores.Sumidero;
+import estadisticas.Estadisticas;
+import estadisticas.Fase;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import lexer.Fuente;
+import lexer.Lexer;
+import lexer.TokenBuffer;
+import optimizador.Plegado;
+import optimizador.Rangos;
+import parser.Parser;
+
+// Etapas de análisis de un archivo: Fuente -> Lexer -> Parser.
+// No guarda estado entre llamadas: se puede compartir entre hilos.
+public class Compilador {
+    // Entra en la clave de la caché: subirla cuando cambie lo que escribe una unidad
+    public static final String VERSION = "2";
+
+    private final Charset charset;
+    private final boolean construirAst;
+    private final boolean medir; // cada Unidad lleva sus Estadisticas
+
+    // Diagnósticos: sin sumidero compartido cada unidad escribe texto en su 'errores'
+    private Sumidero sumidero;
+    private int maxErrores = ErrorHandler.SIN_LIMITE;
+    private boolean cascada;
+
+    // El lexer en su propio hilo, pasando tokens al parser a medida que los reconoce
+    private boolean lexerEnParalelo;
+    // Hilos para analizar un archivo en tramos paralelos (1: en orden; sin AST)
+    private int hilosParser = 1;
+    // Plegado y propagación de constantes sobre el AST y análisis de rangos de
+    // los índices (solo si no hubo errores)
+    private boolean optimizar;
+
+    public Compilador(Charset charset, boolean construirAst) {
+        this(charset, construirAst, false);
+    }
+
+    public Compilador(Charset charset, boolean construirAst, boolean medir) {
+        this.charset = charset;
+        this.construirAst = construirAst;
+        this.medir = medir;
+    }
+
+    // Se configura antes de compartir el Compilador entre hilos
+    public Compilador diagnosticos(Sumidero sumidero, int maxErrores, boolean suprimirCascada) {
+        this.sumidero = sumidero;
+        this.maxErrores = maxErrores;
+        this.cascada = suprimirCascada;
+        return this;
+    }
+
+    public Compilador lexerEnParalelo(boolean activo) {
+        this.lexerEnParalelo = activo;
+        return this;
+    }
+
+    public Compilador parserEnParalelo(int hilos) {
+        this.hilosParser = Math.max(1, hilos);
+        return this;
+    }
+
+    public Compilador optimizar(boolean activo) {
+        this.optimizar = activo;
+        return this;
+    }
+
+    // Opciones que cambian lo que escribe una unidad, para la clave de la caché.
+    // null si los diagnósticos van a un sumidero compartido: no quedan en el texto
+    // de la unidad y no se pueden guardar con él
+    String huella() {
+        if (sumidero != null) return null;
+        return "compilador " + VERSION + ";charset=" + charset.name() + ";ast=" + construirAst
+                + ";maxErrores=" + maxErrores + ";cascada=" + cascada + ";optimizar=" + optimizar;
+    }
+
+    private ErrorHandler manejador(String nombre, PrintStream errores) {
+        ErrorHandler m = new ErrorHandler(sumidero != null ? sumidero : new Sumidero(errores, Formato.HUMANO),
+                nombre, maxErrores, cascada);
+        m.medirTiempo(medir);
+        return m;
+    }
+
+    // La tabla de símbolos va a 'salida' y los errores a 'errores' (pueden ser el mismo)
+    public Unidad compilar(String ruta, PrintStream salida, PrintStream errores) {
+        long inicio = System.nanoTime();
+        Estadisticas est = medir ? new Estadisticas() : null;
+        ErrorHandler manejador = manejador(ruta, errores);
+        Fuente fuente;
+        Fase fase = Fase.iniciar(est, Estadisticas.LECTURA, ruta);
+        try {
+            fuente = Fuente.abrir(ruta, charset);
+        } catch (IOException e) {
+            manejador.error(Diagnostico.ARCHIVO, e.getMessage(), 0, 0, 0);
+            fuente = Fuente.vacia();
+        }
+        fase.terminar();
+        return compilar(fuente, ruta, manejador, salida, est, inicio);
+    }
+
+    // Bytes ya leídos del archivo 'ruta', en el charset del Compilador
+    public Unidad compilar(byte[] bytes, String ruta, PrintStream salida, PrintStream errores) {
+        return compilar(Fuente.desdeBytes(bytes, charset), ruta, salida, errores);
+    }
+
+    public Unidad compilar(Fuente fuente, String nombre, PrintStream salida, PrintStream errores) {
+        return compilar(fuente, nombre, manejador(nombre, errores), salida, medir ? new Estadisticas() : null, System.nanoTime());
+    }
+
+    private Unidad compilar(Fuente fuente, String nombre, ErrorHandler errores, PrintStream salida,
+                            Estadisticas est, long inicio) {
+        TokenBuffer tokens;
+        if (lexerEnParalelo) {
+            // la fase léxica se mide en el hilo del lexer y se solapa con la sintáctica
+            tokens = new Lexer(fuente).tokenizarEnParalelo(trabajo -> {
+                Fase lexico = Fase.iniciar(est, Estadisticas.LEXICO, nombre);
+                trabajo.run();
+                lexico.terminar();
+            });
+        } else {
+            Fase fase = Fase.iniciar(est, Estadisticas.LEXICO, nombre);
+            tokens = new Lexer(fuente).tokenizar();
+            fase.terminar();
+        }
+
+        Fase fase = Fase.iniciar(est, Estadisticas.SINTACTICO, nombre);
+        // Con --optimizar la tabla se muestra después del plegado, con los valores
+        // de las variables que quedaron constantes
+        boolean tablaAlFinal = optimizar && construirAst;
+        Parser parser;
+        try {
+            parser = new Parser(tokens, construirAst, errores, tablaAlFinal ? null : salida);
+            parser.getTabla().medirTiempo(medir);
+            if (hilosParser > 1) parser.programaEnParalelo(hilosParser);
+            else parser.programa();
+        } finally {
+            tokens.completar(); // el parser pudo cortar antes del EOF
+        }
+        errores.vaciar();
+        fase.terminar();
+
+        Ast ast = parser.getAst();
+        if (optimizar && ast != null && !errores.hayErrores()) {
+            fase = Fase.iniciar(est, Estadisticas.OPTIMIZACION, nombre);
+            new Plegado(ast).optimizar();
+            new Rangos(ast).analizar();
+            fase.terminar();
+        }
+        if (tablaAlFinal) parser.getTabla().mostrar(salida);
+        long nodos = ast != null ? ast.tamaño() : 0;
+        if (est != null) {
+            est.contar(nombre, fuente.longitud(), tokens.tamaño(), nodos, parser.getTabla().cantidad(),
+                    parser.getTabla().getBusquedas(), errores.cantidad(), parser.getTabla().getNanos(),
+                    errores.getNanos());
+        } else {
+            Estadisticas.evento(nombre, fuente.longitud(), tokens.tamaño(), nodos, parser.getTabla().cantidad(),
+                    parser.getTabla().getBusquedas(), errores.cantidad());
+        }
+        return new Unidad(nombre, tokens, parser, errores, est, System.nanoTime() - inicio);
+    }
+}
@@ -0,0 +1,182 @@
+package compilador;
+
+import estadisticas.Estadisticas;
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Compila muchos archivos en una sola JVM sobre un ForkJoinPool (robo de trabajo).
+// Cada archivo escribe en su propio buffer y los buffers se vuelcan en el orden
+// de entrada a medida que terminan, así la salida no depende de los hilos.
+public class Lote {
+    private static final String EXTENSION = ".txt";
+    private static final long PILA_GRANDE = 512L << 20;
+
+    private final Compilador compilador;
+    private final int hilos;
+    private Estadisticas estadisticas; // suma de las unidades, si el Compilador mide
+    private Cache cache;
+    private String huella; // opciones del Compilador para la clave; null: no se usa la caché
+
+    public Lote(Compilador compilador, int hilos) {
+        this.compilador = compilador;
+        this.hilos = Math.max(1, hilos);
+    }
+
+    // Con caché, los archivos cuyo contenido ya se compiló con las mismas opciones
+    // no se vuelven a compilar: se repite el texto guardado
+    public Lote cache(Cache cache) {
+        this.cache = cache;
+        this.huella = cache != null ? compilador.huella() : null;
+        return this;
+    }
+
+    public Cache getCache() { return cache; }
+
+    // Lo que queda de cada archivo una vez compilado (sin el AST ni los tokens)
+    private static final class Resultado {
+        final String nombre;
+        final byte[] texto;
+        final int errores;
+        final int tokens;
+        final Estadisticas estadisticas;
+
+        Resultado(String nombre, byte[] texto, int errores, int tokens, Estadisticas estadisticas) {
+            this.nombre = nombre;
+            this.texto = texto;
+            this.errores = errores;
+            this.tokens = tokens;
+            this.estadisticas = estadisticas;
+        }
+    }
+
+    // Archivos sueltos tal cual; las carpetas se recorren buscando *.txt, en orden
+    public static List<String> expandir(List<String> rutas) throws IOException {
+        List<String> archivos = new ArrayList<>();
+        for (String r : rutas) {
+            Path p = Paths.get(r);
+            if (!Files.isDirectory(p)) {
+                archivos.add(r);
+                continue;
+            }
+            try (Stream<Path> s = Files.walk(p)) {
+                archivos.addAll(s.filter(Files::isRegularFile)
+                        .filter(f -> f.getFileName().toString().endsWith(EXTENSION))
+                        .map(Path::toString)
+                        .sorted()
+                        .collect(Collectors.toList()));
+            }
+        }
+        return archivos;
+    }
+
+    // Estadísticas sumadas del último compilar() (sin los aciertos de la caché); null si el Compilador no mide
+    public Estadisticas getEstadisticas() { return estadisticas; }
+
+    // Devuelve la cantidad de archivos con errores
+    public int compilar(List<String> archivos, PrintStream salida) {
+        long inicio = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            List<Future<Resultado>> pendientes = new ArrayList<>(archivos.size());
+            for (String archivo : archivos) {
+                pendientes.add(pool.submit(() -> compilarUno(archivo)));
+            }
+
+            int conErrores = 0, errores = 0;
+            long tokens = 0;
+            estadisticas = null;
+            for (Future<Resultado> f : pendientes) {
+                Resultado r = esperar(f);
+                if (r.estadisticas != null) {
+                    if (estadisticas == null) estadisticas = new Estadisticas();
+                    estadisticas.sumar(r.estadisticas);
+                }
+                salida.println("=== " + r.nombre + " ===");
+                salida.write(r.texto, 0, r.texto.length);
+                if (r.errores > 0) conErrores++;
+                errores += r.errores;
+                tokens += r.tokens;
+            }
+
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            salida.printf("%nLote: %d archivo(s), %d con errores, %d error(es), %d tokens en %.3f s "
+                            + "(%.1f archivos/s, %d hilo(s))%n",
+                    archivos.size(), conErrores, errores, tokens, segundos,
+                    archivos.size() / Math.max(segundos, 1e-9), hilos);
+            salida.flush();
+            return conErrores;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Resultado compilarUno(String archivo) {
+        byte[] bytes = null;
+        String clave = null;
+        if (huella != null) {
+            try {
+                bytes = Files.readAllBytes(Paths.get(archivo));
+            } catch (IOException | InvalidPathException e) {
+                // sin los bytes no hay clave: el Compilador informa el error de lectura
+            }
+            if (bytes != null) {
+                clave = Cache.clave(huella, bytes);
+                Cache.Entrada e = cache.buscar(clave);
+                if (e != null) return new Resultado(archivo, e.texto, e.errores, e.tokens, null);
+            }
+        }
+        Resultado r;
+        try {
+            r = compilarEn(archivo, bytes);
+        } catch (StackOverflowError e) {
+            // Los hilos del pool tienen la pila por defecto; un anidamiento muy
+            // profundo se repite en un hilo propio con la pila del modo normal
+            r = conPilaGrande(archivo, bytes);
+        }
+        if (clave != null) cache.guardar(clave, new Cache.Entrada(r.texto, r.errores, r.tokens));
+        return r;
+    }
+
+    // Se compilan los bytes que se usaron para la clave, no lo que haya ahora en el archivo
+    private Resultado compilarEn(String archivo, byte[] bytes) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream salida = new PrintStream(buffer, false);
+        Unidad u = bytes != null ? compilador.compilar(bytes, archivo, salida, salida)
+                : compilador.compilar(archivo, salida, salida);
+        salida.flush();
+        return new Resultado(archivo, buffer.toByteArray(), u.cantidadErrores(), u.getTokens().tamaño(),
+                u.getEstadisticas());
+    }
+
+    private Resultado conPilaGrande(String archivo, byte[] bytes) {
+        Resultado[] r = new Resultado[1];
+        Thread hilo = new Thread(null, () -> r[0] = compilarEn(archivo, bytes), "compilador-profundo", PILA_GRANDE);
+        hilo.start();
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("lote interrumpido");
+        }
+        if (r[0] == null) throw new IllegalStateException("no se pudo compilar " + archivo);
+        return r[0];
+    }
+
+    private static Resultado esperar(Future<Resultado> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("lote interrumpido");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            if (causa instanceof Error) throw (Error) causa;
+            throw new IllegalStateException(causa);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package compilador;
+
+import ast.Ast;
+import errores.ErrorHandler;
+import estadisticas.Estadisticas;
+import lexer.TokenBuffer;
+import parser.Parser;
+import simbolos.TablaSimbolos;
+
+// Resultado de compilar un archivo: todo el estado es propio de la unidad,
+// así varias unidades se pueden compilar a la vez en hilos distintos
+public class Unidad {
+    private final String nombre;
+    private final TokenBuffer tokens;
+    private final Parser parser;
+    private final ErrorHandler errores;
+    private final Estadisticas estadisticas; // null si el Compilador no mide
+    private final long nanos;
+
+    Unidad(String nombre, TokenBuffer tokens, Parser parser, ErrorHandler errores, Estadisticas estadisticas,
+           long nanos) {
+        this.nombre = nombre;
+        this.tokens = tokens;
+        this.parser = parser;
+        this.errores = errores;
+        this.estadisticas = estadisticas;
+        this.nanos = nanos;
+    }
+
+    public String getNombre() { return nombre; }
+    public TokenBuffer getTokens() { return tokens; }
+    public Parser getParser() { return parser; }
+    public Ast getAst() { return parser.getAst(); }
+    public TablaSimbolos getTabla() { return parser.getTabla(); }
+    public ErrorHandler getErrores() { return errores; }
+    public int cantidadErrores() { return errores.cantidad(); }
+    public Estadisticas getEstadisticas() { return estadisticas; }
+    public long getNanos() { return nanos; }
+}
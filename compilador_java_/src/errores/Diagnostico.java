@@ -0,0 +1,61 @@
+package errores;
+
+// Un error (o nota) ya armado: tipo legible, código estable, posición y mensaje.
+// Línea y columna empiezan en 1; 0 si el diagnóstico no tiene posición.
+public final class Diagnostico {
+    // Códigos estables para filtrar y agrupar (JSON, SARIF)
+    public static final String ARCHIVO = "E0001";               // no se pudo abrir el archivo
+    public static final String LEXICO = "L0001";                // token inválido
+    public static final String SINTAXIS = "S0001";              // token inesperado
+    public static final String NO_DECLARADA = "T0001";          // variable no declarada
+    public static final String REDECLARADA = "T0002";           // ya declarada en el ámbito
+    public static final String TIPO_INICIALIZACION = "T0003";
+    public static final String TIPO_ASIGNACION = "T0004";
+    public static final String CONDICION = "T0005";             // condición no booleana
+    public static final String OPERANDO = "T0006";              // operador con tipos inválidos
+    public static final String INDICE = "T0007";                // índice no entero o fuera del arreglo
+    public static final String EJECUCION = "R0001";
+    public static final String GENERICO = "X0001";              // reportado sin código
+    public static final String SUPRIMIDOS = "N0001";            // nota con los que no se mostraron
+
+    public static final String NOTA = "Nota";
+
+    private final String tipo;
+    private final String codigo;
+    private final String archivo;
+    private final int linea, columna, longitud;
+    private final String mensaje;
+
+    public Diagnostico(String tipo, String codigo, String archivo, int linea, int columna, int longitud,
+                       String mensaje) {
+        this.tipo = tipo;
+        this.codigo = codigo;
+        this.archivo = archivo;
+        this.linea = linea;
+        this.columna = columna;
+        this.longitud = longitud;
+        this.mensaje = mensaje;
+    }
+
+    public String getTipo() { return tipo; }
+    public String getCodigo() { return codigo; }
+    public String getArchivo() { return archivo; }
+    public int getLinea() { return linea; }
+    public int getColumna() { return columna; }
+    public int getLongitud() { return longitud; }
+    public String getMensaje() { return mensaje; }
+    public boolean esNota() { return NOTA.equals(tipo); }
+
+    // Tipo por defecto según la familia del código
+    public static String tipoDe(String codigo) {
+        switch (codigo.charAt(0)) {
+            case 'E': return "Error al abrir el archivo";
+            case 'L': return "Error léxico";
+            case 'S': return "Error sintáctico";
+            case 'T': return "Error semántico";
+            case 'R': return "Error de ejecución";
+            case 'N': return NOTA;
+            default: return "Error";
+        }
+    }
+}
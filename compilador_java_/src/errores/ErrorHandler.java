@@ -1,7 +1,155 @@
 package errores;
 
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+
+// Junta los diagnósticos de una compilación y los publica de a tandas en un
+// Sumidero. Opcionalmente corta después de 'maxErrores' y suprime cascadas:
+// lo que se reporta mientras el parser se recupera de un error sintáctico y
+// los errores repetidos (mismo código y mensaje). Lo suprimido se cuenta igual
+// y al final sale una nota con la cantidad.
 public class ErrorHandler {
+    public static final int SIN_LIMITE = Integer.MAX_VALUE;
+    private static final int TANDA = 256;
+
+    private final Sumidero sumidero;
+    private final String archivo;
+    private final int maxErrores;
+    private final boolean cascada; // true: suprimir cascadas
+
+    private final ArrayList<Diagnostico> pendientes = new ArrayList<>();
+    private HashSet<String> vistos; // código + mensaje, solo con cascada
+    private boolean recuperando;
+    private int cantidad, mostrados, suprimidos;
+    private boolean notaPublicada;
+
+    private boolean medir; // para --stats: tiempo gastado en reportar
+    private long nanos;
+
+    // Grabación (análisis en paralelo): los reportes no se publican, se guardan
+    // tal cual para repetirlos en orden en el manejador real con reproducir()
+    private ArrayList<Reporte> grabados;
+
+    private static final class Reporte {
+        final String tipo, codigo, descripcion;
+        final int linea, columna, longitud;
+        final boolean recuperando;
+
+        Reporte(String tipo, String codigo, int linea, int columna, int longitud, String descripcion,
+                boolean recuperando) {
+            this.tipo = tipo;
+            this.codigo = codigo;
+            this.linea = linea;
+            this.columna = columna;
+            this.longitud = longitud;
+            this.descripcion = descripcion;
+            this.recuperando = recuperando;
+        }
+    }
+
+    public ErrorHandler() {
+        this(System.err);
+    }
+
+    // Los errores van a 'salida' (en modo lote, el buffer de cada archivo)
+    public ErrorHandler(PrintStream salida) {
+        this(new Sumidero(salida, Formato.HUMANO), null, SIN_LIMITE, false);
+    }
+
+    public ErrorHandler(Sumidero sumidero, String archivo, int maxErrores, boolean cascada) {
+        this.sumidero = sumidero;
+        this.archivo = archivo;
+        this.maxErrores = maxErrores;
+        this.cascada = cascada;
+    }
+
+    public static ErrorHandler grabador() {
+        ErrorHandler m = new ErrorHandler(null, null, SIN_LIMITE, false);
+        m.grabados = new ArrayList<>();
+        return m;
+    }
+
+    public void medirTiempo(boolean medir) { this.medir = medir; }
+
+    // Repite lo grabado por otro manejador como si se hubiera reportado acá
+    // (con el límite, las cascadas y la recuperación de cada reporte)
+    public void reproducir(ErrorHandler grabador) {
+        boolean previo = recuperando;
+        for (Reporte r : grabador.grabados) {
+            recuperando = r.recuperando;
+            agregar(r.tipo, r.codigo, r.linea, r.columna, r.longitud, r.descripcion);
+        }
+        recuperando = previo;
+    }
+
+    // Error sin posición (por ejemplo, no se pudo abrir el archivo)
+    public void reportar(String tipo, String descripcion) {
+        agregar(tipo, Diagnostico.GENERICO, 0, 0, 0, descripcion);
+    }
+
     public void reportar(String tipo, String descripcion, int linea) {
-        System.err.printf("%s [línea %d]: %s%n", tipo, linea, descripcion);
+        agregar(tipo, Diagnostico.GENERICO, linea, 0, 0, descripcion);
+    }
+
+    public void reportar(String tipo, String descripcion, int linea, int columna) {
+        agregar(tipo, Diagnostico.GENERICO, linea, columna, 0, descripcion);
+    }
+
+    // Con código estable y largo del token señalado
+    public void error(String codigo, String descripcion, int linea, int columna, int longitud) {
+        agregar(Diagnostico.tipoDe(codigo), codigo, linea, columna, longitud, descripcion);
+    }
+
+    // El parser avisa cuando salta tokens para sincronizar después de un error
+    public void iniciarRecuperacion() { recuperando = true; }
+    public void terminarRecuperacion() { recuperando = false; }
+
+    private void agregar(String tipo, String codigo, int linea, int columna, int longitud, String descripcion) {
+        cantidad++;
+        if (grabados != null) {
+            grabados.add(new Reporte(tipo, codigo, linea, columna, longitud, descripcion, recuperando));
+            return;
+        }
+        if (mostrados >= maxErrores || (cascada && esCascada(codigo, descripcion))) {
+            suprimidos++;
+            return;
+        }
+        long inicio = medir ? System.nanoTime() : 0;
+        mostrados++;
+        pendientes.add(new Diagnostico(tipo, codigo, archivo, linea, columna, longitud, descripcion));
+        if (pendientes.size() >= TANDA) publicar();
+        if (medir) nanos += System.nanoTime() - inicio;
     }
+
+    private boolean esCascada(String codigo, String descripcion) {
+        if (recuperando) return true;
+        if (vistos == null) vistos = new HashSet<>();
+        return !vistos.add(codigo + '\0' + descripcion);
+    }
+
+    // Publica lo pendiente; la nota de suprimidos sale una sola vez, en el
+    // primer vaciar() después de haber suprimido algo
+    public void vaciar() {
+        long inicio = medir ? System.nanoTime() : 0;
+        if (suprimidos > 0 && !notaPublicada) {
+            pendientes.add(new Diagnostico(Diagnostico.NOTA, Diagnostico.SUPRIMIDOS, archivo, 0, 0, 0,
+                    suprimidos + " error(es) más sin mostrar"
+                            + (mostrados >= maxErrores ? " (límite de " + maxErrores + ")" : " (en cascada)")));
+            notaPublicada = true;
+        }
+        publicar();
+        if (medir) nanos += System.nanoTime() - inicio;
+    }
+
+    private void publicar() {
+        if (pendientes.isEmpty()) return;
+        sumidero.publicar(pendientes);
+        pendientes.clear();
+    }
+
+    public int cantidad() { return cantidad; }
+    public int suprimidos() { return suprimidos; }
+    public boolean hayErrores() { return cantidad > 0; }
+    public long getNanos() { return nanos; }
 }
@@ -0,0 +1,141 @@
+package errores;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Cómo se escriben los diagnósticos. Los formatos no guardan estado: el
+// Sumidero lleva la cuenta de si ya escribió el encabezado y el primer resultado.
+public abstract class Formato {
+    // Texto de siempre: "Tipo [línea L, columna C]: mensaje"
+    public static final Formato HUMANO = new Formato() {
+        @Override
+        void escribir(StringBuilder sb, Diagnostico d, boolean primero) {
+            sb.append(d.getTipo());
+            if (d.getLinea() > 0) {
+                sb.append(" [línea ").append(d.getLinea());
+                if (d.getColumna() > 0) sb.append(", columna ").append(d.getColumna());
+                sb.append(']');
+            }
+            sb.append(": ").append(d.getMensaje()).append(System.lineSeparator());
+        }
+    };
+
+    // Un objeto JSON por línea
+    public static final Formato JSON = new Formato() {
+        @Override
+        void escribir(StringBuilder sb, Diagnostico d, boolean primero) {
+            sb.append("{\"archivo\":");
+            cadena(sb, d.getArchivo());
+            sb.append(",\"tipo\":");
+            cadena(sb, d.getTipo());
+            sb.append(",\"codigo\":");
+            cadena(sb, d.getCodigo());
+            sb.append(",\"linea\":").append(d.getLinea())
+                    .append(",\"columna\":").append(d.getColumna())
+                    .append(",\"longitud\":").append(d.getLongitud())
+                    .append(",\"mensaje\":");
+            cadena(sb, d.getMensaje());
+            sb.append('}').append('\n');
+        }
+    };
+
+    // SARIF 2.1.0: un único documento con una corrida y sus resultados
+    public static final Formato SARIF = new Formato() {
+        @Override
+        void inicio(StringBuilder sb) {
+            sb.append("{\"version\":\"2.1.0\",")
+                    .append("\"$schema\":\"https://json.schemastore.org/sarif-2.1.0.json\",")
+                    .append("\"runs\":[{\"tool\":{\"driver\":{\"name\":\"compilador_java\"}},\"results\":[\n");
+        }
+
+        @Override
+        void escribir(StringBuilder sb, Diagnostico d, boolean primero) {
+            if (!primero) sb.append(",\n");
+            sb.append("{\"ruleId\":");
+            cadena(sb, d.getCodigo());
+            sb.append(",\"level\":\"").append(d.esNota() ? "note" : "error").append("\",\"message\":{\"text\":");
+            cadena(sb, d.getTipo() + ": " + d.getMensaje());
+            sb.append('}');
+            if (d.getArchivo() != null) {
+                sb.append(",\"locations\":[{\"physicalLocation\":{\"artifactLocation\":{\"uri\":");
+                cadena(sb, uri(d.getArchivo()));
+                sb.append('}');
+                if (d.getLinea() > 0) {
+                    sb.append(",\"region\":{\"startLine\":").append(d.getLinea());
+                    if (d.getColumna() > 0) {
+                        sb.append(",\"startColumn\":").append(d.getColumna())
+                                .append(",\"endColumn\":").append(d.getColumna() + Math.max(d.getLongitud(), 1));
+                    }
+                    sb.append('}');
+                }
+                sb.append("}}]");
+            }
+            sb.append('}');
+        }
+
+        @Override
+        void fin(StringBuilder sb) {
+            sb.append("\n]}]}\n");
+        }
+    };
+
+    private static final String NOMBRES = "humano|json|sarif";
+
+    public static Formato porNombre(String nombre) {
+        switch (nombre) {
+            case "humano": return HUMANO;
+            case "json": return JSON;
+            case "sarif": return SARIF;
+            default: throw new IllegalArgumentException("formato de diagnósticos desconocido: " + nombre
+                    + " (" + NOMBRES + ")");
+        }
+    }
+
+    // SARIF pide URIs: una ruta absoluta va como file:, una relativa como
+    // referencia relativa (con '/' y los caracteres no válidos escapados)
+    static String uri(String archivo) {
+        try {
+            Path p = Paths.get(archivo);
+            if (p.isAbsolute()) return p.toUri().toString();
+        } catch (InvalidPathException e) {
+            // no es una ruta del sistema (p. ej. <stdin>): se escapa como relativa
+        }
+        String ruta = archivo.replace('\\', '/');
+        try {
+            return new URI(null, null, ruta, null).toASCIIString();
+        } catch (URISyntaxException e) {
+            return ruta;
+        }
+    }
+
+    void inicio(StringBuilder sb) {}
+
+    abstract void escribir(StringBuilder sb, Diagnostico d, boolean primero);
+
+    void fin(StringBuilder sb) {}
+
+    static void cadena(StringBuilder sb, String s) {
+        if (s == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
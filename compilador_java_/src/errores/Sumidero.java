@@ -0,0 +1,58 @@
+package errores;
+
+import java.io.PrintStream;
+import java.util.List;
+
+// Destino de los diagnósticos. Cada ErrorHandler junta los suyos y los publica
+// de a tandas: se formatea la tanda completa y se escribe con un solo print,
+// en lugar de un printf sincronizado por error. Es seguro entre hilos, así
+// varias compilaciones a la vez pueden compartir uno (por ejemplo, un SARIF).
+public class Sumidero {
+    private static final int TAMAÑO_ESCRITURA = 1 << 16;
+
+    private final PrintStream destino;
+    private final Formato formato;
+    private final StringBuilder buffer = new StringBuilder(1024);
+    private boolean iniciado, cerrado;
+    private boolean primero = true;
+
+    public Sumidero(PrintStream destino, Formato formato) {
+        this.destino = destino;
+        this.formato = formato;
+    }
+
+    public Formato getFormato() { return formato; }
+
+    public synchronized void publicar(List<Diagnostico> tanda) {
+        if (cerrado) throw new IllegalStateException("sumidero cerrado");
+        iniciar();
+        for (Diagnostico d : tanda) {
+            formato.escribir(buffer, d, primero);
+            primero = false;
+            if (buffer.length() >= TAMAÑO_ESCRITURA) escribir();
+        }
+        escribir();
+    }
+
+    // Escribe lo que falte del documento (el cierre de SARIF). Publicar después es un error
+    public synchronized void cerrar() {
+        if (cerrado) return;
+        iniciar();
+        formato.fin(buffer);
+        escribir();
+        cerrado = true;
+    }
+
+    private void iniciar() {
+        if (iniciado) return;
+        formato.inicio(buffer);
+        iniciado = true;
+    }
+
+    private void escribir() {
+        if (buffer.length() == 0) return;
+        destino.print(buffer);
+        destino.flush();
+        buffer.setLength(0);
+    }
+}
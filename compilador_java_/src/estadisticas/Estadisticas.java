@@ -0,0 +1,137 @@
+package estadisticas;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+// Tiempos, memoria reservada y contadores de una compilación (o de varias, con sumar)
+public class Estadisticas {
+    public static final int LECTURA = 0, LEXICO = 1, SINTACTICO = 2, OPTIMIZACION = 3;
+    private static final String[] FASES = {"lectura", "léxico", "sintáctico", "optimización"};
+    private static final String[] CLAVES = {"lectura", "lexico", "sintactico", "optimizacion"};
+
+    private final long[] nanos = new long[FASES.length];
+    private final long[] reservados = new long[FASES.length]; // -1 si no se pudo medir
+    private final long[] corridas = new long[FASES.length];   // 0: la fase no se ejecutó y no se muestra
+    private long nanosTabla;    // dentro de la fase sintáctica
+    private long nanosErrores;  // reporte de errores, en cualquier fase
+    private long archivos, bytes, tokens, nodos, simbolos, busquedas, errores;
+
+    public static String nombreFase(int fase) { return FASES[fase]; }
+
+    void sumarFase(int fase, long n, long r) {
+        corridas[fase]++;
+        agregar(fase, n, r);
+    }
+
+    private void agregar(int fase, long n, long r) {
+        nanos[fase] += n;
+        if (r < 0 || reservados[fase] < 0) reservados[fase] = -1;
+        else reservados[fase] += r;
+    }
+
+    // Contadores de un archivo terminado; también sale como evento JFR
+    public void contar(String archivo, long bytes, long tokens, long nodos, long simbolos, long busquedas,
+                       long errores, long nanosTabla, long nanosErrores) {
+        this.archivos++;
+        this.bytes += bytes;
+        this.tokens += tokens;
+        this.nodos += nodos;
+        this.simbolos += simbolos;
+        this.busquedas += busquedas;
+        this.errores += errores;
+        this.nanosTabla += nanosTabla;
+        this.nanosErrores += nanosErrores;
+        Jfr.compilacion(archivo, bytes, tokens, nodos, simbolos, busquedas, errores);
+    }
+
+    // Solo el evento JFR, para cuando no se piden estadísticas
+    public static void evento(String archivo, long bytes, long tokens, long nodos, long simbolos, long busquedas,
+                              long errores) {
+        Jfr.compilacion(archivo, bytes, tokens, nodos, simbolos, busquedas, errores);
+    }
+
+    public void sumar(Estadisticas otra) {
+        for (int f = 0; f < FASES.length; f++) {
+            if (otra.corridas[f] == 0) continue;
+            corridas[f] += otra.corridas[f];
+            agregar(f, otra.nanos[f], otra.reservados[f]);
+        }
+        archivos += otra.archivos;
+        bytes += otra.bytes;
+        tokens += otra.tokens;
+        nodos += otra.nodos;
+        simbolos += otra.simbolos;
+        busquedas += otra.busquedas;
+        errores += otra.errores;
+        nanosTabla += otra.nanosTabla;
+        nanosErrores += otra.nanosErrores;
+    }
+
+    public long getTokens() { return tokens; }
+    public long getErrores() { return errores; }
+
+    private long totalNanos() {
+        long t = 0;
+        for (long n : nanos) t += n;
+        return t;
+    }
+
+    private long totalReservados() {
+        long t = 0;
+        for (int f = 0; f < FASES.length; f++) {
+            if (corridas[f] == 0) continue;
+            if (reservados[f] < 0) return -1;
+            t += reservados[f];
+        }
+        return t;
+    }
+
+    public void imprimir(PrintStream salida) {
+        salida.println("\n--- ESTADÍSTICAS ---");
+        salida.printf(Locale.ROOT, "%-22s%12s%14s%n", "Fase", "Tiempo (ms)", "Memoria (KB)");
+        for (int f = 0; f < FASES.length; f++) {
+            if (corridas[f] == 0) continue;
+            salida.printf(Locale.ROOT, "%-22s%12.3f%14s%n", FASES[f], nanos[f] / 1e6, kb(reservados[f]));
+        }
+        salida.printf(Locale.ROOT, "%-22s%12.3f%n", "  tabla de símbolos", nanosTabla / 1e6);
+        salida.printf(Locale.ROOT, "%-22s%12.3f%n", "  errores", nanosErrores / 1e6);
+        salida.printf(Locale.ROOT, "%-22s%12.3f%14s%n", "total", totalNanos() / 1e6, kb(totalReservados()));
+        salida.printf("Archivos: %d  Bytes: %d  Tokens: %d  Nodos: %d  Símbolos: %d  Búsquedas: %d  Errores: %d%n",
+                archivos, bytes, tokens, nodos, simbolos, busquedas, errores);
+        double segundos = Math.max(totalNanos(), 1) / 1e9;
+        salida.printf(Locale.ROOT, "Rendimiento: %.0f tokens/s, %.1f MB/s%n", tokens / segundos, bytes / 1e6 / segundos);
+    }
+
+    public String json() {
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"archivos\":").append(archivos)
+                .append(",\"bytes\":").append(bytes)
+                .append(",\"fases\":{");
+        boolean primera = true;
+        for (int f = 0; f < FASES.length; f++) {
+            if (corridas[f] == 0) continue;
+            if (!primera) sb.append(',');
+            primera = false;
+            sb.append('"').append(CLAVES[f]).append("\":{\"ms\":").append(ms(nanos[f]))
+                    .append(",\"bytes_reservados\":").append(reservados[f]).append('}');
+        }
+        sb.append("},\"tabla_ms\":").append(ms(nanosTabla))
+                .append(",\"errores_ms\":").append(ms(nanosErrores))
+                .append(",\"total_ms\":").append(ms(totalNanos()))
+                .append(",\"tokens\":").append(tokens)
+                .append(",\"nodos\":").append(nodos)
+                .append(",\"simbolos\":").append(simbolos)
+                .append(",\"busquedas\":").append(busquedas)
+                .append(",\"errores\":").append(errores)
+                .append('}');
+        return sb.toString();
+    }
+
+    private static String ms(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String kb(long bytes) {
+        return bytes < 0 ? "-" : Long.toString(bytes >> 10);
+    }
+}
@@ -0,0 +1,32 @@
+package estadisticas;
+
+import jdk.jfr.*;
+
+// Evento JFR con los contadores de un archivo compilado
+@Name("compilador.Compilacion")
+@Label("Compilación")
+@Category("Compilador")
+@Description("Contadores de un archivo al terminar de compilarlo")
+class EventoCompilacion extends Event {
+    @Label("Archivo")
+    String archivo;
+
+    @Label("Bytes de fuente")
+    @DataAmount
+    long bytes;
+
+    @Label("Tokens")
+    long tokens;
+
+    @Label("Nodos")
+    long nodos;
+
+    @Label("Símbolos")
+    long simbolos;
+
+    @Label("Búsquedas")
+    long busquedas;
+
+    @Label("Errores")
+    long errores;
+}
@@ -0,0 +1,20 @@
+package estadisticas;
+
+import jdk.jfr.*;
+
+// Evento JFR por fase de compilación (solo se carga si la JVM tiene JFR)
+@Name("compilador.Fase")
+@Label("Fase de compilación")
+@Category("Compilador")
+@Description("Duración de una fase (lectura, léxico, sintáctico) de un archivo")
+class EventoFase extends Event {
+    @Label("Fase")
+    String fase;
+
+    @Label("Archivo")
+    String archivo;
+
+    @Label("Memoria reservada")
+    @DataAmount
+    long bytesReservados;
+}
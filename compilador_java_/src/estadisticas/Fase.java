@@ -0,0 +1,33 @@
+package estadisticas;
+
+// Medición de una fase de un archivo. Solo toma tiempos y memoria si hay
+// Estadisticas o si JFR está grabando; si no, iniciar() no hace nada más que
+// preguntar a JFR.
+public final class Fase {
+    private final Estadisticas estadisticas;
+    private final int fase;
+    private final Object evento;
+    private final long inicio;
+    private final long reservadoInicio;
+
+    private Fase(Estadisticas estadisticas, int fase, Object evento) {
+        this.estadisticas = estadisticas;
+        this.fase = fase;
+        this.evento = evento;
+        boolean medir = estadisticas != null || evento != null;
+        this.reservadoInicio = medir ? Memoria.reservados() : -1;
+        this.inicio = medir ? System.nanoTime() : 0;
+    }
+
+    public static Fase iniciar(Estadisticas estadisticas, int fase, String archivo) {
+        return new Fase(estadisticas, fase, Jfr.iniciarFase(Estadisticas.nombreFase(fase), archivo));
+    }
+
+    public void terminar() {
+        if (estadisticas == null && evento == null) return;
+        long nanos = System.nanoTime() - inicio;
+        long reservados = reservadoInicio >= 0 ? Memoria.reservados() - reservadoInicio : -1;
+        if (estadisticas != null) estadisticas.sumarFase(fase, nanos, reservados);
+        Jfr.terminarFase(evento, Math.max(reservados, 0));
+    }
+}
@@ -0,0 +1,64 @@
+package estadisticas;
+
+// Acceso a los eventos JFR sin exigir JFR: en una JVM sin jdk.jfr las clases de
+// eventos nunca se cargan y todo esto devuelve null / no hace nada.
+// Con JFR presente pero sin grabar, isEnabled() corta antes de medir nada.
+final class Jfr {
+    static final boolean DISPONIBLE = disponible();
+
+    private Jfr() {}
+
+    private static boolean disponible() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    static Object iniciarFase(String fase, String archivo) {
+        return DISPONIBLE ? Eventos.iniciarFase(fase, archivo) : null;
+    }
+
+    static void terminarFase(Object evento, long bytesReservados) {
+        if (evento != null) Eventos.terminarFase(evento, bytesReservados);
+    }
+
+    static void compilacion(String archivo, long bytes, long tokens, long nodos, long simbolos,
+                            long busquedas, long errores) {
+        if (DISPONIBLE) Eventos.compilacion(archivo, bytes, tokens, nodos, simbolos, busquedas, errores);
+    }
+
+    // Separado de Jfr para que las clases de eventos solo se resuelvan si DISPONIBLE
+    private static final class Eventos {
+        static Object iniciarFase(String fase, String archivo) {
+            EventoFase e = new EventoFase();
+            if (!e.isEnabled()) return null;
+            e.fase = fase;
+            e.archivo = archivo;
+            e.begin();
+            return e;
+        }
+
+        static void terminarFase(Object evento, long bytesReservados) {
+            EventoFase e = (EventoFase) evento;
+            e.bytesReservados = bytesReservados;
+            e.commit();
+        }
+
+        static void compilacion(String archivo, long bytes, long tokens, long nodos, long simbolos,
+                                long busquedas, long errores) {
+            EventoCompilacion e = new EventoCompilacion();
+            if (!e.isEnabled()) return;
+            e.archivo = archivo;
+            e.bytes = bytes;
+            e.tokens = tokens;
+            e.nodos = nodos;
+            e.simbolos = simbolos;
+            e.busquedas = busquedas;
+            e.errores = errores;
+            e.commit();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package estadisticas;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Bytes reservados por el hilo actual (com.sun.management, si la JVM lo ofrece)
+final class Memoria {
+    private static final com.sun.management.ThreadMXBean HILOS = hilos();
+
+    private Memoria() {}
+
+    private static com.sun.management.ThreadMXBean hilos() {
+        try {
+            ThreadMXBean t = ManagementFactory.getThreadMXBean();
+            if (t instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean s = (com.sun.management.ThreadMXBean) t;
+                if (s.isThreadAllocatedMemorySupported()) {
+                    if (!s.isThreadAllocatedMemoryEnabled()) s.setThreadAllocatedMemoryEnabled(true);
+                    return s;
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+            // sin medición de memoria
+        }
+        return null;
+    }
+
+    static boolean disponible() { return HILOS != null; }
+
+    // -1 si no se puede medir
+    static long reservados() {
+        return HILOS != null ? HILOS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+}
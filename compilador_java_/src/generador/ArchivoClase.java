@@ -0,0 +1,148 @@
+package generador;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+// Escritor mínimo de archivos .class: pool de constantes, métodos y atributo Code.
+// Se emite la versión 49 (Java 5), que el verificador acepta sin StackMapTable,
+// así no hace falta calcular los marcos de pila.
+final class ArchivoClase {
+    private static final int VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001, ACC_FINAL = 0x0010, ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final HashMap<String, Integer> indices = new HashMap<>();
+    private int siguiente = 1;
+
+    private final int estaClase;
+    private final int superClase;
+    private final ArrayList<Metodo> metodos = new ArrayList<>();
+
+    ArchivoClase(String nombre) {
+        estaClase = clase(nombre);
+        superClase = clase("java/lang/Object");
+    }
+
+    Metodo metodo(int acceso, String nombre, String descriptor) {
+        Metodo m = new Metodo(this, acceso, utf8(nombre), utf8(descriptor), descriptor);
+        metodos.add(m);
+        return m;
+    }
+
+    int getEstaClase() { return estaClase; }
+
+    // -----------------------
+    // Pool de constantes (cada entrada se agrega una sola vez)
+    // -----------------------
+    int utf8(String s) {
+        Integer i = indices.get("U" + s);
+        if (i != null) return i;
+        try {
+            pool.writeByte(1);
+            pool.writeUTF(s);
+        } catch (UTFDataFormatException e) {
+            throw new ErrorGeneracion("cadena demasiado larga para el pool de constantes");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return registrar("U" + s, 1);
+    }
+
+    int clase(String nombreInterno) {
+        return referencia("C", 7, utf8(nombreInterno), -1, nombreInterno);
+    }
+
+    int cadena(String s) {
+        return referencia("S", 8, utf8(s), -1, s);
+    }
+
+    int nombreTipo(String nombre, String descriptor) {
+        return referencia("N", 12, utf8(nombre), utf8(descriptor), nombre + ' ' + descriptor);
+    }
+
+    int metodoRef(String clase, String nombre, String descriptor) {
+        return referencia("M", 10, clase(clase), nombreTipo(nombre, descriptor), clase + '.' + nombre + descriptor);
+    }
+
+    int entero(int v) {
+        Integer i = indices.get("I" + v);
+        if (i != null) return i;
+        escribir(3, v, -1);
+        return registrar("I" + v, 1);
+    }
+
+    int largo(long v) {
+        Integer i = indices.get("J" + v);
+        if (i != null) return i;
+        escribir(5, (int) (v >>> 32), (int) v);
+        return registrar("J" + v, 2);
+    }
+
+    int real(double v) {
+        long bits = Double.doubleToRawLongBits(v);
+        Integer i = indices.get("D" + bits);
+        if (i != null) return i;
+        escribir(6, (int) (bits >>> 32), (int) bits);
+        return registrar("D" + bits, 2);
+    }
+
+    private int referencia(String prefijo, int etiqueta, int a, int b, String clave) {
+        Integer i = indices.get(prefijo + clave);
+        if (i != null) return i;
+        try {
+            pool.writeByte(etiqueta);
+            pool.writeShort(a);
+            if (b >= 0) pool.writeShort(b);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return registrar(prefijo + clave, 1);
+    }
+
+    private void escribir(int etiqueta, int alto, int bajo) {
+        try {
+            pool.writeByte(etiqueta);
+            pool.writeInt(alto);
+            if (etiqueta != 3) pool.writeInt(bajo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int registrar(String clave, int entradas) {
+        int i = siguiente;
+        siguiente += entradas;
+        if (siguiente > 0xffff) throw new ErrorGeneracion("el pool de constantes supera las 65535 entradas");
+        indices.put(clave, i);
+        return i;
+    }
+
+    // -----------------------
+    // Salida
+    // -----------------------
+    byte[] bytes() {
+        int code = utf8("Code"); // antes de copiar el pool
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(siguiente);
+            poolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(estaClase);
+            out.writeShort(superClase);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // campos
+            out.writeShort(metodos.size());
+            for (Metodo m : metodos) m.escribir(out, code);
+            out.writeShort(0); // atributos de la clase
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package generador;
+
+import java.io.InputStream;
+import java.io.PrintStream;
+
+// Carga en el proceso las clases generadas. Cada programa usa su propio
+// cargador, así la clase se descarta junto con él.
+// (Java 8 no tiene Lookup.defineHiddenClass; defineClass cumple el mismo papel.)
+public final class Cargador extends ClassLoader {
+    public Cargador() {
+        super(Cargador.class.getClassLoader());
+    }
+
+    public Class<?> definir(String nombre, byte[] bytes) {
+        return defineClass(nombre.replace('/', '.'), bytes, 0, bytes.length);
+    }
+
+    // Carga y ejecuta; los errores del programa salen como ErrorEjecucion
+    public static void ejecutar(String nombre, byte[] bytes, InputStream entrada, PrintStream salida) {
+        Class<?> programa = new Cargador().definir(nombre, bytes);
+        Soporte.ejecutar(programa, new Soporte(entrada, salida));
+    }
+}
@@ -0,0 +1,11 @@
+package generador;
+
+// El programa no se puede expresar como una clase JVM (por ejemplo, el método
+// supera los 64 KB de código o el pool de constantes se llena)
+public class ErrorGeneracion extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public ErrorGeneracion(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,16 @@
+package generador;
+
+import java.util.Arrays;
+
+// Destino de un salto. Los saltos emitidos antes de conocer la posición
+// quedan pendientes y se corrigen al marcarla.
+final class Etiqueta {
+    int posicion = -1;
+    int[] pendientes = new int[2]; // posición de cada instrucción de salto
+    int cantidad;
+
+    void pendiente(int instruccion) {
+        if (cantidad == pendientes.length) pendientes = Arrays.copyOf(pendientes, cantidad * 2);
+        pendientes[cantidad++] = instruccion;
+    }
+}
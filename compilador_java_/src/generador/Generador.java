@@ -0,0 +1,484 @@
+package generador;
+
+import ast.*;
+import java.nio.file.Paths;
+import lexer.TokenType;
+import simbolos.Simbolo;
+import simbolos.TablaSimbolos;
+import simbolos.Tipo;
+
+// Compila el AST a una clase JVM con un único método estático
+//   public static void ejecutar(generador.Soporte)
+// Cada variable es un local primitivo (long/double) o un long[]/double[];
+// if/while se traducen a saltos y read()/write() a llamadas a Soporte.
+// La clase también tiene un main() para poder ejecutarla desde disco.
+public class Generador {
+    static final String METODO = "ejecutar";
+    private static final String DESCRIPTOR = "(L" + Soporte.NOMBRE + ";)V";
+    private static final TokenType[] OPERADORES = TokenType.values();
+    private static final int ACC_PUBLIC = 0x0001, ACC_STATIC = 0x0008;
+
+    private final Ast ast;
+    private final String nombre;
+    private Metodo m;
+    private int[] locales; // índice del local de cada slot
+
+    public Generador(Ast ast, String nombre) {
+        this.ast = ast;
+        this.nombre = nombre;
+    }
+
+    public String getNombre() { return nombre; }
+
+    // Nombre de clase válido a partir del nombre del archivo fuente
+    public static String nombreClase(String archivo) {
+        String base = Paths.get(archivo).getFileName().toString();
+        int punto = base.lastIndexOf('.');
+        if (punto > 0) base = base.substring(0, punto);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < base.length(); i++) {
+            char c = base.charAt(i);
+            sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        if (sb.length() == 0 || !Character.isJavaIdentifierStart(sb.charAt(0))) sb.insert(0, 'P');
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+
+    public byte[] generar() {
+        ArchivoClase clase = new ArchivoClase(nombre);
+
+        Metodo principal = clase.metodo(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V");
+        principal.claseConstante(clase.getEstaClase());
+        principal.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "principal", "(Ljava/lang/Class;)V");
+        principal.op(Op.RETURN);
+
+        m = clase.metodo(ACC_PUBLIC | ACC_STATIC, METODO, DESCRIPTOR);
+        declararLocales();
+        if (ast.raiz() >= 0) sentencia(ast.raiz());
+        m.op(Op.RETURN);
+        return clase.bytes();
+    }
+
+    // Un local por símbolo; todos arrancan en 0 / null para que el verificador
+    // los vea asignados en cualquier camino
+    private void declararLocales() {
+        TablaSimbolos tabla = ast.getTabla();
+        locales = new int[tabla.cantidad()];
+        int siguiente = 1; // el 0 es el Soporte
+        for (int slot = 0; slot < locales.length; slot++) {
+            int tipo = tabla.simbolo(slot).getTipo();
+            locales[slot] = siguiente;
+            if (Tipo.esArreglo(tipo)) {
+                m.op(Op.ACONST_NULL);
+                m.local(Op.ASTORE, siguiente);
+                siguiente++;
+            } else if (Tipo.elemento(tipo) == Tipo.LONG) {
+                m.op(Op.LCONST_0);
+                m.local(Op.LSTORE, siguiente);
+                siguiente += 2;
+            } else {
+                m.op(Op.DCONST_0);
+                m.local(Op.DSTORE, siguiente);
+                siguiente += 2;
+            }
+            if (siguiente > 0xfffe) throw new ErrorGeneracion("demasiadas variables para un método JVM");
+        }
+    }
+
+    // -----------------------
+    // Sentencias
+    // -----------------------
+    private void sentencia(int n) {
+        switch (ast.clase(n)) {
+            case Nodo.PROGRAMA:
+            case Nodo.BLOQUE:
+                for (int h = ast.primerHijo(n); h >= 0; h = ast.siguiente(h)) sentencia(h);
+                break;
+            case Nodo.MAIN:
+                sentencia(ast.primerHijo(n));
+                break;
+            case Nodo.DECLARACION:
+                declaracion(n);
+                break;
+            case Nodo.ASIGNACION:
+                asignacion(n);
+                break;
+            case Nodo.LEER:
+                leer(n);
+                break;
+            case Nodo.ESCRIBIR:
+                escribir(n);
+                break;
+            case Nodo.SI:
+                si(n);
+                break;
+            case Nodo.MIENTRAS:
+                mientras(n);
+                break;
+            case Nodo.VACIA:
+                break;
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    private void declaracion(int n) {
+        Simbolo s = ast.simbolo(n);
+        int tipo = s.getTipo();
+        int local = locales[s.getSlot()];
+        int hijo = ast.primerHijo(n);
+
+        if (Tipo.esArreglo(tipo)) {
+            m.largo(ast.valorLong(hijo));
+            posicion(n);
+            m.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "tamaño", "(JII)I");
+            m.nuevoArreglo(Tipo.elemento(tipo) == Tipo.LONG ? Op.T_LONG : Op.T_DOUBLE);
+            m.local(Op.ASTORE, local);
+        } else if (Tipo.elemento(tipo) == Tipo.LONG) {
+            if (hijo < 0) m.op(Op.LCONST_0);
+            else valor(hijo, Tipo.LONG);
+            m.local(Op.LSTORE, local);
+        } else {
+            if (hijo < 0) m.op(Op.DCONST_0);
+            else valor(hijo, Tipo.DOUBLE);
+            m.local(Op.DSTORE, local);
+        }
+    }
+
+    private void asignacion(int n) {
+        int destino = ast.primerHijo(n);
+        int expr = ast.siguiente(destino);
+        TokenType op = OPERADORES[ast.dato(n)];
+        Simbolo s = ast.simbolo(destino);
+        int local = locales[s.getSlot()];
+        int elemento = Tipo.elemento(s.getTipo());
+        if (!Tipo.esNumerico(ast.tipo(expr))) throw noSoportado(expr);
+        // el local guarda la referencia al arreglo: un LSTORE no pasa el verificador
+        if (ast.clase(destino) != Nodo.INDICE && Tipo.esArreglo(s.getTipo())) throw noSoportado(destino);
+
+        if (ast.clase(destino) == Nodo.INDICE) {
+            m.local(Op.ALOAD, local);
+            indice(destino, local, elemento);
+            if (op != TokenType.ASSIGN) {
+                m.op(Op.DUP2);
+                m.op(elemento == Tipo.LONG ? Op.LALOAD : Op.DALOAD);
+            }
+            operar(n, op, elemento, expr);
+            m.op(elemento == Tipo.LONG ? Op.LASTORE : Op.DASTORE);
+        } else {
+            if (op != TokenType.ASSIGN) m.local(elemento == Tipo.LONG ? Op.LLOAD : Op.DLOAD, local);
+            operar(n, op, elemento, expr);
+            m.local(elemento == Tipo.LONG ? Op.LSTORE : Op.DSTORE, local);
+        }
+    }
+
+    // Con el valor actual en la pila (salvo en '='), deja el nuevo valor del destino
+    private void operar(int n, TokenType op, int destino, int expr) {
+        if (op == TokenType.ASSIGN) {
+            valor(expr, destino);
+            return;
+        }
+        // long op= long se queda en long; si interviene un double se opera en double
+        if (destino == Tipo.LONG && ast.tipo(expr) == Tipo.LONG) {
+            valor(expr, Tipo.LONG);
+            switch (op) {
+                case PLUS_ASSIGN: m.op(Op.LADD); break;
+                case MINUS_ASSIGN: m.op(Op.LSUB); break;
+                case MULT_ASSIGN: m.op(Op.LMUL); break;
+                default: dividir(n); break;
+            }
+            return;
+        }
+        if (destino == Tipo.LONG) m.op(Op.L2D);
+        valor(expr, Tipo.DOUBLE);
+        switch (op) {
+            case PLUS_ASSIGN: m.op(Op.DADD); break;
+            case MINUS_ASSIGN: m.op(Op.DSUB); break;
+            case MULT_ASSIGN: m.op(Op.DMUL); break;
+            default: m.op(Op.DDIV); break;
+        }
+        if (destino == Tipo.LONG) m.op(Op.D2L);
+    }
+
+    private void leer(int n) {
+        int variable = ast.primerHijo(n);
+        int local = locales[ast.dato(variable)];
+        m.local(Op.ALOAD, 0);
+        posicion(n);
+        switch (ast.tipo(variable)) {
+            case Tipo.LONG:
+                m.invocar(Op.INVOKEVIRTUAL, Soporte.NOMBRE, "leerEntero", "(II)J");
+                m.local(Op.LSTORE, local);
+                break;
+            case Tipo.DOUBLE:
+                m.invocar(Op.INVOKEVIRTUAL, Soporte.NOMBRE, "leerReal", "(II)D");
+                m.local(Op.DSTORE, local);
+                break;
+            default:
+                throw noSoportado(variable);
+        }
+    }
+
+    private void escribir(int n) {
+        int expr = ast.primerHijo(n);
+        int tipo = ast.tipo(expr);
+        String descriptor;
+        switch (tipo) {
+            case Tipo.LONG: descriptor = "(J)V"; break;
+            case Tipo.DOUBLE: descriptor = "(D)V"; break;
+            case Tipo.BOOL: descriptor = "(Z)V"; break;
+            case Tipo.STRING: descriptor = "(Ljava/lang/String;)V"; break;
+            case Tipo.LONG | Tipo.ARREGLO: descriptor = "([J)V"; break;
+            case Tipo.DOUBLE | Tipo.ARREGLO: descriptor = "([D)V"; break;
+            default: throw noSoportado(expr);
+        }
+        m.local(Op.ALOAD, 0);
+        valor(expr, tipo);
+        m.invocar(Op.INVOKEVIRTUAL, Soporte.NOMBRE, "escribir", descriptor);
+    }
+
+    private void si(int n) {
+        int condicion = ast.primerHijo(n);
+        int entonces = ast.siguiente(condicion);
+        int sino = entonces >= 0 ? ast.siguiente(entonces) : -1;
+        Etiqueta falso = new Etiqueta(), fin = new Etiqueta();
+        saltar(condicion, falso, false);
+        if (entonces >= 0) sentencia(entonces);
+        if (sino >= 0) m.salto(Op.GOTO, fin);
+        m.marcar(falso);
+        if (sino >= 0) {
+            sentencia(sino);
+            m.marcar(fin);
+        }
+    }
+
+    // La condición va al final del cuerpo: un solo salto por iteración
+    private void mientras(int n) {
+        int condicion = ast.primerHijo(n);
+        Etiqueta cuerpo = new Etiqueta(), prueba = new Etiqueta();
+        m.salto(Op.GOTO, prueba);
+        m.marcar(cuerpo);
+        sentencia(ast.siguiente(condicion));
+        m.marcar(prueba);
+        saltar(condicion, cuerpo, true);
+    }
+
+    // -----------------------
+    // Expresiones
+    // -----------------------
+    // Deja el valor de n en la pila convertido al tipo pedido
+    private void valor(int n, int tipo) {
+        int propio = ast.tipo(n);
+        if (propio == Tipo.LONG && tipo == Tipo.DOUBLE) {
+            if (ast.clase(n) == Nodo.ENTERO) m.real(ast.valorLong(n));
+            else {
+                valor(n, Tipo.LONG);
+                m.op(Op.L2D);
+            }
+            return;
+        }
+        if (propio == Tipo.DOUBLE && tipo == Tipo.LONG) {
+            valor(n, Tipo.DOUBLE);
+            m.op(Op.D2L);
+            return;
+        }
+        if (propio != tipo) throw noSoportado(n);
+
+        switch (ast.clase(n)) {
+            case Nodo.ENTERO:
+                m.largo(ast.valorLong(n));
+                break;
+            case Nodo.REAL:
+                m.real(ast.valorDouble(n));
+                break;
+            case Nodo.CADENA:
+                m.cadena(ast.cadena(n));
+                break;
+            case Nodo.VARIABLE: {
+                int local = locales[ast.dato(n)];
+                if (Tipo.esArreglo(tipo)) m.local(Op.ALOAD, local);
+                else m.local(tipo == Tipo.LONG ? Op.LLOAD : Op.DLOAD, local);
+                break;
+            }
+            case Nodo.INDICE: {
+                int local = locales[ast.dato(n)];
+                m.local(Op.ALOAD, local);
+                indice(n, local, tipo);
+                m.op(tipo == Tipo.LONG ? Op.LALOAD : Op.DALOAD);
+                break;
+            }
+            case Nodo.BINARIA:
+                if (tipo == Tipo.BOOL) logico(n);
+                else aritmetica(n, tipo);
+                break;
+            case Nodo.NEGATIVO:
+                valor(ast.primerHijo(n), tipo);
+                m.op(tipo == Tipo.LONG ? Op.LNEG : Op.DNEG);
+                break;
+            case Nodo.LOGICO:
+            case Nodo.NEGACION:
+                logico(n);
+                break;
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    // Con el arreglo en la pila deja [arreglo, índice int] comprobando el rango
+    // Posición int del elemento; si el índice ya se probó en rango basta convertirlo
+    // (y ver que la declaración del arreglo se haya ejecutado)
+    private void indice(int n, int local, int elemento) {
+        if (ast.enRango(n)) {
+            m.local(Op.ALOAD, local);
+            posicion(n);
+            m.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "creado", elemento == Tipo.LONG ? "([JII)V" : "([DII)V");
+            valor(ast.primerHijo(n), Tipo.LONG);
+            m.op(Op.L2I);
+            return;
+        }
+        m.local(Op.ALOAD, local);
+        valor(ast.primerHijo(n), Tipo.LONG);
+        posicion(n);
+        m.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "indice", elemento == Tipo.LONG ? "([JJII)I" : "([DJII)I");
+    }
+
+    private void aritmetica(int n, int tipo) {
+        TokenType op = OPERADORES[ast.dato(n)];
+        int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+        valor(izq, tipo);
+        valor(der, tipo);
+        boolean esLong = tipo == Tipo.LONG;
+        switch (op) {
+            case PLUS: m.op(esLong ? Op.LADD : Op.DADD); break;
+            case MINUS: m.op(esLong ? Op.LSUB : Op.DSUB); break;
+            case MULT: m.op(esLong ? Op.LMUL : Op.DMUL); break;
+            case DIV:
+                if (esLong) dividir(der);
+                else m.op(Op.DDIV);
+                break;
+            default: throw noSoportado(n);
+        }
+    }
+
+    private void dividir(int n) {
+        posicion(n);
+        m.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "dividir", "(JJII)J");
+    }
+
+    // Valor bool (0/1) de una condición
+    private void logico(int n) {
+        if (ast.clase(n) == Nodo.LOGICO) {
+            m.entero(ast.valorLogico(n) ? 1 : 0);
+            return;
+        }
+        Etiqueta falso = new Etiqueta(), fin = new Etiqueta();
+        int altura = m.getPila();
+        saltar(n, falso, false);
+        m.entero(1);
+        m.salto(Op.GOTO, fin);
+        m.setPila(altura);
+        m.marcar(falso);
+        m.entero(0);
+        m.marcar(fin);
+    }
+
+    // Salta a destino si la condición vale 'cuando'; si no, sigue de largo
+    private void saltar(int n, Etiqueta destino, boolean cuando) {
+        int tipo = ast.tipo(n);
+        if (tipo == Tipo.LONG || tipo == Tipo.DOUBLE) { // distinto de cero es verdadero
+            valor(n, tipo);
+            if (tipo == Tipo.LONG) {
+                m.op(Op.LCONST_0);
+                m.op(Op.LCMP);
+            } else {
+                m.op(Op.DCONST_0);
+                m.op(Op.DCMPL);
+            }
+            m.salto(cuando ? Op.IFNE : Op.IFEQ, destino);
+            return;
+        }
+        if (tipo != Tipo.BOOL) throw noSoportado(n);
+
+        switch (ast.clase(n)) {
+            case Nodo.LOGICO:
+                if (ast.valorLogico(n) == cuando) m.salto(Op.GOTO, destino);
+                return;
+            case Nodo.NEGACION:
+                saltar(ast.primerHijo(n), destino, !cuando);
+                return;
+            case Nodo.BINARIA:
+                break;
+            default:
+                throw noSoportado(n);
+        }
+
+        TokenType op = OPERADORES[ast.dato(n)];
+        int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+        if (op == TokenType.AND || op == TokenType.OR) {
+            // a && b salta por falso si cualquiera es falso; a || b salta por verdadero si cualquiera lo es
+            boolean corto = op == TokenType.OR;
+            if (cuando == corto) {
+                saltar(izq, destino, cuando);
+                saltar(der, destino, cuando);
+            } else {
+                Etiqueta sigue = new Etiqueta();
+                saltar(izq, sigue, corto);
+                saltar(der, destino, cuando);
+                m.marcar(sigue);
+            }
+            return;
+        }
+
+        int t1 = ast.tipo(izq), t2 = ast.tipo(der);
+        int salto = saltoSiVerdadero(n, op);
+        if (Tipo.esNumerico(t1) && Tipo.esNumerico(t2)) {
+            int comun = t1 == Tipo.DOUBLE || t2 == Tipo.DOUBLE ? Tipo.DOUBLE : Tipo.LONG;
+            valor(izq, comun);
+            valor(der, comun);
+            // con NaN toda comparación es falsa: dcmpg para < y <=, dcmpl para el resto
+            if (comun == Tipo.LONG) m.op(Op.LCMP);
+            else m.op(op == TokenType.LT || op == TokenType.LE ? Op.DCMPG : Op.DCMPL);
+        } else if (t1 == Tipo.BOOL && t2 == Tipo.BOOL) {
+            valor(izq, Tipo.BOOL);
+            valor(der, Tipo.BOOL);
+            salto += Op.IF_ICMPEQ - Op.IFEQ;
+        } else if (t1 == Tipo.STRING && t2 == Tipo.STRING) {
+            valor(izq, Tipo.STRING);
+            valor(der, Tipo.STRING);
+            if (op == TokenType.EQ || op == TokenType.NEQ) {
+                m.invocar(Op.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z");
+                salto = op == TokenType.EQ ? Op.IFNE : Op.IFEQ;
+            } else {
+                m.invocar(Op.INVOKEVIRTUAL, "java/lang/String", "compareTo", "(Ljava/lang/String;)I");
+            }
+        } else {
+            throw noSoportado(n);
+        }
+        m.salto(cuando ? salto : Op.negar(salto), destino);
+    }
+
+    // Salto que se toma cuando 'resultado op 0' es verdadero
+    private int saltoSiVerdadero(int n, TokenType op) {
+        switch (op) {
+            case LT: return Op.IFLT;
+            case LE: return Op.IFLE;
+            case GT: return Op.IFGT;
+            case GE: return Op.IFGE;
+            case EQ: return Op.IFEQ;
+            case NEQ: return Op.IFNE;
+            default: throw noSoportado(n);
+        }
+    }
+
+    // Línea y columna para los mensajes de error del runtime
+    private void posicion(int n) {
+        m.entero(ast.linea(n));
+        m.entero(ast.columna(n));
+    }
+
+    private ErrorGeneracion noSoportado(int n) {
+        return new ErrorGeneracion("no se puede generar " + Nodo.nombre(ast.clase(n)) + " de tipo "
+                + Tipo.nombre(ast.tipo(n)) + " [línea " + ast.linea(n) + "]");
+    }
+}
@@ -0,0 +1,534 @@
+package generador;
+
+import ir.Bloque;
+import ir.Funcion;
+import ir.Instruccion;
+import ir.Operacion;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import lexer.TokenType;
+import simbolos.Tipo;
+
+// Compila el IR en SSA (ya optimizado) a la misma clase que Generador.
+// Salida de SSA: cada FI es un local propio y los predecesores copian ahí su
+// operando antes de saltar (las aristas críticas se parten antes). Los valores
+// que viven en un solo bloque comparten locales temporales; un valor que usa
+// una sola vez la instrucción siguiente como primer operando queda en la pila,
+// y las constantes se vuelven a cargar en cada uso.
+public final class GeneradorIr {
+    private static final String DESCRIPTOR = "(L" + Soporte.NOMBRE + ";)V";
+    private static final int ACC_PUBLIC = 0x0001, ACC_STATIC = 0x0008;
+    private static final int SIN_LOCAL = -1;
+
+    private final Funcion f;
+    private final String nombre;
+    private Metodo m;
+    private int[] locales;        // por número de instrucción
+    private boolean[] enPila;     // lo consume la instrucción siguiente
+    private boolean[] fusionada;  // COMPARAR que se emite junto con su SI
+    private int[] arreglos;       // local de cada slot de arreglo
+    private Etiqueta[] etiquetas; // por número de bloque
+    private int[] usos;
+    private int siguienteLocal;
+
+    public GeneradorIr(Funcion f, String nombre) {
+        this.f = f;
+        this.nombre = nombre;
+    }
+
+    public String getNombre() { return nombre; }
+
+    public byte[] generar() {
+        ArchivoClase clase = new ArchivoClase(nombre);
+
+        Metodo principal = clase.metodo(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V");
+        principal.claseConstante(clase.getEstaClase());
+        principal.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "principal", "(Ljava/lang/Class;)V");
+        principal.op(Op.RETURN);
+
+        m = clase.metodo(ACC_PUBLIC | ACC_STATIC, Generador.METODO, DESCRIPTOR);
+        f.eliminarInalcanzables();
+        f.partirAristasCriticas();
+        List<Bloque> orden = disposicion();
+        usos = f.contarUsos();
+        declararArreglos();
+        asignarLocales(orden);
+        for (int i = 0; i < orden.size(); i++) bloque(orden.get(i), i + 1 < orden.size() ? orden.get(i + 1) : null);
+        return clase.bytes();
+    }
+
+    // Postorden inverso visitando primero el último sucesor: así el primero
+    // (la rama verdadera, el cuerpo de un while) queda a continuación
+    private List<Bloque> disposicion() {
+        int maximo = 0;
+        for (Bloque b : f.getBloques()) maximo = Math.max(maximo, b.getNumero() + 1);
+        etiquetas = new Etiqueta[maximo];
+        boolean[] visitados = new boolean[maximo];
+        ArrayList<Bloque> postorden = new ArrayList<>();
+        Bloque[] pila = new Bloque[maximo];
+        int[] siguiente = new int[maximo];
+        int alto = 0;
+        pila[alto++] = f.getEntrada();
+        visitados[f.getEntrada().getNumero()] = true;
+        while (alto > 0) {
+            Bloque b = pila[alto - 1];
+            if (siguiente[alto - 1] < b.cantidadSucesores()) {
+                Bloque s = b.sucesor(b.cantidadSucesores() - 1 - siguiente[alto - 1]++);
+                if (!visitados[s.getNumero()]) {
+                    visitados[s.getNumero()] = true;
+                    pila[alto] = s;
+                    siguiente[alto] = 0;
+                    alto++;
+                }
+            } else {
+                postorden.add(b);
+                alto--;
+            }
+        }
+        int[] posicion = new int[maximo];
+        for (int i = postorden.size() - 1, k = 0; i >= 0; i--, k++) posicion[postorden.get(i).getNumero()] = k;
+
+        // Rotación de los while, como en Generador: la cabecera (la condición) va
+        // después del único bloque que vuelve a ella. El cuerpo cae sobre la
+        // prueba y la prueba salta hacia atrás: un solo salto por vuelta.
+        Bloque[] despues = new Bloque[maximo];
+        boolean[] movida = new boolean[maximo];
+        for (Bloque h : postorden) {
+            Bloque latido = null;
+            int vueltas = 0;
+            for (Bloque p : h.getPredecesores()) {
+                if (visitados[p.getNumero()] && posicion[p.getNumero()] >= posicion[h.getNumero()]) {
+                    latido = p;
+                    vueltas++;
+                }
+            }
+            if (vueltas != 1 || latido == h || despues[latido.getNumero()] != null) continue;
+            despues[latido.getNumero()] = h;
+            movida[h.getNumero()] = true;
+        }
+        ArrayList<Bloque> orden = new ArrayList<>(postorden.size());
+        for (int i = postorden.size() - 1; i >= 0; i--) {
+            Bloque b = postorden.get(i);
+            if (movida[b.getNumero()]) continue;
+            for (; b != null; b = despues[b.getNumero()]) {
+                etiquetas[b.getNumero()] = new Etiqueta();
+                orden.add(b);
+            }
+        }
+        return orden;
+    }
+
+    // Un local por arreglo, en null al entrar para que el verificador lo vea asignado
+    private void declararArreglos() {
+        arreglos = new int[f.cantidadSlots()];
+        siguienteLocal = 1; // el 0 es el Soporte
+        for (int slot = 0; slot < arreglos.length; slot++) {
+            if (!Tipo.esArreglo(f.tipoSlot(slot))) continue;
+            arreglos[slot] = siguienteLocal;
+            m.op(Op.ACONST_NULL);
+            m.local(Op.ASTORE, siguienteLocal++);
+        }
+    }
+
+    // -----------------------
+    // Locales
+    // -----------------------
+    private void asignarLocales(List<Bloque> orden) {
+        int n = f.cantidadNumeros();
+        locales = new int[n];
+        enPila = new boolean[n];
+        fusionada = new boolean[n];
+        Arrays.fill(locales, SIN_LOCAL);
+
+        // Globales: los FI, sus operandos y lo que se usa fuera de su bloque
+        boolean[] global = new boolean[n];
+        for (Bloque b : orden) {
+            for (Instruccion fi : b.getFis()) {
+                global[fi.getNumero()] = true;
+                for (int k = 0; k < fi.cantidadArgs(); k++) global[fi.arg(k).getNumero()] = true;
+            }
+            for (Instruccion i : b.getInstrucciones()) {
+                for (int k = 0; k < i.cantidadArgs(); k++) {
+                    if (i.arg(k).getBloque() != b) global[i.arg(k).getNumero()] = true;
+                }
+            }
+        }
+        for (Bloque b : orden) {
+            for (Instruccion fi : b.getFis()) nuevoLocal(fi);
+            for (Instruccion i : b.getInstrucciones()) {
+                if (global[i.getNumero()] && necesitaLocal(i)) nuevoLocal(i);
+            }
+        }
+
+        // Temporales: por bloque, se liberan después del último uso
+        int base = siguienteLocal, tope = base;
+        for (Bloque b : orden) {
+            List<Instruccion> lista = b.getInstrucciones();
+            int fin = lista.size() - 1;
+            Instruccion t = lista.get(fin);
+            if (t.getOp() == Operacion.SI) {
+                Instruccion c = t.arg(0);
+                fusionada[c.getNumero()] = c.getOp() == Operacion.COMPARAR && c.getBloque() == b
+                        && usos[c.getNumero()] == 1;
+            }
+            for (int j = 1; j < fin; j++) {
+                Instruccion p = lista.get(j - 1), i = lista.get(j);
+                enPila[p.getNumero()] = sinPrefijo(i) && !fusionada[i.getNumero()] && i.cantidadArgs() > 0
+                        && i.arg(0) == p && usos[p.getNumero()] == 1 && necesitaLocal(p) && !fusionada[p.getNumero()]
+                        && !global[p.getNumero()];
+            }
+            // último uso dentro del bloque (los operandos de la comparación fusionada, en el SI)
+            HashMap<Instruccion, Integer> finales = new HashMap<>();
+            for (int j = 0; j <= fin; j++) {
+                Instruccion i = lista.get(j);
+                int uso = fusionada[i.getNumero()] ? fin : j;
+                for (int k = 0; k < i.cantidadArgs(); k++) finales.merge(i.arg(k), uso, Math::max);
+            }
+            ArrayList<Integer> libres1 = new ArrayList<>(), libres2 = new ArrayList<>();
+            int proximo = base;
+            ArrayList<ArrayList<Instruccion>> liberar = new ArrayList<>();
+            for (int j = 0; j <= fin; j++) liberar.add(new ArrayList<>());
+            for (int j = 0; j <= fin; j++) {
+                Instruccion i = lista.get(j);
+                for (Instruccion v : liberar.get(j)) {
+                    (palabras(v) == 1 ? libres1 : libres2).add(locales[v.getNumero()]);
+                }
+                if (global[i.getNumero()] || !necesitaLocal(i) || enPila[i.getNumero()] || fusionada[i.getNumero()]) continue;
+                Integer ultimoUso = finales.get(i);
+                if (ultimoUso == null) continue; // sin usos: se descarta con pop
+                ArrayList<Integer> libres = palabras(i) == 1 ? libres1 : libres2;
+                int local;
+                if (!libres.isEmpty()) {
+                    local = libres.remove(libres.size() - 1);
+                } else {
+                    local = proximo;
+                    proximo += palabras(i);
+                }
+                locales[i.getNumero()] = local;
+                // se libera después de la instrucción que lo usa por última vez
+                if (ultimoUso + 1 <= fin) liberar.get(ultimoUso + 1).add(i);
+            }
+            tope = Math.max(tope, proximo);
+        }
+        if (tope > 0xfffe) throw new ErrorGeneracion("demasiados valores para un método JVM");
+    }
+
+    private void nuevoLocal(Instruccion i) {
+        locales[i.getNumero()] = siguienteLocal;
+        siguienteLocal += palabras(i);
+        if (siguienteLocal > 0xfffe) throw new ErrorGeneracion("demasiados valores para un método JVM");
+    }
+
+    // Los valores que no se guardan: constantes y lo que no deja valor
+    private static boolean necesitaLocal(Instruccion i) {
+        return Operacion.produceValor(i.getOp()) && i.getOp() != Operacion.CONSTANTE;
+    }
+
+    // Empiezan apilando su primer operando (sin el Soporte ni el arreglo antes)
+    private static boolean sinPrefijo(Instruccion i) {
+        switch (i.getOp()) {
+            case Operacion.COPIA: case Operacion.SUMA: case Operacion.RESTA: case Operacion.MULT:
+            case Operacion.DIV: case Operacion.DESPLAZAR: case Operacion.CONVERTIR: case Operacion.TRUNCAR:
+            case Operacion.COMPARAR: case Operacion.NO: case Operacion.NEGAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // INDICE deja un int; bool y cadenas ocupan una palabra
+    private static int palabras(Instruccion i) {
+        if (i.getOp() == Operacion.INDICE) return 1;
+        return i.getTipo() == Tipo.LONG || i.getTipo() == Tipo.DOUBLE ? 2 : 1;
+    }
+
+    // -----------------------
+    // Bloques
+    // -----------------------
+    private void bloque(Bloque b, Bloque siguiente) {
+        m.marcar(etiquetas[b.getNumero()]);
+        m.setPila(0);
+        List<Instruccion> lista = b.getInstrucciones();
+        for (int j = 0; j < lista.size() - 1; j++) instruccion(lista.get(j));
+        copiasFi(b);
+        Instruccion t = b.terminador();
+        switch (t.getOp()) {
+            case Operacion.FIN:
+                m.op(Op.RETURN);
+                break;
+            case Operacion.SALTO:
+                if (b.sucesor(0) != siguiente) m.salto(Op.GOTO, etiquetas[b.sucesor(0).getNumero()]);
+                break;
+            default: {
+                Bloque verdadero = b.sucesor(0), falso = b.sucesor(1);
+                Instruccion c = t.arg(0);
+                int salto;
+                if (fusionada[c.getNumero()]) {
+                    salto = comparar(c);
+                } else {
+                    apilar(c);
+                    salto = Op.IFNE;
+                }
+                if (verdadero == siguiente) {
+                    m.salto(Op.negar(salto), etiquetas[falso.getNumero()]);
+                } else {
+                    m.salto(salto, etiquetas[verdadero.getNumero()]);
+                    if (falso != siguiente) m.salto(Op.GOTO, etiquetas[falso.getNumero()]);
+                }
+            }
+        }
+    }
+
+    // Cada sucesor con FI recibe sus operandos: primero se apilan todos y
+    // después se guardan, por si un FI es operando de otro
+    private void copiasFi(Bloque b) {
+        for (int s = 0; s < b.cantidadSucesores(); s++) {
+            Bloque sucesor = b.sucesor(s);
+            List<Instruccion> fis = sucesor.getFis();
+            if (fis.isEmpty()) continue;
+            int k = sucesor.getPredecesores().indexOf(b);
+            for (Instruccion fi : fis) apilar(fi.arg(k));
+            for (int i = fis.size() - 1; i >= 0; i--) guardar(fis.get(i));
+        }
+    }
+
+    // -----------------------
+    // Instrucciones
+    // -----------------------
+    private void instruccion(Instruccion i) {
+        switch (i.getOp()) {
+            case Operacion.CONSTANTE:
+                return; // se carga en cada uso
+            case Operacion.COMPARAR:
+                if (fusionada[i.getNumero()]) return;
+                comparacionValor(i);
+                break;
+            case Operacion.COPIA:
+                apilar(i.arg(0));
+                break;
+            case Operacion.SUMA:
+            case Operacion.RESTA:
+            case Operacion.MULT:
+                apilar(i.arg(0));
+                apilar(i.arg(1));
+                m.op(aritmetica(i));
+                break;
+            case Operacion.DIV:
+                apilar(i.arg(0));
+                apilar(i.arg(1));
+                if (i.getTipo() == Tipo.DOUBLE) {
+                    m.op(Op.DDIV);
+                } else if (!i.puedeFallar()) {
+                    m.op(Op.LDIV);
+                } else {
+                    posicion(i);
+                    m.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "dividir", "(JJII)J");
+                }
+                break;
+            case Operacion.DESPLAZAR:
+                apilar(i.arg(0));
+                m.entero((int) i.getConstante());
+                m.op(Op.LSHL);
+                break;
+            case Operacion.CONVERTIR:
+                apilar(i.arg(0));
+                m.op(Op.L2D);
+                break;
+            case Operacion.TRUNCAR:
+                apilar(i.arg(0));
+                m.op(Op.D2L);
+                break;
+            case Operacion.NO:
+                apilar(i.arg(0));
+                m.op(Op.ICONST_1);
+                m.op(Op.IXOR);
+                break;
+            case Operacion.NEGAR:
+                apilar(i.arg(0));
+                m.op(i.getTipo() == Tipo.LONG ? Op.LNEG : Op.DNEG);
+                break;
+            case Operacion.LEER:
+                m.local(Op.ALOAD, 0);
+                posicion(i);
+                if (i.getTipo() == Tipo.LONG) m.invocar(Op.INVOKEVIRTUAL, Soporte.NOMBRE, "leerEntero", "(II)J");
+                else m.invocar(Op.INVOKEVIRTUAL, Soporte.NOMBRE, "leerReal", "(II)D");
+                break;
+            case Operacion.ESCRIBIR:
+                escribir(i);
+                return;
+            case Operacion.NUEVO_ARREGLO:
+                m.largo(i.getConstante());
+                posicion(i);
+                m.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "tamaño", "(JII)I");
+                m.nuevoArreglo(esLong(i.getSlot()) ? Op.T_LONG : Op.T_DOUBLE);
+                m.local(Op.ASTORE, arreglos[i.getSlot()]);
+                return;
+            case Operacion.INDICE:
+                if (!i.puedeFallar()) {
+                    apilar(i.arg(0));
+                    m.op(Op.L2I);
+                    break;
+                }
+                m.local(Op.ALOAD, arreglos[i.getSlot()]);
+                apilar(i.arg(0));
+                posicion(i);
+                m.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "indice", esLong(i.getSlot()) ? "([JJII)I" : "([DJII)I");
+                break;
+            case Operacion.CARGAR:
+                creado(i);
+                m.local(Op.ALOAD, arreglos[i.getSlot()]);
+                apilar(i.arg(0));
+                m.op(esLong(i.getSlot()) ? Op.LALOAD : Op.DALOAD);
+                break;
+            case Operacion.GUARDAR:
+                creado(i);
+                m.local(Op.ALOAD, arreglos[i.getSlot()]);
+                apilar(i.arg(0));
+                apilar(i.arg(1));
+                m.op(esLong(i.getSlot()) ? Op.LASTORE : Op.DASTORE);
+                return;
+            default:
+                throw new ErrorGeneracion("no se puede generar " + Operacion.nombre(i.getOp()));
+        }
+        // el valor queda en la pila: se guarda, se deja para la siguiente o se descarta
+        if (enPila[i.getNumero()]) return;
+        if (locales[i.getNumero()] == SIN_LOCAL) m.op(palabras(i) == 2 ? Op.POP2 : Op.POP);
+        else guardar(i);
+    }
+
+    // Una posición que no pasó por Soporte.indice (INDICE en rango) no vio si
+    // el arreglo existe: su declaración pudo no ejecutarse. El INDICE en rango
+    // es puro y se puede mover o reusar, así que se comprueba acá.
+    private void creado(Instruccion i) {
+        Instruccion k = i.arg(0);
+        if (k.getOp() == Operacion.INDICE && k.puedeFallar()) return;
+        m.local(Op.ALOAD, arreglos[i.getSlot()]);
+        posicion(k);
+        m.invocar(Op.INVOKESTATIC, Soporte.NOMBRE, "creado", esLong(i.getSlot()) ? "([JII)V" : "([DII)V");
+    }
+
+    private void escribir(Instruccion i) {
+        m.local(Op.ALOAD, 0);
+        String descriptor;
+        if (i.cantidadArgs() == 0) {
+            m.local(Op.ALOAD, arreglos[i.getSlot()]);
+            descriptor = esLong(i.getSlot()) ? "([J)V" : "([D)V";
+        } else {
+            Instruccion v = i.arg(0);
+            apilar(v);
+            switch (v.getTipo()) {
+                case Tipo.LONG: descriptor = "(J)V"; break;
+                case Tipo.DOUBLE: descriptor = "(D)V"; break;
+                case Tipo.BOOL: descriptor = "(Z)V"; break;
+                default: descriptor = "(Ljava/lang/String;)V"; break;
+            }
+        }
+        m.invocar(Op.INVOKEVIRTUAL, Soporte.NOMBRE, "escribir", descriptor);
+    }
+
+    private int aritmetica(Instruccion i) {
+        boolean esLong = i.getTipo() == Tipo.LONG;
+        switch (i.getOp()) {
+            case Operacion.SUMA: return esLong ? Op.LADD : Op.DADD;
+            case Operacion.RESTA: return esLong ? Op.LSUB : Op.DSUB;
+            default: return esLong ? Op.LMUL : Op.DMUL;
+        }
+    }
+
+    // Bool 0/1 de una comparación que no va directo a un SI
+    private void comparacionValor(Instruccion c) {
+        Etiqueta verdadero = new Etiqueta(), fin = new Etiqueta();
+        m.salto(comparar(c), verdadero);
+        int altura = m.getPila();
+        m.op(Op.ICONST_0);
+        m.salto(Op.GOTO, fin);
+        m.setPila(altura);
+        m.marcar(verdadero);
+        m.op(Op.ICONST_1);
+        m.marcar(fin);
+    }
+
+    // Apila los operandos y deja el salto que se toma si la comparación es verdadera
+    private int comparar(Instruccion c) {
+        Instruccion a = c.arg(0), b = c.arg(1);
+        TokenType op = c.getCondicion();
+        int salto = saltoSiVerdadero(op);
+        apilar(a);
+        apilar(b);
+        switch (a.getTipo()) {
+            case Tipo.LONG:
+                m.op(Op.LCMP);
+                return salto;
+            case Tipo.DOUBLE:
+                // con NaN toda comparación es falsa: dcmpg para < y <=, dcmpl para el resto
+                m.op(op == TokenType.LT || op == TokenType.LE ? Op.DCMPG : Op.DCMPL);
+                return salto;
+            case Tipo.BOOL:
+                return salto + Op.IF_ICMPEQ - Op.IFEQ;
+            default:
+                if (op == TokenType.EQ || op == TokenType.NEQ) {
+                    m.invocar(Op.INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z");
+                    return op == TokenType.EQ ? Op.IFNE : Op.IFEQ;
+                }
+                m.invocar(Op.INVOKEVIRTUAL, "java/lang/String", "compareTo", "(Ljava/lang/String;)I");
+                return salto;
+        }
+    }
+
+    private static int saltoSiVerdadero(TokenType op) {
+        switch (op) {
+            case LT: return Op.IFLT;
+            case LE: return Op.IFLE;
+            case GT: return Op.IFGT;
+            case GE: return Op.IFGE;
+            case EQ: return Op.IFEQ;
+            default: return Op.IFNE;
+        }
+    }
+
+    // -----------------------
+    // Valores
+    // -----------------------
+    private void apilar(Instruccion v) {
+        if (v.esConstante()) {
+            switch (v.getTipo()) {
+                case Tipo.LONG: m.largo(v.getConstante()); break;
+                case Tipo.DOUBLE: m.real(v.getReal()); break;
+                case Tipo.BOOL: m.entero(v.getConstante() != 0 ? 1 : 0); break;
+                default: m.cadena(v.getTexto()); break;
+            }
+            return;
+        }
+        if (enPila[v.getNumero()]) return;
+        m.local(carga(v), locales[v.getNumero()]);
+    }
+
+    private void guardar(Instruccion v) {
+        int carga = carga(v);
+        int codigo = carga == Op.ILOAD ? Op.ISTORE : carga == Op.LLOAD ? Op.LSTORE
+                : carga == Op.DLOAD ? Op.DSTORE : Op.ASTORE;
+        m.local(codigo, locales[v.getNumero()]);
+    }
+
+    private static int carga(Instruccion v) {
+        if (v.getOp() == Operacion.INDICE) return Op.ILOAD;
+        switch (v.getTipo()) {
+            case Tipo.LONG: return Op.LLOAD;
+            case Tipo.DOUBLE: return Op.DLOAD;
+            case Tipo.BOOL: return Op.ILOAD;
+            default: return Op.ALOAD;
+        }
+    }
+
+    private boolean esLong(int slot) {
+        return Tipo.elemento(f.tipoSlot(slot)) == Tipo.LONG;
+    }
+
+    // Línea y columna para los mensajes de error del runtime
+    private void posicion(Instruccion i) {
+        m.entero(i.getLinea());
+        m.entero(i.getColumna());
+    }
+}
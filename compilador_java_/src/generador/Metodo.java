@@ -0,0 +1,176 @@
+package generador;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Código de un método. Lleva la cuenta de la altura de la pila y de los
+// locales para calcular max_stack y max_locals sin un análisis aparte.
+final class Metodo {
+    private static final int LIMITE_CODIGO = 65535;
+
+    private final ArchivoClase clase;
+    private final int acceso, nombre, descriptor;
+
+    private byte[] codigo = new byte[256];
+    private int tamaño;
+    private int pila, maxPila;
+    private int maxLocales;
+
+    Metodo(ArchivoClase clase, int acceso, int nombre, int descriptor, String textoDescriptor) {
+        this.clase = clase;
+        this.acceso = acceso;
+        this.nombre = nombre;
+        this.descriptor = descriptor;
+        this.maxLocales = palabras(textoDescriptor, false);
+    }
+
+    // -----------------------
+    // Instrucciones
+    // -----------------------
+    void op(int codigo) {
+        u1(codigo);
+        ajustar(Op.EFECTO[codigo]);
+    }
+
+    void entero(int v) {
+        if (v >= -1 && v <= 5) op(Op.ICONST_0 + v);
+        else if (v == (byte) v) { op(Op.BIPUSH); u1(v); }
+        else if (v == (short) v) { op(Op.SIPUSH); u2(v); }
+        else constante(clase.entero(v));
+    }
+
+    void largo(long v) {
+        if (v == 0 || v == 1) op(Op.LCONST_0 + (int) v);
+        else { op(Op.LDC2_W); u2(clase.largo(v)); }
+    }
+
+    void real(double v) {
+        if (Double.doubleToRawLongBits(v) == 0L || v == 1.0) op(v == 0 ? Op.DCONST_0 : Op.DCONST_1);
+        else { op(Op.LDC2_W); u2(clase.real(v)); }
+    }
+
+    void cadena(String s) {
+        constante(clase.cadena(s));
+    }
+
+    void claseConstante(int indice) {
+        constante(indice);
+    }
+
+    private void constante(int indice) {
+        if (indice <= 0xff) { op(Op.LDC); u1(indice); }
+        else { op(Op.LDC_W); u2(indice); }
+    }
+
+    // Carga o guarda un local; usa el prefijo wide cuando el índice no entra en un byte
+    void local(int codigo, int indice) {
+        if (indice > 0xff) {
+            u1(Op.WIDE);
+            u1(codigo);
+            u2(indice);
+        } else {
+            u1(codigo);
+            u1(indice);
+        }
+        ajustar(Op.EFECTO[codigo]);
+        int ancho = codigo == Op.LLOAD || codigo == Op.DLOAD || codigo == Op.LSTORE || codigo == Op.DSTORE ? 2 : 1;
+        maxLocales = Math.max(maxLocales, indice + ancho);
+    }
+
+    void nuevoArreglo(int tipo) {
+        u1(Op.NEWARRAY);
+        u1(tipo);
+    }
+
+    void invocar(int codigo, String duenio, String nombre, String descriptor) {
+        u1(codigo);
+        u2(clase.metodoRef(duenio, nombre, descriptor));
+        ajustar(palabras(descriptor, true) - palabras(descriptor, false) - (codigo == Op.INVOKESTATIC ? 0 : 1));
+    }
+
+    void salto(int codigo, Etiqueta destino) {
+        int instruccion = tamaño;
+        op(codigo);
+        if (destino.posicion >= 0) {
+            u2(desplazamiento(destino.posicion - instruccion));
+        } else {
+            destino.pendiente(instruccion);
+            u2(0);
+        }
+    }
+
+    void marcar(Etiqueta e) {
+        e.posicion = tamaño;
+        for (int i = 0; i < e.cantidad; i++) {
+            int instruccion = e.pendientes[i];
+            int d = desplazamiento(tamaño - instruccion);
+            codigo[instruccion + 1] = (byte) (d >> 8);
+            codigo[instruccion + 2] = (byte) d;
+        }
+        e.cantidad = 0;
+    }
+
+    // Después de un goto la altura de la pila en el destino la decide quien salta
+    void setPila(int altura) { pila = altura; }
+    int getPila() { return pila; }
+
+    private int desplazamiento(int d) {
+        if (d != (short) d) throw new ErrorGeneracion("salto fuera del alcance de 16 bits: el método es demasiado grande");
+        return d;
+    }
+
+    private void ajustar(int delta) {
+        pila += delta;
+        if (pila > maxPila) maxPila = pila;
+    }
+
+    private void u1(int b) {
+        if (tamaño == codigo.length) {
+            if (tamaño >= LIMITE_CODIGO) throw new ErrorGeneracion("el método supera los 64 KB de bytecode");
+            codigo = Arrays.copyOf(codigo, Math.min(codigo.length * 2, LIMITE_CODIGO + 1));
+        }
+        codigo[tamaño++] = (byte) b;
+    }
+
+    private void u2(int v) {
+        u1(v >> 8);
+        u1(v);
+    }
+
+    // Palabras de los argumentos (o del resultado) de un descriptor de método
+    private static int palabras(String descriptor, boolean resultado) {
+        int fin = descriptor.indexOf(')');
+        if (resultado) {
+            char r = descriptor.charAt(fin + 1);
+            return r == 'V' ? 0 : (r == 'J' || r == 'D') ? 2 : 1;
+        }
+        int n = 0;
+        for (int i = 1; i < fin; i++) {
+            char c = descriptor.charAt(i);
+            if (c == 'J' || c == 'D') n += 2;
+            else {
+                n++;
+                while (descriptor.charAt(i) == '[') i++;
+                if (descriptor.charAt(i) == 'L') i = descriptor.indexOf(';', i);
+            }
+        }
+        return n;
+    }
+
+    void escribir(DataOutputStream out, int atributoCode) throws IOException {
+        if (tamaño > LIMITE_CODIGO - 1) throw new ErrorGeneracion("el método supera los 64 KB de bytecode");
+        out.writeShort(acceso);
+        out.writeShort(nombre);
+        out.writeShort(descriptor);
+        out.writeShort(1); // atributos: Code
+        out.writeShort(atributoCode);
+        out.writeInt(12 + tamaño);
+        out.writeShort(maxPila);
+        out.writeShort(maxLocales);
+        out.writeInt(tamaño);
+        out.write(codigo, 0, tamaño);
+        out.writeShort(0); // tabla de excepciones
+        out.writeShort(0); // atributos de Code
+    }
+}
@@ -0,0 +1,51 @@
+package generador;
+
+// Códigos de operación de la JVM que usa el generador y su efecto sobre la
+// pila de operandos (en palabras; long y double ocupan dos)
+final class Op {
+    static final int ICONST_0 = 0x03, LCONST_0 = 0x09, LCONST_1 = 0x0a, DCONST_0 = 0x0e, DCONST_1 = 0x0f,
+            BIPUSH = 0x10, SIPUSH = 0x11, LDC = 0x12, LDC_W = 0x13, LDC2_W = 0x14,
+            LLOAD = 0x16, DLOAD = 0x18, ALOAD = 0x19, LALOAD = 0x2f, DALOAD = 0x31,
+            LSTORE = 0x37, DSTORE = 0x39, ASTORE = 0x3a, LASTORE = 0x50, DASTORE = 0x52,
+            ACONST_NULL = 0x01, DUP = 0x59, DUP2 = 0x5c, POP = 0x57, POP2 = 0x58, ICONST_1 = 0x04,
+            ILOAD = 0x15, ISTORE = 0x36, LDIV = 0x6d, LSHL = 0x79, IXOR = 0x82, LNEG = 0x75, DNEG = 0x77,
+            LADD = 0x61, DADD = 0x63, LSUB = 0x65, DSUB = 0x67, LMUL = 0x69, DMUL = 0x6b, DDIV = 0x6f,
+            L2I = 0x88, L2D = 0x8a, D2L = 0x8f, LCMP = 0x94, DCMPL = 0x97, DCMPG = 0x98,
+            IFEQ = 0x99, IFNE = 0x9a, IFLT = 0x9b, IFGE = 0x9c, IFGT = 0x9d, IFLE = 0x9e,
+            IF_ICMPEQ = 0x9f, IF_ICMPNE = 0xa0, GOTO = 0xa7, RETURN = 0xb1,
+            INVOKEVIRTUAL = 0xb6, INVOKESTATIC = 0xb8, NEWARRAY = 0xbc, WIDE = 0xc4;
+
+    static final int T_DOUBLE = 7, T_LONG = 11; // operandos de NEWARRAY
+
+    static final int[] EFECTO = new int[256];
+
+    static {
+        for (int i = ICONST_0 - 1; i <= ICONST_0 + 5; i++) EFECTO[i] = 1; // iconst_m1..iconst_5
+        EFECTO[ACONST_NULL] = 1;
+        EFECTO[LCONST_0] = EFECTO[LCONST_1] = EFECTO[DCONST_0] = EFECTO[DCONST_1] = 2;
+        EFECTO[BIPUSH] = EFECTO[SIPUSH] = EFECTO[LDC] = EFECTO[LDC_W] = 1;
+        EFECTO[LDC2_W] = 2;
+        EFECTO[LLOAD] = EFECTO[DLOAD] = 2;
+        EFECTO[ILOAD] = EFECTO[ALOAD] = 1;
+        EFECTO[LSTORE] = EFECTO[DSTORE] = -2;
+        EFECTO[ISTORE] = EFECTO[ASTORE] = EFECTO[POP] = -1;
+        EFECTO[POP2] = -2;
+        EFECTO[LASTORE] = EFECTO[DASTORE] = -4;
+        EFECTO[DUP] = 1;
+        EFECTO[DUP2] = 2;
+        EFECTO[LADD] = EFECTO[DADD] = EFECTO[LSUB] = EFECTO[DSUB] = -2;
+        EFECTO[LMUL] = EFECTO[DMUL] = EFECTO[LDIV] = EFECTO[DDIV] = -2;
+        EFECTO[LSHL] = EFECTO[IXOR] = EFECTO[L2I] = -1;
+        EFECTO[LCMP] = EFECTO[DCMPL] = EFECTO[DCMPG] = -3;
+        for (int i = IFEQ; i <= IFLE; i++) EFECTO[i] = -1;
+        for (int i = IF_ICMPEQ; i <= IF_ICMPEQ + 5; i++) EFECTO[i] = -2;
+    }
+
+    private Op() {}
+
+    // Salto con la condición contraria (ifeq <-> ifne, iflt <-> ifge, ifgt <-> ifle)
+    static int negar(int salto) {
+        int base = salto >= IF_ICMPEQ ? IF_ICMPEQ : IFEQ;
+        return ((salto - base) ^ 1) + base;
+    }
+}
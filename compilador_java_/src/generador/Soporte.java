@@ -0,0 +1,101 @@
+package generador;
+
+import interprete.Entrada;
+import interprete.ErrorEjecucion;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+// Runtime de las clases generadas: read()/write() y las comprobaciones que
+// lanzan ErrorEjecucion. Cada ejecución recibe su propia instancia.
+public final class Soporte {
+    static final String NOMBRE = "generador/Soporte";
+
+    private final Entrada entrada;
+    private final PrintStream salida;
+
+    public Soporte(InputStream entrada, PrintStream salida) {
+        this.entrada = new Entrada(entrada, salida);
+        this.salida = salida;
+    }
+
+    public long leerEntero(int linea, int columna) { return entrada.entero(linea, columna); }
+    public double leerReal(int linea, int columna) { return entrada.real(linea, columna); }
+
+    public void escribir(long v) { salida.println(v); }
+    public void escribir(double v) { salida.println(v); }
+    public void escribir(boolean v) { salida.println(v); }
+    public void escribir(String v) { salida.println(v); }
+    public void escribir(long[] v) { salida.println(Arrays.toString(v)); }
+    public void escribir(double[] v) { salida.println(Arrays.toString(v)); }
+
+    public static int indice(long[] a, long k, int linea, int columna) {
+        if (a == null) throw sinCrear(linea, columna);
+        if (k < 0 || k >= a.length) throw fueraDeRango(k, a.length, linea, columna);
+        return (int) k;
+    }
+
+    public static int indice(double[] a, long k, int linea, int columna) {
+        if (a == null) throw sinCrear(linea, columna);
+        if (k < 0 || k >= a.length) throw fueraDeRango(k, a.length, linea, columna);
+        return (int) k;
+    }
+
+    // Antes de un acceso con el índice ya probado en rango (ver optimizador.Rangos)
+    public static void creado(long[] a, int linea, int columna) {
+        if (a == null) throw sinCrear(linea, columna);
+    }
+
+    public static void creado(double[] a, int linea, int columna) {
+        if (a == null) throw sinCrear(linea, columna);
+    }
+
+    public static long dividir(long a, long b, int linea, int columna) {
+        if (b == 0) throw new ErrorEjecucion("división entera por cero", linea, columna);
+        return a / b;
+    }
+
+    public static int tamaño(long n, int linea, int columna) {
+        if (n < 0 || n > Integer.MAX_VALUE - 8)
+            throw new ErrorEjecucion("tamaño de arreglo inválido: " + n, linea, columna);
+        return (int) n;
+    }
+
+    // Un local de arreglo arranca en null hasta que se ejecuta su declaración
+    private static ErrorEjecucion sinCrear(int linea, int columna) {
+        return new ErrorEjecucion("arreglo usado antes de ejecutar su declaración", linea, columna);
+    }
+
+    private static ErrorEjecucion fueraDeRango(long indice, int largo, int linea, int columna) {
+        return new ErrorEjecucion("índice fuera de rango: " + indice + " (tamaño " + largo + ")", linea, columna);
+    }
+
+    // Punto de entrada del main() de una clase volcada a disco
+    public static void principal(Class<?> programa) {
+        PrintStream salida = new PrintStream(new java.io.BufferedOutputStream(System.out, 1 << 16), false);
+        try {
+            ejecutar(programa, new Soporte(System.in, salida));
+        } catch (ErrorEjecucion e) {
+            salida.flush();
+            System.err.printf("Error de ejecución [línea %d, columna %d]: %s%n", e.getLinea(), e.getColumna(), e.getMessage());
+            System.exit(1);
+        }
+        salida.flush();
+    }
+
+    static void ejecutar(Class<?> programa, Soporte soporte) {
+        try {
+            programa.getMethod(Generador.METODO, Soporte.class).invoke(null, soporte);
+        } catch (InvocationTargetException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            if (causa instanceof Error) throw (Error) causa;
+            throw new IllegalStateException(causa);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            soporte.salida.flush();
+        }
+    }
+}
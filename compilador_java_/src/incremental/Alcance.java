@@ -0,0 +1,76 @@
+package incremental;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import simbolos.Ambito;
+
+// Ámbito del documento: global, main o el cuerpo de un while. Sobrevive a los
+// reanálisis de sus sentencias; solo cambia si se reanaliza su cabecera.
+// Guarda las declaraciones exitosas de cada nombre (normalmente una).
+final class Alcance {
+    Alcance padre; // se corrige si el ámbito se unifica con uno anterior
+    final int profundidad;
+    final int tipo; // Parser.MARCO_MAIN / MARCO_MIENTRAS, 0 el global
+    Elemento cabecera; // tramo donde abre (null el global)
+    int lineaRelativa; // línea de la cabecera donde está el while, desde 1
+
+    private final HashMap<Integer, ArrayList<Declaracion>> declaraciones = new HashMap<>();
+
+    Alcance(Alcance padre, int tipo, Elemento cabecera, int lineaRelativa) {
+        this.padre = padre;
+        this.profundidad = padre == null ? 0 : padre.profundidad + 1;
+        this.tipo = tipo;
+        this.cabecera = cabecera;
+        this.lineaRelativa = lineaRelativa;
+    }
+
+    // Ancestro (o él mismo) de la profundidad dada
+    Alcance nivel(int profundidad) {
+        Alcance a = this;
+        while (a.profundidad > profundidad) a = a.padre;
+        return a;
+    }
+
+    boolean contiene(Alcance otro) {
+        return otro.profundidad <= profundidad && nivel(otro.profundidad) == otro;
+    }
+
+    void agregar(Declaracion d) {
+        declaraciones.computeIfAbsent(d.simbolo.getId(), k -> new ArrayList<>(1)).add(d);
+    }
+
+    void quitar(Declaracion d) {
+        ArrayList<Declaracion> lista = declaraciones.get(d.simbolo.getId());
+        if (lista == null) return;
+        lista.remove(d);
+        if (lista.isEmpty()) declaraciones.remove(d.simbolo.getId());
+    }
+
+    // La primera declaración de 'id' en este ámbito hecha en un tramo anterior a 'limite'
+    Declaracion primera(int id, int limite) {
+        ArrayList<Declaracion> lista = declaraciones.get(id);
+        if (lista == null) return null;
+        Declaracion mejor = null;
+        for (Declaracion d : lista) {
+            if (d.elemento.indice < limite && (mejor == null || d.antesDe(mejor))) mejor = d;
+        }
+        return mejor;
+    }
+
+    String nombre(Documento doc) {
+        if (tipo == 0) return "global";
+        if (tipo == parser.Parser.MARCO_MAIN) return "main";
+        return "while@" + (doc.lineaDe(cabecera) + lineaRelativa - 1);
+    }
+
+    // Ruta como la arma TablaSimbolos ("main/while@12"); se construye al pedirla
+    Ambito ambito(Documento doc, HashMap<Alcance, Ambito> cache) {
+        if (padre == null) return Ambito.GLOBAL;
+        Ambito a = cache.get(this);
+        if (a == null) {
+            a = new Ambito(nombre(doc), padre.ambito(doc, cache));
+            cache.put(this, a);
+        }
+        return a;
+    }
+}
@@ -0,0 +1,23 @@
+package incremental;
+
+// Lo que costó una edición de Documento
+public final class Cambio {
+    int bytesRelexados;
+    int elementosReanalizados;
+    int dependientesRechequeados;
+    boolean reestructurado; // cambió la cantidad de tramos
+    long nanos;
+
+    public int getBytesRelexados() { return bytesRelexados; }
+    public int getElementosReanalizados() { return elementosReanalizados; }
+    public int getDependientesRechequeados() { return dependientesRechequeados; }
+    public boolean isReestructurado() { return reestructurado; }
+    public long getNanos() { return nanos; }
+
+    @Override
+    public String toString() {
+        return "relexados=" + bytesRelexados + "B tramos=" + elementosReanalizados
+                + " dependientes=" + dependientesRechequeados + (reestructurado ? " (reestructurado)" : "")
+                + " " + (nanos / 1000) + "us";
+    }
+}
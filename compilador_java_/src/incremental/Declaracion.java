@@ -0,0 +1,26 @@
+package incremental;
+
+import simbolos.Simbolo;
+
+// Declaración exitosa hecha en un tramo. El Simbolo es el que creó la tabla del
+// análisis (tipo y nombre); la línea se guarda relativa al tramo.
+final class Declaracion {
+    final Simbolo simbolo;
+    final Elemento elemento;
+    final Alcance alcance;
+    final int orden; // dentro del tramo
+    final int lineaRelativa, columna;
+
+    Declaracion(Simbolo simbolo, Elemento elemento, Alcance alcance, int orden, int lineaRelativa, int columna) {
+        this.simbolo = simbolo;
+        this.elemento = elemento;
+        this.alcance = alcance;
+        this.orden = orden;
+        this.lineaRelativa = lineaRelativa;
+        this.columna = columna;
+    }
+
+    boolean antesDe(Declaracion otra) {
+        return elemento.indice != otra.elemento.indice ? elemento.indice < otra.elemento.indice : orden < otra.orden;
+    }
+}
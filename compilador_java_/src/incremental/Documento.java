@@ -0,0 +1,812 @@
+package incremental;
+
+import errores.Diagnostico;
+import errores.ErrorHandler;
+import errores.Formato;
+import errores.Sumidero;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import lexer.Fuente;
+import lexer.Lexer;
+import lexer.Nombres;
+import lexer.TokenBuffer;
+import lexer.TokenType;
+import parser.Observador;
+import parser.Parser;
+import simbolos.Ambito;
+import simbolos.ResolutorGlobal;
+import simbolos.Simbolo;
+import simbolos.TablaSimbolos;
+
+// Programa editable con reanálisis incremental. El texto está partido en
+// tramos (Elemento) que corta el propio parser; cada edición:
+//   1. re-lexea desde el tramo tocado hasta que un token nuevo empieza justo donde
+//      empezaba un tramo viejo, pasado un salto de línea después de la edición
+//      (un comentario /* */ o una cadena que se abre o se cierra corre el punto
+//      de resincronización hasta donde el lexer vuelva a coincidir);
+//   2. retoma el parser en ese tramo con los marcos guardados y lo detiene en
+//      el primer inicio de tramo viejo con los mismos marcos;
+//   3. re-chequea solo los tramos siguientes que buscan o declaran un nombre
+//      cuya primera declaración cambió en algún ámbito que los contiene.
+// Una edición dentro de una sentencia cuesta O(tramo + log n). Si cambia la
+// cantidad de tramos (se parte o se une una sentencia) se renumera la lista y
+// se reconstruyen los Fenwick: O(n), pero son solo enteros.
+// No es thread-safe.
+public class Documento {
+    private static final int[] SIN_MARCOS = new int[0];
+
+    private final Nombres nombres = new Nombres();
+    private final ArrayList<Elemento> elementos = new ArrayList<>();
+    private final Fenwick bytes = new Fenwick(), lineas = new Fenwick();
+    private final Alcance global = new Alcance(null, 0, null, 0);
+    // Tramos que buscaron o declararon cada id
+    private final HashMap<Integer, HashSet<Elemento>> dependientes = new HashMap<>();
+    // Solo durante el análisis inicial: si devuelve true se abandona
+    private BooleanSupplier cancelado;
+
+    public Documento(String texto) {
+        this(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Documento(byte[] utf8) {
+        this(utf8, null);
+    }
+
+    // El análisis inicial consulta 'cancelado' en cada sentencia y, si ya no
+    // hace falta, corta con CancellationException
+    public Documento(byte[] utf8, BooleanSupplier cancelado) {
+        this.cancelado = cancelado;
+        Fuente fuente = Fuente.desdeBytes(utf8, utf8.length);
+        Region region = new Region(utf8, new Lexer(fuente, nombres).tokenizar(), true);
+        reanalizar(0, region, 0, new Cambio());
+        this.cancelado = null;
+    }
+
+    // -----------------------
+    // Consultas
+    // -----------------------
+    public int longitud() { return bytes.total(); }
+    public int cantidadLineas() { return lineas.total() + 1; }
+    public int cantidadElementos() { return elementos.size(); }
+    public Nombres getNombres() { return nombres; }
+
+    public byte[] bytes() {
+        ByteArrayOutputStream b = new ByteArrayOutputStream(longitud());
+        for (Elemento e : elementos) b.write(e.texto, 0, e.texto.length);
+        return b.toByteArray();
+    }
+
+    public String texto() {
+        return new String(bytes(), StandardCharsets.UTF_8);
+    }
+
+    int lineaDe(Elemento e) { return 1 + lineas.prefijo(e.indice); }
+
+    // Diagnósticos de todo el documento, en orden, con posiciones absolutas
+    public List<Diagnostico> diagnosticos(String archivo) {
+        ArrayList<Diagnostico> lista = new ArrayList<>();
+        int base = 1;
+        for (Elemento e : elementos) {
+            for (Diagnostico d : e.diagnosticos) {
+                lista.add(new Diagnostico(d.getTipo(), d.getCodigo(), archivo, base + d.getLinea() - 1,
+                        d.getColumna(), d.getLongitud(), d.getMensaje()));
+            }
+            base += e.saltos;
+        }
+        return lista;
+    }
+
+    public int cantidadErrores() {
+        int n = 0;
+        for (Elemento e : elementos) n += e.diagnosticos.size();
+        return n;
+    }
+
+    // Declaraciones en el orden del programa, como las lista TablaSimbolos
+    public List<Simbolo> simbolos() {
+        ArrayList<Simbolo> lista = new ArrayList<>();
+        HashMap<Alcance, Ambito> ambitos = new HashMap<>();
+        int base = 1;
+        for (Elemento e : elementos) {
+            for (Declaracion d : e.declaraciones) {
+                Simbolo s = d.simbolo;
+                Simbolo copia = new Simbolo(s.getId(), s.getNombre(), s.getTipo(), s.getValor(),
+                        d.alcance.ambito(this, ambitos), base + d.lineaRelativa - 1, d.columna,
+                        s.getProfundidad(), s.getIndice(), lista.size());
+                copia.setLongitud(s.getLongitud());
+                lista.add(copia);
+            }
+            base += e.saltos;
+        }
+        return lista;
+    }
+
+    // Declaración que ve el identificador en 'offset' (o justo antes), con
+    // posición absoluta; null si ahí no hay un nombre declarado
+    public Simbolo declaracionEn(int offset) {
+        int k = Math.min(bytes.buscar(Math.max(0, Math.min(offset, longitud()))), elementos.size() - 1);
+        Elemento e = elementos.get(k);
+        int relativo = offset - bytes.prefijo(k);
+        for (int i = 0; i < e.tokens.tamaño() && e.tokens.inicio(i) <= relativo; i++) {
+            if (e.tokens.tipo(i) != TokenType.ID || relativo > e.tokens.inicio(i) + e.tokens.longitud(i)) continue;
+            int id = e.tokens.valor(i);
+            for (Alcance x = e.alcance; x != null; x = x.padre) {
+                Declaracion d = x.primera(id, k + 1);
+                if (d != null) return absoluto(d);
+            }
+            return null;
+        }
+        return null;
+    }
+
+    private Simbolo absoluto(Declaracion d) {
+        Simbolo s = d.simbolo;
+        Simbolo copia = new Simbolo(s.getId(), s.getNombre(), s.getTipo(), s.getValor(),
+                d.alcance.ambito(this, new HashMap<>()), lineaDe(d.elemento) + d.lineaRelativa - 1, d.columna,
+                s.getProfundidad(), s.getIndice(), s.getSlot());
+        copia.setLongitud(s.getLongitud());
+        return copia;
+    }
+
+    // Offset en bytes de una posición de LSP: línea desde 0 y carácter en
+    // unidades UTF-16. Lo que pasa del fin de la línea o del documento se ajusta.
+    public int offset(int linea, int caracter) {
+        if (linea <= 0 && caracter <= 0) return 0;
+        if (linea >= cantidadLineas()) return longitud();
+        int n = elementos.size();
+        int k = 0, pos = 0;
+        if (linea > 0) {
+            // tramo con el salto número 'linea'
+            k = lineas.buscar(linea - 1);
+            byte[] t = elementos.get(k).texto;
+            int faltan = linea - lineas.prefijo(k);
+            while (faltan > 0) {
+                if (t[pos++] == '\n') faltan--;
+            }
+        }
+        int offset = bytes.prefijo(k) + pos;
+        for (int unidades = 0; unidades < caracter; ) {
+            byte[] t = elementos.get(k).texto;
+            if (pos == t.length) {
+                if (++k == n) break;
+                pos = 0;
+                continue;
+            }
+            int b = t[pos] & 0xFF;
+            if (b == '\n') break;
+            int largo = b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : 2;
+            unidades += largo == 4 ? 2 : 1;
+            pos += largo;
+            offset += largo;
+        }
+        return offset;
+    }
+
+    // Mismo formato que TablaSimbolos.mostrar
+    public void mostrarTabla(PrintStream salida) {
+        salida.println("\n--- TABLA DE SÍMBOLOS ---");
+        salida.println("Nombre\tTipo\tValor\tÁmbito\tLínea");
+        for (Simbolo s : simbolos()) salida.println(s);
+    }
+
+    // -----------------------
+    // Edición
+    // -----------------------
+    // Reemplaza 'eliminados' bytes desde 'offset' por 'insertado' (posiciones en
+    // bytes UTF-8, en límites de carácter)
+    public Cambio editar(int offset, int eliminados, String insertado) {
+        long inicio = System.nanoTime();
+        int largo = longitud();
+        if (offset < 0 || eliminados < 0 || offset + eliminados > largo) {
+            throw new IndexOutOfBoundsException("edición fuera del documento: " + offset + "+" + eliminados
+                    + " de " + largo);
+        }
+        byte[] ins = insertado.getBytes(StandardCharsets.UTF_8);
+        Cambio cambio = new Cambio();
+
+        int n = elementos.size();
+        int a = Math.min(bytes.buscar(offset), n - 1);
+        // el último token del tramo anterior pudo mirar unos bytes más allá de su
+        // fin, y la última sentencia mira el primer token de este (si es 'else'):
+        // si la edición llega a ese token, se re-analiza también el tramo anterior
+        if (a > 0 && offset - bytes.prefijo(a) <= Math.max(3, finPrimerToken(elementos.get(a)))) a--;
+        int b = Math.max(a, Math.min(bytes.buscar(offset + eliminados), n - 1));
+
+        Region region = relexar(a, b, offset, eliminados, ins, cambio);
+        propagar(reanalizar(a, region, region.hasta, cambio), cambio);
+        cambio.nanos = System.nanoTime() - inicio;
+        // con -ea cada edición se contrasta con un análisis desde cero
+        assert diferenciasConAnalisisNuevo().isEmpty() : diferenciasConAnalisisNuevo();
+        return cambio;
+    }
+
+    private static int finPrimerToken(Elemento e) {
+        return e.tokens.tamaño() == 0 ? 0 : e.tokens.inicio(0) + e.tokens.longitud(0);
+    }
+
+    // Compara con un análisis desde cero del mismo texto y devuelve las
+    // diferencias en diagnósticos y símbolos (vacía si coinciden). Cuesta como
+    // compilar todo el documento: es para pruebas y para 'assert' en editar.
+    public List<String> diferenciasConAnalisisNuevo() {
+        Documento nuevo = new Documento(bytes());
+        ArrayList<String> diferencias = new ArrayList<>();
+        comparar("diagnóstico", textos(diagnosticos(null)), textos(nuevo.diagnosticos(null)), diferencias);
+        comparar("símbolo", textos(simbolos()), textos(nuevo.simbolos()), diferencias);
+        return diferencias;
+    }
+
+    private static ArrayList<String> textos(List<?> lista) {
+        ArrayList<String> t = new ArrayList<>();
+        for (Object o : lista) {
+            if (o instanceof Diagnostico) {
+                Diagnostico d = (Diagnostico) o;
+                t.add(d.getLinea() + ":" + d.getColumna() + " " + d.getCodigo() + " " + d.getMensaje());
+            } else {
+                t.add(o.toString());
+            }
+        }
+        return t;
+    }
+
+    private static void comparar(String que, List<String> editado, List<String> nuevo, List<String> diferencias) {
+        int n = Math.max(editado.size(), nuevo.size());
+        for (int i = 0; i < n; i++) {
+            String x = i < editado.size() ? editado.get(i) : "(nada)";
+            String y = i < nuevo.size() ? nuevo.get(i) : "(nada)";
+            if (!x.equals(y)) diferencias.add(que + " " + (i + 1) + ": editado " + x + ", desde cero " + y);
+        }
+    }
+
+    // Texto nuevo que reemplaza a los tramos [a, hasta) y sus tokens, con
+    // posiciones relativas al inicio del tramo a (línea 1 la de ese inicio)
+    private static final class Region {
+        final byte[] texto;
+        final TokenBuffer tokens;
+        final boolean fin; // llega al final del documento: tokens termina en EOF
+        int hasta;
+
+        Region(byte[] texto, TokenBuffer tokens, boolean fin) {
+            this.texto = texto;
+            this.tokens = tokens;
+            this.fin = fin;
+        }
+    }
+
+    private Region relexar(int a, int b, int offset, int eliminados, byte[] ins, Cambio cambio) {
+        int n = elementos.size();
+        int inicioA = bytes.prefijo(a);
+        int delta = ins.length - eliminados;
+        int desde = offset - inicioA;
+        byte[] prefijo = prefijoDeLinea(a);
+        for (int extra = 2; ; extra *= 2) {
+            // ventana: los tramos [a, ventana) con la edición aplicada
+            int ventana = Math.min(n, b + 1 + extra);
+            byte[] viejo = concatenar(a, ventana);
+            byte[] nuevo = new byte[viejo.length + delta];
+            System.arraycopy(viejo, 0, nuevo, 0, desde);
+            System.arraycopy(ins, 0, nuevo, desde, ins.length);
+            System.arraycopy(viejo, desde + eliminados, nuevo, desde + ins.length,
+                    viejo.length - desde - eliminados);
+            int salto = desde + ins.length;
+            while (salto < nuevo.length && nuevo[salto] != '\n') salto++;
+
+            byte[] texto = new byte[prefijo.length + nuevo.length];
+            System.arraycopy(prefijo, 0, texto, 0, prefijo.length);
+            System.arraycopy(nuevo, 0, texto, prefijo.length, nuevo.length);
+            Lexer lexer = new Lexer(Fuente.desdeBytes(texto, texto.length), nombres);
+            lexer.reanudar(prefijo.length, 1, 0);
+            TokenBuffer tokens = new TokenBuffer(Fuente.vacia(), nombres, 16);
+
+            // inicio (en 'nuevo') del próximo tramo viejo donde se puede resincronizar
+            int candidato = b + 1;
+            int posicion = candidato < ventana ? bytes.prefijo(candidato) - inicioA + delta : 0;
+            while (true) {
+                TokenType tipo = lexer.siguiente();
+                int inicio = lexer.getInicio() - prefijo.length;
+                while (candidato < ventana && posicion < inicio) {
+                    candidato++;
+                    if (candidato < ventana) posicion = bytes.prefijo(candidato) - inicioA + delta;
+                }
+                if (tipo != TokenType.EOF && candidato < ventana && posicion == inicio && salto < inicio) {
+                    Region region = new Region(Arrays.copyOf(nuevo, inicio), tokens, false);
+                    region.hasta = candidato;
+                    cambio.bytesRelexados += inicio;
+                    return region;
+                }
+                if (tipo == TokenType.EOF) {
+                    if (ventana < n) break; // no resincronizó dentro de la ventana: se agranda
+                    tokens.agregar(TokenType.EOF, inicio, 0, lexer.getLinea(), lexer.getColumna());
+                    Region region = new Region(nuevo, tokens, true);
+                    region.hasta = n;
+                    cambio.bytesRelexados += nuevo.length;
+                    return region;
+                }
+                if (tipo == TokenType.ERROR) {
+                    tokens.agregarError(lexer.getMensaje(), inicio, lexer.getLongitud(), lexer.getLinea(),
+                            lexer.getColumna());
+                } else {
+                    tokens.agregar(tipo, inicio, lexer.getLongitud(), lexer.getLinea(), lexer.getColumna(),
+                            lexer.getValor());
+                }
+            }
+        }
+    }
+
+    // Lo que hay entre el inicio de la línea donde empieza el tramo a y ese
+    // inicio: el lexer lo necesita para las columnas
+    private byte[] prefijoDeLinea(int a) {
+        ArrayDeque<byte[]> partes = new ArrayDeque<>();
+        int total = 0;
+        for (int i = a - 1; i >= 0; i--) {
+            byte[] t = elementos.get(i).texto;
+            int p = t.length;
+            while (p > 0 && t[p - 1] != '\n') p--;
+            partes.addFirst(Arrays.copyOfRange(t, p, t.length));
+            total += t.length - p;
+            if (p > 0) break;
+        }
+        byte[] prefijo = new byte[total];
+        int pos = 0;
+        for (byte[] parte : partes) {
+            System.arraycopy(parte, 0, prefijo, pos, parte.length);
+            pos += parte.length;
+        }
+        return prefijo;
+    }
+
+    private byte[] concatenar(int desde, int hasta) {
+        int total = 0;
+        for (int i = desde; i < hasta; i++) total += elementos.get(i).texto.length;
+        byte[] b = new byte[total];
+        int pos = 0;
+        for (int i = desde; i < hasta; i++) {
+            byte[] t = elementos.get(i).texto;
+            System.arraycopy(t, 0, b, pos, t.length);
+            pos += t.length;
+        }
+        return b;
+    }
+
+    // -----------------------
+    // Reanálisis
+    // -----------------------
+    // Primera declaración de un nombre en un ámbito que cambió (apareció,
+    // desapareció o cambió de tipo): los tramos desde 'desde' que lo usan se re-chequean
+    private static final class Cambiado {
+        final Alcance alcance;
+        final int id;
+        final int desde;
+
+        Cambiado(Alcance alcance, int id, int desde) {
+            this.alcance = alcance;
+            this.id = id;
+            this.desde = desde;
+        }
+    }
+
+    // Analiza la región seguida de los tramos viejos desde r hasta resincronizar
+    // y reemplaza con el resultado los tramos [a, punto de resincronización)
+    private ArrayList<Cambiado> reanalizar(int a, Region region, int r, Cambio cambio) {
+        int n = elementos.size();
+        Elemento primero = a < n ? elementos.get(a) : null;
+        int[] marcos = primero != null ? primero.marcos : SIN_MARCOS;
+        for (int extra = 4; ; extra *= 2) {
+            int hasta = region.fin ? r : Math.min(n, r + extra);
+            Analisis analisis = new Analisis(a, region, r, hasta);
+            Parser parser = new Parser(analisis.ventana, false, analisis.errores, null);
+            analisis.tabla = parser.getTabla();
+            parser.getTabla().setResolutor(analisis);
+            parser.setObservador(analisis);
+            boolean detenido = parser.reanudar(marcos, marcos.length);
+            if (!detenido && !analisis.real) continue; // llegó al EOF ficticio: más tramos
+            analisis.terminar(detenido);
+            return reemplazar(a, detenido ? analisis.resincronizado : n, analisis.nuevos, cambio);
+        }
+    }
+
+    private ArrayList<Cambiado> reemplazar(int a, int fin, ArrayList<Elemento> nuevos, Cambio cambio) {
+        List<Elemento> viejos = elementos.subList(a, fin);
+        HashMap<Alcance, HashMap<Integer, Integer>> antes = primerasDeclaraciones(viejos);
+        for (Elemento e : viejos) {
+            for (Declaracion d : e.declaraciones) d.alcance.quitar(d);
+            for (int id : e.dependencias) {
+                HashSet<Elemento> s = dependientes.get(id);
+                if (s != null) s.remove(e);
+            }
+        }
+        cambio.elementosReanalizados += nuevos.size();
+        if (viejos.size() == nuevos.size()) {
+            for (int i = 0; i < nuevos.size(); i++) {
+                Elemento v = elementos.get(a + i), e = nuevos.get(i);
+                e.indice = a + i;
+                elementos.set(a + i, e);
+                bytes.sumar(a + i, e.texto.length - v.texto.length);
+                lineas.sumar(a + i, e.saltos - v.saltos);
+            }
+        } else {
+            viejos.clear();
+            elementos.addAll(a, nuevos);
+            renumerar(a);
+            cambio.reestructurado = true;
+        }
+        for (Elemento e : nuevos) {
+            for (Declaracion d : e.declaraciones) d.alcance.agregar(d);
+            for (int id : e.dependencias) dependientes.computeIfAbsent(id, k -> new HashSet<>()).add(e);
+        }
+
+        // Solo importan los ámbitos que siguen abiertos donde resincronizó: los
+        // que cerraron antes no los ve ningún tramo posterior
+        ArrayList<Cambiado> cambios = new ArrayList<>();
+        int desde = a + nuevos.size();
+        if (desde == elementos.size()) return cambios;
+        Alcance abierto = elementos.get(desde).alcance;
+        HashMap<Alcance, HashMap<Integer, Integer>> despues = primerasDeclaraciones(nuevos);
+        antes.keySet().removeIf(x -> !abierto.contiene(x));
+        despues.keySet().removeIf(x -> !abierto.contiene(x));
+        diferencias(antes, despues, desde, cambios);
+        diferencias(despues, antes, desde, cambios);
+        return cambios;
+    }
+
+    // Tipo de la primera declaración de cada nombre en cada ámbito. El resto de
+    // los tramos solo ve eso: el tipo para chequear y que exista para redeclarar.
+    private static HashMap<Alcance, HashMap<Integer, Integer>> primerasDeclaraciones(List<Elemento> tramos) {
+        HashMap<Alcance, HashMap<Integer, Integer>> m = new HashMap<>();
+        for (Elemento e : tramos) {
+            for (Declaracion d : e.declaraciones) {
+                m.computeIfAbsent(d.alcance, k -> new HashMap<>()).putIfAbsent(d.simbolo.getId(),
+                        d.simbolo.getTipo());
+            }
+        }
+        return m;
+    }
+
+    // Agrega lo que está en 'uno' y falta o tiene otro tipo en 'otro'
+    // (los de distinto tipo salen dos veces; encolar no repite)
+    private static void diferencias(HashMap<Alcance, HashMap<Integer, Integer>> uno,
+                                    HashMap<Alcance, HashMap<Integer, Integer>> otro, int desde,
+                                    ArrayList<Cambiado> cambios) {
+        for (Map.Entry<Alcance, HashMap<Integer, Integer>> porAlcance : uno.entrySet()) {
+            HashMap<Integer, Integer> delOtro = otro.get(porAlcance.getKey());
+            for (Map.Entry<Integer, Integer> d : porAlcance.getValue().entrySet()) {
+                Integer tipo = delOtro != null ? delOtro.get(d.getKey()) : null;
+                if (!d.getValue().equals(tipo)) cambios.add(new Cambiado(porAlcance.getKey(), d.getKey(), desde));
+            }
+        }
+    }
+
+    private void renumerar(int desde) {
+        int n = elementos.size();
+        int[] largos = new int[n], saltos = new int[n];
+        for (int i = 0; i < n; i++) {
+            Elemento e = elementos.get(i);
+            if (i >= desde) e.indice = i;
+            largos[i] = e.texto.length;
+            saltos[i] = e.saltos;
+        }
+        bytes.reconstruir(largos, n);
+        lineas.reconstruir(saltos, n);
+    }
+
+    // Re-chequea, en orden del documento, los tramos afectados por declaraciones
+    // que cambiaron; cada re-chequeo puede cambiar otras
+    private void propagar(ArrayList<Cambiado> cambios, Cambio cambio) {
+        PriorityQueue<Elemento> cola = new PriorityQueue<>(Comparator.comparingInt(e -> e.indice));
+        HashSet<Elemento> encolados = new HashSet<>();
+        encolar(cambios, cola, encolados);
+        while (!cola.isEmpty()) {
+            Elemento e = cola.poll();
+            // Un re-análisis anterior pudo haberlo reemplazado (y ya lo analizó)
+            if (e.indice >= elementos.size() || elementos.get(e.indice) != e) continue;
+            Region region = new Region(e.texto, e.tokens, e.indice == elementos.size() - 1);
+            cambio.dependientesRechequeados++;
+            encolar(reanalizar(e.indice, region, e.indice + 1, cambio), cola, encolados);
+        }
+    }
+
+    private void encolar(ArrayList<Cambiado> cambios, PriorityQueue<Elemento> cola, HashSet<Elemento> encolados) {
+        for (Cambiado c : cambios) {
+            HashSet<Elemento> deps = dependientes.get(c.id);
+            if (deps == null) continue;
+            for (Elemento e : deps) {
+                if (e.indice >= c.desde && e.alcance.contiene(c.alcance) && encolados.add(e)) cola.add(e);
+            }
+        }
+    }
+
+    // -----------------------
+    // Un análisis: arma la ventana de tokens, corta tramos en las fronteras
+    // que avisa el parser, resuelve contra los tramos anteriores y junta los
+    // diagnósticos y declaraciones de cada tramo nuevo
+    // -----------------------
+    private final class Analisis implements Observador, ResolutorGlobal {
+        final TokenBuffer ventana;
+        final ErrorHandler errores;
+        final boolean real; // la ventana termina en el EOF del documento
+        TablaSimbolos tabla;
+        private final byte[] texto;
+        private final int limite;          // se resuelve contra los tramos anteriores a este
+        private final Alcance[] cadena;    // ámbitos abiertos al empezar, por profundidad
+        private final int r;
+        private final int[] iniciosViejos; // token donde empieza cada tramo viejo desde r
+
+        // Pila de marcos del lado del documento: serie del parser y ámbito (null en la rama then)
+        private int[] pilaSeries = new int[16];
+        private Alcance[] pilaAlcances = new Alcance[16];
+        private int pila;
+
+        // Tramos nuevos: token de inicio, marcos, ámbito, símbolos de la tabla
+        // hasta su fin e ids consultados
+        private final ArrayList<Integer> fronteras = new ArrayList<>();
+        private final ArrayList<int[]> marcosNuevos = new ArrayList<>();
+        private final ArrayList<Alcance> alcancesNuevos = new ArrayList<>();
+        private final ArrayList<Integer> simbolosHasta = new ArrayList<>();
+        private final ArrayList<Integer> diagnosticosHasta = new ArrayList<>();
+        private final ArrayList<TreeSet<Integer>> consultas = new ArrayList<>();
+        // Ámbitos abiertos en este análisis y el tramo donde abrió cada uno
+        private final ArrayList<Alcance> creados = new ArrayList<>();
+        private final ArrayList<Integer> cabeceras = new ArrayList<>();
+        private final HashSet<Alcance> abiertos = new HashSet<>();
+        private final ArrayList<Diagnostico> diagnosticos = new ArrayList<>();
+
+        int resincronizado = -1;
+        private int tokenResincronizado;
+        final ArrayList<Elemento> nuevos = new ArrayList<>();
+
+        Analisis(int a, Region region, int r, int hasta) {
+            this.r = r;
+            this.limite = a;
+            this.real = region.fin || hasta == elementos.size();
+            Elemento primero = a < elementos.size() ? elementos.get(a) : null;
+            Alcance alcance = primero != null ? primero.alcance : global;
+            cadena = new Alcance[alcance.profundidad + 1];
+            for (Alcance x = alcance; x != null; x = x.padre) cadena[x.profundidad] = x;
+
+            // La región y después los tramos viejos [r, hasta), con posiciones de la región
+            int largo = region.texto.length;
+            for (int j = r; j < hasta; j++) largo += elementos.get(j).texto.length;
+            texto = Arrays.copyOf(region.texto, largo);
+            ventana = new TokenBuffer(Fuente.desdeBytes(texto, largo), nombres,
+                    Math.max(16, region.tokens.tamaño() + 8 * (hasta - r) + 1));
+            ventana.agregar(region.tokens, 0, region.tokens.tamaño(), 0, 0);
+            iniciosViejos = new int[hasta - r];
+            int off = region.texto.length;
+            int linea = 1 + Elemento.contarSaltos(region.texto, 0, region.texto.length);
+            for (int j = r; j < hasta; j++) {
+                Elemento e = elementos.get(j);
+                iniciosViejos[j - r] = ventana.tamaño();
+                System.arraycopy(e.texto, 0, texto, off, e.texto.length);
+                ventana.agregar(e.tokens, 0, e.tokens.tamaño(), off, linea - 1);
+                off += e.texto.length;
+                linea += e.saltos;
+            }
+            if (!real) ventana.agregar(TokenType.EOF, off, 0, linea, 1); // EOF ficticio
+
+            errores = new ErrorHandler(new Recolector(diagnosticos), null, ErrorHandler.SIN_LIMITE, false);
+
+            // Pila inicial: los marcos del primer tramo con las series que les da Parser.reanudar
+            int[] marcos = primero != null ? primero.marcos : SIN_MARCOS;
+            int profundidad = 0;
+            for (int i = 0; i < marcos.length; i++) {
+                apilar(i + 1, marcos[i] != Parser.MARCO_ENTONCES ? cadena[++profundidad] : null);
+            }
+            abrirTramo(0, marcos, alcance);
+        }
+
+        private void apilar(int serie, Alcance alcance) {
+            if (pila == pilaSeries.length) {
+                pilaSeries = Arrays.copyOf(pilaSeries, pila * 2);
+                pilaAlcances = Arrays.copyOf(pilaAlcances, pila * 2);
+            }
+            pilaSeries[pila] = serie;
+            pilaAlcances[pila] = alcance;
+            pila++;
+        }
+
+        private Alcance tope() {
+            for (int i = pila - 1; i >= 0; i--) {
+                if (pilaAlcances[i] != null) return pilaAlcances[i];
+            }
+            return global;
+        }
+
+        private void abrirTramo(int token, int[] marcos, Alcance alcance) {
+            fronteras.add(token);
+            marcosNuevos.add(marcos);
+            alcancesNuevos.add(alcance);
+            consultas.add(new TreeSet<>());
+        }
+
+        // Línea (de la ventana) donde empieza el tramo nuevo k
+        private int lineaInicio(int k) {
+            return k == 0 ? 1 : ventana.linea(fronteras.get(k));
+        }
+
+        @Override
+        public boolean frontera(int token, int[] tipos, int[] series, int[] lineasMarco, int cantidad) {
+            int actual = fronteras.size() - 1;
+            if (token == fronteras.get(actual)) return false; // otra cabeza en el mismo token
+            if (cancelado != null && cancelado.getAsBoolean()) throw new CancellationException();
+            sincronizar(tipos, series, lineasMarco, cantidad, actual);
+            cerrarTramo();
+            int j = Arrays.binarySearch(iniciosViejos, token);
+            if (j >= 0 && elementos.get(r + j).mismosMarcos(tipos, cantidad) && mismosAmbitos(r + j)) {
+                // desde acá el análisis viejo sigue valiendo
+                resincronizado = r + j;
+                tokenResincronizado = token;
+                return true;
+            }
+            abrirTramo(token, Arrays.copyOf(tipos, cantidad), tope());
+            return false;
+        }
+
+        // Lo declarado y reportado hasta acá es del tramo que termina
+        private void cerrarTramo() {
+            errores.vaciar();
+            simbolosHasta.add(tabla.cantidad());
+            diagnosticosHasta.add(diagnosticos.size());
+        }
+
+        // Los ámbitos abiertos tienen que ser los del tramo viejo: los que ya
+        // existían, el mismo; los abiertos en este análisis, uno que el análisis
+        // viejo abrió dentro de lo que se reemplaza (ahí se unifican)
+        private boolean mismosAmbitos(int j) {
+            Alcance viejo = elementos.get(j).alcance;
+            for (int i = pila - 1; i >= 0; i--) {
+                Alcance x = pilaAlcances[i];
+                if (x == null) continue;
+                viejo = viejo.nivel(x.profundidad);
+                if (!abiertos.contains(x)) {
+                    if (viejo != x) return false;
+                } else if (viejo.cabecera == null || viejo.cabecera.indice < limite || viejo.cabecera.indice >= j) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Alinea la pila del documento con los marcos del parser; los ámbitos
+        // que abrieron recién tienen su cabecera en el tramo que termina
+        private void sincronizar(int[] tipos, int[] series, int[] lineasMarco, int cantidad, int tramo) {
+            int comunes = 0;
+            while (comunes < pila && comunes < cantidad && pilaSeries[comunes] == series[comunes]) comunes++;
+            pila = comunes;
+            for (int i = comunes; i < cantidad; i++) {
+                Alcance x = null;
+                if (tipos[i] != Parser.MARCO_ENTONCES) {
+                    x = new Alcance(tope(), tipos[i], null, lineasMarco[i] - lineaInicio(tramo) + 1);
+                    creados.add(x);
+                    cabeceras.add(tramo);
+                    abiertos.add(x);
+                }
+                apilar(series[i], x);
+            }
+        }
+
+        @Override
+        public Simbolo resolver(int id, int nivel) {
+            for (int d = Math.min(nivel, cadena.length - 1); d >= 0; d--) {
+                Declaracion decl = cadena[d].primera(id, limite);
+                if (decl != null) return decl.simbolo;
+            }
+            return null;
+        }
+
+        @Override
+        public void consultado(int id) {
+            consultas.get(consultas.size() - 1).add(id);
+        }
+
+        // Arma los tramos nuevos
+        void terminar(boolean detenido) {
+            int cantidad = fronteras.size();
+            if (!detenido) cerrarTramo();
+            int finTokens = detenido ? tokenResincronizado : ventana.tamaño();
+            int finBytes = detenido ? ventana.inicio(tokenResincronizado) : texto.length;
+            for (int k = 0; k < cantidad; k++) {
+                int t0 = fronteras.get(k), t1 = k + 1 < cantidad ? fronteras.get(k + 1) : finTokens;
+                int b0 = k == 0 ? 0 : ventana.inicio(t0), b1 = k + 1 < cantidad ? ventana.inicio(t1) : finBytes;
+                Elemento e = new Elemento();
+                e.texto = Arrays.copyOfRange(texto, b0, b1);
+                e.saltos = Elemento.contarSaltos(e.texto, 0, e.texto.length);
+                e.tokens = new TokenBuffer(Fuente.desdeBytes(e.texto, e.texto.length), nombres, t1 - t0 + 1);
+                e.tokens.agregar(ventana, t0, t1, -b0, 1 - lineaInicio(k));
+                e.marcos = marcosNuevos.get(k);
+                e.diagnosticos = new ArrayList<>();
+                e.declaraciones = new ArrayList<>();
+                TreeSet<Integer> ids = consultas.get(k);
+                e.dependencias = new int[ids.size()];
+                int i = 0;
+                for (int id : ids) e.dependencias[i++] = id;
+                nuevos.add(e);
+            }
+            for (int i = 0; i < creados.size(); i++) creados.get(i).cabecera = nuevos.get(cabeceras.get(i));
+
+            // Los ámbitos abiertos al resincronizar ya existían: se sigue usando el viejo
+            HashMap<Alcance, Alcance> unificados = new HashMap<>();
+            if (detenido) {
+                Alcance viejo = elementos.get(resincronizado).alcance;
+                for (int i = pila - 1; i >= 0; i--) {
+                    Alcance x = pilaAlcances[i];
+                    if (x == null) continue;
+                    while (viejo.profundidad > x.profundidad) viejo = viejo.padre;
+                    if (viejo != x) {
+                        viejo.cabecera = x.cabecera;
+                        viejo.lineaRelativa = x.lineaRelativa;
+                        unificados.put(x, viejo);
+                    }
+                }
+            }
+            for (Alcance x : creados) {
+                Alcance p = unificados.get(x.padre);
+                if (p != null) x.padre = p;
+            }
+
+            // Declaraciones y diagnósticos de cada tramo
+            int simbolo = 0;
+            for (int k = 0; k < cantidad; k++) {
+                Elemento e = nuevos.get(k);
+                Alcance alcance = alcancesNuevos.get(k);
+                e.alcance = unificados.getOrDefault(alcance, alcance);
+                int linea = lineaInicio(k);
+                for (int hasta = simbolosHasta.get(k); simbolo < hasta; simbolo++) {
+                    Simbolo s = tabla.simbolo(simbolo);
+                    e.declaraciones.add(new Declaracion(s, e, e.alcance.nivel(s.getProfundidad()),
+                            e.declaraciones.size(), s.getLinea() - linea + 1, s.getColumna()));
+                }
+            }
+            // Cada diagnóstico es del tramo que se estaba analizando, salvo los
+            // léxicos: el de un token que empieza tramo sale al avanzar hasta él,
+            // antes de la frontera, y es del tramo que empieza ahí
+            int diagnostico = 0;
+            for (int k = 0; k < cantidad; k++) {
+                for (int hasta = diagnosticosHasta.get(k); diagnostico < hasta; diagnostico++) {
+                    Diagnostico d = diagnosticos.get(diagnostico);
+                    int tramo = Diagnostico.LEXICO.equals(d.getCodigo()) ? tramoDe(d.getLinea(), d.getColumna()) : k;
+                    if (tramo < 0) continue; // del tramo viejo donde se resincronizó: ya lo tiene
+                    nuevos.get(tramo).diagnosticos.add(new Diagnostico(d.getTipo(), d.getCodigo(), null,
+                            d.getLinea() - lineaInicio(tramo) + 1, d.getColumna(), d.getLongitud(), d.getMensaje()));
+                }
+            }
+        }
+
+        // Tramo nuevo que contiene la posición, o -1 si es de la resincronización en adelante
+        private int tramoDe(int linea, int columna) {
+            long posicion = ((long) linea << 32) | columna;
+            if (resincronizado >= 0 && posicion >= posicionToken(tokenResincronizado)) return -1;
+            int lo = 0, hi = fronteras.size() - 1;
+            while (lo < hi) {
+                int m = (lo + hi + 1) >>> 1;
+                if (posicionToken(fronteras.get(m)) <= posicion) lo = m;
+                else hi = m - 1;
+            }
+            return lo;
+        }
+
+        private long posicionToken(int t) {
+            return ((long) ventana.linea(t) << 32) | ventana.columna(t);
+        }
+    }
+
+    // Guarda los diagnósticos en lugar de escribirlos
+    private static final class Recolector extends Sumidero {
+        private final List<Diagnostico> destino;
+
+        Recolector(List<Diagnostico> destino) {
+            super(null, Formato.HUMANO);
+            this.destino = destino;
+        }
+
+        @Override
+        public synchronized void publicar(List<Diagnostico> tanda) {
+            destino.addAll(tanda);
+        }
+
+        @Override
+        public synchronized void cerrar() {}
+    }
+}
@@ -0,0 +1,41 @@
+package incremental;
+
+import errores.Diagnostico;
+import java.util.ArrayList;
+import lexer.TokenBuffer;
+
+// Tramo del documento: lo que el parser analiza entre dos cabezas de ciclo de
+// sentencias (normalmente una sentencia, la cabecera de un bloque o su '}').
+// Es dueño de su texto y de sus tokens, con posiciones relativas: el byte 0 es
+// el inicio del tramo y la línea 1 la línea donde empieza. Lo absoluto sale de
+// los árboles de Fenwick del Documento.
+final class Elemento {
+    byte[] texto;
+    int saltos; // '\n' en el texto
+    TokenBuffer tokens;
+
+    // Estado del parser al empezar el tramo
+    int[] marcos;
+    Alcance alcance; // ámbito más interno abierto
+
+    ArrayList<Diagnostico> diagnosticos;
+    ArrayList<Declaracion> declaraciones;
+    int[] dependencias; // ids de nombres buscados o declarados
+    int indice;         // posición en el documento
+
+    static int contarSaltos(byte[] b, int desde, int hasta) {
+        int n = 0;
+        for (int i = desde; i < hasta; i++) {
+            if (b[i] == '\n') n++;
+        }
+        return n;
+    }
+
+    boolean mismosMarcos(int[] tipos, int cantidad) {
+        if (marcos.length != cantidad) return false;
+        for (int i = 0; i < cantidad; i++) {
+            if (marcos[i] != tipos[i]) return false;
+        }
+        return true;
+    }
+}
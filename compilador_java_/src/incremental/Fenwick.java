@@ -0,0 +1,49 @@
+package incremental;
+
+import java.util.Arrays;
+
+// Árbol de Fenwick sobre los tramos del documento (bytes o saltos de línea de
+// cada uno): posición absoluta de un tramo y tramo que contiene una posición en
+// O(log n). Cuando cambia la cantidad de tramos se reconstruye en O(n).
+final class Fenwick {
+    private int[] arbol = new int[1]; // 1-based
+    private int n;
+
+    void reconstruir(int[] valores, int cantidad) {
+        n = cantidad;
+        if (arbol.length < n + 1) arbol = new int[Math.max(n + 1, arbol.length * 2)];
+        Arrays.fill(arbol, 0, n + 1, 0);
+        for (int i = 1; i <= n; i++) {
+            arbol[i] += valores[i - 1];
+            int j = i + (i & -i);
+            if (j <= n) arbol[j] += arbol[i];
+        }
+    }
+
+    void sumar(int i, int delta) {
+        for (i++; i <= n; i += i & -i) arbol[i] += delta;
+    }
+
+    // Suma de los valores [0, i)
+    int prefijo(int i) {
+        int s = 0;
+        for (; i > 0; i -= i & -i) s += arbol[i];
+        return s;
+    }
+
+    int total() { return prefijo(n); }
+
+    // Mayor k con prefijo(k) <= valor: el tramo k contiene la posición 'valor'
+    // (si valor es el total, devuelve n)
+    int buscar(int valor) {
+        int k = 0;
+        for (int paso = Integer.highestOneBit(Math.max(n, 1)); paso > 0; paso >>= 1) {
+            int sig = k + paso;
+            if (sig <= n && arbol[sig] <= valor) {
+                k = sig;
+                valor -= arbol[sig];
+            }
+        }
+        return k;
+    }
+}
@@ -0,0 +1,15 @@
+package interprete;
+
+// Formas de las clausuras que produce el Traductor. Cada expresión se compila
+// a la interfaz de su tipo, así los valores long/double nunca se empaquetan.
+final class Codigo {
+    private Codigo() {}
+
+    interface Sentencia { void ejecutar(); }
+    interface Entero { long valor(); }
+    interface Real { double valor(); }
+    interface Logico { boolean valor(); }
+    interface Cadena { String valor(); }
+
+    static final Sentencia NADA = () -> {};
+}
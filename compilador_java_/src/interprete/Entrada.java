@@ -0,0 +1,63 @@
+package interprete;
+
+import java.io.*;
+
+// Lee valores separados por espacios para read()
+public final class Entrada {
+    private final InputStream in;
+    private final PrintStream salida;
+    private final byte[] buf = new byte[8192];
+    private int pos, fin;
+
+    public Entrada(InputStream in, PrintStream salida) {
+        this.in = in;
+        this.salida = salida;
+    }
+
+    public long entero(int linea, int columna) {
+        String s = palabra(linea, columna);
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            throw new ErrorEjecucion("valor long inválido en read(): " + s, linea, columna);
+        }
+    }
+
+    public double real(int linea, int columna) {
+        String s = palabra(linea, columna);
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new ErrorEjecucion("valor double inválido en read(): " + s, linea, columna);
+        }
+    }
+
+    private String palabra(int linea, int columna) {
+        salida.flush(); // que se vea lo escrito antes de esperar la entrada
+        int b = leer(linea, columna);
+        while (b >= 0 && b <= ' ') b = leer(linea, columna);
+        if (b < 0) throw new ErrorEjecucion("fin de la entrada en read()", linea, columna);
+        StringBuilder sb = new StringBuilder();
+        while (b > ' ') {
+            sb.append((char) b);
+            b = leer(linea, columna);
+        }
+        return sb.toString();
+    }
+
+    private int leer(int linea, int columna) {
+        if (pos == fin) {
+            try {
+                fin = in.read(buf, 0, buf.length);
+            } catch (IOException e) {
+                throw new ErrorEjecucion("no se pudo leer la entrada: " + e.getMessage(), linea, columna);
+            }
+            pos = 0;
+            if (fin <= 0) {
+                fin = 0;
+                return -1;
+            }
+        }
+        return buf[pos++] & 0xff;
+    }
+}
@@ -0,0 +1,19 @@
+package interprete;
+
+// Error al ejecutar (o preparar para ejecución) un programa: índice fuera de rango,
+// división entera por cero, entrada inválida en read(), ...
+public class ErrorEjecucion extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int linea;
+    private final int columna;
+
+    public ErrorEjecucion(String mensaje, int linea, int columna) {
+        super(mensaje);
+        this.linea = linea;
+        this.columna = columna;
+    }
+
+    public int getLinea() { return linea; }
+    public int getColumna() { return columna; }
+}
@@ -0,0 +1,25 @@
+package interprete;
+
+import ast.Ast;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+// Ejecuta un programa ya analizado. El AST se traduce una vez a clausuras
+// (ver Traductor) y después se ejecuta sin volver a recorrer el árbol.
+public class Interprete {
+    private final Ast ast;
+
+    public Interprete(Ast ast) {
+        this.ast = ast;
+    }
+
+    // Lanza ErrorEjecucion si el programa falla; la salida queda volcada igual
+    public void ejecutar(InputStream entrada, PrintStream salida) {
+        try {
+            Codigo.Sentencia programa = new Traductor(ast, new Entrada(entrada, salida), salida).programa();
+            programa.ejecutar();
+        } finally {
+            salida.flush();
+        }
+    }
+}
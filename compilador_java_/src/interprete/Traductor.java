@@ -0,0 +1,675 @@
+package interprete;
+
+import ast.*;
+import java.io.PrintStream;
+import java.util.Arrays;
+import lexer.TokenType;
+import simbolos.Simbolo;
+import simbolos.Tipo;
+
+// Traduce el AST una sola vez a un grafo de clausuras especializadas.
+// Las variables viven en arreglos sin empaquetar indexados por el slot del
+// símbolo; las clausuras capturan esos arreglos y el slot, así que ejecutar
+// no consulta la tabla de símbolos ni vuelve a mirar el árbol.
+final class Traductor {
+    private static final TokenType[] OPERADORES = TokenType.values();
+    private static final long MAXIMO_ARREGLO = Integer.MAX_VALUE - 8;
+
+    private final Ast ast;
+    private final PrintStream salida;
+    private final Entrada entrada;
+
+    // Almacenamiento por slot (solo se usa el arreglo que corresponde al tipo)
+    private final long[] enteros;
+    private final double[] reales;
+    private final long[][] arreglosEnteros;
+    private final double[][] arreglosReales;
+
+    Traductor(Ast ast, Entrada entrada, PrintStream salida) {
+        this.ast = ast;
+        this.entrada = entrada;
+        this.salida = salida;
+        int n = ast.getTabla().cantidad();
+        enteros = new long[n];
+        reales = new double[n];
+        arreglosEnteros = new long[n][];
+        arreglosReales = new double[n][];
+    }
+
+    Codigo.Sentencia programa() {
+        return ast.raiz() < 0 ? Codigo.NADA : sentencia(ast.raiz());
+    }
+
+    // -----------------------
+    // Sentencias
+    // -----------------------
+    private Codigo.Sentencia sentencia(int n) {
+        switch (ast.clase(n)) {
+            case Nodo.PROGRAMA:
+            case Nodo.BLOQUE:
+                return bloque(n);
+            case Nodo.MAIN:
+                return sentencia(ast.primerHijo(n));
+            case Nodo.DECLARACION:
+                return declaracion(n);
+            case Nodo.ASIGNACION:
+                return asignacion(n);
+            case Nodo.LEER:
+                return leer(n);
+            case Nodo.ESCRIBIR:
+                return escribir(n);
+            case Nodo.SI:
+                return si(n);
+            case Nodo.MIENTRAS:
+                return mientras(n);
+            case Nodo.VACIA:
+                return Codigo.NADA;
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    private Codigo.Sentencia bloque(int n) {
+        Codigo.Sentencia[] cuerpo = new Codigo.Sentencia[ast.cantidadHijos(n)];
+        int k = 0;
+        for (int h = ast.primerHijo(n); h >= 0; h = ast.siguiente(h)) {
+            if (ast.clase(h) != Nodo.VACIA) cuerpo[k++] = sentencia(h);
+        }
+        switch (k) {
+            case 0:
+                return Codigo.NADA;
+            case 1:
+                return cuerpo[0];
+            case 2: {
+                Codigo.Sentencia a = cuerpo[0], b = cuerpo[1];
+                return () -> { a.ejecutar(); b.ejecutar(); };
+            }
+            case 3: {
+                Codigo.Sentencia a = cuerpo[0], b = cuerpo[1], c = cuerpo[2];
+                return () -> { a.ejecutar(); b.ejecutar(); c.ejecutar(); };
+            }
+            default: {
+                Codigo.Sentencia[] s = Arrays.copyOf(cuerpo, k);
+                return () -> {
+                    for (Codigo.Sentencia x : s) x.ejecutar();
+                };
+            }
+        }
+    }
+
+    private Codigo.Sentencia declaracion(int n) {
+        Simbolo s = ast.simbolo(n);
+        int slot = s.getSlot();
+        int tipo = s.getTipo();
+        int hijo = ast.primerHijo(n);
+
+        if (Tipo.esArreglo(tipo)) {
+            long tamaño = ast.valorLong(hijo);
+            int linea = ast.linea(n), columna = ast.columna(n);
+            if (tamaño < 0 || tamaño > MAXIMO_ARREGLO) {
+                return () -> { throw new ErrorEjecucion("tamaño de arreglo inválido: " + tamaño, linea, columna); };
+            }
+            int largo = (int) tamaño;
+            long[][] ae = arreglosEnteros;
+            double[][] ar = arreglosReales;
+            if (Tipo.elemento(tipo) == Tipo.LONG) return () -> ae[slot] = new long[largo];
+            return () -> ar[slot] = new double[largo];
+        }
+
+        long[] e = enteros;
+        double[] r = reales;
+        if (Tipo.elemento(tipo) == Tipo.LONG) {
+            if (hijo < 0) return () -> e[slot] = 0;
+            Codigo.Entero v = entero(hijo);
+            return () -> e[slot] = v.valor();
+        }
+        if (hijo < 0) return () -> r[slot] = 0;
+        Codigo.Real v = real(hijo);
+        return () -> r[slot] = v.valor();
+    }
+
+    private Codigo.Sentencia asignacion(int n) {
+        int destino = ast.primerHijo(n);
+        int expr = ast.siguiente(destino);
+        TokenType op = OPERADORES[ast.dato(n)];
+        Simbolo s = ast.simbolo(destino);
+        int slot = s.getSlot();
+        boolean esLong = Tipo.elemento(s.getTipo()) == Tipo.LONG;
+
+        if (!esNumerico(expr)) throw noSoportado(expr);
+        // el slot escalar de un arreglo no se lee nunca: la escritura se perdería
+        if (ast.clase(destino) != Nodo.INDICE && Tipo.esArreglo(s.getTipo())) throw noSoportado(destino);
+        if (ast.clase(destino) == Nodo.INDICE) {
+            return esLong ? asignarElementoEntero(n, slot, op, destino, expr)
+                    : asignarElementoReal(n, slot, op, destino, expr);
+        }
+        if (esLong && ast.tipo(expr) == Tipo.LONG) return asignarEntero(n, slot, op, expr);
+        if (esLong) return asignarEnteroConReal(n, slot, op, expr);
+        return asignarReal(slot, op, expr);
+    }
+
+    private Codigo.Sentencia asignarEntero(int n, int slot, TokenType op, int expr) {
+        long[] e = enteros;
+        int linea = ast.linea(n), columna = ast.columna(n);
+        // x op= constante es lo más común en el cuerpo de los while
+        if (ast.clase(expr) == Nodo.ENTERO) {
+            long c = ast.valorLong(expr);
+            switch (op) {
+                case ASSIGN: return () -> e[slot] = c;
+                case PLUS_ASSIGN: return () -> e[slot] += c;
+                case MINUS_ASSIGN: return () -> e[slot] -= c;
+                case MULT_ASSIGN: return () -> e[slot] *= c;
+                case DIV_ASSIGN:
+                    if (c == 0) return () -> { throw divisionPorCero(linea, columna); };
+                    return () -> e[slot] /= c;
+                default: throw noSoportado(n);
+            }
+        }
+        Codigo.Entero v = entero(expr);
+        switch (op) {
+            case ASSIGN: return () -> e[slot] = v.valor();
+            case PLUS_ASSIGN: return () -> e[slot] += v.valor();
+            case MINUS_ASSIGN: return () -> e[slot] -= v.valor();
+            case MULT_ASSIGN: return () -> e[slot] *= v.valor();
+            case DIV_ASSIGN:
+                return () -> {
+                    long d = v.valor();
+                    if (d == 0) throw divisionPorCero(linea, columna);
+                    e[slot] /= d;
+                };
+            default: throw noSoportado(n);
+        }
+    }
+
+    // long op= double: se opera en double y se trunca, como en Java
+    private Codigo.Sentencia asignarEnteroConReal(int n, int slot, TokenType op, int expr) {
+        long[] e = enteros;
+        Codigo.Real v = real(expr);
+        switch (op) {
+            case ASSIGN: return () -> e[slot] = (long) v.valor();
+            case PLUS_ASSIGN: return () -> e[slot] = (long) (e[slot] + v.valor());
+            case MINUS_ASSIGN: return () -> e[slot] = (long) (e[slot] - v.valor());
+            case MULT_ASSIGN: return () -> e[slot] = (long) (e[slot] * v.valor());
+            case DIV_ASSIGN: return () -> e[slot] = (long) (e[slot] / v.valor());
+            default: throw noSoportado(n);
+        }
+    }
+
+    private Codigo.Sentencia asignarReal(int slot, TokenType op, int expr) {
+        double[] r = reales;
+        Codigo.Real v = real(expr);
+        switch (op) {
+            case ASSIGN: return () -> r[slot] = v.valor();
+            case PLUS_ASSIGN: return () -> r[slot] += v.valor();
+            case MINUS_ASSIGN: return () -> r[slot] -= v.valor();
+            case MULT_ASSIGN: return () -> r[slot] *= v.valor();
+            default: return () -> r[slot] /= v.valor();
+        }
+    }
+
+    // Con el índice ya probado en rango (ver optimizador.Rangos) no se comprueba
+    // el rango, pero sí que la declaración del arreglo se haya ejecutado
+    private Codigo.Sentencia asignarElementoEntero(int n, int slot, TokenType op, int destino, int expr) {
+        long[][] ae = arreglosEnteros;
+        Codigo.Entero i = entero(ast.primerHijo(destino));
+        int linea = ast.linea(n), columna = ast.columna(n);
+        if (op == TokenType.ASSIGN && ast.tipo(expr) == Tipo.LONG) {
+            Codigo.Entero v = entero(expr);
+            if (ast.enRango(destino)) {
+                return () -> {
+                    long[] a = ae[slot];
+                    if (a == null) throw sinCrear(linea, columna);
+                    a[(int) i.valor()] = v.valor();
+                };
+            }
+            return () -> {
+                long[] a = ae[slot];
+                if (a == null) throw sinCrear(linea, columna);
+                long k = i.valor();
+                if (k < 0 || k >= a.length) throw fueraDeRango(k, a.length, linea, columna);
+                a[(int) k] = v.valor();
+            };
+        }
+        boolean conReal = ast.tipo(expr) == Tipo.DOUBLE;
+        Codigo.Real v = conReal ? real(expr) : null;
+        Codigo.Entero ve = conReal ? null : entero(expr);
+        if (ast.enRango(destino)) {
+            return () -> {
+                long[] a = ae[slot];
+                if (a == null) throw sinCrear(linea, columna);
+                int k = (int) i.valor();
+                a[k] = conReal ? (long) operarReal(op, a[k], v.valor()) : operarEntero(op, a[k], ve.valor(), linea, columna);
+            };
+        }
+        return () -> {
+            long[] a = ae[slot];
+            if (a == null) throw sinCrear(linea, columna);
+            long k = i.valor();
+            if (k < 0 || k >= a.length) throw fueraDeRango(k, a.length, linea, columna);
+            a[(int) k] = conReal ? (long) operarReal(op, a[(int) k], v.valor())
+                    : operarEntero(op, a[(int) k], ve.valor(), linea, columna);
+        };
+    }
+
+    private Codigo.Sentencia asignarElementoReal(int n, int slot, TokenType op, int destino, int expr) {
+        double[][] ar = arreglosReales;
+        Codigo.Entero i = entero(ast.primerHijo(destino));
+        Codigo.Real v = real(expr);
+        int linea = ast.linea(n), columna = ast.columna(n);
+        if (ast.enRango(destino)) {
+            if (op == TokenType.ASSIGN) {
+                return () -> {
+                    double[] a = ar[slot];
+                    if (a == null) throw sinCrear(linea, columna);
+                    a[(int) i.valor()] = v.valor();
+                };
+            }
+            return () -> {
+                double[] a = ar[slot];
+                if (a == null) throw sinCrear(linea, columna);
+                int k = (int) i.valor();
+                a[k] = operarReal(op, a[k], v.valor());
+            };
+        }
+        return () -> {
+            double[] a = ar[slot];
+            if (a == null) throw sinCrear(linea, columna);
+            long k = i.valor();
+            if (k < 0 || k >= a.length) throw fueraDeRango(k, a.length, linea, columna);
+            a[(int) k] = operarReal(op, a[(int) k], v.valor());
+        };
+    }
+
+    private Codigo.Sentencia leer(int n) {
+        int variable = ast.primerHijo(n);
+        int slot = ast.dato(variable);
+        int linea = ast.linea(n), columna = ast.columna(n);
+        Entrada in = entrada;
+        switch (ast.tipo(variable)) {
+            case Tipo.LONG: {
+                long[] e = enteros;
+                return () -> e[slot] = in.entero(linea, columna);
+            }
+            case Tipo.DOUBLE: {
+                double[] r = reales;
+                return () -> r[slot] = in.real(linea, columna);
+            }
+            default:
+                throw noSoportado(variable);
+        }
+    }
+
+    private Codigo.Sentencia escribir(int n) {
+        int expr = ast.primerHijo(n);
+        PrintStream out = salida;
+        switch (ast.tipo(expr)) {
+            case Tipo.LONG: {
+                Codigo.Entero v = entero(expr);
+                return () -> out.println(v.valor());
+            }
+            case Tipo.DOUBLE: {
+                Codigo.Real v = real(expr);
+                return () -> out.println(v.valor());
+            }
+            case Tipo.BOOL: {
+                Codigo.Logico v = logico(expr);
+                return () -> out.println(v.valor());
+            }
+            default: {
+                Codigo.Cadena v = cadena(expr);
+                return () -> out.println(v.valor());
+            }
+        }
+    }
+
+    private Codigo.Sentencia si(int n) {
+        int condicion = ast.primerHijo(n);
+        int entonces = ast.siguiente(condicion);
+        int sino = entonces >= 0 ? ast.siguiente(entonces) : -1;
+        Codigo.Logico c = logico(condicion);
+        Codigo.Sentencia a = entonces >= 0 ? sentencia(entonces) : Codigo.NADA;
+        if (sino < 0) return () -> { if (c.valor()) a.ejecutar(); };
+        Codigo.Sentencia b = sentencia(sino);
+        return () -> {
+            if (c.valor()) a.ejecutar();
+            else b.ejecutar();
+        };
+    }
+
+    private Codigo.Sentencia mientras(int n) {
+        int condicion = ast.primerHijo(n);
+        Codigo.Logico c = logico(condicion);
+        Codigo.Sentencia cuerpo = sentencia(ast.siguiente(condicion));
+        return () -> {
+            while (c.valor()) cuerpo.ejecutar();
+        };
+    }
+
+    // -----------------------
+    // Expresiones
+    // -----------------------
+    private boolean esNumerico(int n) {
+        return Tipo.esNumerico(ast.tipo(n));
+    }
+
+    private Codigo.Entero entero(int n) {
+        if (ast.tipo(n) == Tipo.DOUBLE) {
+            Codigo.Real r = real(n);
+            return () -> (long) r.valor();
+        }
+        if (ast.tipo(n) != Tipo.LONG) throw noSoportado(n);
+        switch (ast.clase(n)) {
+            case Nodo.ENTERO: {
+                long c = ast.valorLong(n);
+                return () -> c;
+            }
+            case Nodo.VARIABLE: {
+                long[] e = enteros;
+                int slot = ast.dato(n);
+                return () -> e[slot];
+            }
+            case Nodo.INDICE: {
+                long[][] ae = arreglosEnteros;
+                int slot = ast.dato(n);
+                Codigo.Entero i = entero(ast.primerHijo(n));
+                int linea = ast.linea(n), columna = ast.columna(n);
+                if (ast.enRango(n)) {
+                    return () -> {
+                        long[] a = ae[slot];
+                        if (a == null) throw sinCrear(linea, columna);
+                        return a[(int) i.valor()];
+                    };
+                }
+                return () -> {
+                    long[] a = ae[slot];
+                    if (a == null) throw sinCrear(linea, columna);
+                    long k = i.valor();
+                    if (k < 0 || k >= a.length) throw fueraDeRango(k, a.length, linea, columna);
+                    return a[(int) k];
+                };
+            }
+            case Nodo.BINARIA:
+                return aritmeticaEntera(n);
+            case Nodo.NEGATIVO: {
+                Codigo.Entero a = entero(ast.primerHijo(n));
+                return () -> -a.valor();
+            }
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    private Codigo.Entero aritmeticaEntera(int n) {
+        TokenType op = OPERADORES[ast.dato(n)];
+        int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+        Codigo.Entero a = entero(izq);
+        int linea = ast.linea(der), columna = ast.columna(der);
+        if (ast.clase(der) == Nodo.ENTERO) {
+            long c = ast.valorLong(der);
+            switch (op) {
+                case PLUS: return () -> a.valor() + c;
+                case MINUS: return () -> a.valor() - c;
+                case MULT: return () -> a.valor() * c;
+                case DIV:
+                    if (c == 0) break;
+                    return () -> a.valor() / c;
+                default: throw noSoportado(n);
+            }
+        }
+        Codigo.Entero b = entero(der);
+        switch (op) {
+            case PLUS: return () -> a.valor() + b.valor();
+            case MINUS: return () -> a.valor() - b.valor();
+            case MULT: return () -> a.valor() * b.valor();
+            case DIV:
+                return () -> {
+                    long x = a.valor(), d = b.valor();
+                    if (d == 0) throw divisionPorCero(linea, columna);
+                    return x / d;
+                };
+            default: throw noSoportado(n);
+        }
+    }
+
+    private Codigo.Real real(int n) {
+        if (ast.tipo(n) == Tipo.LONG) {
+            if (ast.clase(n) == Nodo.ENTERO) {
+                double c = ast.valorLong(n);
+                return () -> c;
+            }
+            Codigo.Entero e = entero(n);
+            return () -> e.valor();
+        }
+        if (ast.tipo(n) != Tipo.DOUBLE) throw noSoportado(n);
+        switch (ast.clase(n)) {
+            case Nodo.REAL: {
+                double c = ast.valorDouble(n);
+                return () -> c;
+            }
+            case Nodo.VARIABLE: {
+                double[] r = reales;
+                int slot = ast.dato(n);
+                return () -> r[slot];
+            }
+            case Nodo.INDICE: {
+                double[][] ar = arreglosReales;
+                int slot = ast.dato(n);
+                Codigo.Entero i = entero(ast.primerHijo(n));
+                int linea = ast.linea(n), columna = ast.columna(n);
+                if (ast.enRango(n)) {
+                    return () -> {
+                        double[] a = ar[slot];
+                        if (a == null) throw sinCrear(linea, columna);
+                        return a[(int) i.valor()];
+                    };
+                }
+                return () -> {
+                    double[] a = ar[slot];
+                    if (a == null) throw sinCrear(linea, columna);
+                    long k = i.valor();
+                    if (k < 0 || k >= a.length) throw fueraDeRango(k, a.length, linea, columna);
+                    return a[(int) k];
+                };
+            }
+            case Nodo.NEGATIVO: {
+                Codigo.Real a = real(ast.primerHijo(n));
+                return () -> -a.valor();
+            }
+            case Nodo.BINARIA: {
+                TokenType op = OPERADORES[ast.dato(n)];
+                int izq = ast.primerHijo(n);
+                Codigo.Real a = real(izq), b = real(ast.siguiente(izq));
+                switch (op) {
+                    case PLUS: return () -> a.valor() + b.valor();
+                    case MINUS: return () -> a.valor() - b.valor();
+                    case MULT: return () -> a.valor() * b.valor();
+                    case DIV: return () -> a.valor() / b.valor();
+                    default: throw noSoportado(n);
+                }
+            }
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    private Codigo.Logico logico(int n) {
+        switch (ast.tipo(n)) {
+            case Tipo.LONG: { // en una condición, distinto de cero es verdadero
+                Codigo.Entero e = entero(n);
+                return () -> e.valor() != 0;
+            }
+            case Tipo.DOUBLE: {
+                Codigo.Real r = real(n);
+                return () -> r.valor() != 0;
+            }
+            case Tipo.BOOL:
+                break;
+            default:
+                throw noSoportado(n);
+        }
+        switch (ast.clase(n)) {
+            case Nodo.LOGICO: {
+                boolean c = ast.valorLogico(n);
+                return () -> c;
+            }
+            case Nodo.NEGACION: {
+                Codigo.Logico a = logico(ast.primerHijo(n));
+                return () -> !a.valor();
+            }
+            case Nodo.BINARIA:
+                return comparacion(n);
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    private Codigo.Logico comparacion(int n) {
+        TokenType op = OPERADORES[ast.dato(n)];
+        int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+        int t1 = ast.tipo(izq), t2 = ast.tipo(der);
+
+        if (op == TokenType.AND || op == TokenType.OR) {
+            Codigo.Logico a = logico(izq), b = logico(der);
+            if (op == TokenType.AND) return () -> a.valor() && b.valor();
+            return () -> a.valor() || b.valor();
+        }
+        if (t1 == Tipo.LONG && t2 == Tipo.LONG) {
+            Codigo.Entero a = entero(izq);
+            // x < constante: condición típica de un while
+            if (ast.clase(der) == Nodo.ENTERO) {
+                long c = ast.valorLong(der);
+                switch (op) {
+                    case LT: return () -> a.valor() < c;
+                    case LE: return () -> a.valor() <= c;
+                    case GT: return () -> a.valor() > c;
+                    case GE: return () -> a.valor() >= c;
+                    case EQ: return () -> a.valor() == c;
+                    case NEQ: return () -> a.valor() != c;
+                    default: throw noSoportado(n);
+                }
+            }
+            Codigo.Entero b = entero(der);
+            switch (op) {
+                case LT: return () -> a.valor() < b.valor();
+                case LE: return () -> a.valor() <= b.valor();
+                case GT: return () -> a.valor() > b.valor();
+                case GE: return () -> a.valor() >= b.valor();
+                case EQ: return () -> a.valor() == b.valor();
+                case NEQ: return () -> a.valor() != b.valor();
+                default: throw noSoportado(n);
+            }
+        }
+        if (Tipo.esNumerico(t1) && Tipo.esNumerico(t2)) {
+            Codigo.Real a = real(izq), b = real(der);
+            switch (op) {
+                case LT: return () -> a.valor() < b.valor();
+                case LE: return () -> a.valor() <= b.valor();
+                case GT: return () -> a.valor() > b.valor();
+                case GE: return () -> a.valor() >= b.valor();
+                case EQ: return () -> a.valor() == b.valor();
+                case NEQ: return () -> a.valor() != b.valor();
+                default: throw noSoportado(n);
+            }
+        }
+        if (t1 == Tipo.BOOL && t2 == Tipo.BOOL) {
+            Codigo.Logico a = logico(izq), b = logico(der);
+            Codigo.Entero x = () -> a.valor() ? 1 : 0, y = () -> b.valor() ? 1 : 0;
+            return relacion(n, op, x, y);
+        }
+        if (t1 == Tipo.STRING && t2 == Tipo.STRING) {
+            Codigo.Cadena a = cadena(izq), b = cadena(der);
+            if (op == TokenType.EQ) return () -> a.valor().equals(b.valor());
+            if (op == TokenType.NEQ) return () -> !a.valor().equals(b.valor());
+            return relacion(n, op, () -> a.valor().compareTo(b.valor()), () -> 0);
+        }
+        throw noSoportado(n);
+    }
+
+    // Relación genérica sobre dos enteros (bool y string se reducen a esto)
+    private Codigo.Logico relacion(int n, TokenType op, Codigo.Entero a, Codigo.Entero b) {
+        switch (op) {
+            case LT: return () -> a.valor() < b.valor();
+            case LE: return () -> a.valor() <= b.valor();
+            case GT: return () -> a.valor() > b.valor();
+            case GE: return () -> a.valor() >= b.valor();
+            case EQ: return () -> a.valor() == b.valor();
+            case NEQ: return () -> a.valor() != b.valor();
+            default: throw noSoportado(n);
+        }
+    }
+
+    // Texto de una expresión (para write)
+    private Codigo.Cadena cadena(int n) {
+        int tipo = ast.tipo(n);
+        if (ast.clase(n) == Nodo.CADENA) {
+            String c = ast.cadena(n);
+            return () -> c;
+        }
+        if (ast.clase(n) == Nodo.VARIABLE && Tipo.esArreglo(tipo)) {
+            int slot = ast.dato(n);
+            long[][] ae = arreglosEnteros;
+            double[][] ar = arreglosReales;
+            if (Tipo.elemento(tipo) == Tipo.LONG) return () -> Arrays.toString(ae[slot]);
+            return () -> Arrays.toString(ar[slot]);
+        }
+        switch (tipo) {
+            case Tipo.LONG: {
+                Codigo.Entero e = entero(n);
+                return () -> Long.toString(e.valor());
+            }
+            case Tipo.DOUBLE: {
+                Codigo.Real r = real(n);
+                return () -> Double.toString(r.valor());
+            }
+            case Tipo.BOOL: {
+                Codigo.Logico l = logico(n);
+                return () -> Boolean.toString(l.valor());
+            }
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    // -----------------------
+    // Auxiliares de ejecución
+    // -----------------------
+    private static long operarEntero(TokenType op, long a, long b, int linea, int columna) {
+        switch (op) {
+            case ASSIGN: return b;
+            case PLUS_ASSIGN: return a + b;
+            case MINUS_ASSIGN: return a - b;
+            case MULT_ASSIGN: return a * b;
+            default:
+                if (b == 0) throw divisionPorCero(linea, columna);
+                return a / b;
+        }
+    }
+
+    private static double operarReal(TokenType op, double a, double b) {
+        switch (op) {
+            case ASSIGN: return b;
+            case PLUS_ASSIGN: return a + b;
+            case MINUS_ASSIGN: return a - b;
+            case MULT_ASSIGN: return a * b;
+            default: return a / b;
+        }
+    }
+
+    static ErrorEjecucion fueraDeRango(long indice, int largo, int linea, int columna) {
+        return new ErrorEjecucion("índice fuera de rango: " + indice + " (tamaño " + largo + ")", linea, columna);
+    }
+
+    // La declaración del arreglo no se ejecutó (quedó en una rama que no se tomó)
+    static ErrorEjecucion sinCrear(int linea, int columna) {
+        return new ErrorEjecucion("arreglo usado antes de ejecutar su declaración", linea, columna);
+    }
+
+    static ErrorEjecucion divisionPorCero(int linea, int columna) {
+        return new ErrorEjecucion("división entera por cero", linea, columna);
+    }
+
+    private ErrorEjecucion noSoportado(int n) {
+        return new ErrorEjecucion("no se puede ejecutar " + Nodo.nombre(ast.clase(n)) + " de tipo "
+                + Tipo.nombre(ast.tipo(n)), ast.linea(n), ast.columna(n));
+    }
+}
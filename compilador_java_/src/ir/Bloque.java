@@ -0,0 +1,66 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+// Bloque básico: primero los FI, después las instrucciones; la última es el
+// terminador (SALTO, SI o FIN), que fija los sucesores.
+public final class Bloque {
+    private static final Bloque[] NINGUNO = {};
+
+    final int numero;
+    final ArrayList<Instruccion> fis = new ArrayList<>();
+    final ArrayList<Instruccion> instrucciones = new ArrayList<>();
+    final ArrayList<Bloque> predecesores = new ArrayList<>();
+    Bloque[] sucesores = NINGUNO;
+
+    // Construcción (Braun et al.): valor de cada variable al final del bloque y
+    // FI de variables leídas antes de conocer todos los predecesores
+    HashMap<Integer, Instruccion> definiciones = new HashMap<>();
+    HashMap<Integer, Instruccion> incompletos;
+    boolean sellado;
+
+    // Dominadores (Funcion.calcularDominadores)
+    Bloque idom;
+    int orden = -1; // posición en el recorrido en postorden inverso; -1: inalcanzable
+    Funcion.Ciclo ciclo; // el más interno que lo contiene (Funcion.ciclos)
+
+    Bloque(int numero) {
+        this.numero = numero;
+    }
+
+    public int getNumero() { return numero; }
+    public List<Instruccion> getFis() { return fis; }
+    public List<Instruccion> getInstrucciones() { return instrucciones; }
+    public List<Bloque> getPredecesores() { return predecesores; }
+    public int cantidadSucesores() { return sucesores.length; }
+    public Bloque sucesor(int i) { return sucesores[i]; }
+
+    public Instruccion terminador() {
+        return instrucciones.get(instrucciones.size() - 1);
+    }
+
+    boolean terminado() {
+        return !instrucciones.isEmpty() && Operacion.esTerminador(terminador().op);
+    }
+
+    // Agrega antes del terminador, si ya lo tiene
+    void insertarAlFinal(Instruccion i) {
+        i.bloque = this;
+        if (terminado()) instrucciones.add(instrucciones.size() - 1, i);
+        else instrucciones.add(i);
+    }
+
+    // Saca un predecesor y el operando que le corresponde en cada FI
+    void quitarPredecesor(Bloque p) {
+        int k = predecesores.indexOf(p);
+        predecesores.remove(k);
+        for (Instruccion fi : fis) fi.quitarArg(k);
+    }
+
+    @Override
+    public String toString() {
+        return "B" + numero;
+    }
+}
@@ -0,0 +1,498 @@
+package ir;
+
+import ast.Ast;
+import ast.Nodo;
+import java.util.HashMap;
+import java.util.Map;
+import lexer.TokenType;
+import simbolos.Simbolo;
+import simbolos.TablaSimbolos;
+import simbolos.Tipo;
+
+// Baja el AST (sin errores) a SSA con el algoritmo de Braun et al., "Simple and
+// Efficient Construction of Static Single Assignment Form": el valor de cada
+// variable se busca hacia atrás por los predecesores cuando se lee, y un bloque
+// se "sella" cuando ya se conocen todos sus predecesores (la cabecera de un
+// while, al cerrar el cuerpo). Las variables escalares son valores SSA; los
+// arreglos quedan en memoria (INDICE/CARGAR/GUARDAR).
+// Como una bajada directa, cada asignación deja una COPIA y cada lectura en un
+// bloque de unión un FI, aunque sea trivial: los limpia el pase de copias.
+// El orden de evaluación y las posiciones de los errores son los del intérprete.
+public final class Constructor {
+    private static final TokenType[] OPERADORES = TokenType.values();
+
+    private final Ast ast;
+    private final Funcion f;
+    private Bloque actual;
+
+    private Constructor(Ast ast) {
+        this.ast = ast;
+        TablaSimbolos tabla = ast.getTabla();
+        int[] tipos = new int[tabla.cantidad()];
+        for (int slot = 0; slot < tipos.length; slot++) tipos[slot] = tabla.simbolo(slot).getTipo();
+        this.f = new Funcion(tipos);
+        this.actual = f.entrada;
+    }
+
+    // Lanza IllegalArgumentException con lo que no se puede traducir
+    public static Funcion construir(Ast ast) {
+        Constructor c = new Constructor(ast);
+        if (ast.raiz() >= 0) c.sentencia(ast.raiz());
+        c.f.terminar(c.actual);
+        for (Bloque b : c.f.bloques) {
+            b.definiciones = null;
+            b.incompletos = null;
+        }
+        return c.f;
+    }
+
+    // -----------------------
+    // Variables (Braun et al.)
+    // -----------------------
+    private void escribirVariable(int slot, Bloque b, Instruccion v) {
+        b.definiciones.put(slot, v);
+    }
+
+    private Instruccion leerVariable(int slot, Bloque b) {
+        Instruccion v = b.definiciones.get(slot);
+        return v != null ? v : leerRecursivo(slot, b);
+    }
+
+    private Instruccion leerRecursivo(int slot, Bloque b) {
+        Instruccion v;
+        if (!b.sellado) {
+            v = f.fi(b, Tipo.elemento(f.tipos[slot]));
+            v.slot = slot;
+            if (b.incompletos == null) b.incompletos = new HashMap<>();
+            b.incompletos.put(slot, v);
+        } else if (b.predecesores.size() == 1) {
+            v = leerVariable(slot, b.predecesores.get(0));
+        } else if (b.predecesores.isEmpty()) {
+            v = cero(Tipo.elemento(f.tipos[slot])); // sin asignar: vale 0, como en el intérprete
+        } else {
+            v = f.fi(b, Tipo.elemento(f.tipos[slot]));
+            v.slot = slot;
+            escribirVariable(slot, b, v); // corta los ciclos antes de buscar los operandos
+            agregarOperandos(v);
+        }
+        escribirVariable(slot, b, v);
+        return v;
+    }
+
+    private void agregarOperandos(Instruccion fi) {
+        for (Bloque p : fi.bloque.predecesores) fi.agregarArg(leerVariable(fi.slot, p));
+    }
+
+    private void sellar(Bloque b) {
+        if (b.incompletos != null) {
+            for (Map.Entry<Integer, Instruccion> e : b.incompletos.entrySet()) agregarOperandos(e.getValue());
+            b.incompletos = null;
+        }
+        b.sellado = true;
+    }
+
+    private Instruccion cero(int tipo) {
+        Instruccion c = f.constante(tipo, tipo == Tipo.DOUBLE ? Double.doubleToRawLongBits(0.0) : 0);
+        f.entrada.insertarAlFinal(c);
+        return c;
+    }
+
+    private void definir(int slot, Instruccion v) {
+        escribirVariable(slot, actual, emitir(f.nueva(Operacion.COPIA, v.tipo, v)));
+    }
+
+    // -----------------------
+    // Sentencias
+    // -----------------------
+    private void sentencia(int n) {
+        switch (ast.clase(n)) {
+            case Nodo.PROGRAMA:
+            case Nodo.BLOQUE:
+                for (int h = ast.primerHijo(n); h >= 0; h = ast.siguiente(h)) sentencia(h);
+                break;
+            case Nodo.MAIN:
+                sentencia(ast.primerHijo(n));
+                break;
+            case Nodo.DECLARACION:
+                declaracion(n);
+                break;
+            case Nodo.ASIGNACION:
+                asignacion(n);
+                break;
+            case Nodo.LEER:
+                leer(n);
+                break;
+            case Nodo.ESCRIBIR:
+                escribir(n);
+                break;
+            case Nodo.SI:
+                si(n);
+                break;
+            case Nodo.MIENTRAS:
+                mientras(n);
+                break;
+            case Nodo.VACIA:
+                break;
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    private void declaracion(int n) {
+        Simbolo s = ast.simbolo(n);
+        int tipo = s.getTipo();
+        int hijo = ast.primerHijo(n);
+        if (Tipo.esArreglo(tipo)) {
+            Instruccion nuevo = posicion(f.nueva(Operacion.NUEVO_ARREGLO, Tipo.NINGUNO), n);
+            nuevo.slot = s.getSlot();
+            nuevo.constante = ast.valorLong(hijo);
+            emitir(nuevo);
+            return;
+        }
+        int elemento = Tipo.elemento(tipo);
+        Instruccion v;
+        if (hijo < 0) v = emitir(f.constante(elemento, elemento == Tipo.DOUBLE ? Double.doubleToRawLongBits(0.0) : 0));
+        else v = elemento == Tipo.LONG ? entero(hijo) : real(hijo);
+        definir(s.getSlot(), v);
+    }
+
+    private void asignacion(int n) {
+        int destino = ast.primerHijo(n);
+        int expr = ast.siguiente(destino);
+        TokenType op = OPERADORES[ast.dato(n)];
+        Simbolo s = ast.simbolo(destino);
+        int slot = s.getSlot();
+        boolean esLong = Tipo.elemento(s.getTipo()) == Tipo.LONG;
+        boolean conReal = ast.tipo(expr) == Tipo.DOUBLE;
+        if (!Tipo.esNumerico(ast.tipo(expr))) throw noSoportado(expr);
+        // un arreglo no tiene valor en SSA: la copia quedaría muerta y la escritura perdida
+        if (ast.clase(destino) != Nodo.INDICE && Tipo.esArreglo(s.getTipo())) throw noSoportado(destino);
+
+        if (ast.clase(destino) == Nodo.INDICE) {
+            // se comprueba el índice antes de evaluar el valor
+            Instruccion k = entero(ast.primerHijo(destino));
+            Instruccion indice = indice(slot, k, n, ast.enRango(destino));
+            Instruccion nuevo;
+            if (op == TokenType.ASSIGN) {
+                nuevo = esLong && conReal ? truncar(real(expr)) : esLong ? entero(expr) : real(expr);
+            } else {
+                Instruccion viejo = cargar(slot, indice, esLong ? Tipo.LONG : Tipo.DOUBLE);
+                nuevo = operar(n, op, viejo, esLong, conReal, expr);
+            }
+            Instruccion guardar = f.nueva(Operacion.GUARDAR, Tipo.NINGUNO, indice, nuevo);
+            guardar.slot = slot;
+            emitir(guardar);
+            return;
+        }
+        Instruccion nuevo;
+        if (op == TokenType.ASSIGN) {
+            nuevo = esLong && conReal ? truncar(real(expr)) : esLong ? entero(expr) : real(expr);
+        } else {
+            nuevo = operar(n, op, leerVariable(slot, actual), esLong, conReal, expr);
+        }
+        definir(slot, nuevo);
+    }
+
+    // x op= expr: long con long queda en long; si interviene un double se opera
+    // en double y se trunca, como en el intérprete
+    private Instruccion operar(int n, TokenType op, Instruccion viejo, boolean esLong, boolean conReal, int expr) {
+        int aritmetica = op == TokenType.PLUS_ASSIGN ? Operacion.SUMA : op == TokenType.MINUS_ASSIGN ? Operacion.RESTA
+                : op == TokenType.MULT_ASSIGN ? Operacion.MULT : Operacion.DIV;
+        if (esLong && !conReal) return aritmetica(aritmetica, Tipo.LONG, viejo, entero(expr), n);
+        if (esLong) return truncar(aritmetica(aritmetica, Tipo.DOUBLE, convertir(viejo), real(expr), n));
+        return aritmetica(aritmetica, Tipo.DOUBLE, viejo, real(expr), n);
+    }
+
+    private void leer(int n) {
+        int variable = ast.primerHijo(n);
+        int tipo = ast.tipo(variable);
+        if (tipo != Tipo.LONG && tipo != Tipo.DOUBLE) throw noSoportado(variable);
+        definir(ast.dato(variable), emitir(posicion(f.nueva(Operacion.LEER, tipo), n)));
+    }
+
+    private void escribir(int n) {
+        int expr = ast.primerHijo(n);
+        int tipo = ast.tipo(expr);
+        Instruccion escribir = f.nueva(Operacion.ESCRIBIR, Tipo.NINGUNO);
+        switch (tipo) {
+            case Tipo.LONG: escribir.args = new Instruccion[]{entero(expr)}; break;
+            case Tipo.DOUBLE: escribir.args = new Instruccion[]{real(expr)}; break;
+            case Tipo.BOOL: escribir.args = new Instruccion[]{logico(expr)}; break;
+            default:
+                if (ast.clase(expr) == Nodo.VARIABLE && Tipo.esArreglo(tipo)) escribir.slot = ast.dato(expr);
+                else escribir.args = new Instruccion[]{cadena(expr)};
+        }
+        emitir(escribir);
+    }
+
+    private void si(int n) {
+        int condicion = ast.primerHijo(n);
+        int entonces = ast.siguiente(condicion);
+        int sino = entonces >= 0 ? ast.siguiente(entonces) : -1;
+        Bloque verdadero = f.nuevoBloque(), falso = f.nuevoBloque();
+        condicion(condicion, verdadero, falso);
+        sellar(verdadero);
+        actual = verdadero;
+        if (entonces >= 0) sentencia(entonces);
+        Bloque finEntonces = actual;
+        if (sino < 0) {
+            f.saltar(finEntonces, falso);
+            sellar(falso);
+            actual = falso;
+            return;
+        }
+        sellar(falso);
+        actual = falso;
+        sentencia(sino);
+        Bloque union = f.nuevoBloque();
+        f.saltar(finEntonces, union);
+        f.saltar(actual, union);
+        sellar(union);
+        actual = union;
+    }
+
+    // Cabecera (la condición) sellada recién al volver del cuerpo. El bloque
+    // anterior termina en un salto solo a la cabecera: es el preencabezado.
+    private void mientras(int n) {
+        int condicion = ast.primerHijo(n);
+        Bloque cabecera = f.nuevoBloque();
+        f.saltar(actual, cabecera);
+        actual = cabecera;
+        Bloque cuerpo = f.nuevoBloque(), salida = f.nuevoBloque();
+        condicion(condicion, cuerpo, salida);
+        sellar(cuerpo);
+        sellar(salida);
+        actual = cuerpo;
+        sentencia(ast.siguiente(condicion));
+        f.saltar(actual, cabecera);
+        sellar(cabecera);
+        actual = salida;
+    }
+
+    // -----------------------
+    // Condiciones: saltos con && y || en cortocircuito
+    // -----------------------
+    private void condicion(int n, Bloque verdadero, Bloque falso) {
+        int tipo = ast.tipo(n);
+        if (tipo == Tipo.LONG || tipo == Tipo.DOUBLE || ast.clase(n) != Nodo.LOGICO
+                && ast.clase(n) != Nodo.NEGACION && ast.clase(n) != Nodo.BINARIA) {
+            f.bifurcar(actual, logico(n), verdadero, falso);
+            return;
+        }
+        switch (ast.clase(n)) {
+            case Nodo.LOGICO:
+                f.saltar(actual, ast.valorLogico(n) ? verdadero : falso);
+                return;
+            case Nodo.NEGACION:
+                condicion(ast.primerHijo(n), falso, verdadero);
+                return;
+            default:
+                break;
+        }
+        TokenType op = OPERADORES[ast.dato(n)];
+        if (op != TokenType.AND && op != TokenType.OR) {
+            f.bifurcar(actual, comparacion(n), verdadero, falso);
+            return;
+        }
+        int izq = ast.primerHijo(n);
+        Bloque medio = f.nuevoBloque();
+        if (op == TokenType.AND) condicion(izq, medio, falso);
+        else condicion(izq, verdadero, medio);
+        sellar(medio);
+        actual = medio;
+        condicion(ast.siguiente(izq), verdadero, falso);
+    }
+
+    // -----------------------
+    // Expresiones
+    // -----------------------
+    private Instruccion entero(int n) {
+        if (ast.tipo(n) == Tipo.DOUBLE) return truncar(real(n));
+        if (ast.tipo(n) != Tipo.LONG) throw noSoportado(n);
+        switch (ast.clase(n)) {
+            case Nodo.ENTERO:
+                return emitir(f.constante(Tipo.LONG, ast.valorLong(n)));
+            case Nodo.VARIABLE:
+                return leerVariable(ast.dato(n), actual);
+            case Nodo.INDICE: {
+                Instruccion k = entero(ast.primerHijo(n));
+                return cargar(ast.dato(n), indice(ast.dato(n), k, n, ast.enRango(n)), Tipo.LONG);
+            }
+            case Nodo.BINARIA: {
+                int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+                Instruccion a = entero(izq), b = entero(der);
+                return aritmetica(aritmetica(OPERADORES[ast.dato(n)], n), Tipo.LONG, a, b, der);
+            }
+            case Nodo.NEGATIVO:
+                return emitir(f.nueva(Operacion.NEGAR, Tipo.LONG, entero(ast.primerHijo(n))));
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    private Instruccion real(int n) {
+        if (ast.tipo(n) == Tipo.LONG) {
+            if (ast.clase(n) == Nodo.ENTERO) return emitir(f.constante(Tipo.DOUBLE,
+                    Double.doubleToRawLongBits(ast.valorLong(n))));
+            return convertir(entero(n));
+        }
+        if (ast.tipo(n) != Tipo.DOUBLE) throw noSoportado(n);
+        switch (ast.clase(n)) {
+            case Nodo.REAL:
+                return emitir(f.constante(Tipo.DOUBLE, ast.valorLong(n)));
+            case Nodo.VARIABLE:
+                return leerVariable(ast.dato(n), actual);
+            case Nodo.INDICE: {
+                Instruccion k = entero(ast.primerHijo(n));
+                return cargar(ast.dato(n), indice(ast.dato(n), k, n, ast.enRango(n)), Tipo.DOUBLE);
+            }
+            case Nodo.BINARIA: {
+                int izq = ast.primerHijo(n);
+                Instruccion a = real(izq), b = real(ast.siguiente(izq));
+                return aritmetica(aritmetica(OPERADORES[ast.dato(n)], n), Tipo.DOUBLE, a, b, n);
+            }
+            case Nodo.NEGATIVO:
+                return emitir(f.nueva(Operacion.NEGAR, Tipo.DOUBLE, real(ast.primerHijo(n))));
+            default:
+                throw noSoportado(n);
+        }
+    }
+
+    // Valor bool; && y || con saltos y un FI en la unión
+    private Instruccion logico(int n) {
+        switch (ast.tipo(n)) {
+            case Tipo.LONG: // distinto de cero es verdadero
+                return comparar(TokenType.NEQ, entero(n), emitir(f.constante(Tipo.LONG, 0)));
+            case Tipo.DOUBLE:
+                return comparar(TokenType.NEQ, real(n), emitir(f.constante(Tipo.DOUBLE, Double.doubleToRawLongBits(0.0))));
+            case Tipo.BOOL:
+                break;
+            default:
+                throw noSoportado(n);
+        }
+        switch (ast.clase(n)) {
+            case Nodo.LOGICO:
+                return emitir(f.constante(Tipo.BOOL, ast.valorLogico(n) ? 1 : 0));
+            case Nodo.NEGACION:
+                return emitir(f.nueva(Operacion.NO, Tipo.BOOL, logico(ast.primerHijo(n))));
+            case Nodo.BINARIA:
+                break;
+            default:
+                throw noSoportado(n);
+        }
+        TokenType op = OPERADORES[ast.dato(n)];
+        if (op != TokenType.AND && op != TokenType.OR) return comparacion(n);
+        Bloque verdadero = f.nuevoBloque(), falso = f.nuevoBloque(), union = f.nuevoBloque();
+        condicion(n, verdadero, falso);
+        sellar(verdadero);
+        sellar(falso);
+        Instruccion si = f.constante(Tipo.BOOL, 1), no = f.constante(Tipo.BOOL, 0);
+        verdadero.insertarAlFinal(si);
+        falso.insertarAlFinal(no);
+        f.saltar(verdadero, union);
+        f.saltar(falso, union);
+        sellar(union);
+        actual = union;
+        Instruccion fi = f.fi(union, Tipo.BOOL);
+        fi.args = new Instruccion[]{si, no};
+        return fi;
+    }
+
+    private Instruccion comparacion(int n) {
+        TokenType op = OPERADORES[ast.dato(n)];
+        int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+        int t1 = ast.tipo(izq), t2 = ast.tipo(der);
+        if (t1 == Tipo.LONG && t2 == Tipo.LONG) {
+            Instruccion a = entero(izq);
+            return comparar(op, a, entero(der));
+        }
+        if (Tipo.esNumerico(t1) && Tipo.esNumerico(t2)) {
+            Instruccion a = real(izq);
+            return comparar(op, a, real(der));
+        }
+        if (t1 == Tipo.BOOL && t2 == Tipo.BOOL) {
+            Instruccion a = logico(izq);
+            return comparar(op, a, logico(der));
+        }
+        if (t1 == Tipo.STRING && t2 == Tipo.STRING) {
+            Instruccion a = cadena(izq);
+            return comparar(op, a, cadena(der));
+        }
+        throw noSoportado(n);
+    }
+
+    private Instruccion cadena(int n) {
+        if (ast.clase(n) != Nodo.CADENA) throw noSoportado(n);
+        Instruccion c = f.constante(Tipo.STRING, 0);
+        c.texto = ast.cadena(n);
+        return emitir(c);
+    }
+
+    // -----------------------
+    // Auxiliares
+    // -----------------------
+    private Instruccion emitir(Instruccion i) {
+        actual.insertarAlFinal(i);
+        return i;
+    }
+
+    private Instruccion posicion(Instruccion i, int n) {
+        i.linea = ast.linea(n);
+        i.columna = ast.columna(n);
+        return i;
+    }
+
+    private int aritmetica(TokenType op, int n) {
+        switch (op) {
+            case PLUS: return Operacion.SUMA;
+            case MINUS: return Operacion.RESTA;
+            case MULT: return Operacion.MULT;
+            case DIV: return Operacion.DIV;
+            default: throw noSoportado(n);
+        }
+    }
+
+    // 'n': dónde se informa la división entera por cero
+    private Instruccion aritmetica(int op, int tipo, Instruccion a, Instruccion b, int n) {
+        Instruccion i = f.nueva(op, tipo, a, b);
+        if (op == Operacion.DIV) posicion(i, n);
+        return emitir(i);
+    }
+
+    private Instruccion comparar(TokenType condicion, Instruccion a, Instruccion b) {
+        switch (condicion) {
+            case LT: case LE: case GT: case GE: case EQ: case NEQ: break;
+            default: throw new IllegalArgumentException("no se puede comparar con " + condicion);
+        }
+        Instruccion c = f.nueva(Operacion.COMPARAR, Tipo.BOOL, a, b);
+        c.condicion = condicion;
+        return emitir(c);
+    }
+
+    // 'enRango': el análisis de rangos ya probó el índice (ver optimizador.Rangos)
+    private Instruccion indice(int slot, Instruccion k, int n, boolean enRango) {
+        Instruccion i = posicion(f.nueva(Operacion.INDICE, Tipo.LONG, k), n);
+        i.slot = slot;
+        if (enRango) i.constante = 1;
+        return emitir(i);
+    }
+
+    private Instruccion cargar(int slot, Instruccion indice, int tipo) {
+        Instruccion c = f.nueva(Operacion.CARGAR, tipo, indice);
+        c.slot = slot;
+        return emitir(c);
+    }
+
+    private Instruccion convertir(Instruccion a) {
+        return emitir(f.nueva(Operacion.CONVERTIR, Tipo.DOUBLE, a));
+    }
+
+    private Instruccion truncar(Instruccion a) {
+        return emitir(f.nueva(Operacion.TRUNCAR, Tipo.LONG, a));
+    }
+
+    private IllegalArgumentException noSoportado(int n) {
+        return new IllegalArgumentException("no se puede traducir " + Nodo.nombre(ast.clase(n)) + " de tipo "
+                + Tipo.nombre(ast.tipo(n)) + " [línea " + ast.linea(n) + "]");
+    }
+}
@@ -0,0 +1,41 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+// Saltos con condición constante, bloques inalcanzables, bloques que solo
+// saltan al siguiente y después marcado y barrido: vive lo que tiene efectos
+// (o puede fallar) y lo que eso usa.
+public final class EliminacionCodigoMuerto implements Pase {
+    @Override
+    public String nombre() { return "dce"; }
+
+    @Override
+    public void aplicar(Funcion f) {
+        f.simplificarSaltos();
+        f.eliminarInalcanzables();
+        f.fusionarBloques();
+
+        BitSet vivas = new BitSet(f.cantidadNumeros());
+        ArrayList<Instruccion> pendientes = new ArrayList<>();
+        for (Bloque b : f.bloques) {
+            for (Instruccion i : b.instrucciones) {
+                if (!i.esBorrable()) marcar(i, vivas, pendientes);
+            }
+        }
+        while (!pendientes.isEmpty()) {
+            Instruccion i = pendientes.remove(pendientes.size() - 1);
+            for (Instruccion a : i.args) marcar(Instruccion.valor(a), vivas, pendientes);
+        }
+        for (Bloque b : f.bloques) {
+            b.fis.removeIf(fi -> !vivas.get(fi.numero));
+            b.instrucciones.removeIf(i -> !vivas.get(i.numero));
+        }
+    }
+
+    private static void marcar(Instruccion i, BitSet vivas, ArrayList<Instruccion> pendientes) {
+        if (vivas.get(i.numero)) return;
+        vivas.set(i.numero);
+        pendientes.add(i);
+    }
+}
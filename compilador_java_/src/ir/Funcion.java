@@ -0,0 +1,417 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import simbolos.Tipo;
+
+// Grafo de flujo de control en forma SSA de todo el programa (un único
+// procedimiento: las sentencias globales y los main, en orden).
+public final class Funcion {
+    final ArrayList<Bloque> bloques = new ArrayList<>();
+    final Bloque entrada;
+    final int[] tipos; // tipo declarado de cada slot (variables y arreglos)
+    private int instrucciones;
+    private int numerosBloque;
+
+    Funcion(int[] tipos) {
+        this.tipos = tipos;
+        entrada = nuevoBloque();
+        entrada.sellado = true;
+    }
+
+    public List<Bloque> getBloques() { return bloques; }
+    public Bloque getEntrada() { return entrada; }
+    public int tipoSlot(int slot) { return tipos[slot]; }
+    public int cantidadSlots() { return tipos.length; }
+    public int cantidadNumeros() { return instrucciones; } // tope de Instruccion.getNumero()
+
+    // -----------------------
+    // Construcción
+    // -----------------------
+    Bloque nuevoBloque() {
+        Bloque b = new Bloque(numerosBloque++);
+        bloques.add(b);
+        return b;
+    }
+
+    Instruccion nueva(int op, int tipo, Instruccion... args) {
+        Instruccion i = new Instruccion(instrucciones++, op, tipo);
+        if (args.length > 0) i.args = args;
+        return i;
+    }
+
+    Instruccion constante(int tipo, long valor) {
+        Instruccion c = nueva(Operacion.CONSTANTE, tipo);
+        c.constante = valor;
+        return c;
+    }
+
+    Instruccion fi(Bloque b, int tipo) {
+        Instruccion fi = nueva(Operacion.FI, tipo);
+        fi.bloque = b;
+        b.fis.add(fi);
+        return fi;
+    }
+
+    void saltar(Bloque desde, Bloque hacia) {
+        desde.insertarAlFinal(nueva(Operacion.SALTO, Tipo.NINGUNO));
+        desde.sucesores = new Bloque[]{hacia};
+        hacia.predecesores.add(desde);
+    }
+
+    void bifurcar(Bloque desde, Instruccion condicion, Bloque verdadero, Bloque falso) {
+        desde.insertarAlFinal(nueva(Operacion.SI, Tipo.NINGUNO, condicion));
+        desde.sucesores = new Bloque[]{verdadero, falso};
+        verdadero.predecesores.add(desde);
+        falso.predecesores.add(desde);
+    }
+
+    void terminar(Bloque b) {
+        b.insertarAlFinal(nueva(Operacion.FIN, Tipo.NINGUNO));
+    }
+
+    // -----------------------
+    // Mantenimiento para los pases
+    // -----------------------
+    // Reescribe los operandos que nombran instrucciones reemplazadas
+    void normalizar() {
+        for (Bloque b : bloques) {
+            for (Instruccion fi : b.fis) resolver(fi);
+            for (Instruccion i : b.instrucciones) resolver(i);
+        }
+    }
+
+    private static void resolver(Instruccion i) {
+        for (int k = 0; k < i.args.length; k++) i.args[k] = Instruccion.valor(i.args[k]);
+    }
+
+    // Un SI cuya condición es constante pasa a ser un SALTO
+    int simplificarSaltos() {
+        int cambios = 0;
+        for (Bloque b : bloques) {
+            if (!b.terminado()) continue;
+            Instruccion t = b.terminador();
+            if (t.op != Operacion.SI) continue;
+            Instruccion c = Instruccion.valor(t.args[0]);
+            Bloque verdadero = b.sucesores[0], falso = b.sucesores[1];
+            if (!c.esConstante() && verdadero != falso) continue;
+            Bloque queda = !c.esConstante() || c.constante != 0 ? verdadero : falso;
+            Bloque sale = queda == verdadero ? falso : verdadero;
+            t.op = Operacion.SALTO;
+            t.args = new Instruccion[0];
+            b.sucesores = new Bloque[]{queda};
+            sale.quitarPredecesor(b);
+            cambios++;
+        }
+        return cambios;
+    }
+
+    // Saca los bloques a los que no se llega desde la entrada
+    public int eliminarInalcanzables() {
+        BitSet alcanzados = new BitSet();
+        ArrayList<Bloque> pila = new ArrayList<>();
+        pila.add(entrada);
+        alcanzados.set(indice(entrada));
+        while (!pila.isEmpty()) {
+            Bloque b = pila.remove(pila.size() - 1);
+            for (Bloque s : b.sucesores) {
+                if (!alcanzados.get(indice(s))) {
+                    alcanzados.set(indice(s));
+                    pila.add(s);
+                }
+            }
+        }
+        int antes = bloques.size();
+        ArrayList<Bloque> vivos = new ArrayList<>(antes);
+        for (Bloque b : bloques) {
+            if (alcanzados.get(indice(b))) {
+                vivos.add(b);
+            } else {
+                for (Bloque s : b.sucesores) {
+                    if (alcanzados.get(indice(s))) s.quitarPredecesor(b);
+                }
+            }
+        }
+        bloques.clear();
+        bloques.addAll(vivos);
+        return antes - vivos.size();
+    }
+
+    // Un bloque que solo salta a otro que no tiene más predecesores se junta con él
+    int fusionarBloques() {
+        int fusionados = 0;
+        for (Bloque b : bloques) {
+            if (b.sucesores.length == 0) continue; // ya absorbido (o el final)
+            while (b.sucesores.length == 1) {
+                Bloque s = b.sucesores[0];
+                if (s == b || s == entrada || s.predecesores.size() != 1) break;
+                for (Instruccion fi : s.fis) fi.reemplazo = Instruccion.valor(fi.args[0]);
+                b.instrucciones.remove(b.instrucciones.size() - 1);
+                for (Instruccion i : s.instrucciones) {
+                    i.bloque = b;
+                    b.instrucciones.add(i);
+                }
+                b.sucesores = s.sucesores;
+                for (Bloque t : s.sucesores) Collections.replaceAll(t.predecesores, s, b);
+                s.fis.clear();
+                s.instrucciones.clear();
+                s.sucesores = new Bloque[0];
+                s.predecesores.clear();
+                fusionados++;
+            }
+        }
+        if (fusionados > 0) bloques.removeIf(b -> b.instrucciones.isEmpty());
+        return fusionados;
+    }
+
+    // Los números de bloque crecen con la creación: sirven de índice
+    private static int indice(Bloque b) { return b.numero; }
+
+    // Arista de un bloque con varios sucesores a uno con varios predecesores:
+    // se le intercala un bloque vacío (ahí van las copias de los FI al salir de SSA)
+    public void partirAristasCriticas() {
+        int n = bloques.size();
+        for (int k = 0; k < n; k++) {
+            Bloque b = bloques.get(k);
+            if (b.sucesores.length < 2) continue;
+            for (int i = 0; i < b.sucesores.length; i++) {
+                Bloque s = b.sucesores[i];
+                if (s.predecesores.size() < 2) continue;
+                Bloque medio = nuevoBloque();
+                medio.insertarAlFinal(nueva(Operacion.SALTO, Tipo.NINGUNO));
+                medio.sucesores = new Bloque[]{s};
+                medio.predecesores.add(b);
+                b.sucesores[i] = medio;
+                s.predecesores.set(s.predecesores.indexOf(b), medio);
+            }
+        }
+    }
+
+    // -----------------------
+    // Dominadores (Cooper, Harvey y Kennedy) sobre el postorden inverso
+    // -----------------------
+    // Devuelve los bloques alcanzables en postorden inverso
+    public List<Bloque> calcularDominadores() {
+        for (Bloque b : bloques) {
+            b.orden = -1;
+            b.idom = null;
+        }
+        ArrayList<Bloque> postorden = new ArrayList<>(bloques.size());
+        // DFS iterativo: pila de bloques y del próximo sucesor a visitar
+        BitSet visitados = new BitSet();
+        Bloque[] pila = new Bloque[bloques.size()];
+        int[] siguiente = new int[bloques.size()];
+        int alto = 0;
+        pila[alto++] = entrada;
+        visitados.set(entrada.numero);
+        while (alto > 0) {
+            Bloque b = pila[alto - 1];
+            if (siguiente[alto - 1] < b.sucesores.length) {
+                Bloque s = b.sucesores[siguiente[alto - 1]++];
+                if (!visitados.get(s.numero)) {
+                    visitados.set(s.numero);
+                    pila[alto] = s;
+                    siguiente[alto] = 0;
+                    alto++;
+                }
+            } else {
+                postorden.add(b);
+                alto--;
+            }
+        }
+        ArrayList<Bloque> rpo = new ArrayList<>(postorden.size());
+        for (int i = postorden.size() - 1; i >= 0; i--) {
+            Bloque b = postorden.get(i);
+            b.orden = rpo.size();
+            rpo.add(b);
+        }
+
+        entrada.idom = entrada;
+        boolean cambio = true;
+        while (cambio) {
+            cambio = false;
+            for (int i = 1; i < rpo.size(); i++) {
+                Bloque b = rpo.get(i);
+                Bloque nuevo = null;
+                for (Bloque p : b.predecesores) {
+                    if (p.idom == null) continue;
+                    nuevo = nuevo == null ? p : interseccion(p, nuevo);
+                }
+                if (nuevo != b.idom) {
+                    b.idom = nuevo;
+                    cambio = true;
+                }
+            }
+        }
+        return rpo;
+    }
+
+    private static Bloque interseccion(Bloque a, Bloque b) {
+        while (a != b) {
+            while (a.orden > b.orden) a = a.idom;
+            while (b.orden > a.orden) b = b.idom;
+        }
+        return a;
+    }
+
+    public static boolean domina(Bloque a, Bloque b) {
+        while (b.orden > a.orden) b = b.idom;
+        return a == b;
+    }
+
+    public static Bloque idom(Bloque b) { return b.idom; }
+
+    // -----------------------
+    // Ciclos naturales (con los dominadores ya calculados)
+    // -----------------------
+    static final class Ciclo {
+        final Bloque cabecera;
+        Ciclo padre;
+        final ArrayList<Ciclo> internos = new ArrayList<>();
+        final ArrayList<Bloque> bloques = new ArrayList<>(); // los propios (no los de ciclos internos)
+        int profundidad;      // 1 para los de más afuera
+        int entrada, salida;  // intervalo en preorden del árbol de ciclos
+        Bloque latido;        // único bloque que vuelve a la cabecera, o null si hay varios
+        Bloque preencabezado; // único predecesor de afuera con un solo sucesor, o null
+
+        Ciclo(Bloque cabecera) {
+            this.cabecera = cabecera;
+        }
+
+        // El bloque está en este ciclo o en uno interno
+        boolean contiene(Bloque b) {
+            Ciclo c = b.ciclo;
+            return c != null && c.entrada >= entrada && c.entrada <= salida;
+        }
+    }
+
+    // Árbol de ciclos (Havlak): las cabeceras se recorren de adentro hacia
+    // afuera y cada ciclo ya encontrado se colapsa en su cabecera con unión de
+    // conjuntos, así cada bloque se visita una vez aunque los ciclos se anidan
+    // a gran profundidad. Deja en cada bloque su ciclo más interno y devuelve
+    // los ciclos en preorden (los de afuera primero, los hermanos en orden).
+    List<Ciclo> ciclos(List<Bloque> rpo) {
+        int[] representante = new int[numerosBloque];
+        int[] marca = new int[numerosBloque];
+        Bloque[] porNumero = new Bloque[numerosBloque];
+        for (int i = 0; i < numerosBloque; i++) representante[i] = i;
+        for (Bloque b : bloques) b.ciclo = null;
+        for (Bloque b : rpo) porNumero[b.numero] = b;
+
+        ArrayList<Ciclo> raices = new ArrayList<>();
+        ArrayList<Bloque> pila = new ArrayList<>();
+        int cantidad = 0;
+        for (int k = rpo.size() - 1; k >= 0; k--) {
+            Bloque h = rpo.get(k);
+            int afuera = 0;
+            Bloque unicoAfuera = null;
+            for (Bloque p : h.predecesores) {
+                if (p.orden < 0) continue;
+                if (domina(h, p)) {
+                    pila.add(p); // arista de vuelta
+                } else {
+                    afuera++;
+                    unicoAfuera = p;
+                }
+            }
+            if (pila.isEmpty()) continue;
+            Ciclo c = new Ciclo(h);
+            if (pila.size() == 1) c.latido = pila.get(0);
+            if (afuera == 1 && unicoAfuera.sucesores.length == 1) c.preencabezado = unicoAfuera;
+            cantidad++;
+            h.ciclo = c;
+            c.bloques.add(h);
+            marca[h.numero] = cantidad;
+            while (!pila.isEmpty()) {
+                Bloque x = porNumero[encontrar(representante, pila.remove(pila.size() - 1).numero)];
+                if (marca[x.numero] == cantidad) continue;
+                marca[x.numero] = cantidad;
+                representante[x.numero] = h.numero;
+                if (x.ciclo != null && x.ciclo.cabecera == x) { // ciclo interno ya colapsado
+                    x.ciclo.padre = c;
+                    c.internos.add(x.ciclo);
+                } else {
+                    x.ciclo = c;
+                    c.bloques.add(x);
+                }
+                for (Bloque q : x.predecesores) if (q.orden >= 0) pila.add(q);
+            }
+            raices.add(c);
+        }
+        raices.removeIf(c -> c.padre != null);
+
+        // Preorden con una pila explícita: los ciclos pueden anidarse miles de niveles
+        ArrayList<Ciclo> preorden = new ArrayList<>(cantidad);
+        ArrayList<Ciclo> pendientes = new ArrayList<>();
+        for (int i = raices.size() - 1; i >= 0; i--) pendientes.add(raices.get(i)); // al revés: se apilan
+        while (!pendientes.isEmpty()) {
+            Ciclo c = pendientes.remove(pendientes.size() - 1);
+            c.profundidad = c.padre == null ? 1 : c.padre.profundidad + 1;
+            c.entrada = preorden.size();
+            preorden.add(c);
+            c.internos.sort((a, b) -> Integer.compare(a.cabecera.orden, b.cabecera.orden));
+            c.bloques.sort((a, b) -> Integer.compare(a.orden, b.orden));
+            for (int i = c.internos.size() - 1; i >= 0; i--) pendientes.add(c.internos.get(i));
+        }
+        for (int i = preorden.size() - 1; i >= 0; i--) {
+            Ciclo c = preorden.get(i);
+            if (c.internos.isEmpty()) c.salida = c.entrada;
+            else c.salida = c.internos.get(c.internos.size() - 1).salida;
+        }
+        return preorden;
+    }
+
+    private static int encontrar(int[] representante, int x) {
+        int raiz = x;
+        while (representante[raiz] != raiz) raiz = representante[raiz];
+        while (representante[x] != raiz) {
+            int s = representante[x];
+            representante[x] = raiz;
+            x = s;
+        }
+        return raiz;
+    }
+
+    // -----------------------
+    // Consulta
+    // -----------------------
+    public int contarInstrucciones() {
+        int n = 0;
+        for (Bloque b : bloques) n += b.fis.size() + b.instrucciones.size();
+        return n;
+    }
+
+    // Usos de cada valor por número de instrucción (con los operandos normalizados)
+    public int[] contarUsos() {
+        int[] usos = new int[instrucciones];
+        for (Bloque b : bloques) {
+            for (Instruccion fi : b.fis) for (Instruccion a : fi.args) usos[a.numero]++;
+            for (Instruccion i : b.instrucciones) for (Instruccion a : i.args) usos[a.numero]++;
+        }
+        return usos;
+    }
+
+    public String volcar() {
+        StringBuilder sb = new StringBuilder();
+        for (Bloque b : bloques) {
+            sb.append(b).append(':');
+            if (!b.predecesores.isEmpty()) {
+                sb.append("  ; pred");
+                for (Bloque p : b.predecesores) sb.append(' ').append(p);
+            }
+            sb.append('\n');
+            for (Instruccion fi : b.fis) sb.append("  ").append(fi.describir()).append('\n');
+            for (Instruccion i : b.instrucciones) {
+                sb.append("  ").append(i.describir());
+                if (i.op == Operacion.SALTO || i.op == Operacion.SI) {
+                    sb.append(" ->");
+                    for (Bloque s : b.sucesores) sb.append(' ').append(s);
+                }
+                sb.append('\n');
+            }
+        }
+        return sb.toString();
+    }
+}
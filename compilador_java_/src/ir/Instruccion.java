@@ -0,0 +1,114 @@
+package ir;
+
+import java.util.Arrays;
+import lexer.TokenType;
+import simbolos.Tipo;
+
+// Una instrucción SSA: define a lo sumo un valor, que es la instrucción misma.
+// Cuando un pase la elimina deja en 'reemplazo' el valor que la sustituye;
+// Funcion.normalizar() reescribe los operandos que todavía la nombran.
+public final class Instruccion {
+    private static final Instruccion[] SIN_ARGS = {};
+
+    final int numero;          // único en la función
+    int op;
+    int tipo;                  // Tipo del valor (NINGUNO si no deja valor)
+    Instruccion[] args = SIN_ARGS;
+    long constante;            // ver Operacion
+    String texto;              // CONSTANTE de cadena
+    TokenType condicion;       // COMPARAR
+    int slot = -1;             // arreglo o variable
+    int linea, columna;        // para los errores de ejecución
+    Bloque bloque;
+    Instruccion reemplazo;
+
+    Instruccion(int numero, int op, int tipo) {
+        this.numero = numero;
+        this.op = op;
+        this.tipo = tipo;
+    }
+
+    public int getNumero() { return numero; }
+    public int getOp() { return op; }
+    public int getTipo() { return tipo; }
+    public int cantidadArgs() { return args.length; }
+    public Instruccion arg(int i) { return args[i]; }
+    public long getConstante() { return constante; }
+    public double getReal() { return Double.longBitsToDouble(constante); }
+    public String getTexto() { return texto; }
+    public TokenType getCondicion() { return condicion; }
+    public int getSlot() { return slot; }
+    public int getLinea() { return linea; }
+    public int getColumna() { return columna; }
+    public Bloque getBloque() { return bloque; }
+
+    public boolean esConstante() { return op == Operacion.CONSTANTE; }
+
+    void agregarArg(Instruccion a) {
+        args = Arrays.copyOf(args, args.length + 1);
+        args[args.length - 1] = a;
+    }
+
+    void quitarArg(int i) {
+        Instruccion[] n = new Instruccion[args.length - 1];
+        System.arraycopy(args, 0, n, 0, i);
+        System.arraycopy(args, i + 1, n, i, n.length - i);
+        args = n;
+    }
+
+    // Valor vigente: sigue la cadena de reemplazos (y la acorta)
+    static Instruccion valor(Instruccion i) {
+        Instruccion r = i;
+        while (r.reemplazo != null) r = r.reemplazo;
+        while (i.reemplazo != null) {
+            Instruccion s = i.reemplazo;
+            i.reemplazo = r;
+            i = s;
+        }
+        return r;
+    }
+
+    // División entera que puede fallar en ejecución (divisor no constante o cero)
+    public boolean puedeFallar() {
+        if (op == Operacion.DIV && tipo == Tipo.LONG) return !(args[1].esConstante() && args[1].constante != 0);
+        return op == Operacion.INDICE && constante == 0 || op == Operacion.LEER || op == Operacion.NUEVO_ARREGLO;
+    }
+
+    // El resultado depende solo de los operandos (un INDICE ya en rango solo convierte)
+    boolean esPura() {
+        return Operacion.esPura(op) || op == Operacion.INDICE && constante != 0;
+    }
+
+    // Sin efectos: si nadie la usa, se puede borrar
+    boolean esBorrable() {
+        return (esPura() || op == Operacion.FI || op == Operacion.CARGAR) && !puedeFallar();
+    }
+
+    @Override
+    public String toString() {
+        return "v" + numero;
+    }
+
+    // Texto para volcar el IR: "v12 = suma long v10, v11"
+    String describir() {
+        StringBuilder sb = new StringBuilder();
+        if (Operacion.produceValor(op)) sb.append('v').append(numero).append(" = ");
+        sb.append(Operacion.nombre(op));
+        if (op == Operacion.COMPARAR) sb.append(' ').append(condicion);
+        if (tipo != Tipo.NINGUNO) sb.append(' ').append(Tipo.nombre(tipo));
+        if (op == Operacion.CONSTANTE) {
+            if (texto != null) sb.append(" \"").append(texto).append('"');
+            else if (tipo == Tipo.DOUBLE) sb.append(' ').append(getReal());
+            else if (tipo == Tipo.BOOL) sb.append(' ').append(constante != 0);
+            else sb.append(' ').append(constante);
+        }
+        if (slot >= 0) sb.append(" #").append(slot);
+        if (op == Operacion.DESPLAZAR || op == Operacion.NUEVO_ARREGLO) sb.append(' ').append(constante);
+        if (op == Operacion.INDICE && constante != 0) sb.append(" en rango");
+        for (int i = 0; i < args.length; i++) {
+            sb.append(i == 0 ? " " : ", ").append(valor(args[i]));
+            if (op == Operacion.FI) sb.append(" [B").append(bloque.predecesores.get(i).numero).append(']');
+        }
+        return sb.toString();
+    }
+}
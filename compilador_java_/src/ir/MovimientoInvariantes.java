@@ -0,0 +1,70 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Saca de los ciclos las instrucciones puras que no pueden fallar. Cada una va
+// de una vez al preencabezado del ciclo más externo del que se puede sacar:
+// el hijo, en el camino hacia la instrucción, del ciclo más interno que
+// contiene a alguno de sus operandos. Los ciclos se recorren en preorden, así
+// los operandos de afuera ya están en su lugar final; las constantes no
+// cuentan como operandos (se copian al preencabezado junto con la instrucción).
+public final class MovimientoInvariantes implements Pase {
+    @Override
+    public String nombre() { return "licm"; }
+
+    @Override
+    public void aplicar(Funcion f) {
+        List<Bloque> rpo = f.calcularDominadores();
+        List<Funcion.Ciclo> ciclos = f.ciclos(rpo);
+        ArrayList<Funcion.Ciclo> camino = new ArrayList<>(); // camino.get(p - 1): ciclo de profundidad p
+        for (Funcion.Ciclo c : ciclos) {
+            while (camino.size() >= c.profundidad) camino.remove(camino.size() - 1);
+            camino.add(c);
+            for (Bloque b : c.bloques) {
+                ArrayList<Instruccion> quedan = new ArrayList<>(b.instrucciones.size());
+                for (Instruccion i : b.instrucciones) {
+                    Bloque destino = candidata(i) ? destino(f, i, b, c, camino) : null;
+                    if (destino == null) quedan.add(i);
+                }
+                if (quedan.size() < b.instrucciones.size()) {
+                    b.instrucciones.clear();
+                    b.instrucciones.addAll(quedan);
+                }
+            }
+        }
+    }
+
+    private static boolean candidata(Instruccion i) {
+        return i.esPura() && i.op != Operacion.COPIA && i.op != Operacion.CONSTANTE && !i.puedeFallar();
+    }
+
+    // Mueve la instrucción y devuelve adónde, o null si se queda
+    private static Bloque destino(Funcion f, Instruccion i, Bloque b, Funcion.Ciclo c, List<Funcion.Ciclo> camino) {
+        // profundidad del ciclo más interno que contiene a la instrucción y a algún operando
+        int comun = 0;
+        for (Instruccion a : i.args) {
+            a = Instruccion.valor(a);
+            if (a.esConstante()) continue;
+            Funcion.Ciclo x = a.bloque.ciclo;
+            while (x != null && !x.contiene(b)) x = x.padre;
+            if (x != null) comun = Math.max(comun, x.profundidad);
+        }
+        for (int p = comun + 1; p <= c.profundidad; p++) {
+            Funcion.Ciclo afuera = camino.get(p - 1);
+            Bloque destino = afuera.preencabezado;
+            if (destino == null) continue; // se intenta con el siguiente más interno
+            for (int k = 0; k < i.args.length; k++) {
+                Instruccion a = Instruccion.valor(i.args[k]);
+                if (!a.esConstante() || !afuera.contiene(a.bloque)) continue;
+                Instruccion copia = f.constante(a.tipo, a.constante);
+                copia.texto = a.texto;
+                destino.insertarAlFinal(copia);
+                i.args[k] = copia;
+            }
+            destino.insertarAlFinal(i);
+            return destino;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,51 @@
+package ir;
+
+// Operaciones de la representación intermedia. Qué usa cada una:
+//
+//   CONSTANTE      constante (double como bits; bool 0/1) o texto
+//   FI             un operando por predecesor del bloque, en el mismo orden; slot: variable
+//   COPIA          a
+//   SUMA, RESTA, MULT, DIV    a, b del mismo tipo (DIV long con división por cero: error)
+//   DESPLAZAR      a long, constante: bits a la izquierda
+//   CONVERTIR      a long -> double
+//   TRUNCAR        a double -> long
+//   COMPARAR       a, b del mismo tipo; condicion: LT, LE, GT, GE, EQ o NEQ -> bool
+//   NO             a bool
+//   NEGAR          a long o double: -a
+//   LEER           -> long o double
+//   ESCRIBIR       a; o slot si escribe un arreglo entero
+//   NUEVO_ARREGLO  slot, constante: tamaño
+//   INDICE         slot, a long: comprueba el rango -> posición (constante 1: ya se probó
+//                  en rango, solo convierte)
+//   CARGAR         slot, a: posición ya comprobada
+//   GUARDAR        slot, a: posición ya comprobada, b: valor
+//   SALTO, SI (a: condición bool), FIN     terminadores
+public final class Operacion {
+    public static final int CONSTANTE = 0, FI = 1, COPIA = 2, SUMA = 3, RESTA = 4, MULT = 5, DIV = 6,
+            DESPLAZAR = 7, CONVERTIR = 8, TRUNCAR = 9, COMPARAR = 10, NO = 11, NEGAR = 12, LEER = 13,
+            ESCRIBIR = 14, NUEVO_ARREGLO = 15, INDICE = 16, CARGAR = 17, GUARDAR = 18, SALTO = 19, SI = 20,
+            FIN = 21;
+
+    private static final String[] NOMBRES = {
+            "constante", "fi", "copia", "suma", "resta", "mult", "div",
+            "desplazar", "convertir", "truncar", "comparar", "no", "negar", "leer", "escribir",
+            "nuevo", "indice", "cargar", "guardar", "salto", "si", "fin"
+    };
+
+    private Operacion() {}
+
+    public static String nombre(int op) { return NOMBRES[op]; }
+
+    public static boolean esTerminador(int op) { return op >= SALTO; }
+
+    // Deja un valor (las demás solo tienen efectos)
+    public static boolean produceValor(int op) {
+        return op != ESCRIBIR && op != NUEVO_ARREGLO && op != GUARDAR && op < SALTO;
+    }
+
+    // El resultado depende solo de los operandos: se puede reusar, mover o borrar
+    // si no se usa, salvo que atrape un error (ver Instruccion.puedeFallar)
+    static boolean esPura(int op) {
+        return op <= NEGAR && op != FI;
+    }
+}
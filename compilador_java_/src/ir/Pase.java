@@ -0,0 +1,9 @@
+package ir;
+
+// Un pase de optimización sobre el IR. Puede dejar instrucciones con
+// 'reemplazo': la Tuberia normaliza los operandos antes del siguiente pase.
+public interface Pase {
+    String nombre();
+
+    void aplicar(Funcion f);
+}
@@ -0,0 +1,73 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+
+// Saca las COPIA y los FI triviales (todos sus operandos son el mismo valor o
+// el FI mismo). Al sacar un FI se revisan los FI que lo usaban, que pueden
+// volverse triviales: con ciclos anidados la cadena se resuelve en una pasada.
+public final class PropagacionCopias implements Pase {
+    @Override
+    public String nombre() { return "copias"; }
+
+    @Override
+    public void aplicar(Funcion f) {
+        for (Bloque b : f.bloques) {
+            for (Iterator<Instruccion> it = b.instrucciones.iterator(); it.hasNext(); ) {
+                Instruccion i = it.next();
+                if (i.op != Operacion.COPIA) continue;
+                i.reemplazo = i.args[0];
+                it.remove();
+            }
+        }
+
+        // FI que usa cada FI
+        HashMap<Instruccion, List<Instruccion>> usuarios = new HashMap<>();
+        ArrayList<Instruccion> pendientes = new ArrayList<>();
+        for (Bloque b : f.bloques) {
+            for (Instruccion fi : b.fis) {
+                pendientes.add(fi);
+                for (Instruccion a : fi.args) {
+                    a = Instruccion.valor(a);
+                    if (a.op == Operacion.FI && a != fi) usuarios.computeIfAbsent(a, k -> new ArrayList<>()).add(fi);
+                }
+            }
+        }
+        boolean quitados = false;
+        while (!pendientes.isEmpty()) {
+            Instruccion fi = pendientes.remove(pendientes.size() - 1);
+            if (fi.reemplazo != null) continue;
+            Instruccion unico = trivial(fi);
+            if (unico == null) continue;
+            fi.reemplazo = unico;
+            quitados = true;
+            List<Instruccion> us = usuarios.remove(fi);
+            if (us == null) continue;
+            // los que usaban el FI ahora usan 'unico' (sin los ya sacados: la lista no crece en cadena)
+            List<Instruccion> heredan = unico.op == Operacion.FI
+                    ? usuarios.computeIfAbsent(unico, k -> new ArrayList<>()) : null;
+            for (Instruccion u : us) {
+                if (u.reemplazo != null || u == unico) continue;
+                pendientes.add(u);
+                if (heredan != null) heredan.add(u);
+            }
+        }
+        if (quitados) {
+            for (Bloque b : f.bloques) b.fis.removeIf(fi -> fi.reemplazo != null);
+        }
+    }
+
+    // El único valor distinto del FI mismo, o null si hay más de uno
+    static Instruccion trivial(Instruccion fi) {
+        Instruccion unico = null;
+        for (Instruccion a : fi.args) {
+            a = Instruccion.valor(a);
+            if (a == fi || a == unico) continue;
+            if (unico != null) return null;
+            unico = a;
+        }
+        return unico; // null también si solo se usa a sí mismo: no pasa en código alcanzable
+    }
+}
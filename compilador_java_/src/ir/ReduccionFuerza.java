@@ -0,0 +1,176 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import simbolos.Tipo;
+
+// Reducción de fuerza:
+//  - en un ciclo con preencabezado y un solo latido, si un FI de la cabecera
+//    avanza de a una constante (i = i + c) cada producto i * k por una constante
+//    se reemplaza por un FI nuevo que arranca en inicio * k y suma c * k por
+//    vuelta;
+//  - identidades algebraicas: x * 2^n pasa a desplazamiento, x * 1, x + 0,
+//    x - 0 y x / 1 a x, x * 0 a 0 (en long), y x * 2.0 a x + x (en double).
+public final class ReduccionFuerza implements Pase {
+    @Override
+    public String nombre() { return "reduccion"; }
+
+    @Override
+    public void aplicar(Funcion f) {
+        List<Bloque> rpo = f.calcularDominadores();
+        for (Funcion.Ciclo c : f.ciclos(rpo)) {
+            if (c.preencabezado != null && c.latido != null) induccion(f, c);
+        }
+        for (Bloque b : f.bloques) {
+            for (Iterator<Instruccion> it = b.instrucciones.iterator(); it.hasNext(); ) {
+                Instruccion i = it.next();
+                Instruccion queda = algebraica(i);
+                if (queda == null) continue;
+                i.reemplazo = queda;
+                it.remove();
+            }
+        }
+    }
+
+    // -----------------------
+    // Variables de inducción
+    // -----------------------
+    private static void induccion(Funcion f, Funcion.Ciclo c) {
+        Bloque h = c.cabecera;
+        int desdeAfuera = h.predecesores.indexOf(c.preencabezado);
+        int desdeLatido = h.predecesores.indexOf(c.latido);
+        if (h.predecesores.size() != 2 || desdeAfuera < 0 || desdeLatido < 0) return;
+        HashMap<Instruccion, Long> pasos = new HashMap<>();
+        for (Instruccion fi : h.fis) {
+            if (fi.tipo != Tipo.LONG) continue;
+            Instruccion siguiente = Instruccion.valor(fi.args[desdeLatido]);
+            Long paso = paso(fi, siguiente);
+            if (paso != null) pasos.put(fi, paso);
+        }
+        if (pasos.isEmpty()) return;
+
+        // primero se juntan los productos (en los bloques propios del ciclo: los
+        // de un ciclo interno que solo dependen del FI ya los sacó licm)
+        ArrayList<Instruccion> candidatos = new ArrayList<>();
+        for (Bloque b : c.bloques) {
+            for (Instruccion i : b.instrucciones) {
+                if (i.op != Operacion.MULT || i.tipo != Tipo.LONG) continue;
+                Instruccion x = Instruccion.valor(i.args[0]), y = Instruccion.valor(i.args[1]);
+                if (pasos.containsKey(x) && y.esConstante() || pasos.containsKey(y) && x.esConstante()) candidatos.add(i);
+            }
+        }
+        // (FI, factor) -> FI nuevo con el producto
+        HashMap<Instruccion, HashMap<Long, Instruccion>> productos = new HashMap<>();
+        for (Instruccion i : candidatos) {
+            Instruccion x = Instruccion.valor(i.args[0]), y = Instruccion.valor(i.args[1]);
+            if (x.esConstante()) {
+                Instruccion t = x;
+                x = y;
+                y = t;
+            }
+            long k = y.constante;
+            HashMap<Long, Instruccion> porFactor = productos.computeIfAbsent(x, v -> new HashMap<>());
+            Instruccion producto = porFactor.get(k);
+            if (producto == null) {
+                producto = nuevaInduccion(f, c, x, k, pasos.get(x), desdeAfuera, desdeLatido);
+                porFactor.put(k, producto);
+            }
+            i.reemplazo = producto;
+            i.bloque.instrucciones.remove(i);
+        }
+    }
+
+    // Constante que se le suma al FI en cada vuelta, o null
+    private static Long paso(Instruccion fi, Instruccion siguiente) {
+        if (siguiente.op != Operacion.SUMA && siguiente.op != Operacion.RESTA) return null;
+        Instruccion a = Instruccion.valor(siguiente.args[0]), b = Instruccion.valor(siguiente.args[1]);
+        if (siguiente.op == Operacion.SUMA && a.esConstante() && b == fi) return a.constante;
+        if (a != fi || !b.esConstante()) return null;
+        return siguiente.op == Operacion.SUMA ? b.constante : -b.constante;
+    }
+
+    private static Instruccion nuevaInduccion(Funcion f, Funcion.Ciclo c, Instruccion fi, long k, long paso,
+                                              int desdeAfuera, int desdeLatido) {
+        Instruccion valorInicial = Instruccion.valor(fi.args[desdeAfuera]), inicio;
+        if (valorInicial.esConstante()) {
+            inicio = f.constante(Tipo.LONG, valorInicial.constante * k);
+        } else {
+            Instruccion factor = f.constante(Tipo.LONG, k);
+            c.preencabezado.insertarAlFinal(factor);
+            inicio = f.nueva(Operacion.MULT, Tipo.LONG, valorInicial, factor);
+        }
+        c.preencabezado.insertarAlFinal(inicio);
+
+        Instruccion nuevo = f.fi(c.cabecera, Tipo.LONG);
+        Instruccion incremento = f.constante(Tipo.LONG, paso * k);
+        c.latido.insertarAlFinal(incremento);
+        Instruccion avance = f.nueva(Operacion.SUMA, Tipo.LONG, nuevo, incremento);
+        c.latido.insertarAlFinal(avance);
+
+        Instruccion[] args = new Instruccion[2];
+        args[desdeAfuera] = inicio;
+        args[desdeLatido] = avance;
+        nuevo.args = args;
+        return nuevo;
+    }
+
+    // -----------------------
+    // Identidades
+    // -----------------------
+    // Valor que reemplaza a la instrucción, o null si queda (tal vez cambiada)
+    private static Instruccion algebraica(Instruccion i) {
+        if (i.args.length != 2) return null;
+        Instruccion a = Instruccion.valor(i.args[0]), b = Instruccion.valor(i.args[1]);
+        if (i.tipo == Tipo.DOUBLE) {
+            if (i.op == Operacion.MULT && (esReal(b, 2.0) || esReal(a, 2.0))) {
+                Instruccion x = esReal(b, 2.0) ? a : b;
+                i.op = Operacion.SUMA;
+                i.args = new Instruccion[]{x, x};
+            }
+            return null;
+        }
+        if (i.tipo != Tipo.LONG) return null;
+        switch (i.op) {
+            case Operacion.SUMA:
+                if (esEntero(b, 0)) return a;
+                if (esEntero(a, 0)) return b;
+                return null;
+            case Operacion.RESTA:
+                return esEntero(b, 0) ? a : null;
+            case Operacion.DIV:
+                return esEntero(b, 1) ? a : null;
+            case Operacion.MULT: {
+                if (a.esConstante()) {
+                    Instruccion t = a;
+                    a = b;
+                    b = t;
+                }
+                if (!b.esConstante()) return null;
+                long k = b.constante;
+                if (k == 1) return a;
+                if (k == 0) {
+                    i.op = Operacion.CONSTANTE;
+                    i.args = new Instruccion[0];
+                    i.constante = 0;
+                } else if (k > 0 && Long.bitCount(k) == 1) {
+                    i.op = Operacion.DESPLAZAR;
+                    i.args = new Instruccion[]{a};
+                    i.constante = Long.numberOfTrailingZeros(k);
+                }
+                return null;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static boolean esEntero(Instruccion i, long v) {
+        return i.esConstante() && i.constante == v;
+    }
+
+    private static boolean esReal(Instruccion i, double v) {
+        return i.esConstante() && i.getReal() == v;
+    }
+}
@@ -0,0 +1,116 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import lexer.TokenType;
+import simbolos.Tipo;
+
+// Numeración de valores sobre el árbol de dominadores: una instrucción pura
+// igual a otra de un bloque que la domina se reemplaza por esa. Las constantes
+// entran también (quedan una por valor). La división entera que puede fallar
+// se reusa igual: si la primera no falló, la segunda tampoco.
+public final class SubexpresionesComunes implements Pase {
+    @Override
+    public String nombre() { return "cse"; }
+
+    @Override
+    public void aplicar(Funcion f) {
+        List<Bloque> rpo = f.calcularDominadores();
+        HashMap<Bloque, List<Bloque>> hijos = new HashMap<>();
+        for (int i = 1; i < rpo.size(); i++) {
+            Bloque b = rpo.get(i);
+            hijos.computeIfAbsent(b.idom, k -> new ArrayList<>()).add(b);
+        }
+        HashMap<Clave, Instruccion> vistas = new HashMap<>();
+        ArrayList<Clave> agregadas = new ArrayList<>();
+        // DFS sobre el árbol: al salir de un bloque se olvida lo que agregó
+        ArrayList<Bloque> pila = new ArrayList<>();
+        ArrayList<Integer> marcas = new ArrayList<>();
+        pila.add(f.entrada);
+        marcas.add(-1);
+        while (!pila.isEmpty()) {
+            int tope = pila.size() - 1;
+            if (marcas.get(tope) >= 0) {
+                int marca = marcas.get(tope);
+                while (agregadas.size() > marca) vistas.remove(agregadas.remove(agregadas.size() - 1));
+                pila.remove(tope);
+                marcas.remove(tope);
+                continue;
+            }
+            Bloque b = pila.get(tope);
+            marcas.set(tope, agregadas.size());
+            for (Iterator<Instruccion> it = b.instrucciones.iterator(); it.hasNext(); ) {
+                Instruccion i = it.next();
+                if (!i.esPura() && !(i.op == Operacion.DIV && i.tipo == Tipo.LONG)) continue;
+                if (i.op == Operacion.COPIA) continue;
+                Clave k = new Clave(i);
+                Instruccion previa = vistas.get(k);
+                if (previa != null) {
+                    i.reemplazo = previa;
+                    it.remove();
+                } else {
+                    vistas.put(k, i);
+                    agregadas.add(k);
+                }
+            }
+            List<Bloque> hs = hijos.get(b);
+            if (hs != null) {
+                for (Bloque h : hs) {
+                    pila.add(h);
+                    marcas.add(-1);
+                }
+            }
+        }
+    }
+
+    private static boolean conmutativa(Instruccion i) {
+        return i.op == Operacion.SUMA || i.op == Operacion.MULT
+                || i.op == Operacion.COMPARAR && (i.condicion == TokenType.EQ || i.condicion == TokenType.NEQ);
+    }
+
+    private static final class Clave {
+        final int op, tipo, a, b;
+        final long constante;
+        final String texto;
+        final TokenType condicion;
+
+        Clave(Instruccion i) {
+            op = i.op;
+            tipo = i.tipo;
+            int x = i.args.length > 0 ? Instruccion.valor(i.args[0]).numero : -1;
+            int y = i.args.length > 1 ? Instruccion.valor(i.args[1]).numero : -1;
+            if (conmutativa(i) && x > y) {
+                int t = x;
+                x = y;
+                y = t;
+            }
+            a = x;
+            b = y;
+            constante = i.constante;
+            texto = i.texto;
+            condicion = i.condicion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Clave)) return false;
+            Clave c = (Clave) o;
+            return op == c.op && tipo == c.tipo && a == c.a && b == c.b && constante == c.constante
+                    && Objects.equals(texto, c.texto) && condicion == c.condicion;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = op * 31 + tipo;
+            h = h * 31 + a;
+            h = h * 31 + b;
+            h = h * 31 + Long.hashCode(constante);
+            if (texto != null) h = h * 31 + texto.hashCode();
+            if (condicion != null) h = h * 31 + condicion.ordinal();
+            return h;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ir;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Secuencia de pases sobre una Funcion. Antes de cada pase se normalizan los
+// operandos; de cada uno se registra el tiempo y las instrucciones antes y
+// después, para el informe de --ssa.
+public final class Tuberia {
+    public static final String PREDETERMINADA = "copias,dce,cse,licm,reduccion,cse,dce,copias";
+
+    private final List<Pase> pases = new ArrayList<>();
+    private final List<long[]> medidas = new ArrayList<>(); // {nanos, antes, después}
+
+    public static Pase pase(String nombre) {
+        switch (nombre) {
+            case "copias": return new PropagacionCopias();
+            case "cse": return new SubexpresionesComunes();
+            case "licm": return new MovimientoInvariantes();
+            case "reduccion": return new ReduccionFuerza();
+            case "dce": return new EliminacionCodigoMuerto();
+            default: throw new IllegalArgumentException("pase desconocido: " + nombre
+                    + " (hay copias, cse, licm, reduccion y dce)");
+        }
+    }
+
+    // Lista separada por comas; vacía: ningún pase
+    public static Tuberia de(String lista) {
+        Tuberia t = new Tuberia();
+        for (String nombre : lista.split(",")) {
+            nombre = nombre.trim();
+            if (!nombre.isEmpty()) t.agregar(pase(nombre));
+        }
+        return t;
+    }
+
+    public Tuberia agregar(Pase p) {
+        pases.add(p);
+        return this;
+    }
+
+    public void aplicar(Funcion f) {
+        medidas.clear();
+        for (Pase p : pases) {
+            f.normalizar();
+            int antes = f.contarInstrucciones();
+            long inicio = System.nanoTime();
+            p.aplicar(f);
+            long nanos = System.nanoTime() - inicio;
+            medidas.add(new long[]{nanos, antes, f.contarInstrucciones()});
+        }
+        f.normalizar();
+    }
+
+    public void informe(PrintStream salida) {
+        salida.printf(Locale.ROOT, "%-14s%12s%10s%10s%n", "Pase", "Tiempo (ms)", "Antes", "Después");
+        long total = 0;
+        for (int i = 0; i < pases.size() && i < medidas.size(); i++) {
+            long[] m = medidas.get(i);
+            total += m[0];
+            salida.printf(Locale.ROOT, "%-14s%12.3f%10d%10d%n", pases.get(i).nombre(), m[0] / 1e6, m[1], m[2]);
+        }
+        salida.printf(Locale.ROOT, "%-14s%12.3f%n", "total", total / 1e6);
+    }
+}
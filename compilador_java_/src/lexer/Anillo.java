@@ -0,0 +1,122 @@
+package lexer;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Cola acotada entre el hilo del lexer (único productor) y el que consume el
+// TokenBuffer (único consumidor): un anillo de lotes de tokens que se reusan.
+// No hay locks: cada lado avanza su propio contador volatile y solo se duerme
+// cuando el anillo está lleno (productor) o vacío (consumidor); el otro lado lo
+// despierta al mover su contador. Lleno = el lexer espera al parser.
+final class Anillo {
+    static final int LOTE = 4096;          // tokens por lote
+    private static final int VUELTAS = 64; // esperas activas antes de dormir
+
+    // Los mismos campos que TokenBuffer, para LOTE tokens
+    static final class Lote {
+        final int[] tipos = new int[LOTE];
+        final int[] inicios = new int[LOTE];
+        final int[] longitudes = new int[LOTE];
+        final int[] lineas = new int[LOTE];
+        final int[] columnas = new int[LOTE];
+        final int[] valores = new int[LOTE];
+        final String[] mensajes = new String[LOTE]; // de los tokens ERROR
+        int cantidad;
+        int errores;
+    }
+
+    private final Lote[] lotes;
+    private final int mascara;
+    private volatile long escritos, leidos;
+    private volatile boolean productorDormido, consumidorDormido;
+    private volatile Thread consumidor;
+    private volatile Throwable falla;
+    private Thread productor;
+
+    Anillo(int capacidad) { // potencia de 2
+        lotes = new Lote[capacidad];
+        for (int i = 0; i < capacidad; i++) lotes[i] = new Lote();
+        mascara = capacidad - 1;
+    }
+
+    // Arranca el hilo productor; si falla, el consumidor recibe la excepción
+    void producir(Runnable trabajo) {
+        productor = new Thread(() -> {
+            try {
+                trabajo.run();
+            } catch (Throwable t) {
+                falla = t;
+                despertar(consumidorDormido, consumidor);
+            }
+        }, "lexer");
+        productor.setDaemon(true);
+        productor.start();
+    }
+
+    // -----------------------
+    // Lado del productor
+    // -----------------------
+    // Lote libre para llenar (espera si el anillo está lleno)
+    Lote libre() {
+        long e = escritos;
+        for (int vueltas = 0; e - leidos == lotes.length; vueltas++) {
+            if (vueltas < VUELTAS) {
+                Thread.yield();
+                continue;
+            }
+            productorDormido = true;
+            if (e - leidos == lotes.length) LockSupport.park(this);
+            productorDormido = false;
+        }
+        return lotes[(int) e & mascara];
+    }
+
+    void publicar() {
+        escritos = escritos + 1;
+        despertar(consumidorDormido, consumidor);
+    }
+
+    // -----------------------
+    // Lado del consumidor
+    // -----------------------
+    // Siguiente lote lleno (espera si el anillo está vacío); se devuelve con liberar()
+    Lote tomar() {
+        long l = leidos;
+        for (int vueltas = 0; escritos == l; vueltas++) {
+            Throwable t = falla;
+            if (t != null) relanzar(t);
+            if (vueltas < VUELTAS) {
+                Thread.yield();
+                continue;
+            }
+            consumidor = Thread.currentThread();
+            consumidorDormido = true;
+            if (escritos == l && falla == null) LockSupport.park(this);
+            consumidorDormido = false;
+        }
+        return lotes[(int) l & mascara];
+    }
+
+    void liberar() {
+        leidos = leidos + 1;
+        despertar(productorDormido, productor);
+    }
+
+    // Después del lote con EOF: espera a que el hilo termine (y con él lo que mida)
+    void terminar() {
+        try {
+            productor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void despertar(boolean dormido, Thread hilo) {
+        if (dormido && hilo != null) LockSupport.unpark(hilo);
+    }
+
+    private static void relanzar(Throwable t) {
+        if (t instanceof RuntimeException) throw (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        throw new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,406 @@
+package lexer;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+// Autómata finito determinista del Lexer, generado al cargar la clase a partir
+// de la especificación de tokens de abajo (reglas con patrones sobre
+// caracteres): patrones -> autómata no determinista -> construcción de
+// subconjuntos -> minimización. Las tablas quedan indexadas por clase de
+// carácter; las clases son los grupos de bytes ASCII que ninguna regla
+// distingue entre sí.
+//
+// El Lexer avanza mientras haya transición y hace lo que dice el estado en el
+// que se detuvo (no hay retroceso: cada estado salvo el inicial termina un
+// token o un error). Los bytes no ASCII no tienen transición: el Lexer
+// decodifica el carácter y sigue con LETRA_UNICODE o DIGITO_UNICODE.
+// Comentarios y cadenas solo se reconocen por su apertura; el resto lo saltea
+// el Lexer (los comentarios se anidan y eso no es regular).
+final class Automata {
+    // Qué hace el Lexer al detenerse en un estado
+    static final byte NINGUNA = 0, TOKEN = 1, NOMBRE = 2, ERROR = 3, LINEA = 4, BLOQUE = 5, CADENA = 6;
+
+    // Símbolos de los patrones: 0..127 son los bytes ASCII, después los
+    // caracteres no ASCII que son letra o dígito según Character
+    private static final int SIMBOLO_LETRA = 128, SIMBOLO_DIGITO = 129, SIMBOLOS = 130;
+
+    private static final List<Regla> REGLAS = new ArrayList<>();
+
+    static {
+        // Palabras reservadas: antes que los identificadores, ganan a igual largo
+        token("long", TokenType.LONG);
+        token("double", TokenType.DOUBLE);
+        token("if", TokenType.IF);
+        token("then", TokenType.THEN);
+        token("else", TokenType.ELSE);
+        token("while", TokenType.WHILE);
+        token("break", TokenType.BREAK);
+        token("read", TokenType.READ);
+        token("write", TokenType.WRITE);
+        token("const", TokenType.CONST);
+        token("true", TokenType.BOOL);
+        token("false", TokenType.BOOL);
+        token("main", TokenType.MAIN);
+
+        // Operadores y signos
+        token("+", TokenType.PLUS);
+        token("-", TokenType.MINUS);
+        token("*", TokenType.MULT);
+        token("/", TokenType.DIV);
+        token("+=", TokenType.PLUS_ASSIGN);
+        token("-=", TokenType.MINUS_ASSIGN);
+        token("*=", TokenType.MULT_ASSIGN);
+        token("/=", TokenType.DIV_ASSIGN);
+        token(">", TokenType.GT);
+        token("<", TokenType.LT);
+        token(">=", TokenType.GE);
+        token("<=", TokenType.LE);
+        token("==", TokenType.EQ);
+        token("<>", TokenType.NEQ);
+        token("!=", TokenType.NEQ);
+        token("&&", TokenType.AND);
+        token("||", TokenType.OR);
+        token("!", TokenType.NOT);
+        token("=", TokenType.ASSIGN);
+        token(";", TokenType.SEMICOLON);
+        token("(", TokenType.LPAREN);
+        token(")", TokenType.RPAREN);
+        token("{", TokenType.LBRACE);
+        token("}", TokenType.RBRACE);
+        token("[", TokenType.LBRACKET);
+        token("]", TokenType.RBRACKET);
+        token(",", TokenType.COMMA);
+        error(literal("&"), "símbolo '&' inválido, ¿quiziste '&&'?");
+        error(literal("|"), "símbolo '|' inválido, ¿quiziste '||'?");
+
+        // Identificadores y números
+        BitSet letra = rango('a', 'z');
+        letra.or(rango('A', 'Z'));
+        letra.set('_');
+        letra.set(SIMBOLO_LETRA);
+        BitSet digito = rango('0', '9');
+        digito.set(SIMBOLO_DIGITO);
+        BitSet letraODigito = (BitSet) letra.clone();
+        letraODigito.or(digito);
+        regla(serie(uno(letra), estrella(uno(letraODigito))), NOMBRE, TokenType.ID, null);
+        regla(mas(uno(digito)), TOKEN, TokenType.NUM_INT, null);
+        regla(serie(mas(uno(digito)), literal("."), mas(uno(digito))), TOKEN, TokenType.NUM_REAL, null);
+        error(serie(mas(uno(digito)), literal(".")), "formato de número real inválido");
+
+        // Aperturas de comentarios y cadenas
+        regla(literal("//"), LINEA, TokenType.COMMENT, null);
+        regla(literal("/*"), BLOQUE, TokenType.COMMENT, null);
+        regla(literal("\""), CADENA, TokenType.STRING, null);
+    }
+
+    // Clase de cada byte (los no ASCII caen en una clase sin transiciones)
+    static final byte[] CLASE = new byte[256];
+    static final int CLASES;
+    // Las filas de la tabla ocupan 1 << BITS posiciones
+    static final int BITS;
+    static final int LETRA_UNICODE, DIGITO_UNICODE, OTRO_UNICODE;
+
+    static final int INICIO = 0;
+    // (estado << BITS) + clase -> (estado siguiente << BITS), o -1: así el
+    // recorrido solo suma la clase. Los demás arreglos van por estado.
+    static final short[] TRANSICIONES;
+    static final byte[] ACCIONES;
+    static final TokenType[] TIPOS;
+    static final String[] MENSAJES;
+    // El estado tiene transiciones con caracteres no ASCII
+    static final boolean[] UNICODE;
+
+    static {
+        int[] claseDe = clasificar();
+        int clases = 0;
+        for (int c : claseDe) clases = Math.max(clases, c + 1);
+        CLASES = clases;
+        BITS = 32 - Integer.numberOfLeadingZeros(clases - 1);
+        for (int b = 0; b < 256; b++) CLASE[b] = (byte) claseDe[b < 128 ? b : SIMBOLOS];
+        LETRA_UNICODE = claseDe[SIMBOLO_LETRA];
+        DIGITO_UNICODE = claseDe[SIMBOLO_DIGITO];
+        OTRO_UNICODE = claseDe[SIMBOLOS];
+
+        Determinista d = minimizar(determinizar(claseDe));
+        int estados = d.reglas.length;
+        if ((long) estados << BITS > Short.MAX_VALUE) throw new IllegalStateException("demasiados estados en el autómata: " + estados);
+        TRANSICIONES = new short[estados << BITS];
+        ACCIONES = new byte[estados];
+        TIPOS = new TokenType[estados];
+        MENSAJES = new String[estados];
+        UNICODE = new boolean[estados];
+        for (int s = 0; s < estados; s++) {
+            for (int c = 0; c < CLASES; c++) {
+                int t = d.transiciones[s][c];
+                TRANSICIONES[(s << BITS) + c] = (short) (t >= 0 ? t << BITS : -1);
+            }
+            UNICODE[s] = d.transiciones[s][LETRA_UNICODE] >= 0 || d.transiciones[s][DIGITO_UNICODE] >= 0;
+            if (d.reglas[s] < 0) {
+                if (s != INICIO) throw new IllegalStateException("estado del autómata que no termina ningún token");
+                continue;
+            }
+            Regla r = REGLAS.get(d.reglas[s]);
+            ACCIONES[s] = r.accion;
+            TIPOS[s] = r.tipo;
+            MENSAJES[s] = r.mensaje;
+        }
+    }
+
+    private Automata() {}
+
+    // Clase de un carácter no ASCII ya decodificado
+    static int claseUnicode(int c) {
+        if (Character.isLetter(c)) return LETRA_UNICODE;
+        if (Character.isDigit(c)) return DIGITO_UNICODE;
+        return OTRO_UNICODE;
+    }
+
+    // -----------------------
+    // Especificación
+    // -----------------------
+    private static final class Regla {
+        final Patron patron;
+        final byte accion;
+        final TokenType tipo;
+        final String mensaje;
+
+        Regla(Patron patron, byte accion, TokenType tipo, String mensaje) {
+            this.patron = patron;
+            this.accion = accion;
+            this.tipo = tipo;
+            this.mensaje = mensaje;
+        }
+    }
+
+    private static void regla(Patron p, byte accion, TokenType tipo, String mensaje) {
+        REGLAS.add(new Regla(p, accion, tipo, mensaje));
+    }
+
+    private static void token(String texto, TokenType tipo) {
+        regla(literal(texto), TOKEN, tipo, null);
+    }
+
+    private static void error(Patron p, String mensaje) {
+        regla(p, ERROR, TokenType.ERROR, mensaje);
+    }
+
+    // Un patrón se arma de atrás hacia adelante: construir() recibe el estado al
+    // que se llega después de reconocerlo y devuelve el estado donde empieza
+    private interface Patron {
+        int construir(NoDeterminista n, int despues);
+    }
+
+    private static BitSet rango(char desde, char hasta) {
+        BitSet b = new BitSet(SIMBOLOS);
+        b.set(desde, hasta + 1);
+        return b;
+    }
+
+    private static Patron uno(BitSet simbolos) {
+        return (n, despues) -> n.nuevo(simbolos, despues);
+    }
+
+    private static Patron literal(String texto) {
+        Patron[] partes = new Patron[texto.length()];
+        for (int i = 0; i < partes.length; i++) partes[i] = uno(rango(texto.charAt(i), texto.charAt(i)));
+        return serie(partes);
+    }
+
+    private static Patron serie(Patron... partes) {
+        return (n, despues) -> {
+            for (int i = partes.length - 1; i >= 0; i--) despues = partes[i].construir(n, despues);
+            return despues;
+        };
+    }
+
+    // Cero o más veces
+    private static Patron estrella(Patron p) {
+        return (n, despues) -> {
+            int vuelta = n.nuevo(null, -1);
+            n.vacia(vuelta, p.construir(n, vuelta));
+            n.vacia(vuelta, despues);
+            return vuelta;
+        };
+    }
+
+    // Una o más veces
+    private static Patron mas(Patron p) {
+        return serie(p, estrella(p));
+    }
+
+    // -----------------------
+    // Autómata no determinista: cada estado tiene a lo sumo un arco con
+    // símbolos y cualquier cantidad de arcos vacíos
+    // -----------------------
+    private static final class NoDeterminista {
+        final ArrayList<BitSet> simbolos = new ArrayList<>();
+        final ArrayList<Integer> destinos = new ArrayList<>();
+        final ArrayList<int[]> vacias = new ArrayList<>();
+        final ArrayList<Integer> aceptan = new ArrayList<>(); // regla, o -1
+
+        int nuevo(BitSet conjunto, int destino) {
+            simbolos.add(conjunto);
+            destinos.add(destino);
+            vacias.add(new int[0]);
+            aceptan.add(-1);
+            return simbolos.size() - 1;
+        }
+
+        void vacia(int desde, int hasta) {
+            int[] v = vacias.get(desde);
+            v = Arrays.copyOf(v, v.length + 1);
+            v[v.length - 1] = hasta;
+            vacias.set(desde, v);
+        }
+
+        // Agrega a 'conjunto' los estados alcanzables por arcos vacíos
+        void clausura(BitSet conjunto) {
+            ArrayDeque<Integer> pendientes = new ArrayDeque<>();
+            for (int s = conjunto.nextSetBit(0); s >= 0; s = conjunto.nextSetBit(s + 1)) pendientes.push(s);
+            while (!pendientes.isEmpty()) {
+                for (int t : vacias.get(pendientes.pop())) {
+                    if (!conjunto.get(t)) {
+                        conjunto.set(t);
+                        pendientes.push(t);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Determinista {
+        final int[][] transiciones;
+        final int[] reglas; // regla que termina en el estado (la primera), o -1
+
+        Determinista(int[][] transiciones, int[] reglas) {
+            this.transiciones = transiciones;
+            this.reglas = reglas;
+        }
+    }
+
+    // Clase de cada símbolo (y en la posición SIMBOLOS, la de lo que no aparece
+    // en ningún patrón): dos símbolos van juntos si están en los mismos conjuntos
+    private static int[] clasificar() {
+        NoDeterminista n = new NoDeterminista();
+        for (Regla r : REGLAS) r.patron.construir(n, -1);
+        HashMap<BitSet, Integer> firmas = new HashMap<>();
+        int[] claseDe = new int[SIMBOLOS + 1];
+        for (int x = 0; x <= SIMBOLOS; x++) {
+            BitSet firma = new BitSet();
+            for (int k = 0; k < n.simbolos.size(); k++) {
+                BitSet conjunto = n.simbolos.get(k);
+                if (conjunto != null && conjunto.get(x)) firma.set(k);
+            }
+            Integer c = firmas.get(firma);
+            if (c == null) firmas.put(firma, c = firmas.size());
+            claseDe[x] = c;
+        }
+        return claseDe;
+    }
+
+    // Construcción de subconjuntos; el estado 0 es el inicial
+    private static Determinista determinizar(int[] claseDe) {
+        NoDeterminista n = new NoDeterminista();
+        int inicio = n.nuevo(null, -1);
+        for (int r = 0; r < REGLAS.size(); r++) {
+            int fin = n.nuevo(null, -1);
+            n.aceptan.set(fin, r);
+            n.vacia(inicio, REGLAS.get(r).patron.construir(n, fin));
+        }
+        int clases = 0;
+        for (int c : claseDe) clases = Math.max(clases, c + 1);
+        int[] representante = new int[clases];
+        Arrays.fill(representante, -1);
+        for (int x = SIMBOLOS; x >= 0; x--) representante[claseDe[x]] = x;
+
+        HashMap<BitSet, Integer> numeros = new HashMap<>();
+        ArrayList<BitSet> conjuntos = new ArrayList<>();
+        ArrayList<int[]> transiciones = new ArrayList<>();
+        BitSet primero = new BitSet();
+        primero.set(inicio);
+        n.clausura(primero);
+        numeros.put(primero, 0);
+        conjuntos.add(primero);
+        for (int d = 0; d < conjuntos.size(); d++) {
+            BitSet actual = conjuntos.get(d);
+            int[] fila = new int[clases];
+            for (int c = 0; c < clases; c++) {
+                BitSet siguiente = new BitSet();
+                for (int s = actual.nextSetBit(0); s >= 0; s = actual.nextSetBit(s + 1)) {
+                    BitSet conjunto = n.simbolos.get(s);
+                    if (conjunto != null && conjunto.get(representante[c])) siguiente.set(n.destinos.get(s));
+                }
+                if (siguiente.isEmpty()) {
+                    fila[c] = -1;
+                    continue;
+                }
+                n.clausura(siguiente);
+                Integer numero = numeros.get(siguiente);
+                if (numero == null) {
+                    numeros.put(siguiente, numero = conjuntos.size());
+                    conjuntos.add(siguiente);
+                }
+                fila[c] = numero;
+            }
+            transiciones.add(fila);
+        }
+        int[] reglas = new int[conjuntos.size()];
+        for (int d = 0; d < reglas.length; d++) {
+            reglas[d] = -1;
+            BitSet conjunto = conjuntos.get(d);
+            for (int s = conjunto.nextSetBit(0); s >= 0; s = conjunto.nextSetBit(s + 1)) {
+                int r = n.aceptan.get(s);
+                if (r >= 0 && (reglas[d] < 0 || r < reglas[d])) reglas[d] = r;
+            }
+        }
+        return new Determinista(transiciones.toArray(new int[0][]), reglas);
+    }
+
+    // Minimización por refinamiento de particiones (Moore): se empieza
+    // separando por regla y se parte cada grupo hasta que todos sus estados
+    // vayan a los mismos grupos con cada clase. El inicial queda en 0.
+    private static Determinista minimizar(Determinista d) {
+        int estados = d.reglas.length, clases = d.transiciones[0].length;
+        int[] grupo = new int[estados];
+        int grupos = numerar(grupo, s -> Collections.singletonList(s == INICIO ? -2 : d.reglas[s]));
+        while (true) {
+            final int[] anterior = grupo.clone();
+            int[] nuevo = new int[estados];
+            int cantidad = numerar(nuevo, s -> {
+                List<Integer> firma = new ArrayList<>(clases + 1);
+                firma.add(anterior[s]);
+                for (int c = 0; c < clases; c++) {
+                    int t = d.transiciones[s][c];
+                    firma.add(t >= 0 ? anterior[t] : -1);
+                }
+                return firma;
+            });
+            grupo = nuevo;
+            if (cantidad == grupos) break;
+            grupos = cantidad;
+        }
+        int[][] transiciones = new int[grupos][clases];
+        int[] reglas = new int[grupos];
+        for (int s = 0; s < estados; s++) {
+            int g = grupo[s];
+            reglas[g] = d.reglas[s];
+            for (int c = 0; c < clases; c++) {
+                int t = d.transiciones[s][c];
+                transiciones[g][c] = t >= 0 ? grupo[t] : -1;
+            }
+        }
+        return new Determinista(transiciones, reglas);
+    }
+
+    // Numera los estados por firma en orden de aparición (el 0 queda en el grupo 0)
+    private static int numerar(int[] grupo, IntFunction<List<Integer>> firma) {
+        HashMap<List<Integer>, Integer> numeros = new HashMap<>();
+        for (int s = 0; s < grupo.length; s++) {
+            List<Integer> f = firma.apply(s);
+            Integer g = numeros.get(f);
+            if (g == null) numeros.put(f, g = numeros.size());
+            grupo[s] = g;
+        }
+        return numeros.size();
+    }
+}
@@ -0,0 +1,97 @@
+package lexer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+// Texto fuente completo, codificado en UTF-8 y accesible por índice.
+// Si el archivo ya está en UTF-8 se mapea directamente (MappedByteBuffer);
+// con otro charset se transcodifica una sola vez al abrirlo.
+public class Fuente {
+    // Tamaño de bloque para leer canales que no se pueden mapear
+    private static final int BLOQUE = 1 << 20;
+
+    private final ByteBuffer datos;
+    private final int longitud;
+
+    private Fuente(ByteBuffer datos) {
+        this.datos = datos;
+        this.longitud = datos.limit();
+    }
+
+    public static Fuente abrir(String ruta, Charset charset) throws IOException {
+        try (FileInputStream in = new FileInputStream(ruta); FileChannel canal = in.getChannel()) {
+            long tamaño = canal.size();
+            if (tamaño > Integer.MAX_VALUE - 8) {
+                throw new IOException("archivo demasiado grande (máximo 2 GB): " + ruta);
+            }
+            ByteBuffer bytes;
+            try {
+                bytes = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamaño);
+            } catch (IOException | UnsupportedOperationException e) {
+                bytes = leerPorBloques(canal); // pipes, dispositivos, etc.
+            }
+            if (!charset.equals(StandardCharsets.UTF_8)) {
+                bytes = transcodificar(bytes, charset);
+            }
+            return new Fuente(bytes);
+        }
+    }
+
+    public static Fuente desdeTexto(String texto) {
+        return new Fuente(ByteBuffer.wrap(texto.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static Fuente desdeBytes(byte[] utf8, int longitud) {
+        return new Fuente(ByteBuffer.wrap(utf8, 0, longitud).slice());
+    }
+
+    // Bytes ya leídos (por ejemplo, para calcular su hash antes de compilarlos)
+    public static Fuente desdeBytes(byte[] bytes, Charset charset) {
+        ByteBuffer b = ByteBuffer.wrap(bytes);
+        return new Fuente(charset.equals(StandardCharsets.UTF_8) ? b : transcodificar(b, charset));
+    }
+
+    public static Fuente vacia() {
+        return new Fuente(ByteBuffer.allocate(0));
+    }
+
+    private static ByteBuffer leerPorBloques(FileChannel canal) throws IOException {
+        ByteBuffer bloque = ByteBuffer.allocateDirect(BLOQUE);
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        byte[] copia = new byte[BLOQUE];
+        while (canal.read(bloque) != -1) {
+            bloque.flip();
+            int n = bloque.remaining();
+            bloque.get(copia, 0, n);
+            salida.write(copia, 0, n);
+            bloque.clear();
+        }
+        return ByteBuffer.wrap(salida.toByteArray());
+    }
+
+    private static ByteBuffer transcodificar(ByteBuffer bytes, Charset charset) {
+        String texto = charset.decode(bytes).toString();
+        return ByteBuffer.wrap(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public int longitud() { return longitud; }
+
+    public byte byteEn(int i) { return datos.get(i); }
+
+    ByteBuffer datos() { return datos; }
+
+    // Decodifica el rango [inicio, inicio + n) como String
+    public String texto(int inicio, int n) {
+        if (datos.hasArray()) {
+            return new String(datos.array(), datos.arrayOffset() + inicio, n, StandardCharsets.UTF_8);
+        }
+        byte[] copia = new byte[n];
+        ByteBuffer vista = datos.duplicate();
+        vista.position(inicio);
+        vista.get(copia);
+        return new String(copia, StandardCharsets.UTF_8);
+    }
+}
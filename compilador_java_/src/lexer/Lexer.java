@@ -1,208 +1,493 @@
 package lexer;
 
 import java.io.*;
-import java.util.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.function.Consumer;
 
 public class Lexer {
-    private BufferedReader reader;
+    private final Fuente fuente;
+    private final Nombres nombres;
+    private final ByteBuffer buf;
+    private final int fin;
+    private int pos;
     private int line = 1;
-    private int currentChar;
 
-    private static final Set<String> palabrasReservadas = new HashSet<>(Arrays.asList(
-            "long", "double", "if", "then", "else", "while", "break", "read", "write",
-            "const", "true", "false", "main"
-    ));
+    // Ancho en bytes del último carácter decodificado por caracterEn()
+    private int ancho;
+    // Segunda mitad de un par sustituto pendiente de reportar (0 si no hay)
+    private char bajoPendiente;
+
+    // Inicio de la línea actual y si todo lo leído en ella es ASCII
+    // (en ese caso la columna es una resta)
+    private int inicioLinea;
+    private boolean lineaAscii = true;
+    private int cachePos = -1, cacheColumna;
+
+    // Último token reconocido
+    private int tokInicio;
+    private int tokLongitud;
+    private int tokLinea;
+    private int tokColumna;
+    private int tokValor; // id del nombre para los ID; -1 en los demás, como TokenBuffer.agregar
+    private String tokMensaje;
+
+    // Lotes en vuelo entre el hilo del lexer y el parser (tokenizarEnParalelo)
+    private static final int LOTES = 8;
+
+    // Comentarios, cadenas y espacios se saltean de a 8 bytes (ver buscar()
+    // y saltarEspacios()); sin esto se recorren byte a byte, con el mismo resultado
+    private boolean porPalabras = true;
+
+    // Máscaras para comparar los 8 bytes de un long a la vez
+    private static final long UNOS = 0x0101010101010101L;
+    private static final long BAJOS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long ALTOS = 0x8080808080808080L;
+    private static final long BLANCOS = UNOS * ' ', TABULADORES = UNOS * '\t';
+    private static final long SALTOS = UNOS * '\n', RETORNOS = UNOS * '\r';
+    // Bytes que se miran uno a uno antes de pasar a longs: la mayoría de los
+    // comentarios, cadenas y sangrías son cortos y ahí los longs no ganan
+    private static final int CORTO = 16;
+
+    // Espacios ASCII (el resto se decodifica aparte); los tokens los reconoce Automata
+    private static final boolean[] ESPACIO = new boolean[128];
+
+    static {
+        for (int c = 0; c < 128; c++) ESPACIO[c] = Character.isWhitespace(c);
+    }
 
     public Lexer(String rutaArchivo) {
+        this(rutaArchivo, Charset.defaultCharset());
+    }
+
+    public Lexer(String rutaArchivo, Charset charset) {
+        this(abrir(rutaArchivo, charset));
+    }
+
+    public Lexer(Fuente fuente) {
+        this(fuente, new Nombres());
+    }
+
+    public Lexer(Fuente fuente, Nombres nombres) {
+        this.fuente = fuente;
+        this.nombres = nombres;
+        this.buf = fuente.datos();
+        this.fin = fuente.longitud();
+    }
+
+    private static Fuente abrir(String rutaArchivo, Charset charset) {
         try {
-            reader = new BufferedReader(new FileReader(rutaArchivo));
-            reader.mark(1);
-            currentChar = reader.read();
+            return Fuente.abrir(rutaArchivo, charset);
         } catch (IOException e) {
             System.err.println("Error al abrir el archivo: " + e.getMessage());
-            currentChar = -1;
+            return Fuente.vacia();
         }
     }
 
-    private void avanzar() throws IOException {
-        currentChar = reader.read();
+    // Sigue desde 'posicion' (inicio de un token) como si viniera de leer hasta ahí:
+    // 'linea' es el número de esa línea e 'inicioLinea' dónde empieza (modo incremental)
+    public void reanudar(int posicion, int linea, int inicioLinea) {
+        pos = posicion;
+        line = linea;
+        this.inicioLinea = inicioLinea;
+        lineaAscii = true;
+        for (int p = inicioLinea; p < posicion && lineaAscii; p++) {
+            if (buf.get(p) < 0) lineaAscii = false;
+        }
+        cachePos = -1;
+        bajoPendiente = 0;
     }
 
-    private boolean esLetra(int c) {
-        return Character.isLetter(c) || c == '_';
+    public Fuente getFuente() { return fuente; }
+    public Nombres getNombres() { return nombres; }
+
+    public Lexer porPalabras(boolean activo) {
+        this.porPalabras = activo;
+        return this;
     }
 
-    private boolean esDigito(int c) {
-        return Character.isDigit(c);
+    // Devuelve el carácter (unidad UTF-16) que empieza en p y deja su ancho en 'ancho'.
+    // Los caracteres suplementarios devuelven la mitad alta del par sustituto.
+    private int caracterEn(int p) {
+        int b = buf.get(p);
+        if (b >= 0) {
+            ancho = 1;
+            return b;
+        }
+        lineaAscii = false;
+        int cp = decodificar(p);
+        if (cp > 0xFFFF) return Character.highSurrogate(cp);
+        return cp;
     }
 
-    public Token siguienteToken() {
-        try {
-            while (currentChar != -1) {
-                // Espacios y saltos de línea
-                if (Character.isWhitespace(currentChar)) {
-                    if (currentChar == '\n') line++;
-                    avanzar();
-                    continue;
+    // Decodificación UTF-8; las secuencias mal formadas producen U+FFFD
+    // con el mismo criterio que el decodificador del JDK.
+    private int decodificar(int p) {
+        int b1 = buf.get(p) & 0xFF;
+        if (b1 >= 0xC2 && b1 <= 0xDF) {
+            if (continuacion(p + 1, 0x80, 0xBF)) {
+                ancho = 2;
+                return ((b1 & 0x1F) << 6) | (buf.get(p + 1) & 0x3F);
+            }
+        } else if (b1 >= 0xE0 && b1 <= 0xEF) {
+            int min = b1 == 0xE0 ? 0xA0 : 0x80;
+            int max = b1 == 0xED ? 0x9F : 0xBF;
+            if (continuacion(p + 1, min, max)) {
+                if (continuacion(p + 2, 0x80, 0xBF)) {
+                    ancho = 3;
+                    return ((b1 & 0x0F) << 12) | ((buf.get(p + 1) & 0x3F) << 6) | (buf.get(p + 2) & 0x3F);
+                }
+                ancho = 2;
+                return 0xFFFD;
+            }
+        } else if (b1 >= 0xF0 && b1 <= 0xF4) {
+            int min = b1 == 0xF0 ? 0x90 : 0x80;
+            int max = b1 == 0xF4 ? 0x8F : 0xBF;
+            if (continuacion(p + 1, min, max)) {
+                if (!continuacion(p + 2, 0x80, 0xBF)) {
+                    ancho = 2;
+                    return 0xFFFD;
                 }
+                if (!continuacion(p + 3, 0x80, 0xBF)) {
+                    ancho = 3;
+                    return 0xFFFD;
+                }
+                ancho = 4;
+                return ((b1 & 0x07) << 18) | ((buf.get(p + 1) & 0x3F) << 12)
+                        | ((buf.get(p + 2) & 0x3F) << 6) | (buf.get(p + 3) & 0x3F);
+            }
+        }
+        ancho = 1;
+        return 0xFFFD;
+    }
 
-                // Comentarios y '/'
-                if (currentChar == '/') {
-                    avanzar();
-                    if (currentChar == '/') { // comentario de una línea
-                        while (currentChar != '\n' && currentChar != -1) avanzar();
-                        continue;
-                    } else if (currentChar == '*') { // comentario multilínea (anidado)
-                        int nivel = 1;
-                        while ((currentChar = reader.read()) != -1) {
-                            if (currentChar == '\n') line++;
-                            if (currentChar == '/') {
-                                reader.mark(1);
-                                int next = reader.read();
-                                if (next == '*') {
-                                    nivel++;
-                                } else {
-                                    reader.reset();
-                                }
-                            } else if (currentChar == '*') {
-                                reader.mark(1);
-                                int next = reader.read();
-                                if (next == '/') {
-                                    nivel--;
-                                    if (nivel == 0) {
-                                        avanzar();
-                                        break;
-                                    }
-                                } else {
-                                    reader.reset();
-                                }
-                            }
-                        }
-                        if (nivel > 0)
-                            return new Token(TokenType.ERROR, "comentario sin cierre", line, 0);
-                        continue;
-                    } else if (currentChar == '=') { // /=
-                        avanzar();
-                        return new Token(TokenType.DIV_ASSIGN, "/=", line, 0);
-                    } else {
-                        return new Token(TokenType.DIV, "/", line, 0);
-                    }
+    private boolean continuacion(int p, int min, int max) {
+        if (p >= fin) return false;
+        int b = buf.get(p) & 0xFF;
+        return b >= min && b <= max;
+    }
+
+    private boolean esEspacio(int c) {
+        return c < 128 ? ESPACIO[c] : Character.isWhitespace(c);
+    }
+
+    // Byte en p, o -1 al final de la entrada (lookahead sin consumir)
+    private int verByte(int p) {
+        return p < fin ? buf.get(p) : -1;
+    }
+
+    public Token siguienteToken() {
+        TokenType tipo = siguiente();
+        String lexema;
+        if (tipo == TokenType.ERROR) lexema = tokMensaje;
+        else if (tipo == TokenType.EOF) lexema = "EOF";
+        else if (tipo == TokenType.STRING) lexema = fuente.texto(tokInicio + 1, tokLongitud - 2);
+        else if (tipo == TokenType.ID) lexema = nombres.nombre(tokValor);
+        else lexema = fuente.texto(tokInicio, tokLongitud);
+        return new Token(tipo, lexema, tokLinea, tokColumna);
+    }
+
+    // Tokeniza toda la entrada hasta EOF (incluido)
+    public TokenBuffer tokenizar() {
+        TokenBuffer tokens = new TokenBuffer(fuente, nombres);
+        TokenType tipo;
+        do {
+            tipo = siguiente();
+            if (tipo == TokenType.ERROR) tokens.agregarError(tokMensaje, tokInicio, tokLongitud, tokLinea, tokColumna);
+            else tokens.agregar(tipo, tokInicio, tokLongitud, tokLinea, tokColumna, tokValor);
+        } while (tipo != TokenType.EOF);
+        return tokens;
+    }
+
+    // Tokeniza en un hilo propio: el TokenBuffer devuelto se va llenando por lotes
+    // mientras lo consume el parser (ver Anillo). 'envoltura' corre en el hilo del
+    // lexer alrededor de todo el trabajo, para medirlo ahí.
+    public TokenBuffer tokenizarEnParalelo(Consumer<Runnable> envoltura) {
+        Anillo anillo = new Anillo(LOTES);
+        anillo.producir(() -> envoltura.accept(() -> producir(anillo)));
+        return new TokenBuffer(fuente, nombres, anillo);
+    }
+
+    private void producir(Anillo anillo) {
+        TokenType tipo;
+        do {
+            Anillo.Lote lote = anillo.libre();
+            int n = 0;
+            do {
+                tipo = siguiente();
+                lote.tipos[n] = tipo.ordinal();
+                lote.inicios[n] = tokInicio;
+                lote.longitudes[n] = tokLongitud;
+                lote.lineas[n] = tokLinea;
+                lote.columnas[n] = tokColumna;
+                if (tipo == TokenType.ERROR) {
+                    lote.valores[n] = -1;
+                    lote.mensajes[n] = tokMensaje;
+                    lote.errores++;
+                } else {
+                    lote.valores[n] = tokValor; // como tokenizar()
                 }
+                n++;
+            } while (n < Anillo.LOTE && tipo != TokenType.EOF);
+            lote.cantidad = n;
+            anillo.publicar();
+        } while (tipo != TokenType.EOF);
+    }
+
+    // Datos del último token reconocido por siguiente()
+    public int getInicio() { return tokInicio; }
+    public int getLongitud() { return tokLongitud; }
+    public int getLinea() { return tokLinea; }
+    public int getColumna() { return tokColumna; }
+    public int getValor() { return tokValor; }
+    public String getMensaje() { return tokMensaje; }
 
-                // Identificadores o palabras reservadas
-                if (esLetra(currentChar)) {
-                    StringBuilder sb = new StringBuilder();
-                    do {
-                        sb.append((char) currentChar);
-                        avanzar();
-                    } while (esLetra(currentChar) || esDigito(currentChar));
-
-                    String lexema = sb.toString();
-                    if (palabrasReservadas.contains(lexema)) {
-                        if (lexema.equals("true") || lexema.equals("false"))
-                            return new Token(TokenType.BOOL, lexema, line, 0);
-                        return new Token(TokenType.valueOf(lexema.toUpperCase()), lexema, line, 0);
-                    } else
-                        return new Token(TokenType.ID, lexema, line, 0);
+    private TokenType token(TokenType tipo) {
+        tokLongitud = pos - tokInicio;
+        return tipo;
+    }
+
+    private TokenType error(String mensaje) {
+        tokMensaje = mensaje;
+        return token(TokenType.ERROR);
+    }
+
+    // Un NUM_INT de más de 18 cifras puede no caber en un long
+    private boolean cabeEnLong() {
+        try {
+            new BigInteger(fuente.texto(tokInicio, pos - tokInicio)).longValueExact();
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    // Fija la posición de inicio del token que empieza en pos
+    private void marcarInicio() {
+        tokInicio = pos;
+        tokValor = -1;
+        tokLinea = line;
+        tokColumna = lineaAscii ? pos - inicioLinea + 1 : columnaLenta(pos);
+    }
+
+    private void nuevaLinea() {
+        line++;
+        inicioLinea = pos;
+        lineaAscii = true;
+    }
+
+    // Columna en unidades UTF-16 cuando la línea tiene caracteres no ASCII
+    private int columnaLenta(int p) {
+        int anchoGuardado = ancho;
+        int desde = inicioLinea, col = 1;
+        if (cachePos >= inicioLinea && cachePos <= p) {
+            desde = cachePos;
+            col = cacheColumna;
+        }
+        while (desde < p) {
+            if (buf.get(desde) >= 0) {
+                desde++;
+                col++;
+            } else {
+                int cp = decodificar(desde);
+                desde += ancho;
+                col += cp > 0xFFFF ? 2 : 1;
+            }
+        }
+        cachePos = p;
+        cacheColumna = col;
+        ancho = anchoGuardado;
+        return col;
+    }
+
+    // Reconoce el siguiente token sin crear objetos; sus datos quedan en getInicio(), getLinea(), etc.
+    public TokenType siguiente() {
+        if (bajoPendiente != 0) {
+            char invalido = bajoPendiente;
+            bajoPendiente = 0;
+            tokColumna++;
+            return error("símbolo no reconocido: " + invalido);
+        }
+        while (pos < fin) {
+            int c = caracterEn(pos);
+
+            // Espacios y saltos de línea
+            if (esEspacio(c)) {
+                pos += ancho;
+                if (c == '\n') nuevaLinea();
+                pos = saltarEspacios(pos);
+                continue;
+            }
+            marcarInicio();
+
+            // Recorrido del autómata (ver Automata) mientras haya transición; los
+            // caracteres no ASCII se decodifican y siguen como letra o dígito
+            int fila = Automata.INICIO << Automata.BITS;
+            int p = pos;
+            if (c < 128) { // el primer byte ya está leído
+                int t = Automata.TRANSICIONES[fila + Automata.CLASE[c]];
+                if (t >= 0) {
+                    fila = t;
+                    p++;
+                }
+            }
+            while (p < fin) {
+                int b = buf.get(p);
+                int t = Automata.TRANSICIONES[fila + Automata.CLASE[b & 0xFF]];
+                if (t < 0) {
+                    if (b >= 0 || !Automata.UNICODE[fila >> Automata.BITS]) break;
+                    t = Automata.TRANSICIONES[fila + Automata.claseUnicode(caracterEn(p))];
+                    if (t < 0) break;
+                    p += ancho - 1;
                 }
+                fila = t;
+                p++;
+            }
+            pos = p;
+            int s = fila >> Automata.BITS;
 
-                // Números (enteros o reales)
-                if (esDigito(currentChar)) {
-                    StringBuilder sb = new StringBuilder();
-                    boolean esReal = false;
-                    while (esDigito(currentChar)) {
-                        sb.append((char) currentChar);
-                        avanzar();
+            switch (Automata.ACCIONES[s]) {
+                case Automata.TOKEN: // true/false ya vienen como BOOL
+                    if (Automata.TIPOS[s] == TokenType.NUM_INT && pos - tokInicio > 18 && !cabeEnLong()) {
+                        return error("literal entero fuera de rango: " + fuente.texto(tokInicio, pos - tokInicio));
                     }
-                    if (currentChar == '.') {
-                        esReal = true;
-                        sb.append('.');
-                        avanzar();
-                        if (!esDigito(currentChar)) {
-                            return new Token(TokenType.ERROR, "formato de número real inválido", line, 0);
-                        }
-                        while (esDigito(currentChar)) {
-                            sb.append((char) currentChar);
-                            avanzar();
+                    return token(Automata.TIPOS[s]);
+                case Automata.NOMBRE:
+                    tokValor = nombres.internar(buf, tokInicio, pos - tokInicio);
+                    return token(TokenType.ID);
+                case Automata.ERROR:
+                    return error(Automata.MENSAJES[s]);
+                case Automata.LINEA:
+                    pos = buscar(pos, '\n', '\n', '\n');
+                    continue;
+                case Automata.BLOQUE: { // comentario multilínea (anidado)
+                    int nivel = 1;
+                    while ((pos = buscar(pos, '*', '/', '\n')) < fin) {
+                        byte b = buf.get(pos++);
+                        if (b == '\n') {
+                            nuevaLinea();
+                        } else if (b == '/') {
+                            if (verByte(pos) == '*') {
+                                pos++;
+                                nivel++;
+                            }
+                        } else if (b == '*') {
+                            if (verByte(pos) == '/') {
+                                pos++;
+                                nivel--;
+                                if (nivel == 0) break;
+                            }
                         }
                     }
-                    return new Token(esReal ? TokenType.NUM_REAL : TokenType.NUM_INT, sb.toString(), line, 0);
+                    if (nivel > 0)
+                        return error("comentario sin cierre");
+                    continue;
                 }
-
-                // Cadenas
-                if (currentChar == '"') {
-                    StringBuilder sb = new StringBuilder();
-                    avanzar();
-                    while (currentChar != '"' && currentChar != -1) {
-                        if (currentChar == '\n') line++;
-                        sb.append((char) currentChar);
-                        avanzar();
+                case Automata.CADENA:
+                    while ((pos = buscar(pos, '"', '\n', '"')) < fin && buf.get(pos) == '\n') {
+                        pos++;
+                        nuevaLinea();
                     }
-                    if (currentChar == '"') {
-                        avanzar();
-                        return new Token(TokenType.STRING, sb.toString(), line, 0);
+                    if (pos < fin) {
+                        pos++;
+                        return token(TokenType.STRING);
                     } else {
-                        return new Token(TokenType.ERROR, "cadena sin cierre", line, 0);
+                        return error("cadena sin cierre");
+                    }
+                default: // ninguna transición desde el inicio: c sigue siendo el carácter en pos
+                    pos += ancho;
+                    if (Character.isHighSurrogate((char) c)) {
+                        bajoPendiente = Character.lowSurrogate(decodificar(tokInicio));
                     }
+                    char invalido = (char) c;
+                    return error("símbolo no reconocido: " + invalido);
+            }
+        }
+        marcarInicio();
+        tokLongitud = 0;
+        return TokenType.EOF;
+    }
+
+    // -----------------------
+    // Saltos de a 8 bytes (SWAR): cada byte de un long se compara sin acarreos
+    // entre bytes y el primero que coincide sale de numberOfLeadingZeros
+    // (los ByteBuffer son big-endian: el primer byte es el más alto). Lo que no
+    // completa un long se recorre byte a byte.
+    // -----------------------
+    // 0x80 en cada byte de y que vale 0, 0 en los demás (exacto)
+    private static long ceros(long y) {
+        return ~(((y & BAJOS) + BAJOS) | y | BAJOS);
+    }
+
+    // Primera posición desde p con el byte a, b o c (fin si no hay). Si en lo
+    // salteado hay bytes no ASCII, la línea deja de ser ASCII
+    private int buscar(int p, int a, int b, int c) {
+        for (int corto = Math.min(fin, p + CORTO); p < corto; p++) {
+            int v = buf.get(p);
+            if (v == a || v == b || v == c) return p;
+            if (v < 0) lineaAscii = false;
+        }
+        if (porPalabras) {
+            long pa = UNOS * a, pb = UNOS * b, pc = UNOS * c;
+            for (; p <= fin - 8; p += 8) {
+                long x = buf.getLong(p);
+                long m = ceros(x ^ pa) | ceros(x ^ pb) | ceros(x ^ pc);
+                if (m != 0) {
+                    int antes = Long.numberOfLeadingZeros(m) & ~7; // bits de los bytes anteriores
+                    if ((x & ALTOS & ~(-1L >>> antes)) != 0) lineaAscii = false;
+                    return p + (antes >>> 3);
                 }
+                if ((x & ALTOS) != 0) lineaAscii = false;
+            }
+        }
+        for (; p < fin; p++) {
+            int v = buf.get(p);
+            if (v == a || v == b || v == c) return p;
+            if (v < 0) lineaAscii = false;
+        }
+        return p;
+    }
 
-                // Operadores y signos
-                switch (currentChar) {
-                    case '+':
-                        avanzar();
-                        if (currentChar == '=') { avanzar(); return new Token(TokenType.PLUS_ASSIGN, "+=", line, 0); }
-                        return new Token(TokenType.PLUS, "+", line, 0);
-                    case '-':
-                        avanzar();
-                        if (currentChar == '=') { avanzar(); return new Token(TokenType.MINUS_ASSIGN, "-=", line, 0); }
-                        return new Token(TokenType.MINUS, "-", line, 0);
-                    case '*':
-                        avanzar();
-                        if (currentChar == '=') { avanzar(); return new Token(TokenType.MULT_ASSIGN, "*=", line, 0); }
-                        return new Token(TokenType.MULT, "*", line, 0);
-                    case '>':
-                        avanzar();
-                        if (currentChar == '=') { avanzar(); return new Token(TokenType.GE, ">=", line, 0); }
-                        return new Token(TokenType.GT, ">", line, 0);
-                    case '<':
-                        avanzar();
-                        if (currentChar == '=') { avanzar(); return new Token(TokenType.LE, "<=", line, 0); }
-                        if (currentChar == '>') { avanzar(); return new Token(TokenType.NEQ, "<>", line, 0); }
-                        return new Token(TokenType.LT, "<", line, 0);
-                    case '=':
-                        avanzar();
-                        if (currentChar == '=') { avanzar(); return new Token(TokenType.EQ, "==", line, 0); }
-                        return new Token(TokenType.ASSIGN, "=", line, 0);
-                    case '!':
-                        avanzar();
-                        if (currentChar == '=') { avanzar(); return new Token(TokenType.NEQ, "!=", line, 0); }
-                        return new Token(TokenType.NOT, "!", line, 0);
-                    case '&':
-                        avanzar();
-                        if (currentChar == '&') { avanzar(); return new Token(TokenType.AND, "&&", line, 0); }
-                        else return new Token(TokenType.ERROR, "símbolo '&' inválido, ¿quiziste '&&'?", line, 0);
-                    case '|':
-                        avanzar();
-                        if (currentChar == '|') { avanzar(); return new Token(TokenType.OR, "||", line, 0); }
-                        else return new Token(TokenType.ERROR, "símbolo '|' inválido, ¿quiziste '||'?", line, 0);
-                    case ';': avanzar(); return new Token(TokenType.SEMICOLON, ";", line, 0);
-                    case '(': avanzar(); return new Token(TokenType.LPAREN, "(", line, 0);
-                    case ')': avanzar(); return new Token(TokenType.RPAREN, ")", line, 0);
-                    case '{': avanzar(); return new Token(TokenType.LBRACE, "{", line, 0);
-                    case '}': avanzar(); return new Token(TokenType.RBRACE, "}", line, 0);
-                    case '[': avanzar(); return new Token(TokenType.LBRACKET, "[", line, 0);
-                    case ']': avanzar(); return new Token(TokenType.RBRACKET, "]", line, 0);
-                    case ',': avanzar(); return new Token(TokenType.COMMA, ",", line, 0);
-
-                    default:
-                        char invalido = (char) currentChar;
-                        avanzar();
-                        return new Token(TokenType.ERROR, "símbolo no reconocido: " + invalido, line, 0);
+    // Primera posición desde p que no es blanco, tabulador ni salto de línea
+    // (los demás espacios siguen por siguiente()); cuenta las líneas salteadas
+    private int saltarEspacios(int p) {
+        for (int corto = Math.min(fin, p + CORTO); p < corto; p++) {
+            if (!espacioAscii(p)) return p;
+        }
+        if (porPalabras) {
+            for (; p <= fin - 8; p += 8) {
+                long x = buf.getLong(p);
+                long saltos = ceros(x ^ SALTOS);
+                long otros = ~(ceros(x ^ BLANCOS) | ceros(x ^ TABULADORES) | ceros(x ^ RETORNOS) | saltos) & ALTOS;
+                int antes = 64;
+                if (otros != 0) {
+                    antes = Long.numberOfLeadingZeros(otros) & ~7;
+                    saltos &= ~(-1L >>> antes); // solo los saltos anteriores al primer otro byte
                 }
+                if (saltos != 0) {
+                    line += Long.bitCount(saltos);
+                    inicioLinea = p + 8 - (Long.numberOfTrailingZeros(saltos) >>> 3); // tras el último
+                    lineaAscii = true;
+                }
+                if (otros != 0) return p + (antes >>> 3);
             }
-            return new Token(TokenType.EOF, "EOF", line, 0);
-        } catch (IOException e) {
-            return new Token(TokenType.ERROR, "error de lectura: " + e.getMessage(), line, 0);
         }
+        for (; p < fin; p++) {
+            if (!espacioAscii(p)) return p;
+        }
+        return p;
+    }
+
+    // Como el camino de siguiente() para ' ', '\t', '\r' y '\n'
+    private boolean espacioAscii(int p) {
+        int v = buf.get(p);
+        if (v == '\n') {
+            line++;
+            inicioLinea = p + 1;
+            lineaAscii = true;
+            return true;
+        }
+        return v == ' ' || v == '\t' || v == '\r';
     }
 }
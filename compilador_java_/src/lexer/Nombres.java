@@ -0,0 +1,106 @@
+package lexer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Tabla de internado de identificadores: cada nombre distinto recibe un id
+// entero (0, 1, 2, ...) que comparten el lexer, el parser y la tabla de símbolos.
+// Trabaja sobre los bytes UTF-8 del fuente; el String se crea una sola vez por nombre.
+public class Nombres {
+    private int[] ranuras = new int[256];  // id + 1, o 0 si está libre
+    private int[] hashes = new int[64];
+    private int[] offsets = new int[65];   // posición del nombre en 'bytes'
+    private byte[] bytes = new byte[1024];
+    private int usados;                    // bytes ocupados
+    // volatile: con el lexer en otro hilo, el parser pide nombres de ids ya
+    // publicados mientras acá se sigue internando (y el arreglo puede crecer)
+    private volatile String[] textos = new String[64];
+    private int tamaño;
+
+    public int tamaño() { return tamaño; }
+
+    public String nombre(int id) { return textos[id]; }
+
+    public int internar(String nombre) {
+        byte[] b = nombre.getBytes(StandardCharsets.UTF_8);
+        return internar(ByteBuffer.wrap(b), 0, b.length);
+    }
+
+    // Id del nombre si ya está internado, o -1
+    public int buscar(String nombre) {
+        byte[] b = nombre.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buf = ByteBuffer.wrap(b);
+        int h = hash(buf, 0, b.length);
+        int mascara = ranuras.length - 1;
+        for (int i = h & mascara; ranuras[i] != 0; i = (i + 1) & mascara) {
+            int id = ranuras[i] - 1;
+            if (hashes[id] == h && iguales(id, buf, 0, b.length)) return id;
+        }
+        return -1;
+    }
+
+    public int internar(ByteBuffer buf, int inicio, int longitud) {
+        int h = hash(buf, inicio, longitud);
+        int mascara = ranuras.length - 1;
+        int i = h & mascara;
+        while (ranuras[i] != 0) {
+            int id = ranuras[i] - 1;
+            if (hashes[id] == h && iguales(id, buf, inicio, longitud)) return id;
+            i = (i + 1) & mascara;
+        }
+        int id = agregar(buf, inicio, longitud, h);
+        ranuras[i] = id + 1;
+        if (tamaño * 2 > ranuras.length) redimensionar();
+        return id;
+    }
+
+    private int agregar(ByteBuffer buf, int inicio, int longitud, int h) {
+        if (tamaño == textos.length) {
+            int n = tamaño * 2;
+            hashes = Arrays.copyOf(hashes, n);
+            offsets = Arrays.copyOf(offsets, n + 1);
+            textos = Arrays.copyOf(textos, n);
+        }
+        if (usados + longitud > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, usados + longitud));
+        }
+        for (int k = 0; k < longitud; k++) bytes[usados + k] = buf.get(inicio + k);
+        int id = tamaño++;
+        hashes[id] = h;
+        offsets[id] = usados;
+        offsets[id + 1] = usados + longitud;
+        textos[id] = new String(bytes, usados, longitud, StandardCharsets.UTF_8);
+        usados += longitud;
+        return id;
+    }
+
+    private boolean iguales(int id, ByteBuffer buf, int inicio, int longitud) {
+        int desde = offsets[id];
+        if (offsets[id + 1] - desde != longitud) return false;
+        for (int k = 0; k < longitud; k++) {
+            if (bytes[desde + k] != buf.get(inicio + k)) return false;
+        }
+        return true;
+    }
+
+    private void redimensionar() {
+        int[] nuevas = new int[ranuras.length * 2];
+        int mascara = nuevas.length - 1;
+        for (int id = 0; id < tamaño; id++) {
+            int i = hashes[id] & mascara;
+            while (nuevas[i] != 0) i = (i + 1) & mascara;
+            nuevas[i] = id + 1;
+        }
+        ranuras = nuevas;
+    }
+
+    // FNV-1a sobre los bytes, con mezcla final para repartir los bits bajos
+    private static int hash(ByteBuffer buf, int inicio, int longitud) {
+        int h = 0x811C9DC5;
+        for (int k = 0; k < longitud; k++) {
+            h = (h ^ (buf.get(inicio + k) & 0xFF)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -16,9 +16,10 @@ public class Token {
     public TokenType getType() { return type; }
     public String getLexeme() { return lexeme; }
     public int getLine() { return line; }
+    public int getColumn() { return column; }
 
     @Override
     public String toString() {
-        return String.format("[%s] '%s' (línea %d)", type, lexeme, line);
+        return String.format("[%s] '%s' (línea %d, columna %d)", type, lexeme, line, column);
     }
 }
@@ -0,0 +1,180 @@
+package lexer;
+
+import java.util.*;
+
+// Secuencia de tokens en arreglos paralelos (tipo, inicio, longitud, línea, columna
+// y, para los ID, el id del nombre en la tabla de Nombres).
+// Los lexemas no se copian: son rangos de la Fuente y solo se convierten
+// a String cuando alguien los pide.
+// Con el lexer en otro hilo los tokens llegan por lotes: el consumidor pide
+// con cargar() los que necesita y los que no están todavía se esperan.
+public class TokenBuffer {
+    private static final TokenType[] TIPOS = TokenType.values();
+
+    private final Fuente fuente;
+    private final Nombres nombres;
+    private int[] tipos;
+    private int[] inicios;
+    private int[] longitudes;
+    private int[] lineas;
+    private int[] columnas;
+    private int[] valores; // id del nombre (ID)
+    private int tamaño;
+
+    // Mensajes de los tokens ERROR, indexados por posición del token (se crea con el primero)
+    private HashMap<Integer, String> mensajes;
+
+    // De dónde llegan los tokens que faltan (null si ya están todos)
+    private Anillo anillo;
+
+    public TokenBuffer(Fuente fuente, Nombres nombres) {
+        this(fuente, nombres, Math.max(16, fuente.longitud() / 8));
+    }
+
+    public TokenBuffer(Fuente fuente, Nombres nombres, int capacidad) {
+        this.fuente = fuente;
+        this.nombres = nombres;
+        tipos = new int[capacidad];
+        inicios = new int[capacidad];
+        longitudes = new int[capacidad];
+        lineas = new int[capacidad];
+        columnas = new int[capacidad];
+        valores = new int[capacidad];
+    }
+
+    TokenBuffer(Fuente fuente, Nombres nombres, Anillo anillo) {
+        this(fuente, nombres);
+        this.anillo = anillo;
+    }
+
+    public void agregar(TokenType tipo, int inicio, int longitud, int linea, int columna) {
+        agregar(tipo, inicio, longitud, linea, columna, -1);
+    }
+
+    public void agregar(TokenType tipo, int inicio, int longitud, int linea, int columna, int valor) {
+        if (tamaño == tipos.length) crecer();
+        tipos[tamaño] = tipo.ordinal();
+        inicios[tamaño] = inicio;
+        longitudes[tamaño] = longitud;
+        lineas[tamaño] = linea;
+        columnas[tamaño] = columna;
+        valores[tamaño] = valor;
+        tamaño++;
+    }
+
+    public void agregarError(String mensaje, int inicio, int longitud, int linea, int columna) {
+        if (mensajes == null) mensajes = new HashMap<>();
+        mensajes.put(tamaño, mensaje);
+        agregar(TokenType.ERROR, inicio, longitud, linea, columna);
+    }
+
+    // Copia los tokens [desde, hasta) de 'otro' corriendo inicio y línea (modo incremental)
+    public void agregar(TokenBuffer otro, int desde, int hasta, int deltaInicio, int deltaLinea) {
+        for (int i = desde; i < hasta; i++) {
+            int inicio = otro.inicios[i] + deltaInicio, linea = otro.lineas[i] + deltaLinea;
+            if (otro.tipos[i] == TokenType.ERROR.ordinal()) {
+                agregarError(otro.mensajes.get(i), inicio, otro.longitudes[i], linea, otro.columnas[i]);
+            } else {
+                agregar(otro.tipo(i), inicio, otro.longitudes[i], linea, otro.columnas[i], otro.valores[i]);
+            }
+        }
+    }
+
+    // Trae lotes hasta tener el token i o todos los que hay; devuelve tamaño()
+    public int cargar(int i) {
+        while (i >= tamaño && anillo != null) recibir();
+        return tamaño;
+    }
+
+    // Trae todo lo que falta y espera a que termine el hilo del lexer
+    public void completar() {
+        while (anillo != null) recibir();
+    }
+
+    private void recibir() {
+        Anillo.Lote lote;
+        try {
+            lote = anillo.tomar();
+        } catch (RuntimeException | Error e) {
+            anillo = null; // el lexer falló: no llega nada más
+            throw e;
+        }
+        int n = lote.cantidad;
+        while (tamaño + n > tipos.length) crecer();
+        System.arraycopy(lote.tipos, 0, tipos, tamaño, n);
+        System.arraycopy(lote.inicios, 0, inicios, tamaño, n);
+        System.arraycopy(lote.longitudes, 0, longitudes, tamaño, n);
+        System.arraycopy(lote.lineas, 0, lineas, tamaño, n);
+        System.arraycopy(lote.columnas, 0, columnas, tamaño, n);
+        System.arraycopy(lote.valores, 0, valores, tamaño, n);
+        for (int k = 0; k < n && lote.errores > 0; k++) {
+            if (lote.mensajes[k] == null) continue;
+            if (mensajes == null) mensajes = new HashMap<>();
+            mensajes.put(tamaño + k, lote.mensajes[k]);
+            lote.mensajes[k] = null;
+            lote.errores--;
+        }
+        tamaño += n;
+        boolean fin = tipos[tamaño - 1] == TokenType.EOF.ordinal();
+        anillo.liberar();
+        if (fin) {
+            anillo.terminar();
+            anillo = null;
+        }
+    }
+
+    private void crecer() {
+        int n = tipos.length * 2;
+        tipos = Arrays.copyOf(tipos, n);
+        inicios = Arrays.copyOf(inicios, n);
+        longitudes = Arrays.copyOf(longitudes, n);
+        lineas = Arrays.copyOf(lineas, n);
+        columnas = Arrays.copyOf(columnas, n);
+        valores = Arrays.copyOf(valores, n);
+    }
+
+    public Fuente getFuente() { return fuente; }
+    public Nombres getNombres() { return nombres; }
+    public int tamaño() { return tamaño; }
+
+    public TokenType tipo(int i) { return TIPOS[tipos[i]]; }
+    public int ordinal(int i) { return tipos[i]; } // TokenType.ordinal() sin pasar por el enum
+    public int inicio(int i) { return inicios[i]; }
+    public int longitud(int i) { return longitudes[i]; }
+    public int linea(int i) { return lineas[i]; }
+    public int columna(int i) { return columnas[i]; }
+    public int valor(int i) { return valores[i]; }
+
+    public String lexema(int i) {
+        switch (TIPOS[tipos[i]]) {
+            case EOF:
+                return "EOF";
+            case ERROR:
+                return mensajes.get(i);
+            case STRING: // sin las comillas
+                return fuente.texto(inicios[i] + 1, longitudes[i] - 2);
+            case ID:
+                return nombres.nombre(valores[i]);
+            default:
+                return fuente.texto(inicios[i], longitudes[i]);
+        }
+    }
+
+    // Valor de un NUM_INT sin pasar por String. El lexer ya rechazó los que no
+    // caben en un long (ver Lexer.cabeEnLong), así que no se reduce módulo 2^64.
+    public long valorEntero(int i) {
+        int p = inicios[i], fin = p + longitudes[i];
+        if (longitudes[i] > 18) return new java.math.BigInteger(lexema(i)).longValueExact();
+        long v = 0;
+        for (; p < fin; p++) {
+            int d = fuente.byteEn(p) - '0';
+            if (d < 0 || d > 9) return new java.math.BigInteger(lexema(i)).longValueExact();
+            v = v * 10 + d;
+        }
+        return v;
+    }
+
+    public Token token(int i) {
+        return new Token(tipo(i), lexema(i), lineas[i], columnas[i]);
+    }
+}
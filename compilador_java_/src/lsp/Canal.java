@@ -0,0 +1,65 @@
+package lsp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Transporte de LSP: cada mensaje es un encabezado "Content-Length: n" y una
+// línea vacía, seguidos de n bytes de JSON en UTF-8
+final class Canal {
+    private final InputStream in;
+    private final OutputStream out;
+
+    Canal(InputStream in, OutputStream out) {
+        this.in = new BufferedInputStream(in);
+        this.out = new BufferedOutputStream(out);
+    }
+
+    // Siguiente mensaje, o null si se cerró la entrada
+    Object leer() throws IOException {
+        int largo = -1;
+        while (true) {
+            String linea = encabezado();
+            if (linea == null) return null;
+            if (linea.isEmpty()) {
+                if (largo >= 0) break;
+                continue; // líneas vacías sueltas entre mensajes
+            }
+            int dos = linea.indexOf(':');
+            if (dos > 0 && linea.substring(0, dos).trim().equalsIgnoreCase("Content-Length")) {
+                largo = Integer.parseInt(linea.substring(dos + 1).trim());
+            }
+        }
+        byte[] cuerpo = new byte[largo];
+        int leidos = 0;
+        while (leidos < largo) {
+            int n = in.read(cuerpo, leidos, largo - leidos);
+            if (n < 0) return null;
+            leidos += n;
+        }
+        return Json.leer(new String(cuerpo, StandardCharsets.UTF_8));
+    }
+
+    // Una línea del encabezado sin el \r\n; null en fin de entrada
+    private String encabezado() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c == '\n') {
+                int n = sb.length();
+                if (n > 0 && sb.charAt(n - 1) == '\r') sb.setLength(n - 1);
+                return sb.toString();
+            }
+            sb.append((char) c);
+        }
+        return null;
+    }
+
+    // Lo usan el hilo lector y el de análisis
+    synchronized void escribir(Map<String, Object> mensaje) throws IOException {
+        byte[] cuerpo = Json.escribir(mensaje).getBytes(StandardCharsets.UTF_8);
+        out.write(("Content-Length: " + cuerpo.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(cuerpo);
+        out.flush();
+    }
+}
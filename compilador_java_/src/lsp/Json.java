@@ -0,0 +1,234 @@
+package lsp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// JSON mínimo para los mensajes de LSP: objetos como LinkedHashMap, arreglos
+// como ArrayList, números como Long o Double, y String, Boolean o null
+final class Json {
+    private final String s;
+    private int pos;
+
+    private Json(String s) {
+        this.s = s;
+    }
+
+    static Object leer(String texto) {
+        Json j = new Json(texto);
+        j.espacios();
+        Object v = j.valor();
+        j.espacios();
+        if (j.pos != texto.length()) throw j.error("texto de más");
+        return v;
+    }
+
+    private IllegalArgumentException error(String mensaje) {
+        return new IllegalArgumentException("JSON inválido en " + pos + ": " + mensaje);
+    }
+
+    private void espacios() {
+        while (pos < s.length() && s.charAt(pos) <= ' ') pos++;
+    }
+
+    private Object valor() {
+        if (pos >= s.length()) throw error("fin inesperado");
+        char c = s.charAt(pos);
+        switch (c) {
+            case '{': return objeto();
+            case '[': return arreglo();
+            case '"': return cadena();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return numero();
+                throw error("carácter inesperado '" + c + "'");
+        }
+    }
+
+    private Object literal(String palabra, Object v) {
+        if (!s.startsWith(palabra, pos)) throw error("se esperaba " + palabra);
+        pos += palabra.length();
+        return v;
+    }
+
+    private Map<String, Object> objeto() {
+        LinkedHashMap<String, Object> m = new LinkedHashMap<>();
+        pos++;
+        espacios();
+        if (pos < s.length() && s.charAt(pos) == '}') {
+            pos++;
+            return m;
+        }
+        while (true) {
+            espacios();
+            if (pos >= s.length() || s.charAt(pos) != '"') throw error("se esperaba una clave");
+            String clave = cadena();
+            espacios();
+            if (pos >= s.length() || s.charAt(pos) != ':') throw error("se esperaba ':'");
+            pos++;
+            espacios();
+            m.put(clave, valor());
+            espacios();
+            if (pos >= s.length()) throw error("objeto sin cerrar");
+            char c = s.charAt(pos++);
+            if (c == '}') return m;
+            if (c != ',') throw error("se esperaba ',' o '}'");
+        }
+    }
+
+    private List<Object> arreglo() {
+        ArrayList<Object> l = new ArrayList<>();
+        pos++;
+        espacios();
+        if (pos < s.length() && s.charAt(pos) == ']') {
+            pos++;
+            return l;
+        }
+        while (true) {
+            espacios();
+            l.add(valor());
+            espacios();
+            if (pos >= s.length()) throw error("arreglo sin cerrar");
+            char c = s.charAt(pos++);
+            if (c == ']') return l;
+            if (c != ',') throw error("se esperaba ',' o ']'");
+        }
+    }
+
+    private String cadena() {
+        pos++;
+        StringBuilder sb = null;
+        int desde = pos;
+        while (true) {
+            if (pos >= s.length()) throw error("cadena sin cerrar");
+            char c = s.charAt(pos);
+            if (c == '"') {
+                String r = sb == null ? s.substring(desde, pos) : sb.append(s, desde, pos).toString();
+                pos++;
+                return r;
+            }
+            if (c != '\\') {
+                pos++;
+                continue;
+            }
+            if (sb == null) sb = new StringBuilder();
+            sb.append(s, desde, pos);
+            if (pos + 1 >= s.length()) throw error("escape incompleto");
+            char e = s.charAt(pos + 1);
+            pos += 2;
+            switch (e) {
+                case 'n': sb.append('\n'); break;
+                case 't': sb.append('\t'); break;
+                case 'r': sb.append('\r'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'u':
+                    if (pos + 4 > s.length()) throw error("escape \\u incompleto");
+                    sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default: sb.append(e); // " \ /
+            }
+            desde = pos;
+        }
+    }
+
+    private Object numero() {
+        int desde = pos;
+        if (s.charAt(pos) == '-') pos++;
+        boolean decimal = false;
+        while (pos < s.length()) {
+            char c = s.charAt(pos);
+            if (c == '.' || c == 'e' || c == 'E' || c == '+' || (c == '-' && pos > desde)) decimal = true;
+            else if (c < '0' || c > '9') break;
+            pos++;
+        }
+        String t = s.substring(desde, pos);
+        return decimal ? (Object) Double.parseDouble(t) : (Object) Long.parseLong(t);
+    }
+
+    // -----------------------
+    // Escritura
+    // -----------------------
+    static String escribir(Object v) {
+        StringBuilder sb = new StringBuilder();
+        escribir(sb, v);
+        return sb.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    static void escribir(StringBuilder sb, Object v) {
+        if (v == null) {
+            sb.append("null");
+        } else if (v instanceof String) {
+            cadena(sb, (String) v);
+        } else if (v instanceof Number || v instanceof Boolean) {
+            sb.append(v);
+        } else if (v instanceof Map) {
+            sb.append('{');
+            boolean primero = true;
+            for (Map.Entry<String, Object> e : ((Map<String, Object>) v).entrySet()) {
+                if (!primero) sb.append(',');
+                primero = false;
+                cadena(sb, e.getKey());
+                sb.append(':');
+                escribir(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (v instanceof List) {
+            sb.append('[');
+            boolean primero = true;
+            for (Object o : (List<Object>) v) {
+                if (!primero) sb.append(',');
+                primero = false;
+                escribir(sb, o);
+            }
+            sb.append(']');
+        } else {
+            throw new IllegalArgumentException("no se puede escribir como JSON: " + v.getClass());
+        }
+    }
+
+    static void cadena(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    // Armado de objetos: objeto("clave", valor, "clave", valor, ...)
+    static Map<String, Object> objeto(Object... pares) {
+        LinkedHashMap<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < pares.length; i += 2) m.put((String) pares[i], pares[i + 1]);
+        return m;
+    }
+
+    // Acceso por ruta: campo(mensaje, "params", "textDocument", "uri")
+    @SuppressWarnings("unchecked")
+    static Object campo(Object v, String... ruta) {
+        for (String clave : ruta) {
+            if (!(v instanceof Map)) return null;
+            v = ((Map<String, Object>) v).get(clave);
+        }
+        return v;
+    }
+
+    static int entero(Object v, String... ruta) {
+        Object o = campo(v, ruta);
+        return o instanceof Number ? ((Number) o).intValue() : 0;
+    }
+}
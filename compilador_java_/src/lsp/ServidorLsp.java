@@ -0,0 +1,336 @@
+package lsp;
+
+import errores.Diagnostico;
+import incremental.Documento;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import simbolos.Simbolo;
+import simbolos.Tipo;
+
+// Servidor de Language Server Protocol sobre stdin/stdout (--lsp).
+//
+// El hilo que lee mensajes no analiza: encola. Un único hilo de análisis es
+// dueño de los Documento (el estado de cada archivo abierto, en memoria) y
+// atiende en orden los cambios y los pedidos. Los cambios que llegan mientras
+// tanto se juntan: una sola pasada aplica todos los pendientes de un archivo y
+// los diagnósticos se publican solo si no llegó nada más. Un texto completo
+// nuevo cancela el análisis inicial que esté en curso para ese archivo, y
+// $/cancelRequest cancela los pedidos que todavía no se atendieron.
+// 'shutdown' se responde por la misma cola, detrás de lo pendiente, y 'exit'
+// espera a que el hilo de análisis la vacíe.
+//
+// Capacidades: diagnósticos (léxicos, sintácticos y semánticos del Parser),
+// hover con el tipo y la línea de la declaración, ir a la definición y
+// símbolos del documento.
+public class ServidorLsp {
+    private static final long PILA = 256L << 20; // anidamientos profundos, como en Main
+
+    // Códigos de error de JSON-RPC / LSP
+    private static final int PEDIDO_INVALIDO = -32600, METODO_DESCONOCIDO = -32601, ERROR_INTERNO = -32603;
+    private static final int NO_INICIALIZADO = -32002, CANCELADO = -32800;
+
+    // Última tarea de la cola: el hilo de análisis termina al llegar a ella
+    private static final Runnable FIN = () -> { };
+
+    private final Canal canal;
+    private final ConcurrentHashMap<String, Estado> documentos = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Runnable> cola = new LinkedBlockingQueue<>();
+    private final Set<Object> cancelados = ConcurrentHashMap.newKeySet();
+    private boolean inicializado, apagado;
+
+    public ServidorLsp(InputStream in, OutputStream out) {
+        this.canal = new Canal(in, out);
+    }
+
+    // Atiende hasta 'exit' o el fin de la entrada; devuelve el código de salida
+    public int atender() throws IOException {
+        Thread analisis = new Thread(null, this::analizar, "lsp-analisis", PILA);
+        analisis.setDaemon(true);
+        analisis.start();
+        try {
+            Object mensaje;
+            while ((mensaje = canal.leer()) != null) {
+                String metodo = (String) Json.campo(mensaje, "method");
+                Object id = Json.campo(mensaje, "id");
+                if ("exit".equals(metodo)) return apagado ? 0 : 1;
+                if (metodo == null) continue; // respuesta del cliente: no pedimos nada
+                try {
+                    despachar(metodo, id, Json.campo(mensaje, "params"));
+                } catch (RuntimeException e) {
+                    if (id != null) responderError(id, ERROR_INTERNO, e.toString());
+                }
+            }
+            return 1;
+        } finally {
+            // Se atiende lo que quedó en la cola antes de salir
+            cola.add(FIN);
+            try {
+                analisis.join();
+            } catch (InterruptedException e) {
+                analisis.interrupt();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void despachar(String metodo, Object id, Object params) throws IOException {
+        if (!inicializado && !metodo.equals("initialize")) {
+            if (id != null) responderError(id, NO_INICIALIZADO, "falta initialize");
+            return;
+        }
+        if (apagado) { // después de shutdown solo se espera 'exit'
+            if (id != null) responderError(id, PEDIDO_INVALIDO, "el servidor se está apagando");
+            return;
+        }
+        switch (metodo) {
+            case "initialize":
+                inicializado = true;
+                responder(id, Json.objeto(
+                        "capabilities", Json.objeto(
+                                "textDocumentSync", Json.objeto("openClose", true, "change", 2), // incremental
+                                "hoverProvider", true,
+                                "definitionProvider", true,
+                                "documentSymbolProvider", true),
+                        "serverInfo", Json.objeto("name", "compilador_java")));
+                break;
+            case "shutdown":
+                apagado = true;
+                cola.add(() -> {
+                    try {
+                        responder(id, null);
+                    } catch (IOException e) {
+                        // el cliente cerró la salida
+                    }
+                });
+                break;
+            case "$/cancelRequest":
+                cancelados.add(Json.campo(params, "id"));
+                break;
+            case "textDocument/didOpen": {
+                String uri = (String) Json.campo(params, "textDocument", "uri");
+                Estado e = new Estado(uri);
+                Estado previo = documentos.put(uri, e);
+                if (previo != null) previo.cerrar();
+                e.reemplazar((String) Json.campo(params, "textDocument", "text"),
+                        Json.entero(params, "textDocument", "version"));
+                break;
+            }
+            case "textDocument/didChange": {
+                Estado e = documentos.get((String) Json.campo(params, "textDocument", "uri"));
+                if (e != null) e.cambiar((List<?>) Json.campo(params, "contentChanges"),
+                        Json.entero(params, "textDocument", "version"));
+                break;
+            }
+            case "textDocument/didClose": {
+                String uri = (String) Json.campo(params, "textDocument", "uri");
+                Estado e = documentos.remove(uri);
+                if (e != null) e.cerrar();
+                notificar("textDocument/publishDiagnostics", Json.objeto("uri", uri, "diagnostics", new ArrayList<>()));
+                break;
+            }
+            case "textDocument/hover":
+            case "textDocument/definition":
+            case "textDocument/documentSymbol":
+                cola.add(() -> pedido(metodo, id, params));
+                break;
+            default:
+                if (id != null) responderError(id, METODO_DESCONOCIDO, "método no soportado: " + metodo);
+        }
+    }
+
+    // -----------------------
+    // Hilo de análisis
+    // -----------------------
+    private void analizar() {
+        try {
+            while (true) {
+                Runnable tarea = cola.take();
+                if (tarea == FIN) return;
+                try {
+                    tarea.run();
+                } catch (RuntimeException | StackOverflowError e) {
+                    System.err.println("Error interno del servidor LSP: " + e);
+                }
+            }
+        } catch (InterruptedException e) {
+            // fin del servidor
+        }
+    }
+
+    private void pedido(String metodo, Object id, Object params) {
+        try {
+            if (cancelados.remove(id)) {
+                responderError(id, CANCELADO, "cancelado");
+                return;
+            }
+            String uri = (String) Json.campo(params, "textDocument", "uri");
+            Estado e = documentos.get(uri);
+            Documento doc = e != null ? e.documento : null;
+            if (doc == null) {
+                responder(id, metodo.endsWith("documentSymbol") ? new ArrayList<>() : null);
+                return;
+            }
+            if (metodo.endsWith("documentSymbol")) {
+                ArrayList<Object> simbolos = new ArrayList<>();
+                for (Simbolo s : doc.simbolos()) simbolos.add(simboloDocumento(s));
+                responder(id, simbolos);
+                return;
+            }
+            int offset = doc.offset(Json.entero(params, "position", "line"),
+                    Json.entero(params, "position", "character"));
+            Simbolo s = doc.declaracionEn(offset);
+            if (s == null) responder(id, null);
+            else if (metodo.endsWith("hover")) responder(id, Json.objeto("contents", Json.objeto(
+                    "kind", "markdown",
+                    "value", "```\n" + Tipo.nombre(s.getTipo()) + " " + s.getNombre() + "\n```\n"
+                            + "Declarada en la línea " + s.getLinea() + " (ámbito " + s.getAmbito() + ")")));
+            else responder(id, Json.objeto("uri", uri, "range", rango(s)));
+        } catch (IOException ex) {
+            // el cliente cerró la salida: el lector se va a enterar
+        }
+    }
+
+    private static Map<String, Object> simboloDocumento(Simbolo s) {
+        int tipo = s.getTipo();
+        int kind = Tipo.esConst(tipo) ? 14 : Tipo.esArreglo(tipo) ? 18 : 13; // Constant, Array, Variable
+        Map<String, Object> rango = rango(s);
+        return Json.objeto("name", s.getNombre(), "detail", Tipo.nombre(tipo) + " — " + s.getAmbito(),
+                "kind", kind, "range", rango, "selectionRange", rango);
+    }
+
+    private static Map<String, Object> rango(Simbolo s) {
+        int linea = Math.max(0, s.getLinea() - 1), columna = Math.max(0, s.getColumna() - 1);
+        return rango(linea, columna, columna + s.getNombre().length());
+    }
+
+    private static Map<String, Object> rango(int linea, int desde, int hasta) {
+        return Json.objeto("start", Json.objeto("line", linea, "character", desde),
+                "end", Json.objeto("line", linea, "character", hasta));
+    }
+
+    private static Map<String, Object> diagnostico(Diagnostico d) {
+        int linea = Math.max(0, d.getLinea() - 1), columna = Math.max(0, d.getColumna() - 1);
+        return Json.objeto("range", rango(linea, columna, columna + Math.max(1, d.getLongitud())),
+                "severity", d.esNota() ? 3 : 1, // Information, Error
+                "code", d.getCodigo(),
+                "source", "compilador_java",
+                "message", d.getMensaje());
+    }
+
+    // -----------------------
+    // Estado de un archivo abierto
+    // -----------------------
+    private final class Estado implements Runnable {
+        final String uri;
+        Documento documento; // solo lo toca el hilo de análisis
+
+        // Pendiente de aplicar (bajo synchronized): un texto completo y/o cambios por rango
+        private String texto;
+        private ArrayList<Object> cambios = new ArrayList<>();
+        private int version;
+        private boolean encolado, cerrado;
+        // Hay un texto completo más nuevo: el análisis inicial en curso ya no sirve
+        private volatile boolean reemplazado;
+
+        Estado(String uri) {
+            this.uri = uri;
+        }
+
+        synchronized void reemplazar(String nuevo, int version) {
+            texto = nuevo;
+            cambios.clear();
+            reemplazado = true;
+            encolar(version);
+        }
+
+        synchronized void cambiar(List<?> lista, int version) {
+            for (Object c : lista) {
+                if (Json.campo(c, "range") == null) {
+                    texto = (String) Json.campo(c, "text");
+                    cambios.clear();
+                    reemplazado = true;
+                } else {
+                    cambios.add(c);
+                }
+            }
+            encolar(version);
+        }
+
+        synchronized void cerrar() {
+            cerrado = true;
+            reemplazado = true;
+        }
+
+        private void encolar(int version) {
+            this.version = version;
+            if (!encolado) {
+                encolado = true;
+                cola.add(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            String nuevo;
+            ArrayList<Object> lista;
+            int v;
+            synchronized (this) {
+                if (cerrado) return;
+                nuevo = texto;
+                lista = cambios;
+                v = version;
+                texto = null;
+                cambios = new ArrayList<>();
+                encolado = false;
+                reemplazado = false;
+            }
+            try {
+                if (nuevo != null) documento = new Documento(nuevo.getBytes(StandardCharsets.UTF_8), () -> reemplazado);
+                if (documento == null) return;
+                for (Object c : lista) {
+                    int desde = documento.offset(Json.entero(c, "range", "start", "line"),
+                            Json.entero(c, "range", "start", "character"));
+                    int hasta = documento.offset(Json.entero(c, "range", "end", "line"),
+                            Json.entero(c, "range", "end", "character"));
+                    documento.editar(desde, Math.max(0, hasta - desde), (String) Json.campo(c, "text"));
+                }
+            } catch (CancellationException e) {
+                documento = null; // ya está encolado el texto que lo reemplaza
+                return;
+            }
+            synchronized (this) {
+                if (encolado || cerrado) return; // llegaron más cambios: se publica después
+            }
+            ArrayList<Object> diagnosticos = new ArrayList<>();
+            for (Diagnostico d : documento.diagnosticos(null)) diagnosticos.add(diagnostico(d));
+            try {
+                notificar("textDocument/publishDiagnostics",
+                        Json.objeto("uri", uri, "version", v, "diagnostics", diagnosticos));
+            } catch (IOException e) {
+                // el cliente cerró la salida
+            }
+        }
+    }
+
+    // -----------------------
+    // Mensajes
+    // -----------------------
+    private void responder(Object id, Object resultado) throws IOException {
+        canal.escribir(Json.objeto("jsonrpc", "2.0", "id", id, "result", resultado));
+    }
+
+    private void responderError(Object id, int codigo, String mensaje) throws IOException {
+        canal.escribir(Json.objeto("jsonrpc", "2.0", "id", id,
+                "error", Json.objeto("code", codigo, "message", mensaje)));
+    }
+
+    private void notificar(String metodo, Object params) throws IOException {
+        canal.escribir(Json.objeto("jsonrpc", "2.0", "method", metodo, "params", params));
+    }
+}
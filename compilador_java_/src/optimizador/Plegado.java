@@ -0,0 +1,331 @@
+package optimizador;
+
+import ast.Ast;
+import ast.Nodo;
+import lexer.TokenType;
+import simbolos.Simbolo;
+import simbolos.Tipo;
+
+// Plegado y propagación de constantes sobre el AST, antes del intérprete y
+// del generador (los dos ya tratan aparte los literales):
+//  - las operaciones aritméticas, relacionales y lógicas con operandos
+//    literales se reemplazan por su resultado, con la misma semántica que en
+//    ejecución (la división entera por cero se deja para que falle al correr);
+//  - una variable escalar que solo se asigna en su declaración, con un valor
+//    constante, se reemplaza en cada uso por ese valor (const o no). La
+//    declaración tiene que estar directo en un bloque: en una rama de un if
+//    podría no ejecutarse;
+//  - lo mismo para una variable cuya única escritura es 'x = literal' directo
+//    en el bloque de main: se ejecuta una sola vez, así los usos que vienen
+//    después la ven con ese valor (los anteriores quedan como están);
+//  - un if con condición conocida queda como la rama que se toma y un while
+//    con condición falsa desaparece.
+// El valor de cada constante queda en Simbolo.valor. Se aplica sobre un árbol
+// sin errores: los nodos conservan su rango de tokens para los errores de ejecución.
+public class Plegado {
+    private static final TokenType[] OPERADORES = TokenType.values();
+
+    private final Ast ast;
+    private final int[] escrituras;   // por slot: asignaciones y read() fuera de la declaración
+    private final byte[] constantes;  // por slot: clase del literal con su valor, o 0
+    private final long[] valores;     // por slot: valor del literal (double como bits)
+    private int principal = -1;       // bloque de main
+
+    private int plegados, propagados, ramas;
+
+    public Plegado(Ast ast) {
+        this.ast = ast;
+        int n = ast.getTabla().cantidad();
+        escrituras = new int[n];
+        constantes = new byte[n];
+        valores = new long[n];
+    }
+
+    public int getPlegados() { return plegados; }     // operaciones reemplazadas por su resultado
+    public int getPropagados() { return propagados; } // usos de variables reemplazados por su valor
+    public int getRamas() { return ramas; }           // if y while eliminados
+
+    public void optimizar() {
+        if (ast.raiz() < 0) return;
+        contarEscrituras();
+        sentencia(ast.raiz(), true);
+    }
+
+    // Los destinos de asignaciones y read() (el árbol todavía no se tocó)
+    private void contarEscrituras() {
+        for (int n = 0; n < ast.tamaño(); n++) {
+            int clase = ast.clase(n);
+            if (clase != Nodo.ASIGNACION && clase != Nodo.LEER) continue;
+            int destino = ast.primerHijo(n);
+            if (destino >= 0 && ast.dato(destino) >= 0) escrituras[ast.dato(destino)]++;
+        }
+    }
+
+    // -----------------------
+    // Sentencias, en orden: cada declaración se ve antes que sus usos.
+    // 'enBloque': la sentencia se ejecuta siempre que se ejecuta su bloque.
+    // -----------------------
+    private void sentencia(int n, boolean enBloque) {
+        switch (ast.clase(n)) {
+            case Nodo.PROGRAMA:
+            case Nodo.BLOQUE:
+                for (int h = ast.primerHijo(n); h >= 0; h = ast.siguiente(h)) {
+                    sentencia(h, true);
+                    if (n == principal && ast.clase(h) == Nodo.ASIGNACION) asignacionUnica(h);
+                }
+                break;
+            case Nodo.MAIN:
+                principal = ast.primerHijo(n);
+                sentencia(principal, true);
+                break;
+            case Nodo.DECLARACION:
+                declaracion(n, enBloque);
+                break;
+            case Nodo.ASIGNACION: {
+                int destino = ast.primerHijo(n);
+                if (ast.clase(destino) == Nodo.INDICE) expresion(ast.primerHijo(destino));
+                expresion(ast.siguiente(destino));
+                break;
+            }
+            case Nodo.ESCRIBIR:
+                expresion(ast.primerHijo(n));
+                break;
+            case Nodo.SI:
+                si(n);
+                break;
+            case Nodo.MIENTRAS:
+                mientras(n);
+                break;
+            default: // LEER, VACIA
+                break;
+        }
+    }
+
+    private void declaracion(int n, boolean enBloque) {
+        Simbolo s = ast.simbolo(n);
+        int inicial = ast.primerHijo(n);
+        if (s == null || Tipo.esArreglo(s.getTipo()) || inicial < 0) return;
+        expresion(inicial);
+        if (!enBloque || escrituras[s.getSlot()] > 0 || !esLiteral(inicial)) return;
+        fijar(s, inicial);
+    }
+
+    // 'x = literal' en el bloque de main, ya plegado, como única escritura de x
+    private void asignacionUnica(int n) {
+        int destino = ast.primerHijo(n);
+        if (OPERADORES[ast.dato(n)] != TokenType.ASSIGN || ast.clase(destino) != Nodo.VARIABLE) return;
+        Simbolo s = ast.simbolo(destino);
+        int valor = ast.siguiente(destino);
+        if (s == null || Tipo.esArreglo(s.getTipo()) || escrituras[s.getSlot()] != 1 || !esNumero(valor)) return;
+        fijar(s, valor);
+    }
+
+    // El literal en el tipo de la variable (double x = 1 guarda 1.0)
+    private void fijar(Simbolo s, int literal) {
+        int slot = s.getSlot();
+        if (Tipo.elemento(s.getTipo()) == Tipo.LONG) {
+            if (ast.clase(literal) != Nodo.ENTERO) return;
+            constantes[slot] = Nodo.ENTERO;
+            valores[slot] = ast.valorLong(literal);
+            s.setValor(Long.toString(ast.valorLong(literal)));
+        } else {
+            double v = numero(literal);
+            constantes[slot] = Nodo.REAL;
+            valores[slot] = Double.doubleToRawLongBits(v);
+            s.setValor(Double.toString(v));
+        }
+    }
+
+    private void si(int n) {
+        int condicion = ast.primerHijo(n);
+        int entonces = ast.siguiente(condicion);
+        int sino = entonces >= 0 ? ast.siguiente(entonces) : -1;
+        expresion(condicion);
+        int v = verdad(condicion);
+        if (v < 0) {
+            if (entonces >= 0) sentencia(entonces, false);
+            if (sino >= 0) sentencia(sino, false);
+            return;
+        }
+        ramas++;
+        int rama = v == 1 ? entonces : sino;
+        if (rama < 0) {
+            ast.convertir(n, Nodo.VACIA);
+            return;
+        }
+        sentencia(rama, false);
+        ast.copiar(n, rama);
+    }
+
+    private void mientras(int n) {
+        int condicion = ast.primerHijo(n);
+        expresion(condicion);
+        if (verdad(condicion) == 0) {
+            ramas++;
+            ast.convertir(n, Nodo.VACIA);
+            return;
+        }
+        sentencia(ast.siguiente(condicion), true);
+    }
+
+    // -----------------------
+    // Expresiones: se reescriben en el lugar
+    // -----------------------
+    private void expresion(int n) {
+        switch (ast.clase(n)) {
+            case Nodo.VARIABLE: {
+                int slot = ast.dato(n);
+                if (slot < 0 || constantes[slot] == 0) return;
+                ast.convertir(n, constantes[slot]);
+                ast.setValorLong(n, valores[slot]);
+                propagados++;
+                return;
+            }
+            case Nodo.INDICE:
+                expresion(ast.primerHijo(n));
+                return;
+            case Nodo.NEGACION: {
+                int h = ast.primerHijo(n);
+                expresion(h);
+                if (ast.clase(h) != Nodo.LOGICO) return;
+                literal(n, Nodo.LOGICO, ast.valorLogico(h) ? 0 : 1);
+                return;
+            }
+            case Nodo.NEGATIVO: {
+                int h = ast.primerHijo(n);
+                expresion(h);
+                if (ast.clase(h) == Nodo.ENTERO) literal(n, Nodo.ENTERO, -ast.valorLong(h));
+                else if (ast.clase(h) == Nodo.REAL) literal(n, Nodo.REAL, Double.doubleToRawLongBits(-ast.valorDouble(h)));
+                return;
+            }
+            case Nodo.BINARIA:
+                binaria(n);
+                return;
+            default:
+                return;
+        }
+    }
+
+    private void binaria(int n) {
+        TokenType op = OPERADORES[ast.dato(n)];
+        int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+        expresion(izq);
+        expresion(der);
+
+        switch (op) {
+            case PLUS: case MINUS: case MULT: case DIV:
+                aritmetica(n, op, izq, der);
+                return;
+            case AND: case OR: {
+                // a la izquierda decide o deja pasar: && y || cortan como en ejecución
+                int a = verdad(izq);
+                if (a < 0) return;
+                if ((op == TokenType.AND) != (a == 1)) {
+                    literal(n, Nodo.LOGICO, a);
+                } else if (verdad(der) >= 0) {
+                    literal(n, Nodo.LOGICO, verdad(der));
+                } else if (ast.tipo(der) == Tipo.BOOL) {
+                    ast.copiar(n, der);
+                    plegados++;
+                }
+                return;
+            }
+            default:
+                relacion(n, op, izq, der);
+        }
+    }
+
+    private void aritmetica(int n, TokenType op, int izq, int der) {
+        if (!esNumero(izq) || !esNumero(der)) return;
+        if (ast.tipo(n) == Tipo.LONG) {
+            if (ast.clase(izq) != Nodo.ENTERO || ast.clase(der) != Nodo.ENTERO) return;
+            long a = ast.valorLong(izq), b = ast.valorLong(der);
+            long r;
+            switch (op) {
+                case PLUS: r = a + b; break;
+                case MINUS: r = a - b; break;
+                case MULT: r = a * b; break;
+                default:
+                    if (b == 0) return; // el error sale en ejecución
+                    r = a / b;
+            }
+            literal(n, Nodo.ENTERO, r);
+        } else if (ast.tipo(n) == Tipo.DOUBLE) {
+            double a = numero(izq), b = numero(der), r;
+            switch (op) {
+                case PLUS: r = a + b; break;
+                case MINUS: r = a - b; break;
+                case MULT: r = a * b; break;
+                default: r = a / b;
+            }
+            literal(n, Nodo.REAL, Double.doubleToRawLongBits(r));
+        }
+    }
+
+    // Comparaciones entre literales del mismo tipo (o numéricos)
+    private void relacion(int n, TokenType op, int izq, int der) {
+        int c;
+        if (esNumero(izq) && esNumero(der)) {
+            if (ast.clase(izq) == Nodo.ENTERO && ast.clase(der) == Nodo.ENTERO) {
+                c = Long.compare(ast.valorLong(izq), ast.valorLong(der));
+            } else {
+                // con NaN toda comparación salvo <> es falsa
+                double a = numero(izq), b = numero(der);
+                if (Double.isNaN(a) || Double.isNaN(b)) {
+                    literal(n, Nodo.LOGICO, op == TokenType.NEQ ? 1 : 0);
+                    return;
+                }
+                c = a < b ? -1 : a > b ? 1 : 0;
+            }
+        } else if (ast.clase(izq) == Nodo.LOGICO && ast.clase(der) == Nodo.LOGICO) {
+            c = Long.compare(ast.valorLong(izq), ast.valorLong(der));
+        } else if (ast.clase(izq) == Nodo.CADENA && ast.clase(der) == Nodo.CADENA) {
+            c = ast.cadena(izq).compareTo(ast.cadena(der));
+        } else {
+            return;
+        }
+        boolean r;
+        switch (op) {
+            case LT: r = c < 0; break;
+            case LE: r = c <= 0; break;
+            case GT: r = c > 0; break;
+            case GE: r = c >= 0; break;
+            case EQ: r = c == 0; break;
+            case NEQ: r = c != 0; break;
+            default: return;
+        }
+        literal(n, Nodo.LOGICO, r ? 1 : 0);
+    }
+
+    // -----------------------
+    // Auxiliares
+    // -----------------------
+    private void literal(int n, int clase, long valor) {
+        ast.convertir(n, clase);
+        ast.setValorLong(n, valor);
+        plegados++;
+    }
+
+    private boolean esNumero(int n) {
+        return ast.clase(n) == Nodo.ENTERO || ast.clase(n) == Nodo.REAL;
+    }
+
+    private boolean esLiteral(int n) {
+        return esNumero(n) || ast.clase(n) == Nodo.LOGICO;
+    }
+
+    private double numero(int n) {
+        return ast.clase(n) == Nodo.ENTERO ? ast.valorLong(n) : ast.valorDouble(n);
+    }
+
+    // Valor de verdad de un literal como condición (distinto de cero es
+    // verdadero): 1, 0 o -1 si no es literal
+    private int verdad(int n) {
+        switch (ast.clase(n)) {
+            case Nodo.LOGICO: return ast.valorLogico(n) ? 1 : 0;
+            case Nodo.ENTERO: return ast.valorLong(n) != 0 ? 1 : 0;
+            case Nodo.REAL: return ast.valorDouble(n) != 0 ? 1 : 0;
+            default: return -1;
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package optimizador;
+
+import ast.Ast;
+import ast.Nodo;
+import ast.VisitanteAst;
+import java.util.Arrays;
+import lexer.TokenType;
+import simbolos.Simbolo;
+import simbolos.Tipo;
+
+// Análisis de rangos de los índices, sobre el AST ya plegado. Marca los INDICE
+// que seguro caen dentro de su arreglo (Ast.marcarEnRango), así el intérprete
+// y los generadores no comprueban el rango en cada acceso:
+//  - un índice literal dentro del tamaño declarado;
+//  - a[i] en un while cuya condición es i < K (o i <= K, K > i, K >= i, o uno
+//    de esos en la cadena de && de la condición) con K literal que no pasa del
+//    tamaño de a, si i llega al while con un literal >= 0 (la última escritura
+//    antes, en el mismo bloque o saliendo de if y main) y en el cuerpo solo
+//    crece de a un literal (i += c, i = i + c), fuera de whiles anidados.
+//    Vale para los accesos del cuerpo hasta la primera sentencia que escribe
+//    i y para los términos de la condición que siguen a la comparación.
+// El trabajo tiene un tope proporcional al árbol: con anidamientos muy
+// profundos los while que quedan sin analizar conservan la comprobación.
+public class Rangos {
+    private static final TokenType[] OPERADORES = TokenType.values();
+    private static final int TRABAJO_POR_NODO = 16;
+
+    private final Ast ast;
+    private int[] padres;
+    private int[] pila = new int[64];
+    private int[] hermanos = new int[64];
+    private long trabajo;
+    private int marcados;
+
+    public Rangos(Ast ast) {
+        this.ast = ast;
+    }
+
+    public int getMarcados() { return marcados; } // INDICE que quedaron sin comprobación
+
+    public void analizar() {
+        if (ast.raiz() < 0) return;
+        padres = new int[ast.tamaño()];
+        Arrays.fill(padres, -1);
+        final int[][] mientras = {new int[16]};
+        final int[] cantidad = new int[1];
+        ast.recorrer(new VisitanteAst() {
+            public boolean entrar(Ast a, int n) {
+                for (int h = a.primerHijo(n); h >= 0; h = a.siguiente(h)) padres[h] = n;
+                if (a.clase(n) == Nodo.INDICE) literal(n);
+                else if (a.clase(n) == Nodo.MIENTRAS) {
+                    if (cantidad[0] == mientras[0].length) mientras[0] = Arrays.copyOf(mientras[0], cantidad[0] * 2);
+                    mientras[0][cantidad[0]++] = n;
+                }
+                return true;
+            }
+
+            public void salir(Ast a, int n) {
+            }
+        });
+        trabajo = (long) TRABAJO_POR_NODO * ast.tamaño() + 1024;
+        for (int k = 0; k < cantidad[0] && trabajo > 0; k++) mientras(mientras[0][k]);
+    }
+
+    private void literal(int n) {
+        int indice = ast.primerHijo(n);
+        if (indice < 0 || ast.clase(indice) != Nodo.ENTERO) return;
+        long k = ast.valorLong(indice);
+        if (k >= 0 && k < longitud(n)) marcar(n);
+    }
+
+    // Tamaño declarado del arreglo de un INDICE; -1 si no se conoce
+    private long longitud(int n) {
+        Simbolo s = ast.simbolo(n);
+        return s != null ? s.getLongitud() : -1;
+    }
+
+    private void marcar(int n) {
+        if (ast.enRango(n)) return;
+        ast.marcarEnRango(n);
+        marcados++;
+    }
+
+    // -----------------------
+    // while (... && i < K && ...) { ... }
+    // -----------------------
+    private void mientras(int m) {
+        int condicion = ast.primerHijo(m);
+        int cuerpo = ast.siguiente(condicion);
+        int[] terminos = conjunciones(condicion);
+        for (int t = 0; t < terminos.length; t++) {
+            int comparacion = terminos[t];
+            int slot = variableAcotada(comparacion);
+            if (slot < 0) continue;
+            long cota = cota(comparacion);
+            if (cota <= 0 || !empiezaNoNegativa(m, slot) || !soloCrece(cuerpo, slot)) continue;
+            for (int u = t + 1; u < terminos.length; u++) marcarAccesos(terminos[u], slot, cota);
+            for (int s = ast.primerHijo(cuerpo); s >= 0 && !escribe(s, slot); s = ast.siguiente(s)) {
+                marcarAccesos(s, slot, cota);
+            }
+        }
+    }
+
+    // Términos de la cadena de && de la condición, de izquierda a derecha
+    private int[] conjunciones(int n) {
+        int[] terminos = new int[4];
+        int cantidad = 0, alto = 0;
+        int[] pendientes = new int[8];
+        pendientes[alto++] = n;
+        while (alto > 0) {
+            int x = pendientes[--alto];
+            if (ast.clase(x) == Nodo.BINARIA && OPERADORES[ast.dato(x)] == TokenType.AND) {
+                int izq = ast.primerHijo(x);
+                if (alto + 2 > pendientes.length) pendientes = Arrays.copyOf(pendientes, pendientes.length * 2);
+                pendientes[alto++] = ast.siguiente(izq); // la derecha sale después
+                pendientes[alto++] = izq;
+                continue;
+            }
+            if (cantidad == terminos.length) terminos = Arrays.copyOf(terminos, cantidad * 2);
+            terminos[cantidad++] = x;
+        }
+        return Arrays.copyOf(terminos, cantidad);
+    }
+
+    // Slot de i en i < K, i <= K, K > i o K >= i (i escalar long, K literal); -1 si no es eso
+    private int variableAcotada(int n) {
+        if (ast.clase(n) != Nodo.BINARIA) return -1;
+        int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+        int variable;
+        switch (OPERADORES[ast.dato(n)]) {
+            case LT: case LE: variable = izq; break;
+            case GT: case GE: variable = der; break;
+            default: return -1;
+        }
+        int literal = variable == izq ? der : izq;
+        if (ast.clase(variable) != Nodo.VARIABLE || ast.clase(literal) != Nodo.ENTERO) return -1;
+        Simbolo s = ast.simbolo(variable);
+        if (s == null || Tipo.esArreglo(s.getTipo()) || Tipo.elemento(s.getTipo()) != Tipo.LONG) return -1;
+        return s.getSlot();
+    }
+
+    // Cota exclusiva que da la comparación: i < cota en el cuerpo
+    private long cota(int n) {
+        int izq = ast.primerHijo(n), der = ast.siguiente(izq);
+        TokenType op = OPERADORES[ast.dato(n)];
+        long k = ast.valorLong(op == TokenType.LT || op == TokenType.LE ? der : izq);
+        if (op == TokenType.LT || op == TokenType.GT) return k;
+        return k == Long.MAX_VALUE ? -1 : k + 1;
+    }
+
+    // Los a[i] de la sentencia o expresión n con a de al menos 'cota' elementos
+    private void marcarAccesos(int n, int slot, long cota) {
+        int cantidad = recolectar(n);
+        for (int k = 0; k < cantidad; k++) {
+            int x = pila[k];
+            if (ast.clase(x) != Nodo.INDICE || longitud(x) < cota) continue;
+            int indice = ast.primerHijo(x);
+            if (ast.clase(indice) == Nodo.VARIABLE && ast.dato(indice) == slot) marcar(x);
+        }
+    }
+
+    // -----------------------
+    // Cómo llega i al while: la escritura más cercana hacia atrás tiene que
+    // dejar un literal >= 0. Se sale de las ramas de if y del cuerpo de main
+    // hacia el programa; el cuerpo de otro while se repite y no sirve.
+    // -----------------------
+    private boolean empiezaNoNegativa(int m, int slot) {
+        int x = m;
+        while (true) {
+            int p = padres[x];
+            if (p < 0) return false;
+            int clase = ast.clase(p);
+            if (clase == Nodo.PROGRAMA || clase == Nodo.BLOQUE) {
+                int antes = 0;
+                for (int s = ast.primerHijo(p); s != x; s = ast.siguiente(s)) {
+                    if (antes == hermanos.length) hermanos = Arrays.copyOf(hermanos, antes * 2);
+                    hermanos[antes++] = s;
+                }
+                trabajo -= antes;
+                while (antes > 0) {
+                    int s = hermanos[--antes];
+                    if (escribe(s, slot)) return inicial(s, slot);
+                    if (trabajo < 0) return false;
+                }
+                if (clase == Nodo.PROGRAMA) return false;
+            } else if (clase != Nodo.SI && clase != Nodo.MAIN) {
+                return false;
+            }
+            if (clase == Nodo.BLOQUE && ast.clase(padres[p]) != Nodo.MAIN) return false;
+            x = p;
+        }
+    }
+
+    // i = literal >= 0, o su declaración sin valor (queda en 0) o con un literal >= 0
+    private boolean inicial(int n, int slot) {
+        int clase = ast.clase(n);
+        if (clase == Nodo.DECLARACION) {
+            int valor = ast.primerHijo(n);
+            return ast.dato(n) == slot && (valor < 0 || esNoNegativo(valor));
+        }
+        if (clase != Nodo.ASIGNACION || OPERADORES[ast.dato(n)] != TokenType.ASSIGN) return false;
+        int destino = ast.primerHijo(n);
+        return ast.clase(destino) == Nodo.VARIABLE && ast.dato(destino) == slot && esNoNegativo(ast.siguiente(destino));
+    }
+
+    private boolean esNoNegativo(int n) {
+        return ast.clase(n) == Nodo.ENTERO && ast.valorLong(n) >= 0;
+    }
+
+    // -----------------------
+    // Escrituras de i
+    // -----------------------
+    private boolean escribe(int n, int slot) {
+        int cantidad = recolectar(n);
+        for (int k = 0; k < cantidad; k++) {
+            if (esEscritura(pila[k], slot)) return true;
+        }
+        return false;
+    }
+
+    private boolean esEscritura(int n, int slot) {
+        switch (ast.clase(n)) {
+            case Nodo.DECLARACION:
+                return ast.dato(n) == slot;
+            case Nodo.ASIGNACION:
+            case Nodo.LEER: {
+                int destino = ast.primerHijo(n);
+                return ast.clase(destino) == Nodo.VARIABLE && ast.dato(destino) == slot;
+            }
+            default:
+                return false;
+        }
+    }
+
+    // En el cuerpo, i solo se escribe con i += c o i = i + c (0 <= c <= Integer.MAX_VALUE),
+    // fuera de whiles anidados: en cada vuelta crece poco y no puede desbordar
+    private boolean soloCrece(int cuerpo, int slot) {
+        int cantidad = recolectar(cuerpo);
+        int[] escrituras = null;
+        int n = 0;
+        for (int k = 0; k < cantidad; k++) {
+            if (!esEscritura(pila[k], slot)) continue;
+            if (escrituras == null) escrituras = new int[4];
+            if (n == escrituras.length) escrituras = Arrays.copyOf(escrituras, n * 2);
+            escrituras[n++] = pila[k];
+        }
+        for (int k = 0; k < n; k++) {
+            int w = escrituras[k];
+            if (!esIncremento(w, slot)) return false;
+            for (int p = padres[w]; p != cuerpo; p = padres[p]) {
+                if (ast.clase(p) == Nodo.MIENTRAS) return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean esIncremento(int n, int slot) {
+        if (ast.clase(n) != Nodo.ASIGNACION) return false;
+        int expr = ast.siguiente(ast.primerHijo(n));
+        switch (OPERADORES[ast.dato(n)]) {
+            case PLUS_ASSIGN:
+                return esPaso(expr);
+            case ASSIGN: {
+                if (ast.clase(expr) != Nodo.BINARIA || OPERADORES[ast.dato(expr)] != TokenType.PLUS) return false;
+                int izq = ast.primerHijo(expr), der = ast.siguiente(izq);
+                return esVariable(izq, slot) && esPaso(der) || esPaso(izq) && esVariable(der, slot);
+            }
+            default:
+                return false;
+        }
+    }
+
+    private boolean esPaso(int n) {
+        return esNoNegativo(n) && ast.valorLong(n) <= Integer.MAX_VALUE;
+    }
+
+    private boolean esVariable(int n, int slot) {
+        return ast.clase(n) == Nodo.VARIABLE && ast.dato(n) == slot;
+    }
+
+    // Deja en pila[0..cantidad) los nodos del subárbol de n (sin recursión) y lo cuenta como trabajo
+    private int recolectar(int n) {
+        int cantidad = 0, siguiente = 0;
+        pila[cantidad++] = n;
+        while (siguiente < cantidad) {
+            int x = pila[siguiente++];
+            for (int h = ast.primerHijo(x); h >= 0; h = ast.siguiente(h)) {
+                if (cantidad == pila.length) pila = Arrays.copyOf(pila, cantidad * 2);
+                pila[cantidad++] = h;
+            }
+        }
+        trabajo -= cantidad;
+        return cantidad;
+    }
+}
@@ -0,0 +1,334 @@
+package parser;
+
+import errores.ErrorHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import lexer.TokenBuffer;
+import lexer.TokenType;
+import simbolos.Ambito;
+import simbolos.ResolutorGlobal;
+import simbolos.Simbolo;
+import simbolos.TablaSimbolos;
+import simbolos.Tipo;
+
+// Análisis de un archivo grande en tramos paralelos (sin AST).
+//
+// 1. Se parte la secuencia de tokens en sentencias de nivel superior o de primer
+//    nivel de un main, con las llaves balanceadas (comentarios y cadenas ya los
+//    resolvió el lexer). De paso se anota la primera declaración prevista de
+//    cada nombre: global, y en cada main.
+// 2. Cada tramo se analiza en un ForkJoinPool con su propia tabla, retomando
+//    dentro del main si hace falta (Parser.reanudar). Lo que no encuentra se lo
+//    contesta la previsión (lo declarado antes del tramo) y se anota qué se
+//    preguntó y qué se contestó. Los errores se graban.
+// 3. En orden, un tramo se acepta si empieza donde y como terminó el anterior
+//    y si lo que se le contestó coincide con lo realmente declarado hasta ahí:
+//    sus símbolos pasan a la tabla principal y sus errores se reproducen en el
+//    manejador principal. Si no, se analiza de nuevo en orden desde donde quedó
+//    el anterior, con lo real, hasta el próximo inicio de tramo.
+//
+// La salida (errores, en orden, y tabla) es la misma que la del análisis en orden.
+final class AnalisisParalelo {
+    private static final int TRAMO_MINIMO = 1 << 14; // tokens
+    private static final int TRAMOS_POR_HILO = 4;
+    private static final int[] ARRIBA = {}, EN_MAIN = {Parser.MARCO_MAIN};
+
+    private final Parser principal;
+    private final TokenBuffer tokens;
+    private final int hilos;
+
+    // Tramos: primer token y main en el que empieza (-1 si en el nivel superior)
+    private int[] inicios, mains;
+
+    // Primera declaración prevista de cada nombre: global por id, y por main
+    private final Prevista[] globalesPrevistos;
+    private final ArrayList<HashMap<Integer, Prevista>> localesPrevistos = new ArrayList<>();
+
+    // Lo declarado de verdad en lo incorporado hasta ahora: globales por id y,
+    // si quedó abierto un main, lo de su primer nivel
+    private final Simbolo[] globales;
+    private HashMap<Integer, Simbolo> locales;
+
+    private static final class Prevista {
+        final int token;
+        final Simbolo simbolo;
+
+        Prevista(int token, Simbolo simbolo) {
+            this.token = token;
+            this.simbolo = simbolo;
+        }
+    }
+
+    AnalisisParalelo(Parser principal, int hilos) {
+        this.principal = principal;
+        this.tokens = principal.getTokens();
+        this.hilos = Math.max(1, hilos);
+        globalesPrevistos = new Prevista[tokens.getNombres().tamaño()];
+        globales = new Simbolo[globalesPrevistos.length];
+    }
+
+    // Análisis de un tramo
+    private final class Tramo implements ResolutorGlobal, Observador {
+        final int desde, hasta; // se corta en la primera sentencia donde se puede cortar desde 'hasta'
+        final boolean enMain;   // empieza en el primer nivel de un main
+        final boolean previsto; // contesta la previsión; si no, lo real
+        private final HashMap<Integer, Prevista> previstosMain; // del main donde empieza
+        final ErrorHandler errores = ErrorHandler.grabador();
+        TablaSimbolos tabla;
+        Ambito heredado;        // el main en el que empezó
+        int fin = -1;           // token donde se cortó (-1: llegó al EOF)
+        Ambito abierto;         // el main abierto donde se cortó, o null
+        boolean fallo;          // no se pudo analizar en el pool (pila)
+
+        // Lo que se le contestó, por id y nivel (id * 2 + 1 con el main heredado abierto)
+        final HashMap<Integer, Simbolo> respuestas = new HashMap<>();
+        private HashMap<Integer, Simbolo> reales; // lo del main heredado, si no es previsto
+
+        Tramo(int desde, int hasta, boolean enMain, boolean previsto, HashMap<Integer, Prevista> previstosMain) {
+            this.desde = desde;
+            this.hasta = hasta;
+            this.enMain = enMain;
+            this.previsto = previsto;
+            this.previstosMain = previstosMain;
+        }
+
+        void analizar() {
+            if (!previsto) reales = locales;
+            Parser p = new Parser(tokens, desde, errores);
+            tabla = p.getTabla();
+            tabla.medirTiempo(principal.getTabla().midiendoTiempo());
+            tabla.setResolutor(this);
+            p.setObservador(this);
+            int[] marcos = enMain ? EN_MAIN : ARRIBA;
+            p.reanudar(marcos, marcos.length);
+        }
+
+        @Override
+        public Simbolo resolver(int id, int nivel) {
+            boolean local = nivel >= 1 && enMain;
+            Simbolo s = null;
+            if (previsto) {
+                if (local) s = antes(previstosMain.get(id));
+                if (s == null) s = antes(globalesPrevistos[id]);
+            } else {
+                if (local) s = reales.get(id);
+                if (s == null) s = globales[id];
+            }
+            respuestas.put(id * 2 + (local ? 1 : 0), s);
+            return s;
+        }
+
+        private Simbolo antes(Prevista p) {
+            return p != null && p.token < desde ? p.simbolo : null;
+        }
+
+        @Override
+        public void consultado(int id) {}
+
+        @Override
+        public boolean frontera(int token, int[] tipos, int[] series, int[] lineas, int cantidad) {
+            if (heredado == null && enMain) heredado = tabla.getAmbito();
+            boolean corte = cantidad == 0 || (cantidad == 1 && tipos[0] == Parser.MARCO_MAIN);
+            if (!corte || token < hasta) return false;
+            fin = token;
+            abierto = cantidad == 1 ? tabla.getAmbito() : null;
+            return true;
+        }
+    }
+
+    void analizar() {
+        int n = tokens.tamaño();
+        int partes = Math.min(hilos * TRAMOS_POR_HILO, n / TRAMO_MINIMO);
+        partir(partes);
+        if (inicios.length < 2 || hilos < 2) {
+            incorporar(enOrden(0, false, n));
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            List<Future<Tramo>> pendientes = new ArrayList<>(Collections.nCopies(inicios.length, null));
+            boolean[] supuestos = new boolean[inicios.length]; // marco con el que se lanzó cada tramo
+            for (int k = 0; k < inicios.length; k++) {
+                lanzar(pool, pendientes, supuestos, k, mains[k] >= 0, mains[k] >= 0 ? localesPrevistos.get(mains[k]) : null);
+            }
+
+            // Dónde terminó lo incorporado: token y si adentro de un main. Cuál main
+            // no hace falta saberlo: las respuestas se validan contra lo real.
+            int pos = 0;
+            boolean enMain = false;
+            while (pos >= 0) {
+                int k = Arrays.binarySearch(inicios, pos);
+                if (k >= 0 && supuestos[k] != enMain) {
+                    // Una recuperación de error se salteó una llave: hasta que las llaves
+                    // vuelvan a coincidir, los tramos se relanzan con el marco real
+                    for (int j = k; j < inicios.length && mains[j] == mains[k]; j++) {
+                        lanzar(pool, pendientes, supuestos, j, enMain, enMain ? new HashMap<>() : null);
+                    }
+                }
+                Tramo t = k >= 0 ? esperar(pendientes.get(k)) : null;
+                if (t == null || t.enMain != enMain || !valido(t)) {
+                    int siguiente = k >= 0 ? k + 1 : -k - 1;
+                    t = enOrden(pos, enMain, siguiente < inicios.length ? inicios[siguiente] : n);
+                }
+                incorporar(t);
+                pos = t.fin;
+                enMain = t.abierto != null;
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void lanzar(ForkJoinPool pool, List<Future<Tramo>> pendientes, boolean[] supuestos, int k,
+                        boolean enMain, HashMap<Integer, Prevista> previstosMain) {
+        Tramo t = new Tramo(inicios[k], k + 1 < inicios.length ? inicios[k + 1] : tokens.tamaño(), enMain, true,
+                previstosMain);
+        if (pendientes.get(k) != null) pendientes.get(k).cancel(false);
+        supuestos[k] = enMain;
+        pendientes.set(k, pool.submit(() -> {
+            try {
+                t.analizar();
+            } catch (StackOverflowError e) {
+                t.fallo = true; // se repite en orden, en el hilo que llamó
+            }
+            return t;
+        }));
+    }
+
+    // Análisis en este hilo con lo declarado de verdad
+    private Tramo enOrden(int desde, boolean enMain, int hasta) {
+        Tramo t = new Tramo(desde, hasta, enMain, false, null);
+        t.analizar();
+        return t;
+    }
+
+    private boolean valido(Tramo t) {
+        if (t.fallo) return false;
+        for (Map.Entry<Integer, Simbolo> r : t.respuestas.entrySet()) {
+            int id = r.getKey() >> 1;
+            Simbolo real = (r.getKey() & 1) != 0 ? locales.get(id) : null;
+            if (real == null) real = globales[id];
+            Simbolo dado = r.getValue();
+            if (real == null ? dado != null
+                    : dado == null || dado.getTipo() != real.getTipo() || dado.getProfundidad() != real.getProfundidad()
+                    || dado.getLongitud() != real.getLongitud()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void incorporar(Tramo t) {
+        TablaSimbolos tabla = principal.getTabla();
+        int antes = tabla.cantidad();
+        tabla.incorporar(t.tabla, t.heredado, locales != null ? locales.size() : 0);
+        HashMap<Integer, Simbolo> siguen = t.abierto == null ? null
+                : t.abierto == t.heredado ? locales : new HashMap<>();
+        for (int i = 0; i < t.tabla.cantidad(); i++) {
+            Simbolo s = t.tabla.simbolo(i), nuevo = tabla.simbolo(antes + i);
+            if (s.getProfundidad() == 0) globales[s.getId()] = nuevo;
+            else if (siguen != null && s.getAmbito() == t.abierto) siguen.put(s.getId(), nuevo);
+        }
+        locales = siguen;
+        principal.getErrores().reproducir(t.errores);
+    }
+
+    // -----------------------
+    // Partición
+    // -----------------------
+    // Inicios de hasta 'partes' tramos parejos. Se corta en sentencias que empiezan
+    // después de ';' o '}' fuera de llaves o en el primer nivel de un main (no en
+    // un 'else' ni en el '}' que cierra el main).
+    private void partir(int partes) {
+        int n = tokens.tamaño();
+        int paso = partes > 1 ? n / partes : Integer.MAX_VALUE;
+        ArrayList<Integer> cortes = new ArrayList<>(), enMain = new ArrayList<>();
+        cortes.add(0);
+        enMain.add(-1);
+        int profundidad = 0, main = -1, proximo = paso;
+        TokenType anterior = TokenType.SEMICOLON;
+        for (int i = 0; i < n; i++) {
+            TokenType t = tokens.tipo(i);
+            boolean sentencia = anterior == TokenType.SEMICOLON || anterior == TokenType.RBRACE
+                    || (anterior == TokenType.LBRACE && profundidad == 1 && main >= 0);
+            if (sentencia && (profundidad == 0 || (profundidad == 1 && main >= 0))) {
+                if (i >= proximo && t != TokenType.ELSE && t != TokenType.RBRACE && t != TokenType.EOF) {
+                    cortes.add(i);
+                    enMain.add(profundidad == 1 ? main : -1);
+                    proximo = i + paso;
+                }
+                prever(i, profundidad == 0 ? null : localesPrevistos.get(main));
+            }
+            if (t == TokenType.LBRACE) {
+                if (profundidad == 0 && abreMain(i)) {
+                    main = localesPrevistos.size();
+                    localesPrevistos.add(new HashMap<>());
+                }
+                profundidad++;
+            } else if (t == TokenType.RBRACE && profundidad > 0) {
+                profundidad--;
+                if (profundidad == 0) main = -1;
+            }
+            anterior = t;
+        }
+        inicios = new int[cortes.size()];
+        mains = new int[cortes.size()];
+        for (int k = 0; k < inicios.length; k++) {
+            inicios[k] = cortes.get(k);
+            mains[k] = enMain.get(k);
+        }
+    }
+
+    // '{' de main ( )
+    private boolean abreMain(int i) {
+        if (i < 3 || tokens.tipo(i - 1) != TokenType.RPAREN || tokens.tipo(i - 2) != TokenType.LPAREN) return false;
+        TokenType t = tokens.tipo(i - 3);
+        return t == TokenType.MAIN || (t == TokenType.ID && tokens.lexema(i - 3).equals("main"));
+    }
+
+    // Declaración que empieza en i: [const] long|double ID ['[' NUM_INT ']'];
+    // global si 'locales' es null, si no del primer nivel de un main
+    private void prever(int i, HashMap<Integer, Prevista> locales) {
+        int tipo = 0;
+        if (tokens.tipo(i) == TokenType.CONST) {
+            tipo = Tipo.CONST;
+            i++;
+        }
+        if (i + 1 >= tokens.tamaño() || tokens.tipo(i + 1) != TokenType.ID) return;
+        if (tokens.tipo(i) == TokenType.LONG) tipo |= Tipo.LONG;
+        else if (tokens.tipo(i) == TokenType.DOUBLE) tipo |= Tipo.DOUBLE;
+        else return;
+        int id = tokens.valor(i + 1);
+        if (locales == null ? globalesPrevistos[id] != null : locales.containsKey(id)) return; // vale la primera
+        boolean arreglo = i + 4 < tokens.tamaño() && tokens.tipo(i + 2) == TokenType.LBRACKET
+                && tokens.tipo(i + 3) == TokenType.NUM_INT && tokens.tipo(i + 4) == TokenType.RBRACKET;
+        if (arreglo) tipo |= Tipo.ARREGLO;
+        int nivel = locales == null ? 0 : 1;
+        Simbolo s = new Simbolo(id, tokens.lexema(i + 1), tipo, "-", Ambito.GLOBAL,
+                tokens.linea(i + 1), tokens.columna(i + 1), nivel, -1, -1);
+        if (arreglo) s.setLongitud(tokens.valorEntero(i + 3));
+        Prevista p = new Prevista(i + 1, s);
+        if (locales == null) globalesPrevistos[id] = p;
+        else locales.put(id, p);
+    }
+
+    private static Tramo esperar(Future<Tramo> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("análisis interrumpido");
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            if (causa instanceof Error) throw (Error) causa;
+            throw new IllegalStateException(causa);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package parser;
+
+// Se entera de cada punto donde el parser puede empezar una sentencia (la
+// cabeza de los ciclos del programa y de los bloques). Lo usa el modo
+// incremental para partir el programa en tramos y para detenerse.
+public interface Observador {
+    // 'tipos', 'series' y 'lineas' describen los marcos abiertos (de afuera hacia
+    // adentro): Parser.MARCO_*, un número único por apertura y la línea donde abrió.
+    // Devuelve true para detener el análisis en este punto.
+    boolean frontera(int token, int[] tipos, int[] series, int[] lineas, int cantidad);
+}
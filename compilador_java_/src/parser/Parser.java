@@ -1,82 +1,259 @@
 package parser;
 
+import ast.*;
+import java.io.PrintStream;
+import java.util.Arrays;
 import lexer.*;
 import simbolos.*;
 import errores.*;
 
 public class Parser {
-    private Lexer lexer;
-    private Token tokenActual;
+    private TokenBuffer tokens;
+    private int actual = -1; // cursor sobre tokens
     private TablaSimbolos tabla;
     private ErrorHandler errores;
+    private PrintStream salida; // donde se muestra la tabla de símbolos (null: no se muestra)
+
+    // AST opcional: si es null el parser solo valida
+    private Ast ast;
+    private int contenedor = -1; // nodo al que se agregan las sentencias
+    private int nodo = -1;       // último nodo de expresión construido
+
+    // Marcos abiertos: de qué construcción hay que seguir el análisis al cerrar
+    // un bloque. Con esto el modo incremental puede retomar en cualquier sentencia.
+    public static final int MARCO_MAIN = 1, MARCO_MIENTRAS = 2, MARCO_ENTONCES = 3;
+    private int[] marcos = new int[16], series = new int[16], lineasMarco = new int[16];
+    private int cantidadMarcos, ultimaSerie;
+    private Observador observador;
+
+    // Corta la recursión cuando el observador pide detenerse
+    private static final class Detenido extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Detenido() { super(null, null, false, false); }
+    }
+    private static final Detenido DETENIDO = new Detenido();
 
     public Parser(Lexer lexer) {
-        this.lexer = lexer;
-        this.tabla = new TablaSimbolos();
-        this.errores = new ErrorHandler();
-        avanzar(); // inicializa tokenActual
+        this(lexer.tokenizar());
+    }
+
+    public Parser(Lexer lexer, boolean construirAst) {
+        this(lexer.tokenizar(), construirAst);
+    }
+
+    public Parser(TokenBuffer tokens) {
+        this(tokens, false);
+    }
+
+    public Parser(TokenBuffer tokens, boolean construirAst) {
+        this(tokens, construirAst, new ErrorHandler(), System.out);
+    }
+
+    public Parser(TokenBuffer tokens, boolean construirAst, ErrorHandler errores, PrintStream salida) {
+        this.tokens = tokens;
+        this.tabla = new TablaSimbolos(tokens.getNombres());
+        this.errores = errores;
+        this.salida = salida;
+        if (construirAst) this.ast = new Ast(tokens, tabla);
+        avanzar(); // se posiciona en el primer token
+    }
+
+    // Un tramo del análisis en paralelo: empieza en 'desde', sin AST. El ERROR
+    // que pueda haber ahí ya lo reportó quien avanzó hasta ese token.
+    Parser(TokenBuffer tokens, int desde, ErrorHandler errores) {
+        this.tokens = tokens;
+        this.tabla = new TablaSimbolos(tokens.getNombres());
+        this.errores = errores;
+        this.actual = desde;
+    }
+
+    public Ast getAst() { return ast; }
+    public TablaSimbolos getTabla() { return tabla; }
+    public TokenBuffer getTokens() { return tokens; }
+    public ErrorHandler getErrores() { return errores; }
+
+    public void setObservador(Observador observador) { this.observador = observador; }
+
+    private void abrirMarco(int tipo, int linea) {
+        if (cantidadMarcos == marcos.length) {
+            int n = marcos.length * 2;
+            marcos = Arrays.copyOf(marcos, n);
+            series = Arrays.copyOf(series, n);
+            lineasMarco = Arrays.copyOf(lineasMarco, n);
+        }
+        marcos[cantidadMarcos] = tipo;
+        series[cantidadMarcos] = ++ultimaSerie;
+        lineasMarco[cantidadMarcos] = linea;
+        cantidadMarcos++;
+    }
+
+    private void cerrarMarco() { cantidadMarcos--; }
+
+    // Cabeza de un ciclo de sentencias: siempre true, salvo que el observador corte
+    private boolean frontera() {
+        if (observador != null && observador.frontera(actual, marcos, series, lineasMarco, cantidadMarcos)) {
+            throw DETENIDO;
+        }
+        return true;
     }
 
     private void avanzar() {
-        tokenActual = lexer.siguienteToken();
-        // Si tokenActual es ERROR, reportar inmediatamente
-        if (tokenActual.getType() == TokenType.ERROR) {
-            errores.reportar("Error léxico", tokenActual.getLexeme(), tokenActual.getLine());
+        // el último token es siempre EOF: el cursor no pasa de ahí
+        if (actual < tokens.cargar(actual + 1) - 1) actual++;
+        // Si el token actual es ERROR, reportar inmediatamente
+        if (tipo() == TokenType.ERROR) {
+            reportar(Diagnostico.LEXICO, lexema());
         }
     }
 
+    private TokenType tipo() { return tokens.tipo(actual); }
+    private String lexema() { return tokens.lexema(actual); }
+    private int idActual() { return tokens.valor(actual); } // id del nombre si el token es ID
+
+    // Reporta en la posición del token actual, señalando todo el token
+    private void reportar(String codigo, String mensaje) {
+        errores.error(codigo, mensaje, tokens.linea(actual), tokens.columna(actual), tokens.longitud(actual));
+    }
+
+    // -----------------------
+    // Construcción del AST (no hace nada si no se pidió)
+    // -----------------------
+    // Crea un nodo de sentencia que empieza en el token actual y lo agrega al contenedor
+    private int abrir(int clase, int dato) {
+        if (ast == null) return -1;
+        int n = ast.nuevo(clase, dato, actual);
+        if (contenedor >= 0) ast.agregarHijo(contenedor, n);
+        return n;
+    }
+
+    // Marca el fin del nodo en el último token consumido
+    private void cerrar(int n) {
+        if (n >= 0) ast.setTokenFin(n, Math.max(ast.tokenInicio(n), actual - 1));
+    }
+
+    // Crea un nodo de expresión suelto en el token dado
+    private int expresion(int clase, int dato, int tipo, int token) {
+        if (ast == null) return -1;
+        int n = ast.nuevo(clase, dato, token);
+        ast.setTipo(n, tipo);
+        return n;
+    }
+
+    private void hijo(int padre, int h) {
+        if (padre >= 0) ast.agregarHijo(padre, h);
+    }
+
     private void errorSintactico(String mensaje) {
-        errores.reportar("Error sintáctico", mensaje, tokenActual.getLine());
-        // intentar sincronizar: consumir hasta ;
-        while (tokenActual.getType() != TokenType.SEMICOLON && tokenActual.getType() != TokenType.EOF) {
+        reportar(Diagnostico.SINTAXIS, mensaje);
+        // intentar sincronizar: consumir hasta ; (lo que se reporte mientras tanto es cascada)
+        errores.iniciarRecuperacion();
+        while (tipo() != TokenType.SEMICOLON && tipo() != TokenType.EOF) {
             avanzar();
         }
-        if (tokenActual.getType() == TokenType.SEMICOLON) avanzar();
+        if (tipo() == TokenType.SEMICOLON) avanzar();
+        errores.terminarRecuperacion();
     }
 
     public void programa() {
+        contenedor = abrir(Nodo.PROGRAMA, 0);
         // permite declaraciones globales y/o main()
-        while (tokenActual.getType() != TokenType.EOF) {
-            if (tokenActual.getType() == TokenType.MAIN || (tokenActual.getType() == TokenType.ID && tokenActual.getLexeme().equals("main"))) {
-                mainBloque();
+        while (frontera() && tipo() != TokenType.EOF) {
+            elementoPrograma();
+        }
+        cerrar(contenedor);
+        errores.vaciar(); // los errores salen antes que la tabla
+        if (salida != null) tabla.mostrar(salida);
+    }
+
+    // Como programa(), partiendo el archivo en tramos que se analizan a la vez en
+    // 'hilos' hilos (ver AnalisisParalelo). Con AST se analiza en orden.
+    public void programaEnParalelo(int hilos) {
+        if (ast != null) {
+            programa();
+            return;
+        }
+        tokens.completar();
+        new AnalisisParalelo(this, hilos).analizar();
+        errores.vaciar();
+        if (salida != null) tabla.mostrar(salida);
+    }
+
+    private void elementoPrograma() {
+        if (tipo() == TokenType.MAIN || (tipo() == TokenType.ID && lexema().equals("main"))) {
+            mainBloque();
+        } else {
+            // admitimos declaraciones globales o sentencias sueltas
+            if (tipo() == TokenType.LONG || tipo() == TokenType.DOUBLE || tipo() == TokenType.CONST) {
+                declaracionGlobal();
             } else {
-                // admitimos declaraciones globales o sentencias sueltas
-                if (tokenActual.getType() == TokenType.LONG || tokenActual.getType() == TokenType.DOUBLE || tokenActual.getType() == TokenType.CONST) {
-                    declaracionGlobal();
-                } else {
-                    sentencia();
-                }
+                sentencia();
+            }
+        }
+    }
+
+    // Retoma el análisis en el token actual como si estuviera dentro de los
+    // marcos dados (de afuera hacia adentro), cierra cada uno y sigue hasta EOF.
+    // No construye AST ni muestra la tabla. Devuelve true si el observador lo detuvo.
+    public boolean reanudar(int[] tipos, int cantidad) {
+        if (ast != null) throw new IllegalStateException("el análisis retomado no construye AST");
+        try {
+            for (int i = 0; i < cantidad; i++) {
+                abrirMarco(tipos[i], 0);
+                if (tipos[i] == MARCO_MAIN) tabla.entrarAmbito("main");
+                else if (tipos[i] == MARCO_MIENTRAS) tabla.entrarAmbito("while");
+            }
+            tabla.marcarExternos();
+            for (int i = cantidad - 1; i >= 0; i--) {
+                if (tipos[i] == MARCO_MAIN) cuerpoMain();
+                else if (tipos[i] == MARCO_MIENTRAS) cuerpoMientras();
+                else sino();
             }
+            while (frontera() && tipo() != TokenType.EOF) {
+                elementoPrograma();
+            }
+            errores.vaciar();
+            return false;
+        } catch (Detenido d) {
+            errores.vaciar();
+            return true;
         }
-        tabla.mostrar();
     }
 
     // -----------------------
     // Declaración global / local
     // -----------------------
     private void declaracionGlobal() {
+        int decl = abrir(Nodo.DECLARACION, -1);
         boolean esConst = false;
-        if (tokenActual.getType() == TokenType.CONST) {
+        if (tipo() == TokenType.CONST) {
             esConst = true;
             avanzar();
         }
 
-        if (tokenActual.getType() == TokenType.LONG || tokenActual.getType() == TokenType.DOUBLE) {
-            String tipo = tokenActual.getLexeme(); // "long" o "double"
+        if (tipo() == TokenType.LONG || tipo() == TokenType.DOUBLE) {
+            int tipoDecl = tipo() == TokenType.LONG ? Tipo.LONG : Tipo.DOUBLE;
             avanzar();
-            if (tokenActual.getType() == TokenType.ID) {
-                String nombre = tokenActual.getLexeme();
+            if (tipo() == TokenType.ID) {
+                String nombre = lexema();
+                int id = idActual();
+                int lineaDecl = tokens.linea(actual), columnaDecl = tokens.columna(actual);
                 avanzar();
 
                 // Arreglo opcional: [NUM_INT]
-                if (tokenActual.getType() == TokenType.LBRACKET) {
+                long longitud = -1;
+                if (tipo() == TokenType.LBRACKET) {
                     avanzar();
-                    if (tokenActual.getType() == TokenType.NUM_INT) {
-                        String tamaño = tokenActual.getLexeme();
+                    if (tipo() == TokenType.NUM_INT) {
+                        int tamaño = expresion(Nodo.ENTERO, 0, Tipo.LONG, actual);
+                        if (tamaño >= 0) ast.setValorLong(tamaño, tokens.valorEntero(actual));
+                        hijo(decl, tamaño);
+                        long leido = tokens.valorEntero(actual);
                         avanzar();
-                        if (tokenActual.getType() == TokenType.RBRACKET) {
+                        if (tipo() == TokenType.RBRACKET) {
                             avanzar();
-                            tipo = tipo + "[]";
+                            tipoDecl |= Tipo.ARREGLO;
+                            longitud = leido;
                         } else {
                             errorSintactico("Se esperaba ']' después del tamaño del arreglo");
                         }
@@ -86,19 +263,27 @@ public class Parser {
                 }
 
                 // Asignación opcional en la declaración
-                if (tokenActual.getType() == TokenType.ASSIGN) {
+                if (tipo() == TokenType.ASSIGN) {
                     avanzar();
-                    String tipoExpr = expresionTipo();
+                    int tipoExpr = expresionTipo();
+                    hijo(decl, nodo);
                     // chequeo semántico simple
-                    if (!tipoCompatible(tipo, tipoExpr)) {
-                        errores.reportar("Error semántico", "tipo incompatible en inicialización de " + nombre + ": esperado " + tipo + " pero se obtuvo " + tipoExpr, tokenActual.getLine());
+                    if (!Tipo.asignable(tipoDecl, tipoExpr)) {
+                        reportar(Diagnostico.TIPO_INICIALIZACION, "tipo incompatible en inicialización de " + nombre + ": esperado " + Tipo.nombre(tipoDecl) + " pero se obtuvo " + Tipo.nombre(tipoExpr));
                     }
                 }
 
-                // agregar a tabla
-                tabla.agregar(nombre, (esConst ? tipo + " (const)" : tipo), "-", "global", tokenActual.getLine());
+                // agregar a tabla (en el ámbito actual)
+                Simbolo s = tabla.agregar(id, (esConst ? tipoDecl | Tipo.CONST : tipoDecl), "-", lineaDecl, columnaDecl);
+                if (s != null && longitud >= 0) s.setLongitud(longitud);
+                if (s == null) {
+                    errores.error(Diagnostico.REDECLARADA, "variable ya declarada en este ámbito: " + nombre, lineaDecl, columnaDecl,
+                            nombre.length());
+                } else if (decl >= 0) {
+                    ast.setDato(decl, s.getSlot());
+                }
 
-                if (tokenActual.getType() == TokenType.SEMICOLON) {
+                if (tipo() == TokenType.SEMICOLON) {
                     avanzar();
                 } else {
                     errorSintactico("Se esperaba ';' al final de la declaración");
@@ -109,6 +294,7 @@ public class Parser {
         } else {
             errorSintactico("Se esperaba tipo 'long' o 'double' en declaración");
         }
+        cerrar(decl);
     }
 
     // -----------------------
@@ -116,35 +302,53 @@ public class Parser {
     // -----------------------
     private void mainBloque() {
         // puede venir como token MAIN (por palabra reservada) o como ID "main"
-        if (tokenActual.getType() == TokenType.MAIN || (tokenActual.getType() == TokenType.ID && tokenActual.getLexeme().equals("main"))) {
+        if (tipo() == TokenType.MAIN || (tipo() == TokenType.ID && lexema().equals("main"))) {
+            int principal = abrir(Nodo.MAIN, 0);
+            int previo = contenedor;
             avanzar();
-            if (tokenActual.getType() == TokenType.LPAREN) {
+            if (tipo() == TokenType.LPAREN) {
                 avanzar();
-                if (tokenActual.getType() == TokenType.RPAREN) {
+                if (tipo() == TokenType.RPAREN) {
                     avanzar();
-                    if (tokenActual.getType() == TokenType.LBRACE) {
+                    if (tipo() == TokenType.LBRACE) {
+                        contenedor = principal;
+                        int bloque = abrir(Nodo.BLOQUE, 0);
+                        contenedor = bloque;
+                        int lineaMain = tokens.linea(actual);
                         avanzar();
-                        while (tokenActual.getType() != TokenType.RBRACE && tokenActual.getType() != TokenType.EOF) {
-                            sentencia();
-                        }
-                        if (tokenActual.getType() == TokenType.RBRACE) {
-                            avanzar();
-                        } else {
-                            errorSintactico("Se esperaba '}' al final del bloque main");
-                        }
+                        tabla.entrarAmbito("main");
+                        abrirMarco(MARCO_MAIN, lineaMain);
+                        cuerpoMain();
+                        cerrar(bloque);
                     } else errorSintactico("Se esperaba '{' después de main()");
                 } else errorSintactico("Se esperaba ')' después de main(");
             } else errorSintactico("Se esperaba '(' después de main");
+            contenedor = previo;
+            cerrar(principal);
         } else {
             errorSintactico("Falta definición de main()");
         }
     }
 
+    // Sentencias del bloque main hasta su '}' (el ámbito y el marco ya están abiertos)
+    private void cuerpoMain() {
+        while (frontera() && tipo() != TokenType.RBRACE && tipo() != TokenType.EOF) {
+            sentencia();
+        }
+        cerrarMarco();
+        tabla.salirAmbito();
+        if (tipo() == TokenType.RBRACE) {
+            avanzar();
+        } else {
+            errorSintactico("Se esperaba '}' al final del bloque main");
+        }
+    }
+
     // -----------------------
     // Sentencias
     // -----------------------
     private void sentencia() {
-        switch (tokenActual.getType()) {
+        switch (tipo()) {
             case LONG:
             case DOUBLE:
             case CONST:
@@ -167,10 +371,11 @@ public class Parser {
                 estructuraWhile();
                 break;
             case SEMICOLON:
+                cerrar(abrir(Nodo.VACIA, 0));
                 avanzar(); // instrucción vacía
                 break;
             default:
-                errorSintactico("sentencia no reconocida: " + tokenActual.getLexeme());
+                errorSintactico("sentencia no reconocida: " + lexema());
         }
     }
 
@@ -178,275 +383,405 @@ public class Parser {
     // Asignación
     // -----------------------
     private void asignacion() {
-        if (tokenActual.getType() != TokenType.ID) {
+        if (tipo() != TokenType.ID) {
             errorSintactico("Se esperaba identificador en la asignación");
             return;
         }
-        String nombre = tokenActual.getLexeme();
-        if (!tabla.existe(nombre)) {
-            errores.reportar("Error semántico", "variable no declarada: " + nombre, tokenActual.getLine());
+        int asig = abrir(Nodo.ASIGNACION, TokenType.ASSIGN.ordinal());
+        String nombre = lexema();
+        int id = idActual();
+        Simbolo s = tabla.buscar(id);
+        if (s == null) {
+            reportar(Diagnostico.NO_DECLARADA, "variable no declarada: " + nombre);
         }
+        int slot = s != null ? s.getSlot() : -1;
+        int destino = expresion(Nodo.VARIABLE, slot, s != null ? Tipo.valor(s.getTipo()) : Tipo.LONG, actual);
         avanzar();
 
-        // Si viene un índice de arreglo: nombre[NUM]
-        if (tokenActual.getType() == TokenType.LBRACKET) {
+        // Si viene un índice de arreglo: nombre[expresión]
+        boolean arregloCompleto = false;
+        if (tipo() == TokenType.LBRACKET) {
+            if (destino >= 0) {
+                destino = expresion(Nodo.INDICE, slot, s != null ? Tipo.elemento(s.getTipo()) : Tipo.LONG, actual - 1);
+            }
             avanzar();
-            if (tokenActual.getType() == TokenType.NUM_INT) {
-                avanzar();
-                if (tokenActual.getType() == TokenType.RBRACKET) avanzar();
-                else errorSintactico("Se esperaba ']' en índice de arreglo");
-            } else errorSintactico("Se esperaba número entero en índice de arreglo");
+            indice(s, actual - 2);
+            hijo(destino, nodo);
+            if (tipo() == TokenType.RBRACKET) avanzar();
+            else errorSintactico("Se esperaba ']' en índice de arreglo");
+            if (destino >= 0) ast.setTokenFin(destino, actual - 1);
+        } else if (s != null && Tipo.esArreglo(s.getTipo())) {
+            // sin corchetes el destino sería el arreglo entero, que ningún backend sabe asignar
+            errores.error(Diagnostico.TIPO_ASIGNACION, "no se puede asignar a un arreglo completo: " + nombre,
+                    tokens.linea(actual - 1), tokens.columna(actual - 1), tokens.longitud(actual - 1));
+            arregloCompleto = true;
         }
+        hijo(asig, destino);
 
         // operator: = or compound (+=, -=, *=, /=)
-        // operator: = or compound (+=, -=, *=, /=)
-        TokenType op = tokenActual.getType();
+        TokenType op = tipo();
         if (op == TokenType.ASSIGN || op == TokenType.PLUS_ASSIGN || op == TokenType.MINUS_ASSIGN
                 || op == TokenType.MULT_ASSIGN || op == TokenType.DIV_ASSIGN) {
+            if (asig >= 0) ast.setDato(asig, op.ordinal());
             avanzar();
-            String tipoExpr = expresionTipo();
+            int tipoExpr = expresionTipo();
+            hijo(asig, nodo);
 
             // chequeo semántico básico
-            Simbolo s = tabla.buscar(nombre);
-            String tipoVar = (s != null) ? s.getTipo() : null;
+            if (s != null && !arregloCompleto) {
+                // ✅ Si la variable fue accedida como arreglo (tiene corchetes), se compara el tipo del elemento
+                int baseVar = Tipo.elemento(s.getTipo());
 
-            if (tipoVar != null) {
-                String baseVar = tipoVar.replace(" (const)", "");
-
-                // ✅ Si la variable fue accedida como arreglo (tiene corchetes), quitar los []
-                if (baseVar.endsWith("[]")) {
-                    baseVar = baseVar.substring(0, baseVar.length() - 2);
-                }
-
-                if (!tipoCompatible(baseVar, tipoExpr) && op == TokenType.ASSIGN) {
-                    errores.reportar("Error semántico",
-                            "tipo incompatible en asignación a " + nombre + ": esperado " + baseVar + " pero se obtuvo " + tipoExpr,
-                            tokenActual.getLine());
+                if (op == TokenType.ASSIGN && !Tipo.asignable(baseVar, tipoExpr)) {
+                    reportar(Diagnostico.TIPO_ASIGNACION, "tipo incompatible en asignación a " + nombre + ": esperado " + Tipo.nombre(baseVar) + " pero se obtuvo " + Tipo.nombre(tipoExpr));
                 }
             }
 
-            if (tokenActual.getType() == TokenType.SEMICOLON)
+            if (tipo() == TokenType.SEMICOLON)
                 avanzar();
             else
                 errorSintactico("Se esperaba ';' al final de la asignación");
         } else {
             errorSintactico("Se esperaba operador de asignación '=' o '+=' '-=' '*=' '/='");
         }
-
+        cerrar(asig);
     }
 
     // -----------------------
     // Entrada / Salida
     // -----------------------
     private void entrada() {
+        int leer = abrir(Nodo.LEER, 0);
         avanzar(); // read
-        if (tokenActual.getType() == TokenType.LPAREN) {
+        if (tipo() == TokenType.LPAREN) {
             avanzar();
-            if (tokenActual.getType() == TokenType.ID) {
+            if (tipo() == TokenType.ID) {
                 // Chequear existencia opcional
-                if (!tabla.existe(tokenActual.getLexeme()))
-                    errores.reportar("Error semántico", "variable no declarada en read(): " + tokenActual.getLexeme(), tokenActual.getLine());
+                Simbolo s = tabla.buscar(idActual());
+                if (s == null)
+                    reportar(Diagnostico.NO_DECLARADA, "variable no declarada en read(): " + lexema());
+                hijo(leer, expresion(Nodo.VARIABLE, s != null ? s.getSlot() : -1,
+                        s != null ? Tipo.valor(s.getTipo()) : Tipo.LONG, actual));
                 avanzar();
-                if (tokenActual.getType() == TokenType.RPAREN) {
+                if (tipo() == TokenType.RPAREN) {
                     avanzar();
-                    if (tokenActual.getType() == TokenType.SEMICOLON) avanzar();
+                    if (tipo() == TokenType.SEMICOLON) avanzar();
                     else errorSintactico("Se esperaba ';' al final de read()");
                 } else errorSintactico("Se esperaba ')' en read()");
             } else errorSintactico("Se esperaba identificador en read()");
         } else errorSintactico("Se esperaba '(' después de read");
+        cerrar(leer);
     }
 
     private void salida() {
+        int escribir = abrir(Nodo.ESCRIBIR, 0);
         avanzar(); // write
-        if (tokenActual.getType() == TokenType.LPAREN) {
+        if (tipo() == TokenType.LPAREN) {
             avanzar();
             expresionTipo();
-            if (tokenActual.getType() == TokenType.RPAREN) {
+            hijo(escribir, nodo);
+            if (tipo() == TokenType.RPAREN) {
                 avanzar();
-                if (tokenActual.getType() == TokenType.SEMICOLON) avanzar();
+                if (tipo() == TokenType.SEMICOLON) avanzar();
                 else errorSintactico("Se esperaba ';' al final de write()");
             } else errorSintactico("Se esperaba ')' en write()");
         } else errorSintactico("Se esperaba '(' después de write");
+        cerrar(escribir);
     }
 
     // -----------------------
     // If / While
     // -----------------------
     private void estructuraIf() {
+        int si = abrir(Nodo.SI, 0);
+        int previo = contenedor;
         avanzar(); // if
-        if (tokenActual.getType() == TokenType.LPAREN) {
+        if (tipo() == TokenType.LPAREN) {
             avanzar();
-            String tipoCond = expresionTipo();
-            if (!tipoCond.equals("bool")) {
-                errores.reportar("Error semántico", "condición de if no booleana", tokenActual.getLine());
+            int tipoCond = expresionTipo();
+            hijo(si, nodo);
+            if (tipoCond != Tipo.BOOL) {
+                reportar(Diagnostico.CONDICION, "condición de if no booleana");
             }
-            if (tokenActual.getType() == TokenType.RPAREN) {
+            if (tipo() == TokenType.RPAREN) {
                 avanzar();
-                if (tokenActual.getType() == TokenType.THEN) {
+                if (tipo() == TokenType.THEN) {
                     avanzar();
+                    if (si >= 0) contenedor = si;
+                    abrirMarco(MARCO_ENTONCES, 0);
                     sentencia();
-                    if (tokenActual.getType() == TokenType.ELSE) {
-                        avanzar();
-                        sentencia();
-                    }
+                    sino();
                 } else errorSintactico("Se esperaba 'then'");
             } else errorSintactico("Se esperaba ')'");
         } else errorSintactico("Se esperaba '(' después de if");
+        contenedor = previo;
+        cerrar(si);
+    }
+
+    // Cierra el marco de la rama then y analiza el else, si hay
+    private void sino() {
+        cerrarMarco();
+        if (tipo() == TokenType.ELSE) {
+            avanzar();
+            sentencia();
+        }
     }
 
     private void estructuraWhile() {
+        int lineaWhile = tokens.linea(actual);
+        int mientras = abrir(Nodo.MIENTRAS, 0);
+        int previo = contenedor;
         avanzar(); // while
-        if (tokenActual.getType() == TokenType.LPAREN) {
+        if (tipo() == TokenType.LPAREN) {
             avanzar();
-            String tipoCond = expresionTipo();
-            if (!tipoCond.equals("bool")) {
-                errores.reportar("Error semántico", "condición de while no booleana", tokenActual.getLine());
+            int tipoCond = expresionTipo();
+            hijo(mientras, nodo);
+            if (tipoCond != Tipo.BOOL) {
+                reportar(Diagnostico.CONDICION, "condición de while no booleana");
             }
-            if (tokenActual.getType() == TokenType.RPAREN) {
+            if (tipo() == TokenType.RPAREN) {
                 avanzar();
-                if (tokenActual.getType() == TokenType.LBRACE) {
+                if (tipo() == TokenType.LBRACE) {
+                    if (mientras >= 0) contenedor = mientras;
+                    int bloque = abrir(Nodo.BLOQUE, 0);
+                    if (bloque >= 0) contenedor = bloque;
                     avanzar();
-                    while (tokenActual.getType() != TokenType.RBRACE && tokenActual.getType() != TokenType.EOF) {
-                        sentencia();
-                    }
-                    if (tokenActual.getType() == TokenType.RBRACE) avanzar();
-                    else errorSintactico("Se esperaba '}'");
+                    tabla.entrarAmbito("while@" + lineaWhile);
+                    abrirMarco(MARCO_MIENTRAS, lineaWhile);
+                    cuerpoMientras();
+                    cerrar(bloque);
                 } else errorSintactico("Se esperaba '{'");
             } else errorSintactico("Se esperaba ')'");
         } else errorSintactico("Se esperaba '(' después de while");
+        contenedor = previo;
+        cerrar(mientras);
+    }
+
+    private void cuerpoMientras() {
+        while (frontera() && tipo() != TokenType.RBRACE && tipo() != TokenType.EOF) {
+            sentencia();
+        }
+        cerrarMarco();
+        tabla.salirAmbito();
+        if (tipo() == TokenType.RBRACE) avanzar();
+        else errorSintactico("Se esperaba '}'");
     }
 
     // -----------------------
-    // Expresiones (tipo)
-    // Devuelve string representando el tipo resultante: "long", "double", "string", "bool"
+    // Expresiones (tipo): precedencia por tabla (Pratt). Cada operador binario
+    // tiene su poder de ligadura, su asociatividad y la regla con que se
+    // combinan los tipos, en arreglos indexados por TokenType.ordinal()
+    // Devuelve el código de Tipo resultante (sin la marca CONST)
     // -----------------------
-    private String expresionTipo() {
-        // Para simplificar: analizamos expresiones de forma recursiva,
-        // devolviendo el tipo resultante básico.
-        String tipo = terminoTipo();
-        while (tokenActual.getType() == TokenType.PLUS || tokenActual.getType() == TokenType.MINUS ||
-                tokenActual.getType() == TokenType.MULT || tokenActual.getType() == TokenType.DIV ||
-                tokenActual.getType() == TokenType.AND || tokenActual.getType() == TokenType.OR ||
-                tokenActual.getType() == TokenType.GT || tokenActual.getType() == TokenType.LT ||
-                tokenActual.getType() == TokenType.GE || tokenActual.getType() == TokenType.LE ||
-                tokenActual.getType() == TokenType.EQ || tokenActual.getType() == TokenType.NEQ) {
-            TokenType op = tokenActual.getType();
+    private static final int ARITMETICA = 1, COMPARACION = 2; // reglas de tipos
+    private static final int N_TIPOS = TokenType.values().length;
+    private static final byte[] PODER = new byte[N_TIPOS]; // 0: no es operador binario
+    private static final boolean[] DERECHA = new boolean[N_TIPOS];
+    private static final byte[] REGLA = new byte[N_TIPOS];
+
+    static {
+        binario(1, false, COMPARACION, TokenType.OR);
+        binario(2, false, COMPARACION, TokenType.AND);
+        binario(3, false, COMPARACION, TokenType.EQ, TokenType.NEQ);
+        binario(4, false, COMPARACION, TokenType.LT, TokenType.LE, TokenType.GT, TokenType.GE);
+        binario(5, false, ARITMETICA, TokenType.PLUS, TokenType.MINUS);
+        binario(6, false, ARITMETICA, TokenType.MULT, TokenType.DIV);
+    }
+
+    private static void binario(int poder, boolean derecha, int regla, TokenType... ops) {
+        for (TokenType op : ops) {
+            PODER[op.ordinal()] = (byte) poder;
+            DERECHA[op.ordinal()] = derecha;
+            REGLA[op.ordinal()] = (byte) regla;
+        }
+    }
+
+    private int expresionTipo() {
+        return expresionTipo(1);
+    }
+
+    // Operandos unidos por operadores de poder >= minimo
+    private int expresionTipo(int minimo) {
+        int tipo = terminoTipo();
+        int izq = nodo;
+        while (true) {
+            int op = tokens.ordinal(actual);
+            int poder = PODER[op];
+            if (poder < minimo) break; // también los que no son operadores (poder 0)
             avanzar();
-            String tipo2 = terminoTipo();
+            int tipo2 = expresionTipo(DERECHA[op] ? poder : poder + 1);
+            int der = nodo;
             tipo = combinarTipos(tipo, tipo2, op);
+            if (izq >= 0) {
+                int bin = expresion(Nodo.BINARIA, op, tipo, ast.tokenInicio(izq));
+                ast.agregarHijo(bin, izq);
+                ast.agregarHijo(bin, der);
+                ast.setTokenFin(bin, ast.tokenFin(der));
+                izq = bin;
+            }
         }
+        nodo = izq;
         return tipo;
     }
 
-    private String terminoTipo() {
+    private int terminoTipo() {
         // factor [maybe unary not]
-        if (tokenActual.getType() == TokenType.NOT) {
+        if (tipo() == TokenType.NOT) {
+            int neg = expresion(Nodo.NEGACION, 0, Tipo.BOOL, actual);
             avanzar();
-            String t = terminoTipo();
+            int t = terminoTipo();
             // not aplica a booleanos
-            if (!t.equals("bool")) {
-                errores.reportar("Error semántico", "operador '!' aplicado a tipo no booleano", tokenActual.getLine());
+            if (t != Tipo.BOOL) {
+                reportar(Diagnostico.OPERANDO, "operador '!' aplicado a tipo no booleano");
             }
-            return "bool";
+            if (neg >= 0) {
+                ast.agregarHijo(neg, nodo);
+                ast.setTokenFin(neg, ast.tokenFin(nodo));
+            }
+            nodo = neg;
+            return Tipo.BOOL;
         }
 
-        if (tokenActual.getType() == TokenType.LPAREN) {
+        // menos unario: sobre un literal queda el literal negativo
+        if (tipo() == TokenType.MINUS) {
+            int menos = actual;
             avanzar();
-            String t = expresionTipo();
-            if (tokenActual.getType() == TokenType.RPAREN) avanzar();
+            int t = terminoTipo();
+            if (!Tipo.esNumerico(t)) {
+                errores.error(Diagnostico.OPERANDO, "operador '-' aplicado a tipo no numérico " + Tipo.nombre(t),
+                        tokens.linea(menos), tokens.columna(menos), tokens.longitud(menos));
+                t = Tipo.LONG;
+            }
+            if (nodo >= 0) {
+                int clase = ast.clase(nodo);
+                int neg;
+                if (clase == Nodo.ENTERO || clase == Nodo.REAL) {
+                    neg = expresion(clase, 0, t, menos);
+                    if (clase == Nodo.ENTERO) ast.setValorLong(neg, -ast.valorLong(nodo));
+                    else ast.setValorDouble(neg, -ast.valorDouble(nodo));
+                } else {
+                    neg = expresion(Nodo.NEGATIVO, 0, t, menos);
+                    ast.agregarHijo(neg, nodo);
+                }
+                ast.setTokenFin(neg, ast.tokenFin(nodo));
+                nodo = neg;
+            }
+            return t;
+        }
+
+        if (tipo() == TokenType.LPAREN) {
+            avanzar();
+            int t = expresionTipo();
+            if (tipo() == TokenType.RPAREN) avanzar();
             else errorSintactico("Se esperaba ')' en expresión");
             return t;
         }
 
-        Token t = tokenActual;
-        switch (t.getType()) {
+        switch (tipo()) {
             case ID:
-                String nombre = t.getLexeme();
-                if (!tabla.existe(nombre)) {
-                    errores.reportar("Error semántico", "variable no declarada en expresión: " + nombre, t.getLine());
+                Simbolo s = tabla.buscar(idActual());
+                if (s == null) {
+                    reportar(Diagnostico.NO_DECLARADA, "variable no declarada en expresión: " + lexema());
+                    nodo = expresion(Nodo.VARIABLE, -1, Tipo.LONG, actual);
                     avanzar();
-                    return "long"; // fallback
+                    return Tipo.LONG; // fallback
                 } else {
-                    Simbolo s = tabla.buscar(nombre);
+                    int inicio = actual;
                     avanzar();
-                    // si es arreglo con índice: nombre [ NUM ]
-                    if (tokenActual.getType() == TokenType.LBRACKET) {
+                    // si es arreglo con índice: nombre [ expresión ]
+                    if (tipo() == TokenType.LBRACKET) {
+                        int indexado = expresion(Nodo.INDICE, s.getSlot(), Tipo.elemento(s.getTipo()), inicio);
                         avanzar();
-                        expresionTipo(); // simple chequeo índice
-                        if (tokenActual.getType() == TokenType.RBRACKET) avanzar();
+                        indice(s, inicio);
+                        hijo(indexado, nodo);
+                        if (tipo() == TokenType.RBRACKET) avanzar();
                         else errorSintactico("Se esperaba ']' en índice");
+                        cerrar(indexado);
+                        nodo = indexado;
                         // devolver tipo base sin []
-                        String ty = s.getTipo();
-                        if (ty.endsWith("[]")) ty = ty.substring(0, ty.length()-2);
-                        return normalizarTipo(ty);
+                        return Tipo.elemento(s.getTipo());
                     }
-                    return normalizarTipo(s.getTipo());
+                    nodo = expresion(Nodo.VARIABLE, s.getSlot(), Tipo.valor(s.getTipo()), inicio);
+                    return Tipo.valor(s.getTipo());
                 }
             case NUM_INT:
+                nodo = expresion(Nodo.ENTERO, 0, Tipo.LONG, actual);
+                if (nodo >= 0) ast.setValorLong(nodo, tokens.valorEntero(actual));
                 avanzar();
-                return "long";
+                return Tipo.LONG;
             case NUM_REAL:
+                nodo = expresion(Nodo.REAL, 0, Tipo.DOUBLE, actual);
+                if (nodo >= 0) ast.setValorDouble(nodo, Double.parseDouble(lexema()));
                 avanzar();
-                return "double";
+                return Tipo.DOUBLE;
             case STRING:
+                nodo = expresion(Nodo.CADENA, actual, Tipo.STRING, actual);
                 avanzar();
-                return "string";
+                return Tipo.STRING;
             case BOOL:
+                nodo = expresion(Nodo.LOGICO, 0, Tipo.BOOL, actual);
+                if (nodo >= 0) ast.setValorLong(nodo, lexema().equals("true") ? 1 : 0);
                 avanzar();
-                return "bool";
+                return Tipo.BOOL;
             default:
-                errorSintactico("Expresión inválida o token inesperado: " + tokenActual.getLexeme());
+                nodo = expresion(Nodo.ERROR, 0, Tipo.LONG, actual);
+                errorSintactico("Expresión inválida o token inesperado: " + lexema());
                 avanzar();
-                return "long";
+                return Tipo.LONG;
         }
     }
 
-    // -----------------------
-    // Combina tipos basados en operador
-    // -----------------------
-    private String combinarTipos(String t1, String t2, TokenType op) {
-        // operadores lógicos producen bool
-        if (op == TokenType.AND || op == TokenType.OR || op == TokenType.EQ || op == TokenType.NEQ ||
-                op == TokenType.GT || op == TokenType.LT || op == TokenType.GE || op == TokenType.LE) {
-            // comparaciones entre números o equality entre strings
-            if ((esNumerico(t1) && esNumerico(t2)) || t1.equals(t2)) {
-                return "bool";
-            } else {
-                errores.reportar("Error semántico", "operación inválida entre tipos " + t1 + " y " + t2, tokenActual.getLine());
-                return "bool";
-            }
-        }
-
-        // operadores aritméticos: + - * /
-        if (op == TokenType.PLUS || op == TokenType.MINUS || op == TokenType.MULT || op == TokenType.DIV) {
-            if (esNumerico(t1) && esNumerico(t2)) {
-                if (t1.equals("double") || t2.equals("double")) return "double";
-                return "long";
-            } else {
-                errores.reportar("Error semántico", "operador aritmético no válido para tipos " + t1 + " y " + t2, tokenActual.getLine());
-                return "long";
+    // Índice de 's' (declarado en el token 'nombre'), con el cursor después del '[':
+    // tiene que ser entero y, si es un literal (o su negativo), caer dentro del tamaño
+    private void indice(Simbolo s, int nombre) {
+        int desde = actual;
+        int t = expresionTipo();
+        int largo = Math.max(1, tokens.columna(actual - 1) + tokens.longitud(actual - 1) - tokens.columna(desde));
+        if (tokens.linea(actual - 1) != tokens.linea(desde)) largo = tokens.longitud(desde);
+        if (s == null) return;
+        if (!Tipo.esArreglo(s.getTipo())) {
+            errores.error(Diagnostico.INDICE, s.getNombre() + " no es un arreglo", tokens.linea(nombre),
+                    tokens.columna(nombre), tokens.longitud(nombre));
+        } else if (t != Tipo.LONG) {
+            errores.error(Diagnostico.INDICE, "índice de arreglo de tipo " + Tipo.nombre(t) + ": se esperaba long",
+                    tokens.linea(desde), tokens.columna(desde), largo);
+        } else if (s.getLongitud() >= 0) {
+            boolean negativo = tokens.tipo(desde) == TokenType.MINUS;
+            int literal = negativo ? desde + 1 : desde;
+            if (literal == actual - 1 && tokens.tipo(literal) == TokenType.NUM_INT) {
+                long k = negativo ? -tokens.valorEntero(literal) : tokens.valorEntero(literal);
+                if (k < 0 || k >= s.getLongitud()) {
+                    errores.error(Diagnostico.INDICE, "índice " + k + " fuera del arreglo " + s.getNombre()
+                            + " de " + s.getLongitud() + " elementos", tokens.linea(desde), tokens.columna(desde), largo);
+                }
             }
         }
-
-        return "long";
-    }
-
-    private boolean esNumerico(String t) {
-        return t.equals("long") || t.equals("double");
     }
 
-    private boolean tipoCompatible(String tipoVar, String tipoExpr) {
-        if (tipoVar == null) return false;
-        tipoVar = normalizarTipo(tipoVar);
-        tipoExpr = normalizarTipo(tipoExpr);
-        if (tipoVar.equals(tipoExpr)) return true;
-        if (tipoVar.equals("double") && tipoExpr.equals("long")) return true; // promocion implícita
-        return false;
-    }
+    // -----------------------
+    // Combina tipos según la regla del operador
+    // -----------------------
+    private int combinarTipos(int t1, int t2, int op) {
+        switch (REGLA[op]) {
+            // operadores lógicos y relacionales producen bool
+            case COMPARACION:
+                // comparaciones entre números o entre operandos del mismo tipo
+                if (!Tipo.comparable(t1, t2)) {
+                    reportar(Diagnostico.OPERANDO, "operación inválida entre tipos " + Tipo.nombre(t1) + " y " + Tipo.nombre(t2));
+                }
+                return Tipo.BOOL;
+
+            // operadores aritméticos: + - * /
+            case ARITMETICA:
+                int resultado = Tipo.aritmetica(t1, t2);
+                if (resultado == Tipo.NINGUNO) {
+                    reportar(Diagnostico.OPERANDO, "operador aritmético no válido para tipos " + Tipo.nombre(t1) + " y " + Tipo.nombre(t2));
+                    return Tipo.LONG;
+                }
+                return resultado;
 
-    private String normalizarTipo(String t) {
-        if (t == null) return "";
-        t = t.replace(" (const)", "");
-        return t;
+            default:
+                return Tipo.LONG;
+        }
     }
 }
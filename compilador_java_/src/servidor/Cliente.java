@@ -0,0 +1,93 @@
+package servidor;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.List;
+
+// Cliente liviano del Servidor: manda los archivos (o la entrada estándar con "-")
+// y copia la salida del compilador a medida que llega
+public class Cliente {
+    private final int puerto;
+
+    public Cliente() {
+        this(Protocolo.PUERTO);
+    }
+
+    public Cliente(int puerto) {
+        this.puerto = puerto;
+    }
+
+    // Devuelve la cantidad total de errores
+    public int compilar(List<String> rutas, PrintStream salida) throws IOException {
+        int total = 0;
+        try (Socket s = conectar()) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            for (String ruta : rutas) {
+                if (rutas.size() > 1) salida.println("=== " + ruta + " ===");
+                if (ruta.equals("-")) {
+                    byte[] fuente = leerTodo(System.in);
+                    out.writeByte(Protocolo.FUENTE);
+                    out.writeUTF("<stdin>");
+                    out.writeInt(fuente.length);
+                    out.write(fuente);
+                } else {
+                    // el servidor puede tener otro directorio de trabajo
+                    out.writeByte(Protocolo.RUTA);
+                    out.writeUTF(Paths.get(ruta).toAbsolutePath().toString());
+                }
+                out.flush();
+                int errores = respuesta(in, salida);
+                if (errores == Protocolo.OCUPADO) throw new IOException("el servidor está ocupado");
+                salida.println("\nCompilación finalizada ✅");
+                total += errores;
+            }
+        }
+        return total;
+    }
+
+    public void ping() throws IOException {
+        pedido(Protocolo.PING);
+    }
+
+    public void detener() throws IOException {
+        pedido(Protocolo.DETENER);
+    }
+
+    private void pedido(byte tipo) throws IOException {
+        try (Socket s = conectar()) {
+            DataOutputStream out = new DataOutputStream(s.getOutputStream());
+            out.writeByte(tipo);
+            out.flush();
+            respuesta(new DataInputStream(s.getInputStream()), null);
+        }
+    }
+
+    private Socket conectar() throws IOException {
+        Socket s = new Socket(InetAddress.getLoopbackAddress(), puerto);
+        s.setTcpNoDelay(true);
+        return s;
+    }
+
+    private static int respuesta(DataInputStream in, PrintStream salida) throws IOException {
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.readInt()) != Protocolo.FIN) {
+            if (n > buf.length) buf = new byte[n];
+            in.readFully(buf, 0, n);
+            if (salida != null) salida.write(buf, 0, n);
+        }
+        if (salida != null) salida.flush();
+        return in.readInt();
+    }
+
+    private static byte[] leerTodo(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) bytes.write(buf, 0, n);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,73 @@
+package servidor;
+
+import java.io.*;
+
+// Protocolo entre Cliente y Servidor sobre un socket local.
+//
+// Pedido:    byte tipo, y según el tipo
+//              RUTA:    UTF ruta absoluta
+//              FUENTE:  UTF nombre, int n, n bytes UTF-8
+//              PING, DETENER: nada
+// Respuesta: tramos [int n][n bytes] con la salida del compilador a medida que
+//            se produce, un tramo de largo FIN y por último int cantidad de errores
+//            (OCUPADO en lugar de la cantidad si el servidor rechazó el pedido).
+public final class Protocolo {
+    public static final int PUERTO = 7777; // predeterminado de --puerto
+
+    static final byte RUTA = 1, FUENTE = 2, PING = 3, DETENER = 4;
+    static final int FIN = -1;
+    static final int OCUPADO = -1;
+    static final int MAXIMO_FUENTE = 64 << 20;
+
+    private Protocolo() {}
+
+    // Empaqueta en tramos todo lo que se escribe; flush() envía lo acumulado
+    static final class SalidaPorTramos extends OutputStream {
+        private final DataOutputStream out;
+        private final byte[] buf = new byte[8192];
+        private int n;
+
+        SalidaPorTramos(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (n == buf.length) enviar();
+            buf[n++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int desde, int largo) throws IOException {
+            while (largo > 0) {
+                if (n == buf.length) enviar();
+                int k = Math.min(largo, buf.length - n);
+                System.arraycopy(b, desde, buf, n, k);
+                n += k;
+                desde += k;
+                largo -= k;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            enviar();
+            out.flush();
+        }
+
+        private void enviar() throws IOException {
+            if (n == 0) return;
+            out.writeInt(n);
+            out.write(buf, 0, n);
+            n = 0;
+        }
+
+        // Cierra la respuesta (no cierra el socket)
+        void terminar(int errores) throws IOException {
+            enviar();
+            out.writeInt(FIN);
+            out.writeInt(errores);
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package servidor;
+
+import compilador.Compilador;
+import compilador.Unidad;
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import lexer.Fuente;
+
+// Compilador residente: escucha en localhost y compila cada pedido en un pool
+// acotado. La JVM queda caliente entre pedidos, así después de los primeros
+// archivos el Lexer y el Parser ya corren compilados por el JIT.
+//
+// Cada conexión tiene su propio hilo lector, que espera los pedidos y al pool
+// manda solo las compilaciones: un cliente ocioso no ocupa un hilo del pool.
+public class Servidor {
+    private static final long PILA = 256L << 20; // anidamientos profundos, como en Main
+    private static final int COLA = 64;          // pedidos en espera antes de rechazar
+
+    private final Compilador compilador;
+    private final int puerto;
+    private final ThreadPoolExecutor pool;
+    private final AtomicInteger atendidos = new AtomicInteger();
+    private final AtomicInteger conexiones = new AtomicInteger();
+    private volatile boolean activo = true;
+    private ServerSocket socket;
+
+    public Servidor(Compilador compilador, int puerto, int hilos) {
+        this.compilador = compilador;
+        this.puerto = puerto;
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(COLA),
+                r -> {
+                    Thread t = new Thread(null, r, "servidor-" + numero.incrementAndGet(), PILA);
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    public void atender() throws IOException {
+        socket = new ServerSocket(puerto, COLA, InetAddress.getLoopbackAddress());
+        System.out.println("Servidor escuchando en " + socket.getLocalSocketAddress()
+                + " (" + pool.getCorePoolSize() + " hilo(s))");
+        try {
+            while (activo) {
+                Socket conexion;
+                try {
+                    conexion = socket.accept();
+                } catch (SocketException e) {
+                    if (!activo) break; // cerrado por DETENER
+                    throw e;
+                }
+                Thread lector = new Thread(() -> atender(conexion), "conexion-" + conexiones.incrementAndGet());
+                lector.setDaemon(true);
+                lector.start();
+            }
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            System.out.println("Servidor detenido: " + atendidos.get() + " pedido(s) atendido(s)");
+        }
+    }
+
+    public void detener() {
+        activo = false;
+        try {
+            if (socket != null) socket.close();
+        } catch (IOException e) {
+            // ya estaba cerrado
+        }
+    }
+
+    // Una conexión puede traer varios pedidos seguidos; corre en el hilo lector
+    // de la conexión y responde cada pedido antes de leer el siguiente
+    private void atender(Socket conexion) {
+        try (Socket s = conexion) {
+            s.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            int tipo;
+            while ((tipo = in.read()) >= 0) {
+                Protocolo.SalidaPorTramos tramos = new Protocolo.SalidaPorTramos(out);
+                switch (tipo) {
+                    case Protocolo.RUTA:
+                        enPool(in.readUTF(), null, tramos);
+                        break;
+                    case Protocolo.FUENTE: {
+                        String nombre = in.readUTF();
+                        int n = in.readInt();
+                        if (n < 0 || n > Protocolo.MAXIMO_FUENTE) throw new IOException("fuente demasiado grande: " + n);
+                        byte[] bytes = new byte[n];
+                        in.readFully(bytes);
+                        enPool(nombre, Fuente.desdeBytes(bytes, n), tramos);
+                        break;
+                    }
+                    case Protocolo.PING:
+                        tramos.terminar(0);
+                        break;
+                    case Protocolo.DETENER:
+                        tramos.terminar(0);
+                        detener();
+                        return;
+                    default:
+                        throw new IOException("pedido desconocido: " + tipo);
+                }
+            }
+        } catch (IOException e) {
+            // el cliente se fue o mandó algo inválido: se descarta la conexión
+        }
+    }
+
+    // Compila en el pool y espera el resultado; con la cola llena responde OCUPADO
+    private void enPool(String nombre, Fuente fuente, Protocolo.SalidaPorTramos tramos) throws IOException {
+        Future<?> tarea;
+        try {
+            tarea = pool.submit(() -> {
+                compilar(nombre, fuente, tramos);
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            tramos.terminar(Protocolo.OCUPADO);
+            return;
+        }
+        try {
+            tarea.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("servidor detenido");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private void compilar(String nombre, Fuente fuente, Protocolo.SalidaPorTramos tramos) throws IOException {
+        PrintStream salida = new PrintStream(tramos, false);
+        int errores;
+        try {
+            Unidad u = fuente == null ? compilador.compilar(nombre, salida, salida)
+                    : compilador.compilar(fuente, nombre, salida, salida);
+            errores = u.cantidadErrores();
+        } catch (RuntimeException | StackOverflowError e) {
+            salida.println("Error interno del compilador: " + e);
+            errores = 1;
+        }
+        salida.flush();
+        tramos.terminar(errores);
+        atendidos.incrementAndGet();
+    }
+}
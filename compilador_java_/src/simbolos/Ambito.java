@@ -0,0 +1,31 @@
+package simbolos;
+
+// Ámbito de declaración. Guarda solo su propio nombre y el padre:
+// la ruta ("main/while@12") se arma cuando se pide y, en anidamientos
+// profundos, se abrevia ("main/.../while@40/while@41").
+public class Ambito {
+    public static final Ambito GLOBAL = new Ambito("global", null);
+
+    private final String nombre;
+    private final Ambito padre;
+    private final int profundidad;
+    private final Ambito raiz; // ancestro de profundidad 1 ("main", ...)
+
+    public Ambito(String nombre, Ambito padre) {
+        this.nombre = nombre;
+        this.padre = padre;
+        this.profundidad = padre == null ? 0 : padre.profundidad + 1;
+        this.raiz = profundidad <= 1 ? this : padre.raiz;
+    }
+
+    public String getNombre() { return nombre; }
+    public Ambito getPadre() { return padre; }
+    public int getProfundidad() { return profundidad; }
+
+    @Override
+    public String toString() {
+        if (profundidad <= 1) return nombre;
+        if (profundidad <= 4) return padre + "/" + nombre;
+        return raiz.nombre + "/.../" + padre.nombre + "/" + nombre;
+    }
+}
@@ -0,0 +1,11 @@
+package simbolos;
+
+// Declaraciones que no están en la tabla: el modo incremental analiza un
+// tramo del programa con una tabla nueva y lo anterior lo resuelve afuera.
+public interface ResolutorGlobal {
+    // Declaración visible de 'id' en los niveles 0..nivel, o null
+    Simbolo resolver(int id, int nivel);
+
+    // Cada búsqueda o declaración de 'id', se resuelva donde se resuelva
+    void consultado(int id);
+}
@@ -1,30 +1,50 @@
 package simbolos;
 
 public class Simbolo {
+    private int id; // id del nombre en lexer.Nombres
     private String nombre;
-    private String tipo; // "long", "double", "string", "bool", "long[]", etc.
+    private int tipo; // código de Tipo: base + marcas ARREGLO / CONST
     private String valor; // representación textual del valor si existe
-    private String ambito; // "global" o nombre de función
+    private Ambito ambito; // "global", "main", "main/while@12", ...
     private int linea;
+    private int columna;
+    private int profundidad; // nivel de anidamiento del ámbito (0 = global)
+    private int indice; // posición dentro de su ámbito
+    private int slot; // posición única en toda la unidad (orden de declaración)
+    private long longitud = -1; // elementos de un arreglo; -1 si no es arreglo
 
-    public Simbolo(String nombre, String tipo, String valor, String ambito, int linea) {
+    public Simbolo(int id, String nombre, int tipo, String valor, Ambito ambito, int linea, int columna,
+                   int profundidad, int indice, int slot) {
+        this.id = id;
         this.nombre = nombre;
         this.tipo = tipo;
         this.valor = valor;
         this.ambito = ambito;
         this.linea = linea;
+        this.columna = columna;
+        this.profundidad = profundidad;
+        this.indice = indice;
+        this.slot = slot;
     }
 
+    public int getId() { return id; }
     public String getNombre() { return nombre; }
-    public String getTipo() { return tipo; }
+    public int getTipo() { return tipo; }
+    public String getNombreTipo() { return Tipo.nombre(tipo); }
     public String getValor() { return valor; }
-    public String getAmbito() { return ambito; }
+    public Ambito getAmbito() { return ambito; }
     public int getLinea() { return linea; }
+    public int getColumna() { return columna; }
+    public int getProfundidad() { return profundidad; }
+    public int getIndice() { return indice; }
+    public int getSlot() { return slot; }
+    public long getLongitud() { return longitud; }
 
     public void setValor(String valor) { this.valor = valor; }
+    public void setLongitud(long longitud) { this.longitud = longitud; }
 
     @Override
     public String toString() {
-        return nombre + "\t" + tipo + "\t" + valor + "\t" + ambito + "\t" + linea;
+        return nombre + "\t" + Tipo.nombre(tipo) + "\t" + valor + "\t" + ambito + "\t" + linea;
     }
 }
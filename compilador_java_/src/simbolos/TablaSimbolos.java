@@ -1,36 +1,210 @@
 package simbolos;
 
+import java.io.PrintStream;
 import java.util.*;
+import lexer.Nombres;
 
+// Tabla de símbolos con ámbitos anidados. Cada nombre (por id de lexer.Nombres)
+// apunta a su declaración visible; al declarar se guarda en un registro de
+// deshacer la declaración que queda oculta, y al salir de un ámbito se restaura
+// sin copiar mapas. Cada símbolo recibe su posición (profundidad, índice)
+// y un slot único en toda la unidad.
 public class TablaSimbolos {
-    private HashMap<String, Simbolo> tabla = new HashMap<>();
+    // Declaración visible por id de nombre
+    private Simbolo[] porId = new Simbolo[64];
 
-    public boolean agregar(String nombre, String tipo, String valor, String ambito, int linea) {
-        if (tabla.containsKey(nombre)) {
-            return false;
+    // Registro de deshacer: id declarado y la declaración que ocultó
+    private int[] logIds = new int[64];
+    private Simbolo[] logPrevios = new Simbolo[64];
+    private int tope;
+
+    // Pila de ámbitos: posición del registro al entrar, nombre y cantidad de símbolos
+    private int[] marcas = new int[16];
+    private Ambito[] ambitos = new Ambito[16];
+    private int[] cantidades = new int[16];
+    private int profundidad;
+
+    private ArrayList<Simbolo> declarados = new ArrayList<>();
+    private Nombres nombres;
+
+    // Modo incremental: lo que falta se pide al resolutor, solo en los niveles
+    // 0..externos (los que ya estaban abiertos al retomar el análisis)
+    private ResolutorGlobal resolutor;
+    private int externos = -1;
+
+    // Para --stats: las búsquedas se cuentan siempre; el tiempo solo si se pide
+    private long busquedas;
+    private boolean medir;
+    private long nanos;
+
+    public TablaSimbolos() {
+        this(new Nombres());
+    }
+
+    public TablaSimbolos(Nombres nombres) {
+        this.nombres = nombres;
+        ambitos[0] = Ambito.GLOBAL;
+    }
+
+    public Nombres getNombres() { return nombres; }
+    public int getProfundidad() { return profundidad; }
+    public Ambito getAmbito() { return ambitos[profundidad]; }
+    public long getBusquedas() { return busquedas; }
+    public long getNanos() { return nanos; }
+
+    public void medirTiempo(boolean medir) { this.medir = medir; }
+    public boolean midiendoTiempo() { return medir; }
+
+    public void setResolutor(ResolutorGlobal resolutor) { this.resolutor = resolutor; }
+
+    // Los ámbitos abiertos hasta ahora tienen declaraciones anteriores que resuelve el resolutor
+    public void marcarExternos() { externos = profundidad; }
+
+    private Simbolo externo(int id) {
+        return externos >= 0 ? resolutor.resolver(id, externos) : null;
+    }
+
+    public void entrarAmbito(String nombre) {
+        profundidad++;
+        if (profundidad == marcas.length) {
+            int n = marcas.length * 2;
+            marcas = Arrays.copyOf(marcas, n);
+            ambitos = Arrays.copyOf(ambitos, n);
+            cantidades = Arrays.copyOf(cantidades, n);
+        }
+        marcas[profundidad] = tope;
+        ambitos[profundidad] = new Ambito(nombre, ambitos[profundidad - 1]);
+        cantidades[profundidad] = 0;
+    }
+
+    public void salirAmbito() {
+        if (profundidad == 0) return;
+        int marca = marcas[profundidad];
+        while (tope > marca) {
+            tope--;
+            porId[logIds[tope]] = logPrevios[tope];
+            logPrevios[tope] = null;
+        }
+        profundidad--;
+        if (externos > profundidad) externos = profundidad;
+    }
+
+    // Devuelve null si el nombre ya está declarado en el ámbito actual
+    public Simbolo agregar(int id, int tipo, String valor, int linea, int columna) {
+        if (!medir) return declarar(id, tipo, valor, linea, columna);
+        long inicio = System.nanoTime();
+        Simbolo s = declarar(id, tipo, valor, linea, columna);
+        nanos += System.nanoTime() - inicio;
+        return s;
+    }
+
+    private Simbolo declarar(int id, int tipo, String valor, int linea, int columna) {
+        if (id >= porId.length) porId = Arrays.copyOf(porId, Math.max(porId.length * 2, id + 1));
+        Simbolo previo = porId[id];
+        // el registro de deshacer guarda solo lo local; lo externo cuenta para la redeclaración
+        Simbolo visible = previo;
+        if (resolutor != null) {
+            resolutor.consultado(id);
+            if (visible == null) visible = externo(id);
+        }
+        if (visible != null && visible.getProfundidad() == profundidad) {
+            return null;
+        }
+        Simbolo s = new Simbolo(id, nombres.nombre(id), tipo, valor, ambitos[profundidad], linea, columna,
+                profundidad, cantidades[profundidad]++, declarados.size());
+        if (tope == logIds.length) {
+            logIds = Arrays.copyOf(logIds, tope * 2);
+            logPrevios = Arrays.copyOf(logPrevios, tope * 2);
+        }
+        logIds[tope] = id;
+        logPrevios[tope] = previo;
+        tope++;
+        porId[id] = s;
+        declarados.add(s);
+        return s;
+    }
+
+    // Agrega al final lo declarado en otra tabla (un tramo del programa analizado
+    // aparte, en el nivel global): los globales siguen la numeración de esta y
+    // quedan visibles, como si se hubieran declarado acá. Si el tramo empezó
+    // dentro de un ámbito ('heredado'), lo suyo se numera después de los 'previos'.
+    public void incorporar(TablaSimbolos tramo, Ambito heredado, int previos) {
+        for (Simbolo s : tramo.declarados) {
+            int id = s.getId(), p = s.getProfundidad();
+            int indice = p == 0 ? cantidades[0]++ : s.getAmbito() == heredado ? previos + s.getIndice() : s.getIndice();
+            Simbolo n = new Simbolo(id, s.getNombre(), s.getTipo(), s.getValor(), s.getAmbito(), s.getLinea(),
+                    s.getColumna(), p, indice, declarados.size());
+            n.setLongitud(s.getLongitud());
+            if (p == 0) {
+                if (id >= porId.length) porId = Arrays.copyOf(porId, Math.max(porId.length * 2, id + 1));
+                porId[id] = n;
+            }
+            declarados.add(n);
         }
-        tabla.put(nombre, new Simbolo(nombre, tipo, valor, ambito, linea));
-        return true;
+        busquedas += tramo.busquedas;
+        nanos += tramo.nanos;
+    }
+
+    public Simbolo agregar(String nombre, int tipo, String valor, int linea, int columna) {
+        return agregar(nombres.internar(nombre), tipo, valor, linea, columna);
+    }
+
+    public Simbolo buscar(int id) {
+        busquedas++;
+        if (resolutor != null) return buscarConResolutor(id);
+        if (!medir) return id >= 0 && id < porId.length ? porId[id] : null;
+        long inicio = System.nanoTime();
+        Simbolo s = id >= 0 && id < porId.length ? porId[id] : null;
+        nanos += System.nanoTime() - inicio;
+        return s;
+    }
+
+    private Simbolo buscarConResolutor(int id) {
+        if (id < 0) return null;
+        resolutor.consultado(id);
+        Simbolo s = id < porId.length ? porId[id] : null;
+        return s != null ? s : externo(id);
     }
 
     public Simbolo buscar(String nombre) {
-        return tabla.get(nombre);
+        return buscar(nombres.buscar(nombre));
+    }
+
+    public boolean existe(int id) {
+        return buscar(id) != null;
     }
 
     public boolean existe(String nombre) {
-        return tabla.containsKey(nombre);
+        return buscar(nombre) != null;
+    }
+
+    // Símbolo por slot (orden de declaración en toda la unidad)
+    public Simbolo simbolo(int slot) {
+        return declarados.get(slot);
+    }
+
+    public int cantidad() {
+        return declarados.size();
+    }
+
+    public List<Simbolo> getDeclarados() {
+        return Collections.unmodifiableList(declarados);
     }
 
     public void actualizarValor(String nombre, String valor) {
-        Simbolo s = tabla.get(nombre);
+        Simbolo s = buscar(nombre);
         if (s != null) s.setValor(valor);
     }
 
     public void mostrar() {
-        System.out.println("\n--- TABLA DE SÍMBOLOS ---");
-        System.out.println("Nombre\tTipo\tValor\tÁmbito\tLínea");
-        for (Simbolo s : tabla.values()) {
-            System.out.println(s);
+        mostrar(System.out);
+    }
+
+    public void mostrar(PrintStream salida) {
+        salida.println("\n--- TABLA DE SÍMBOLOS ---");
+        salida.println("Nombre\tTipo\tValor\tÁmbito\tLínea");
+        for (Simbolo s : declarados) {
+            salida.println(s);
         }
     }
 }
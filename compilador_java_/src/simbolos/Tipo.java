@@ -0,0 +1,71 @@
+package simbolos;
+
+// Tipos del lenguaje codificados en un int: tipo base en los bits bajos
+// más las marcas ARREGLO y CONST. Las reglas de promoción y compatibilidad
+// están precalculadas en tablas indexadas por (t1, t2) sin la marca CONST.
+public final class Tipo {
+    // Tipos base
+    public static final int NINGUNO = 0, LONG = 1, DOUBLE = 2, STRING = 3, BOOL = 4;
+    // Marcas
+    public static final int ARREGLO = 8, CONST = 16;
+
+    private static final int BASE = 7;
+    private static final int N = 16; // códigos posibles sin CONST
+
+    // Resultado de + - * / (NINGUNO si la operación no es válida)
+    private static final byte[] ARITMETICA = new byte[N * N];
+    // Operandos válidos para && || == <> < > <= >=
+    private static final boolean[] COMPARABLE = new boolean[N * N];
+    // Se puede asignar un valor de tipo t2 a una variable de tipo t1
+    private static final boolean[] ASIGNABLE = new boolean[N * N];
+    private static final String[] NOMBRES = new String[N * 2];
+
+    static {
+        for (int a = 0; a < N; a++) {
+            for (int b = 0; b < N; b++) {
+                int i = a * N + b;
+                boolean numericos = esNumerico(a) && esNumerico(b);
+                if (numericos) ARITMETICA[i] = (byte) (a == DOUBLE || b == DOUBLE ? DOUBLE : LONG);
+                COMPARABLE[i] = numericos || a == b;
+                ASIGNABLE[i] = a == b || (a == DOUBLE && b == LONG); // promoción implícita
+            }
+        }
+        String[] bases = {"", "long", "double", "string", "bool"};
+        for (int t = 0; t < NOMBRES.length; t++) {
+            if ((t & BASE) >= bases.length) continue;
+            String nombre = bases[t & BASE];
+            if ((t & ARREGLO) != 0) nombre += "[]";
+            if ((t & CONST) != 0) nombre += " (const)";
+            NOMBRES[t] = nombre;
+        }
+    }
+
+    private Tipo() {}
+
+    public static int base(int t) { return t & BASE; }
+    public static boolean esArreglo(int t) { return (t & ARREGLO) != 0; }
+    public static boolean esConst(int t) { return (t & CONST) != 0; }
+    public static boolean esNumerico(int t) { return t == LONG || t == DOUBLE; }
+
+    // Tipo como valor de expresión: sin la marca CONST
+    public static int valor(int t) { return t & ~CONST; }
+
+    // Tipo de un elemento: sin CONST ni ARREGLO
+    public static int elemento(int t) { return t & BASE; }
+
+    public static int aritmetica(int t1, int t2) {
+        return ARITMETICA[valor(t1) * N + valor(t2)];
+    }
+
+    public static boolean comparable(int t1, int t2) {
+        return COMPARABLE[valor(t1) * N + valor(t2)];
+    }
+
+    public static boolean asignable(int tipoVar, int tipoExpr) {
+        return ASIGNABLE[valor(tipoVar) * N + valor(tipoExpr)];
+    }
+
+    public static String nombre(int t) {
+        return NOMBRES[t];
+    }
+}